@@ -0,0 +1,114 @@
+package com.expensetracker.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded ring buffer in front of the "HTTP" logger. Request threads only enqueue a pre-built line;
+ * a single daemon thread drains the buffer and performs the actual appender I/O. When the buffer is
+ * full new lines are dropped (never blocking the request) and the drop count is reported on the next drain;
+ * lines lost to a failing appender are reported the same way.
+ */
+@Component
+public class AsyncAccessLogWriter {
+
+    private static final Logger log = LoggerFactory.getLogger("HTTP");
+
+    @Value("${app.http.logging.async.enabled:true}")
+    private boolean asyncEnabled;
+
+    @Value("${app.http.logging.async.queue-capacity:8192}")
+    private int queueCapacity;
+
+    private BlockingQueue<Line> queue;
+    private Thread drainer;
+    private volatile boolean running;
+    private final AtomicLong dropped = new AtomicLong();
+
+    @PostConstruct
+    void start() {
+        if (!asyncEnabled) return;
+        queue = new ArrayBlockingQueue<>(Math.max(64, queueCapacity));
+        running = true;
+        drainer = new Thread(this::drainLoop, "http-access-log");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (drainer != null) {
+            drainer.interrupt();
+            try { drainer.join(2000); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+            flush();
+        }
+    }
+
+    public void info(String line) { write(false, line); }
+
+    public void warn(String line) { write(true, line); }
+
+    public long droppedCount() { return dropped.get(); }
+
+    private void write(boolean warn, String line) {
+        if (queue == null) {
+            emit(new Line(warn, line));
+            return;
+        }
+        if (!queue.offer(new Line(warn, line))) dropped.incrementAndGet();
+    }
+
+    private void drainLoop() {
+        List<Line> batch = new ArrayList<>(256);
+        int emitted = 0;
+        while (running) {
+            emitted = 0;
+            try {
+                Line first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, 255);
+                for (Line line : batch) {
+                    emit(line);
+                    emitted++;
+                }
+                batch.clear();
+                long lost = dropped.getAndSet(0);
+                if (lost > 0) log.warn("access log buffer full, dropped {} lines", lost);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                // The line that failed and everything after it in the batch are lost; report them like buffer-full drops
+                int lost = batch.size() - emitted;
+                batch.clear();
+                log.warn("access log write failed, dropped {} lines", lost, e);
+            }
+        }
+    }
+
+    private void flush() {
+        if (queue == null) return;
+        List<Line> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        rest.forEach(this::emit);
+    }
+
+    private void emit(Line l) {
+        if (l.warn) log.warn(l.text); else log.info(l.text);
+    }
+
+    private record Line(boolean warn, String text) {}
+}
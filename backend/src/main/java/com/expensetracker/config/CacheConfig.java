@@ -1,6 +1,11 @@
 package com.expensetracker.config;
 
+import com.expensetracker.service.ForecastCache;
+import com.expensetracker.service.TaxRuleCache;
+import com.expensetracker.service.TaxSummaryCache;
+import com.expensetracker.service.cache.UserDataVersionService;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCache;
@@ -18,17 +23,41 @@ public class CacheConfig {
     public Caffeine<Object,Object> caffeineSpec() {
         return Caffeine.newBuilder()
                 .expireAfterWrite(10, TimeUnit.MINUTES)
-                .maximumSize(10_000);
+                .maximumSize(10_000)
+                .recordStats(); // hit/miss/eviction stats, bound to Micrometer as cache.gets{cache=...} by Boot
     }
 
     @Bean
-    public CacheManager cacheManager(Caffeine<Object,Object> caffeine) {
+    public CacheManager cacheManager(Caffeine<Object,Object> caffeine,
+                                     @Value("${app.cache.forecast.ttl-seconds:60}") long forecastTtlSeconds,
+                                     @Value("${app.cache.forecast.max-users:5000}") long forecastMaxUsers,
+                                     @Value("${app.cache.tax-rules.ttl-seconds:60}") long taxRulesTtlSeconds,
+                                     @Value("${app.cache.tax-rules.max-users:5000}") long taxRulesMaxUsers,
+                                     @Value("${app.cache.tax-summary.ttl-seconds:300}") long taxSummaryTtlSeconds,
+                                     @Value("${app.cache.tax-summary.max-users:5000}") long taxSummaryMaxUsers) {
         SimpleCacheManager mgr = new SimpleCacheManager();
         mgr.setCaches(List.of(
-                new CaffeineCache("analytics:summary", caffeine.build()),
+                new CaffeineCache(UserDataVersionService.ANALYTICS_SUMMARY, caffeine.build()),
+                new CaffeineCache(UserDataVersionService.DASHBOARD_SUMMARY, caffeine.build()),
+                new CaffeineCache(UserDataVersionService.TRENDS_MONTHLY_NET, caffeine.build()),
+                new CaffeineCache(UserDataVersionService.TRENDS_SERIES, caffeine.build()),
+                new CaffeineCache(UserDataVersionService.TRENDS_BREAKDOWN, caffeine.build()),
+                new CaffeineCache(UserDataVersionService.BUDGETS_SUMMARY, caffeine.build()),
                 new CaffeineCache("plans:byTypeCurrency", caffeine.build()),
-                new CaffeineCache("plans:all", caffeine.build())
+                new CaffeineCache("plans:all", caffeine.build()),
+                // Per-user caches: one entry per user, invalidated in O(1) (see PerUserCache)
+                new CaffeineCache(ForecastCache.CACHE_NAME, perUser(forecastTtlSeconds, forecastMaxUsers)),
+                new CaffeineCache(TaxRuleCache.CACHE_NAME, perUser(taxRulesTtlSeconds, taxRulesMaxUsers)),
+                new CaffeineCache(TaxSummaryCache.CACHE_NAME, perUser(taxSummaryTtlSeconds, taxSummaryMaxUsers))
         ));
         return mgr;
     }
+
+    private com.github.benmanes.caffeine.cache.Cache<Object,Object> perUser(long ttlSeconds, long maxUsers) {
+        return Caffeine.newBuilder()
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .maximumSize(maxUsers)
+                .recordStats()
+                .build();
+    }
 }
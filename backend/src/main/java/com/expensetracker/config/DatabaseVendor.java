@@ -0,0 +1,40 @@
+package com.expensetracker.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/** Which of the two supported databases the app is connected to, for the few statements that differ (upserts, sequences, locks). */
+@Component
+public class DatabaseVendor {
+    private final JdbcTemplate jdbc;
+    private volatile Boolean oracle;
+
+    @Autowired
+    public DatabaseVendor(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /** For tests and callers that already know the vendor. */
+    public DatabaseVendor(boolean oracle) {
+        this.jdbc = null;
+        this.oracle = oracle;
+    }
+
+    public boolean isOracle() {
+        Boolean o = oracle;
+        if (o == null) {
+            String product = jdbc.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+            oracle = o = product != null && product.toLowerCase(Locale.ROOT).contains("oracle");
+        }
+        return o;
+    }
+
+    /** SELECT returning the next value of {@code sequence}. */
+    public String nextValSql(String sequence) {
+        return isOracle() ? "SELECT " + sequence + ".NEXTVAL FROM dual" : "SELECT nextval('" + sequence + "')";
+    }
+}
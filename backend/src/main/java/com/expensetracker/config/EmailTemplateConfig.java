@@ -0,0 +1,37 @@
+package com.expensetracker.config;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.cache.StandardCacheManager;
+
+/**
+ * Explicit Thymeleaf cache sizing for email rendering. Boot's defaults (200 parsed templates, 500 expressions)
+ * are kept as the floor; nightly digest runs render a handful of templates thousands of times, so what matters is
+ * that parsed templates and expressions are never evicted and the template cache never expires.
+ * Applied before the engine's lazy initialization, i.e. before the first render.
+ */
+@Configuration
+public class EmailTemplateConfig {
+
+    @Bean
+    public static BeanPostProcessor emailTemplateCacheConfigurer(Environment env) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                if (bean instanceof TemplateEngine engine && !engine.isInitialized()) {
+                    StandardCacheManager cacheManager = new StandardCacheManager();
+                    cacheManager.setTemplateCacheMaxSize(env.getProperty("app.mail.templates.template-cache-size", Integer.class, 200));
+                    cacheManager.setTemplateCacheUseSoftReferences(false);
+                    cacheManager.setExpressionCacheMaxSize(env.getProperty("app.mail.templates.expression-cache-size", Integer.class, 2000));
+                    cacheManager.setExpressionCacheUseSoftReferences(false);
+                    engine.setCacheManager(cacheManager);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,73 @@
+package com.expensetracker.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Cluster-wide lease for scheduled jobs that every replica triggers but only one should run (one row per job in
+ * job_locks). The lease is taken and released in their own short transactions, so a failed attempt never touches the
+ * caller's transaction, and it expires on its own if the holder dies. Replica clocks only need to agree to well within
+ * the lease.
+ */
+@Component
+public class JobLock {
+    private static final Logger log = LoggerFactory.getLogger(JobLock.class);
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final String owner = UUID.randomUUID().toString();
+
+    public JobLock(JdbcTemplate jdbc, PlatformTransactionManager transactionManager) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /** Runs {@code job} if no other replica holds {@code name}; returns whether it ran. */
+    public boolean runExclusively(String name, Duration lease, Runnable job) {
+        if (!tryAcquire(name, lease)) {
+            log.debug("Job {} is running on another instance; skipping", name);
+            return false;
+        }
+        try {
+            job.run();
+        } finally {
+            release(name);
+        }
+        return true;
+    }
+
+    boolean tryAcquire(String name, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp until = Timestamp.valueOf(now.plus(lease));
+        Boolean acquired = tx.execute(status -> jdbc.update("UPDATE job_locks SET locked_until = ?, locked_by = ? WHERE name = ? AND locked_until <= ?",
+                until, owner, name, Timestamp.valueOf(now)) == 1);
+        if (Boolean.TRUE.equals(acquired)) return true;
+        try {
+            tx.executeWithoutResult(status -> jdbc.update("INSERT INTO job_locks (name, locked_until, locked_by) VALUES (?, ?, ?)", name, until, owner));
+            return true;
+        } catch (DuplicateKeyException held) {
+            return false;
+        }
+    }
+
+    void release(String name) {
+        try {
+            tx.executeWithoutResult(status -> jdbc.update("UPDATE job_locks SET locked_until = ? WHERE name = ? AND locked_by = ?",
+                    Timestamp.valueOf(LocalDateTime.now()), name, owner));
+        } catch (RuntimeException ex) {
+            log.warn("Failed to release job lock {} (expires with its lease): {}", name, ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.expensetracker.config;
+
+import java.lang.annotation.*;
+
+/**
+ * Opt-in for full request/response body capture by {@link RequestResponseLoggingAspect}.
+ * By default only a compact access line is written; annotated controllers or handler methods
+ * additionally get their (masked, summarized) args and response body logged on every sampled call.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface LogHttpBody {
+}
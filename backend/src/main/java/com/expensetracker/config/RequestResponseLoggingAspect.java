@@ -7,8 +7,6 @@ import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
@@ -18,96 +16,129 @@ import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
-import java.time.Duration;
-import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.IntStream;
 
+/**
+ * HTTP access logging for all REST controllers.
+ *
+ * Default ("access") mode writes one compact line per sampled request through {@link AsyncAccessLogWriter};
+ * args and response bodies are only serialized for slow requests, routes annotated with {@link LogHttpBody}
+ * or paths listed in app.http.logging.body-paths. Errors are always logged. "full" mode keeps the old
+ * behaviour of capturing bodies on every request.
+ */
 @Aspect
 @Component
 public class RequestResponseLoggingAspect {
 
-    private static final Logger log = LoggerFactory.getLogger("HTTP");
+    private static final Pattern JSON_STRING_PAIR = Pattern.compile("\\\"(.*?)\\\"\\s*:\\s*\\\"(.*?)\\\"");
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AsyncAccessLogWriter writer;
+    private final Map<java.lang.reflect.Method, Boolean> bodyOptIn = new java.util.concurrent.ConcurrentHashMap<>();
 
     @Value("${app.http.logging.enabled:true}")
     private boolean httpLogging;
+    @Value("${app.http.logging.mode:access}")
+    private String mode;
+    @Value("${app.http.logging.sample-rate:1.0}")
+    private double sampleRate;
+    @Value("${app.http.logging.slow-threshold-ms:1000}")
+    private long slowThresholdMs;
+    @Value("${app.http.logging.body-paths:}")
+    private String[] bodyPaths;
     private static final Set<String> SENSITIVE_KEYS = Set.of(
             "password", "pass", "pwd", "token", "accessToken", "refreshToken", "authorization", "auth", "secret", "apiKey", "api_key", "email"
     );
+    private static final Set<String> SENSITIVE_KEYS_LOWER = SENSITIVE_KEYS.stream().map(String::toLowerCase).collect(java.util.stream.Collectors.toUnmodifiableSet());
+
+    public RequestResponseLoggingAspect(AsyncAccessLogWriter writer) {
+        this.writer = writer;
+    }
 
     @Around("within(@org.springframework.web.bind.annotation.RestController *)")
     public Object logAround(ProceedingJoinPoint pjp) throws Throwable {
-    if (!httpLogging) return pjp.proceed();
-    Instant start = Instant.now();
-        MethodSignature signature = (MethodSignature) pjp.getSignature();
-        String controller = signature.getDeclaringType().getSimpleName();
-        String method = signature.getMethod().getName();
-
+        if (!httpLogging) return pjp.proceed();
+        long start = System.nanoTime();
         HttpServletRequest request = currentRequest();
         HttpServletResponse response = currentResponse();
         String correlationId = correlationId(request);
         MDC.put("correlationId", correlationId);
-
-        String httpMethod = request != null ? request.getMethod() : "N/A";
-        String path = request != null ? request.getRequestURI() : "N/A";
-
-        Map<String, Object> requestMeta = new HashMap<>();
-        requestMeta.put("controller", controller);
-        requestMeta.put("method", method);
-        requestMeta.put("httpMethod", httpMethod);
-        requestMeta.put("path", path);
-        requestMeta.put("correlationId", correlationId);
-        requestMeta.put("args", argsMap(signature.getParameterNames(), pjp.getArgs()));
+        if (response != null) response.setHeader("X-Correlation-Id", correlationId);
+        boolean sampled = sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
 
         try {
-            log.info("request: {}", toJsonSafe(requestMeta));
             Object result = pjp.proceed();
-            Duration duration = Duration.between(start, Instant.now());
-            Map<String, Object> responseMeta = new HashMap<>();
-            responseMeta.put("controller", controller);
-            responseMeta.put("method", method);
-            responseMeta.put("durationMs", duration.toMillis());
-            responseMeta.put("correlationId", correlationId);
+            long durationMs = (System.nanoTime() - start) / 1_000_000;
+            boolean slow = slowThresholdMs > 0 && durationMs >= slowThresholdMs;
+            if (!sampled && !slow) return result;
+
+            MethodSignature signature = (MethodSignature) pjp.getSignature();
+            StringBuilder line = accessLine(signature, request, correlationId, durationMs);
+            Integer status = null;
+            if (result instanceof ResponseEntity<?> re) status = re.getStatusCode().value();
+            else if (response != null) status = response.getStatus();
+            if (status != null) line.append(",\"status\":").append(status);
+            if (slow) line.append(",\"slow\":true");
             // Avoid deep serialization / recursion for streaming responses
             if (result instanceof SseEmitter) {
-                responseMeta.put("resultType", "SseEmitter");
-                responseMeta.put("body", "<stream>");
-                if (response != null) response.setHeader("X-Correlation-Id", correlationId);
-                log.info("response: {}", toJsonSafe(responseMeta));
-                return result;
-            }
-            if (result instanceof ResponseEntity<?> re) {
-                responseMeta.put("status", re.getStatusCode().value());
-                responseMeta.put("body", summarize(re.getBody()));
-                if (response != null) response.setHeader("X-Correlation-Id", correlationId);
-                log.info("response: {}", toJsonSafe(responseMeta));
-                return re;
-            } else {
-                responseMeta.put("resultType", result != null ? result.getClass().getSimpleName() : "null");
-                responseMeta.put("body", summarize(result));
-                if (response != null) response.setHeader("X-Correlation-Id", correlationId);
-                log.info("response: {}", toJsonSafe(responseMeta));
-                return result;
+                line.append(",\"resultType\":\"SseEmitter\"");
+            } else if ("full".equalsIgnoreCase(mode) || slow || wantsBody(signature, request)) {
+                Object body = result instanceof ResponseEntity<?> entity ? entity.getBody() : result;
+                line.append(",\"args\":").append(toJsonSafe(argsMap(signature.getParameterNames(), pjp.getArgs())));
+                line.append(",\"body\":").append(toJsonSafe(summarize(body)));
             }
+            writer.info("response: " + line.append('}'));
+            return result;
         } catch (Throwable ex) {
-            Duration duration = Duration.between(start, Instant.now());
-            Map<String, Object> errorMeta = new HashMap<>();
-            errorMeta.put("controller", controller);
-            errorMeta.put("method", method);
-            errorMeta.put("durationMs", duration.toMillis());
-            errorMeta.put("error", ex.getClass().getSimpleName());
-            errorMeta.put("message", ex.getMessage());
-            errorMeta.put("correlationId", correlationId);
-            log.warn("exception: {}", toJsonSafe(errorMeta));
+            long durationMs = (System.nanoTime() - start) / 1_000_000;
+            StringBuilder line = accessLine((MethodSignature) pjp.getSignature(), request, correlationId, durationMs);
+            line.append(",\"error\":").append(quote(ex.getClass().getSimpleName()));
+            line.append(",\"message\":").append(quote(ex.getMessage()));
+            writer.warn("exception: " + line.append('}'));
             throw ex;
         } finally {
             MDC.remove("correlationId");
         }
     }
 
+    private StringBuilder accessLine(MethodSignature signature, HttpServletRequest request, String correlationId, long durationMs) {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("{\"controller\":").append(quote(signature.getDeclaringType().getSimpleName()));
+        sb.append(",\"method\":").append(quote(signature.getMethod().getName()));
+        sb.append(",\"httpMethod\":").append(quote(request != null ? request.getMethod() : "N/A"));
+        sb.append(",\"path\":").append(quote(request != null ? request.getRequestURI() : "N/A"));
+        sb.append(",\"durationMs\":").append(durationMs);
+        sb.append(",\"correlationId\":").append(quote(correlationId));
+        return sb;
+    }
+
+    private boolean wantsBody(MethodSignature signature, HttpServletRequest request) {
+        boolean annotated = bodyOptIn.computeIfAbsent(signature.getMethod(), m ->
+                m.isAnnotationPresent(LogHttpBody.class) || m.getDeclaringClass().isAnnotationPresent(LogHttpBody.class));
+        if (annotated) return true;
+        if (request == null || bodyPaths == null) return false;
+        String uri = request.getRequestURI();
+        for (String p : bodyPaths) {
+            if (p != null && !p.isBlank() && uri.startsWith(p.trim())) return true;
+        }
+        return false;
+    }
+
+    private String quote(String v) {
+        if (v == null) return "null";
+        StringBuilder sb = new StringBuilder(v.length() + 2).append('"');
+        for (int i = 0; i < v.length(); i++) {
+            char c = v.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append(' ');
+            else sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+
     private HttpServletRequest currentRequest() {
         RequestAttributes attrs = RequestContextHolder.getRequestAttributes();
         if (attrs instanceof ServletRequestAttributes sra) {
@@ -224,8 +255,7 @@ public class RequestResponseLoggingAspect {
 
     private String maskJson(String json) {
         if (json == null || json.isEmpty()) return json;
-        Pattern p = Pattern.compile("\\\"(.*?)\\\"\\s*:\\s*\\\"(.*?)\\\"");
-        Matcher m = p.matcher(json);
+        Matcher m = JSON_STRING_PAIR.matcher(json);
         StringBuffer sb = new StringBuffer();
         while (m.find()) {
             String key = m.group(1);
@@ -241,8 +271,7 @@ public class RequestResponseLoggingAspect {
 
     private boolean isSensitive(String key) {
         if (key == null) return false;
-        String k = key.toLowerCase();
-        return SENSITIVE_KEYS.stream().anyMatch(s -> k.equals(s.toLowerCase()));
+        return SENSITIVE_KEYS_LOWER.contains(key.toLowerCase());
     }
 
     private String maskValue(String key, String value) {
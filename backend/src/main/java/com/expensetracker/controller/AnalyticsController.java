@@ -25,7 +25,7 @@ public class AnalyticsController {
             @RequestParam(value = "startDate", required = false) String startDate,
             @RequestParam(value = "endDate", required = false) String endDate) {
         String token = authHeader.replace("Bearer ", "");
-    AnalyticsSummaryDto summary = analyticsService.getSummary(token, startDate, endDate);
+    AnalyticsSummaryDto summary = analyticsService.cachedSummary(token, startDate, endDate);
     currencyFormatService.formatAnalytics(authenticationFacade.currentUser(), summary);
         return ResponseEntity.ok(summary);
     }
@@ -2,20 +2,24 @@ package com.expensetracker.controller;
 
 import com.expensetracker.model.StatementJob;
 import com.expensetracker.repository.StatementJobRepository;
+import com.expensetracker.service.statement.StatementReplayService;
 import jakarta.transaction.Transactional;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/internal/jobs")
 public class InternalJobController {
     private final StatementJobRepository repository;
+    private final StatementReplayService replayService;
 
-    public InternalJobController(StatementJobRepository repository) {
+    public InternalJobController(StatementJobRepository repository, StatementReplayService replayService) {
         this.repository = repository;
+        this.replayService = replayService;
     }
 
     @PostMapping("/{id}/chunk-complete")
@@ -59,6 +63,13 @@ public class InternalJobController {
         return ResponseEntity.ok().build();
     }
 
+    /** Re-derive every user's transactions from stored extraction output; one statement job per user. */
+    @PostMapping("/statement-replay")
+    public ResponseEntity<?> replayAllStatements(@RequestParam(defaultValue = "false") boolean dryRun) {
+        List<String> jobIds = replayService.replayAllUsers(dryRun);
+        return ResponseEntity.accepted().body(Map.of("dryRun", dryRun, "jobs", jobIds.size(), "jobIds", jobIds));
+    }
+
     public static class ChunkCompleteRequest {
         public Integer pages;
         public Integer totalChunks; // provided on first call
@@ -13,7 +13,9 @@ import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 public class SpendingAlertController {
     private final SpendingAlertService service;
     private final com.expensetracker.stream.SpendingAlertStreamPublisher publisher;
-    public SpendingAlertController(SpendingAlertService s, com.expensetracker.stream.SpendingAlertStreamPublisher p){ this.service=s; this.publisher=p; }
+    private final com.expensetracker.service.MerchantNormalizationBackfill merchantBackfill;
+    public SpendingAlertController(SpendingAlertService s, com.expensetracker.stream.SpendingAlertStreamPublisher p,
+                                   com.expensetracker.service.MerchantNormalizationBackfill mb){ this.service=s; this.publisher=p; this.merchantBackfill=mb; }
 
     @GetMapping
     public SpendingAlertListResponse list(@RequestParam(required = false) String month,
@@ -122,7 +124,7 @@ public class SpendingAlertController {
     @PostMapping("/normalize-merchants")
     public java.util.Map<String,Object> normalize(@RequestParam(defaultValue = "500") int batchSize,
                                                   @RequestParam(defaultValue = "20") int maxBatches){
-        long updated = service.normalizeMerchants(batchSize, maxBatches);
+        long updated = merchantBackfill.normalize(batchSize, maxBatches);
         return java.util.Map.of("updated", updated);
     }
 }
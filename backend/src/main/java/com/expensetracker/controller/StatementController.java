@@ -4,19 +4,20 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.beans.factory.annotation.Autowired;
 import com.expensetracker.dto.StatementUploadResponseDto;
-import com.expensetracker.dto.RawStatementDto;
 import com.expensetracker.service.StatementService;
-import java.util.List;
+import com.expensetracker.service.statement.StatementReplayService;
 
 @RestController
 @RequestMapping("/statements")
 @io.swagger.v3.oas.annotations.tags.Tag(name = "Statements", description = "Upload and list bank statements")
 public class StatementController {
     private final StatementService statementService;
+    private final StatementReplayService replayService;
 
     @Autowired
-    public StatementController(StatementService statementService) {
+    public StatementController(StatementService statementService, StatementReplayService replayService) {
         this.statementService = statementService;
+        this.replayService = replayService;
     }
 
     @PostMapping
@@ -29,8 +30,14 @@ public class StatementController {
     }
 
     @GetMapping
-    @io.swagger.v3.oas.annotations.Operation(summary = "List uploaded statements")
-    public List<RawStatementDto> getStatements(@RequestHeader("Authorization") String authHeader) {
+    @io.swagger.v3.oas.annotations.Operation(summary = "List uploaded statements (newest first; paged when page or size is given)")
+    public Object getStatements(@RequestHeader("Authorization") String authHeader,
+                                @RequestParam(required = false) Integer page,
+                                @RequestParam(required = false) Integer size) {
+        if (page != null || size != null) {
+            int p = page != null ? Math.max(page, 0) : 0; int s = size != null ? Math.min(Math.max(size, 1), 100) : 25;
+            return statementService.getStatements(p, s);
+        }
         return statementService.getStatements(authHeader);
     }
 
@@ -39,4 +46,17 @@ public class StatementController {
     public org.springframework.http.ResponseEntity<Void> downloadOriginal(@PathVariable("id") Long id, @RequestHeader("Authorization") String authHeader) {
         return statementService.downloadOriginal(id);
     }
+
+    @PostMapping("/{id}/replay")
+    @io.swagger.v3.oas.annotations.Operation(summary = "Re-derive a statement's transactions from its stored extraction output (dryRun=true only reports the diff)")
+    public StatementJobController.StatementJobDto replayStatement(@PathVariable("id") Long id,
+                                                                  @RequestParam(defaultValue = "false") boolean dryRun) {
+        return StatementJobController.StatementJobDto.from(replayService.replayStatement(id, dryRun));
+    }
+
+    @PostMapping("/replay")
+    @io.swagger.v3.oas.annotations.Operation(summary = "Re-derive transactions of all uploaded statements (progress via /statement-jobs)")
+    public StatementJobController.StatementJobDto replayAll(@RequestParam(defaultValue = "false") boolean dryRun) {
+        return StatementJobController.StatementJobDto.from(replayService.replayCurrentUser(dryRun));
+    }
 }
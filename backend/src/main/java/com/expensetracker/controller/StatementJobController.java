@@ -52,6 +52,8 @@ public class StatementJobController {
     public Integer totalChunks;
     public Integer processedChunks;
     public Integer errorCount;
+    public String resultSummary;
+    public Long rawStatementId;
         public static StatementJobDto from(StatementJob j) {
             StatementJobDto d = new StatementJobDto();
             d.id = j.getId();
@@ -68,6 +70,8 @@ public class StatementJobController {
             d.totalChunks = j.getTotalChunks();
             d.processedChunks = j.getProcessedChunks();
             d.errorCount = j.getErrorCount();
+            d.resultSummary = j.getResultSummary();
+            d.rawStatementId = j.getRawStatementId();
             return d;
         }
     }
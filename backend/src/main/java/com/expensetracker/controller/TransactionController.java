@@ -32,6 +32,9 @@ public class TransactionController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private com.expensetracker.service.TransactionCategoryService categoryService;
+
     private final JwtUtil jwtUtil;
 
     public TransactionController(JwtUtil jwtUtil) {
@@ -85,6 +88,12 @@ public class TransactionController {
         return ResponseEntity.ok(pageResult);
     }
 
+    /** Change a transaction's category; the choice is remembered for the merchant on future uploads. */
+    @org.springframework.web.bind.annotation.PatchMapping("/{id}/category")
+    public ResponseEntity<TransactionDto> correctCategory(@org.springframework.web.bind.annotation.PathVariable Long id,
+                                                          @org.springframework.web.bind.annotation.RequestBody java.util.Map<String, String> body) {
+        return ResponseEntity.ok(categoryService.correctCategory(id, body.get("category")));
+    }
 
     // Additional endpoints (add, update, delete) can be added here
     @GetMapping("/category-counts")
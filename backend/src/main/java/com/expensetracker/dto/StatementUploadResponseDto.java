@@ -5,6 +5,8 @@ public class StatementUploadResponseDto {
     private String message;
     private boolean passwordRequired;
     private String jobId; // present when async processing enabled
+    private Long rawStatementId; // set when answering a repeated upload with the existing statement
+    private boolean duplicate; // identical file uploaded within the dedupe window (or still in flight)
 
     public StatementUploadResponseDto() {}
 
@@ -30,4 +32,8 @@ public class StatementUploadResponseDto {
     public void setPasswordRequired(boolean passwordRequired) { this.passwordRequired = passwordRequired; }
     public String getJobId() { return jobId; }
     public void setJobId(String jobId) { this.jobId = jobId; }
+    public Long getRawStatementId() { return rawStatementId; }
+    public void setRawStatementId(Long rawStatementId) { this.rawStatementId = rawStatementId; }
+    public boolean isDuplicate() { return duplicate; }
+    public void setDuplicate(boolean duplicate) { this.duplicate = duplicate; }
 }
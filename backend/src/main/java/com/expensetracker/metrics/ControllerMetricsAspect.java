@@ -0,0 +1,50 @@
+package com.expensetracker.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per controller-method latency timer (app.controller.latency). Percentiles/histogram come from the
+ * management.metrics.distribution.*.app properties. Complements http.server.requests, which is only tagged by URI template.
+ */
+@Aspect
+@Component
+public class ControllerMetricsAspect {
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public ControllerMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("within(@org.springframework.web.bind.annotation.RestController *)")
+    public Object time(ProceedingJoinPoint pjp) throws Throwable {
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            return pjp.proceed();
+        } catch (Throwable ex) {
+            outcome = "error";
+            throw ex;
+        } finally {
+            String controller = pjp.getSignature().getDeclaringType().getSimpleName();
+            String method = pjp.getSignature().getName();
+            timer(controller, method, outcome).record(System.nanoTime() - start, java.util.concurrent.TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(String controller, String method, String outcome) {
+        return timers.computeIfAbsent(controller + '#' + method + '#' + outcome, k -> Timer.builder("app.controller.latency")
+                .description("Controller method latency")
+                .tags("controller", controller, "method", method, "outcome", outcome)
+                .register(registry));
+    }
+}
@@ -0,0 +1,71 @@
+package com.expensetracker.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how many SQL statements (and how much JDBC time) each request spends, tagged by route template,
+ * so N+1 patterns show up as app.http.sql.statements percentiles in Prometheus.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+public class SqlMetricsFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlMetricsFilter.class);
+
+    private final MeterRegistry registry;
+
+    @Value("${app.metrics.sql.warn-threshold:100}")
+    private int warnThreshold;
+
+    public SqlMetricsFilter(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+        SqlRequestStats stats = SqlRequestStats.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            SqlRequestStats.end();
+            record(request, stats);
+        }
+    }
+
+    private void record(HttpServletRequest request, SqlRequestStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern == null) return; // static resources, 404s, filter-level rejections
+        String uri = pattern.toString();
+        String method = request.getMethod();
+        DistributionSummary.builder("app.http.sql.statements")
+                .description("SQL statements executed per request")
+                .tags("uri", uri, "method", method)
+                .register(registry)
+                .record(stats.getStatements());
+        Timer.builder("app.http.sql.time")
+                .description("JDBC execution time per request")
+                .tags("uri", uri, "method", method)
+                .register(registry)
+                .record(stats.getExecutionNanos(), TimeUnit.NANOSECONDS);
+        if (warnThreshold > 0 && stats.getStatements() >= warnThreshold) {
+            log.warn("High SQL statement count: {} statements for {} {}", stats.getStatements(), method, uri);
+        }
+    }
+}
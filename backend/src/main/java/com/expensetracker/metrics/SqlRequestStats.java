@@ -0,0 +1,37 @@
+package com.expensetracker.metrics;
+
+/**
+ * Per-thread SQL counters for the request (or job) currently running on this thread.
+ * Filled by {@link SqlStatementInspector} / {@link SqlTimingSessionListener}, which Hibernate instantiates
+ * itself, hence the static thread-local instead of a Spring bean.
+ */
+public final class SqlRequestStats {
+
+    private static final ThreadLocal<SqlRequestStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long executionNanos;
+
+    private SqlRequestStats() {}
+
+    public static SqlRequestStats begin() {
+        SqlRequestStats stats = new SqlRequestStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static void end() { CURRENT.remove(); }
+
+    static void statementPrepared() {
+        SqlRequestStats s = CURRENT.get();
+        if (s != null) s.statements++;
+    }
+
+    static void executed(long nanos) {
+        SqlRequestStats s = CURRENT.get();
+        if (s != null) s.executionNanos += nanos;
+    }
+
+    public int getStatements() { return statements; }
+    public long getExecutionNanos() { return executionNanos; }
+}
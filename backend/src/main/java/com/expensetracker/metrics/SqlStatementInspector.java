@@ -0,0 +1,16 @@
+package com.expensetracker.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts every SQL statement Hibernate prepares on the current thread. Registered through
+ * spring.jpa.properties.hibernate.session_factory.statement_inspector.
+ */
+public class SqlStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        SqlRequestStats.statementPrepared();
+        return sql;
+    }
+}
@@ -0,0 +1,25 @@
+package com.expensetracker.metrics;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Accumulates JDBC execution time (single statements and batches) into {@link SqlRequestStats}.
+ * Hibernate creates one instance per session via hibernate.session.events.auto.
+ */
+public class SqlTimingSessionListener implements SessionEventListener {
+
+    private long statementStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() { statementStart = System.nanoTime(); }
+
+    @Override
+    public void jdbcExecuteStatementEnd() { SqlRequestStats.executed(System.nanoTime() - statementStart); }
+
+    @Override
+    public void jdbcExecuteBatchStart() { batchStart = System.nanoTime(); }
+
+    @Override
+    public void jdbcExecuteBatchEnd() { SqlRequestStats.executed(System.nanoTime() - batchStart); }
+}
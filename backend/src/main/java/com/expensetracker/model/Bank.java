@@ -2,8 +2,9 @@ package com.expensetracker.model;
 
 import jakarta.persistence.*;
 
+/** Names are unique per user, case-insensitively (index uq_banks_user_lower_name on (user_id, lower(name))). */
 @Entity
-@Table(name = "banks", uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "name"}))
+@Table(name = "banks")
 public class Bank {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -2,8 +2,9 @@ package com.expensetracker.model;
 
 import jakarta.persistence.*;
 
+/** Names are unique per user, case-insensitively (index uq_categories_user_lower_name on (user_id, lower(name))). */
 @Entity
-@Table(name = "categories", uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "name"}))
+@Table(name = "categories")
 public class Category {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
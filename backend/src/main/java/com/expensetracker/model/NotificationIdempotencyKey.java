@@ -0,0 +1,28 @@
+package com.expensetracker.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/** Marks a notification (e.g. goal 42 reached 50%) as already sent until {@code expiresAt}. */
+@Entity
+@Table(name = "notification_idempotency_keys")
+public class NotificationIdempotencyKey {
+    @Id
+    @Column(name = "idem_key", length = 200)
+    private String key;
+    @Column(name = "user_id")
+    private Long userId;
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public String getKey() { return key; }
+    public void setKey(String key) { this.key = key; }
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -0,0 +1,36 @@
+package com.expensetracker.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/** Hits of one notification type for one user in one fixed window; key = userId:type:windowStartEpochSecond. */
+@Entity
+@Table(name = "notification_rate_counters")
+public class NotificationRateCounter {
+    @Id
+    @Column(name = "counter_key", length = 160)
+    private String key;
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    @Column(nullable = false, length = 32)
+    private String type;
+    @Column(name = "window_start", nullable = false)
+    private LocalDateTime windowStart;
+    @Column(nullable = false)
+    private int hits;
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public String getKey() { return key; }
+    public void setKey(String key) { this.key = key; }
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    public LocalDateTime getWindowStart() { return windowStart; }
+    public void setWindowStart(LocalDateTime windowStart) { this.windowStart = windowStart; }
+    public int getHits() { return hits; }
+    public void setHits(int hits) { this.hits = hits; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
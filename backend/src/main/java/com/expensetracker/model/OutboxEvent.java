@@ -34,6 +34,12 @@ public class OutboxEvent {
     private LocalDateTime lastAttemptAt;
     @Column(name = "attempt_count")
     private Integer attemptCount;
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt; // claim lease / retry backoff; null = due now
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+    @Column(name = "seq")
+    private Long seq;             // cache invalidations only: poll cursor (cache_invalidation_seq)
 
     public enum Status { PENDING, SENT, FAILED }
 
@@ -64,4 +70,10 @@ public class OutboxEvent {
     public void setLastAttemptAt(LocalDateTime lastAttemptAt) { this.lastAttemptAt = lastAttemptAt; }
     public Integer getAttemptCount() { return attemptCount; }
     public void setAttemptCount(Integer attemptCount) { this.attemptCount = attemptCount; }
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+    public Long getSeq() { return seq; }
+    public void setSeq(Long seq) { this.seq = seq; }
 }
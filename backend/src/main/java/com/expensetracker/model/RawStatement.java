@@ -12,12 +12,27 @@ public class RawStatement {
     private LocalDateTime uploadDate;
     private String filename;
     @Column(columnDefinition = "TEXT")
-    private String rawJson;
+    private String rawJson; // null once offloaded, see payloadRef
+    // Where the compressed payload lives (RawStatementPayloadStore); null = inline in rawJson
+    @Column(name = "payload_ref", length = 600)
+    private String payloadRef;
     private String bankName;
     // Optional: object storage key for original uploaded statement PDF when stored in OCI
     private String storageKey;
 
     private Integer pageCount; // Number of pages in the statement
+    @Column(name = "content_sha256", length = 64)
+    private String contentSha256; // SHA-256 of the uploaded PDF (upload idempotency)
+
+    // Listing metadata derived from rawJson at persist time (null until backfilled for older rows)
+    @Column(name = "parse_status", length = 16)
+    private String parseStatus;
+    @Column(name = "transaction_count")
+    private Integer transactionCount;
+    @Column(name = "warning_count")
+    private Integer warningCount;
+    @Column(name = "parse_warnings", columnDefinition = "TEXT")
+    private String parseWarnings; // JSON array of strings
 
     @ManyToOne
     @JoinColumn(name = "user_id")
@@ -41,4 +56,16 @@ public class RawStatement {
     public void setPageCount(Integer pageCount) { this.pageCount = pageCount; }
     public String getStorageKey() { return storageKey; }
     public void setStorageKey(String storageKey) { this.storageKey = storageKey; }
+    public String getContentSha256() { return contentSha256; }
+    public void setContentSha256(String contentSha256) { this.contentSha256 = contentSha256; }
+    public String getPayloadRef() { return payloadRef; }
+    public void setPayloadRef(String payloadRef) { this.payloadRef = payloadRef; }
+    public String getParseStatus() { return parseStatus; }
+    public void setParseStatus(String parseStatus) { this.parseStatus = parseStatus; }
+    public Integer getTransactionCount() { return transactionCount; }
+    public void setTransactionCount(Integer transactionCount) { this.transactionCount = transactionCount; }
+    public Integer getWarningCount() { return warningCount; }
+    public void setWarningCount(Integer warningCount) { this.warningCount = warningCount; }
+    public String getParseWarnings() { return parseWarnings; }
+    public void setParseWarnings(String parseWarnings) { this.parseWarnings = parseWarnings; }
 }
@@ -38,6 +38,12 @@ public class StatementJob {
     private Integer processedChunks;   // chunks completed
     private Integer errorCount;        // failed chunk attempts
     private String executionArn;       // Step Functions execution ARN
+    @Column(name = "result_summary", columnDefinition = "TEXT")
+    private String resultSummary;      // replay counts / dry-run diff (JSON)
+    @Column(name = "content_sha256", length = 64)
+    private String contentSha256;      // SHA-256 of the uploaded PDF (upload idempotency)
+    @Column(name = "raw_statement_id")
+    private Long rawStatementId;       // statement produced by this upload job
 
     public enum Status { PENDING, RUNNING, COMPLETED, FAILED }
 
@@ -81,4 +87,10 @@ public class StatementJob {
     public void setErrorCount(Integer errorCount) { this.errorCount = errorCount; }
     public String getExecutionArn() { return executionArn; }
     public void setExecutionArn(String executionArn) { this.executionArn = executionArn; }
+    public String getResultSummary() { return resultSummary; }
+    public void setResultSummary(String resultSummary) { this.resultSummary = resultSummary; }
+    public String getContentSha256() { return contentSha256; }
+    public void setContentSha256(String contentSha256) { this.contentSha256 = contentSha256; }
+    public Long getRawStatementId() { return rawStatementId; }
+    public void setRawStatementId(Long rawStatementId) { this.rawStatementId = rawStatementId; }
 }
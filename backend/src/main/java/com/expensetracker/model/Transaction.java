@@ -21,6 +21,11 @@ public class Transaction {
     private BigDecimal balance;
     private String category;
     private String bankName;
+    // Replay key: sha256 of the raw statement id and the raw extraction row (see TransactionParser#hash)
+    @Column(name = "txn_hash", length = 64)
+    private String txnHash;
+    @Column(name = "raw_statement_id")
+    private Long rawStatementId;
 
     @ManyToOne
     @JoinColumn(name = "user_id")
@@ -45,4 +50,8 @@ public class Transaction {
     public void setUser(User user) { this.user = user; }
     public String getBankName() { return bankName; }
     public void setBankName(String bankName) { this.bankName = bankName; }
+    public String getTxnHash() { return txnHash; }
+    public void setTxnHash(String txnHash) { this.txnHash = txnHash; }
+    public Long getRawStatementId() { return rawStatementId; }
+    public void setRawStatementId(Long rawStatementId) { this.rawStatementId = rawStatementId; }
 }
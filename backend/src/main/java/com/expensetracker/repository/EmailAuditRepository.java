@@ -10,4 +10,5 @@ import java.util.List;
 public interface EmailAuditRepository extends JpaRepository<EmailAudit, Long> {
     List<EmailAudit> findByUserAndSentAtAfter(User user, Instant since);
     List<EmailAudit> findByUserAndTypeAndSentAtAfter(User user, String type, Instant since);
+    long countByUserAndTypeAndSentAtAfter(User user, String type, Instant since);
 }
@@ -0,0 +1,42 @@
+package com.expensetracker.repository;
+
+import com.expensetracker.model.EmailQueueItem;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface EmailQueueRepository extends JpaRepository<EmailQueueItem, Long> {
+    /** Due PENDING items, oldest first; SKIP LOCKED (lock timeout -2) so parallel workers get disjoint batches. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select q from EmailQueueItem q where q.status = 'PENDING' and (q.nextAttemptAt is null or q.nextAttemptAt <= :now) order by q.createdAt")
+    List<EmailQueueItem> claimBatch(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /** One recipient's other due items of a digestible type (SKIP LOCKED), so a batch can take all of them at once. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select q from EmailQueueItem q where q.recipient = :recipient and q.type = :type and q.payload is not null and q.status = 'PENDING' " +
+            "and (q.nextAttemptAt is null or q.nextAttemptAt <= :now) and q.id not in :claimed order by q.createdAt")
+    List<EmailQueueItem> claimDigestRest(@Param("recipient") String recipient, @Param("type") String type, @Param("now") LocalDateTime now,
+                                         @Param("claimed") Collection<Long> claimed);
+
+    /** Due digest items of the recipient outside {@code claimed}; after {@link #claimDigestRest} these are held by another worker. */
+    @Query("select count(q) from EmailQueueItem q where q.recipient = :recipient and q.type = :type and q.payload is not null and q.status = 'PENDING' " +
+            "and (q.nextAttemptAt is null or q.nextAttemptAt <= :now) and q.id not in :claimed")
+    long countDueDigestItems(@Param("recipient") String recipient, @Param("type") String type, @Param("now") LocalDateTime now,
+                             @Param("claimed") Collection<Long> claimed);
+
+    @Modifying
+    @Query("delete from EmailQueueItem q where q.status <> 'PENDING' and q.createdAt < :cutoff")
+    int deleteFinishedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -13,6 +13,9 @@ import java.util.Optional;
 
 public interface GoalRepository extends JpaRepository<Goal, Long> {
 	List<Goal> findByUser(User user);
+
+	@Query("select g from Goal g where g.user.id in :userIds")
+	List<Goal> findByUserIds(@Param("userIds") java.util.Collection<Long> userIds);
 	Optional<Goal> findByIdAndUser(Long id, User user);
 
 	@Query("select coalesce(sum(g.currentAmount),0) from Goal g where g.user=:user")
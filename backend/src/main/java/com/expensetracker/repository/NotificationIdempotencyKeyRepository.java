@@ -0,0 +1,18 @@
+package com.expensetracker.repository;
+
+import com.expensetracker.model.NotificationIdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface NotificationIdempotencyKeyRepository extends JpaRepository<NotificationIdempotencyKey, String> {
+    @Query("select k.expiresAt from NotificationIdempotencyKey k where k.key = :key")
+    LocalDateTime expiresAt(@Param("key") String key);
+
+    @Modifying
+    @Query("delete from NotificationIdempotencyKey k where k.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
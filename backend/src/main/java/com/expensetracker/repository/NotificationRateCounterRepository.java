@@ -0,0 +1,18 @@
+package com.expensetracker.repository;
+
+import com.expensetracker.model.NotificationRateCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface NotificationRateCounterRepository extends JpaRepository<NotificationRateCounter, String> {
+    @Query("select c.hits from NotificationRateCounter c where c.key = :key")
+    Integer hits(@Param("key") String key);
+
+    @Modifying
+    @Query("delete from NotificationRateCounter c where c.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -1,17 +1,55 @@
 package com.expensetracker.repository;
 
 import com.expensetracker.model.OutboxEvent;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface OutboxEventRepository extends JpaRepository<OutboxEvent, String> {
+    /**
+     * Claims a bounded batch of due events. Lock timeout -2 is Hibernate's SKIP LOCKED, so concurrent
+     * dispatchers (threads or replicas) each get disjoint rows instead of queueing behind each other.
+     */
     @Lock(LockModeType.PESSIMISTIC_WRITE)
-    @Query("select e from OutboxEvent e where e.status = 'PENDING' and (e.lastAttemptAt is null or e.lastAttemptAt < :cutoff) order by e.createdAt asc")
-    List<OutboxEvent> findBatchForDispatch(@Param("cutoff") LocalDateTime cutoff);
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select e from OutboxEvent e where e.status = 'PENDING' and (e.nextAttemptAt is null or e.nextAttemptAt <= :now) order by e.createdAt asc")
+    List<OutboxEvent> claimBatch(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Modifying
+    @Query("update OutboxEvent e set e.status = 'SENT', e.lastAttemptAt = :now, e.nextAttemptAt = null, e.lastError = null where e.id in :ids")
+    int markSent(@Param("ids") Collection<String> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update OutboxEvent e set e.status = :status, e.attemptCount = :attempts, e.lastAttemptAt = :now, e.nextAttemptAt = :nextAttemptAt, e.lastError = :error where e.id = :id")
+    int markAttemptFailed(@Param("id") String id, @Param("status") OutboxEvent.Status status, @Param("attempts") int attempts,
+                          @Param("now") LocalDateTime now, @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("error") String error);
+
+    @Query("select min(e.createdAt) from OutboxEvent e where e.status = 'PENDING'")
+    LocalDateTime oldestPendingCreatedAt();
+
+    @Query("select e from OutboxEvent e where e.aggregateType = :type and e.seq > :after order by e.seq asc")
+    List<OutboxEvent> findByAggregateTypeAfterSeq(@Param("type") String aggregateType, @Param("after") long after, Pageable pageable);
+
+    @Query("select e from OutboxEvent e where e.aggregateType = :type and e.seq in :seqs")
+    List<OutboxEvent> findByAggregateTypeAndSeqIn(@Param("type") String aggregateType, @Param("seqs") Collection<Long> seqs);
+
+    @Query("select max(e.seq) from OutboxEvent e where e.aggregateType = :type")
+    Long maxSeq(@Param("type") String aggregateType);
+
+    /** Oldest-first ids of events in {@code status} created before {@code cutoff}; served by idx_outbox_status_created. */
+    @Query("select e.id from OutboxEvent e where e.status = :status and e.createdAt < :cutoff order by e.createdAt asc")
+    List<String> findIdsForRetention(@Param("status") OutboxEvent.Status status, @Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    @Query("select e.id from OutboxEvent e where e.aggregateType = :type and e.createdAt < :cutoff")
+    List<String> findIdsByAggregateTypeBefore(@Param("type") String aggregateType, @Param("cutoff") LocalDateTime cutoff, Pageable pageable);
 }
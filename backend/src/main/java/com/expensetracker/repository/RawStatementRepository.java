@@ -2,9 +2,13 @@ package com.expensetracker.repository;
 
 import com.expensetracker.model.RawStatement;
 import com.expensetracker.model.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -13,4 +17,50 @@ public interface RawStatementRepository extends JpaRepository<RawStatement, Long
 
     @Query("SELECT COALESCE(SUM(rs.pageCount), 0) FROM RawStatement rs WHERE rs.user = :user AND rs.uploadDate BETWEEN :start AND :end")
     int sumPagesByUserAndUploadDateBetween(@Param("user") User user, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    /** Listing columns only; raw_json is never selected. */
+    interface StatementSummary {
+        Long getId();
+        String getFilename();
+        LocalDateTime getUploadDate();
+        String getParseStatus();
+        String getBankName();
+        Integer getTransactionCount();
+        String getParseWarnings();
+    }
+
+    String SUMMARY_SELECT = "SELECT rs.id AS id, rs.filename AS filename, rs.uploadDate AS uploadDate, rs.parseStatus AS parseStatus, " +
+            "rs.bankName AS bankName, rs.transactionCount AS transactionCount, rs.parseWarnings AS parseWarnings FROM RawStatement rs WHERE rs.user = :user ";
+
+    @Query(SUMMARY_SELECT + "ORDER BY rs.uploadDate DESC, rs.id DESC")
+    List<StatementSummary> findSummariesByUser(@Param("user") User user);
+
+    @Query(value = SUMMARY_SELECT + "ORDER BY rs.uploadDate DESC, rs.id DESC",
+            countQuery = "SELECT COUNT(rs) FROM RawStatement rs WHERE rs.user = :user")
+    Page<StatementSummary> pageSummariesByUser(@Param("user") User user, Pageable pageable);
+
+    /** Statements of the same file content uploaded since {@code since}, newest first (upload idempotency). */
+    @Query("SELECT rs.id FROM RawStatement rs WHERE rs.user = :user AND rs.contentSha256 = :sha AND rs.uploadDate >= :since ORDER BY rs.id DESC")
+    List<Long> findIdsByContent(@Param("user") User user, @Param("sha") String contentSha256, @Param("since") LocalDateTime since);
+
+    /** Rows whose payload is still inline in raw_json (for the payload offload backfill). */
+    @Query("SELECT rs.id FROM RawStatement rs WHERE rs.payloadRef IS NULL AND rs.rawJson IS NOT NULL ORDER BY rs.id")
+    List<Long> findIdsWithInlinePayload(Pageable pageable);
+
+    /** Points a statement at its offloaded payload and clears raw_json, unless another writer already offloaded it. */
+    @Modifying
+    @Query("UPDATE RawStatement rs SET rs.payloadRef = :ref, rs.rawJson = NULL WHERE rs.id = :id AND rs.payloadRef IS NULL")
+    int markOffloaded(@Param("id") Long id, @Param("ref") String ref);
+
+    /** Rows persisted before listing metadata existed (for the backfill job). */
+    @Query("SELECT rs.id FROM RawStatement rs WHERE rs.parseStatus IS NULL ORDER BY rs.id")
+    List<Long> findIdsMissingMetadata(Pageable pageable);
+
+    /** Statement ids of one user in upload order (replay scope). */
+    @Query("SELECT rs.id FROM RawStatement rs WHERE rs.user = :user ORDER BY rs.id")
+    List<Long> findIdsByUser(@Param("user") User user);
+
+    /** Users that have at least one stored statement (replay over all users). */
+    @Query("SELECT DISTINCT rs.user.id FROM RawStatement rs ORDER BY rs.user.id")
+    List<Long> findUserIdsWithStatements();
 }
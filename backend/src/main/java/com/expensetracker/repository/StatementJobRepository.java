@@ -9,6 +9,9 @@ import java.util.List;
 public interface StatementJobRepository extends JpaRepository<StatementJob, String> {
     List<StatementJob> findByUserOrderByCreatedAtDesc(User user);
 
+    /** Upload jobs for the same file content since {@code since}, newest first (upload idempotency). */
+    List<StatementJob> findByUserAndContentSha256AndCreatedAtAfterOrderByCreatedAtDesc(User user, String contentSha256, java.time.LocalDateTime since);
+
     @org.springframework.data.jpa.repository.Modifying
     @org.springframework.data.jpa.repository.Query("update StatementJob j set j.processedChunks = coalesce(j.processedChunks,0) + 1, j.processedPages = coalesce(j.processedPages,0) + :pages, j.progressPercent = :progress where j.id = :id")
     int incrementProgress(@org.springframework.data.repository.query.Param("id") String id,
@@ -21,15 +21,12 @@ public interface TaxTransactionRepository extends JpaRepository<TaxTransaction,
     @Query("select t.taxYear as year, COALESCE(sum(t.amount),0) as total from TaxTransaction t where t.user = :user group by t.taxYear order by t.taxYear desc")
     List<TaxYearTotal> aggregateYearTotals(@Param("user") User user);
 
-    @Query("select t.category as category, COALESCE(sum(t.amount),0) as total from TaxTransaction t where t.user = :user and (:year is null or t.taxYear = :year) and (t.deductible = true or t.deductible is null) group by t.category")
-    List<CategoryTotal> aggregateCategoryTotals(@Param("user") User user, @Param("year") Integer year);
-
-    @Query("select COALESCE(sum(t.amount),0) from TaxTransaction t where t.user = :user and (:year is null or t.taxYear = :year) and (t.deductible = true or t.deductible is null)")
-    java.math.BigDecimal totalDeductible(@Param("user") User user, @Param("year") Integer year);
-
-    @Query("select count(t) from TaxTransaction t where t.user = :user and (:year is null or t.taxYear = :year) and (t.deductible = true or t.deductible is null) and (t.hasReceipt = false or t.hasReceipt is null)")
-    long countMissingReceipts(@Param("user") User user, @Param("year") Integer year);
+    /** Deductible total and missing-receipt count per category in one pass (feeds the cached tax summary). */
+    @Query("select t.category as category, COALESCE(sum(t.amount),0) as total, " +
+            "sum(case when (t.hasReceipt = false or t.hasReceipt is null) then 1 else 0 end) as missingReceipts " +
+            "from TaxTransaction t where t.user = :user and (:year is null or t.taxYear = :year) and (t.deductible = true or t.deductible is null) group by t.category")
+    List<CategorySummary> aggregateSummary(@Param("user") User user, @Param("year") Integer year);
 
     interface TaxYearTotal { Integer getYear(); java.math.BigDecimal getTotal(); }
-    interface CategoryTotal { String getCategory(); java.math.BigDecimal getTotal(); }
+    interface CategorySummary { String getCategory(); java.math.BigDecimal getTotal(); Long getMissingReceipts(); }
 }
\ No newline at end of file
@@ -17,6 +17,29 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>,
     @Query("select t from Transaction t where t.user = :user")
     Stream<Transaction> streamByUser(@Param("user") User user);
 
+    /** Columns needed to classify an outflow for tax purposes. */
+    interface TaxCandidate {
+        Long getId();
+        LocalDate getDate();
+        String getDescription();
+        java.math.BigDecimal getAmount();
+        String getCategory();
+        String getBankName();
+    }
+
+    /**
+     * Next keyset chunk (id > afterId) of outflows in range that are neither classified yet nor ignored by the user;
+     * both exclusions are anti-joins evaluated by the database instead of two lookups per row.
+     */
+    @Query("select t.id as id, t.date as date, t.description as description, t.amount as amount, t.category as category, t.bankName as bankName " +
+            "from Transaction t where t.user = :user and (:start is null or t.date >= :start) and (:end is null or t.date <= :end) " +
+            "and t.amount < 0 and t.id > :afterId " +
+            "and not exists (select x.id from TaxTransaction x where x.user = :user and x.sourceTransaction.id = t.id) " +
+            "and not exists (select i.id from TaxClassificationIgnore i where i.user = :user and i.sourceTransaction.id = t.id) " +
+            "order by t.id")
+    List<TaxCandidate> findTaxCandidates(@Param("user") User user, @Param("start") LocalDate start, @Param("end") LocalDate end,
+                                         @Param("afterId") Long afterId, org.springframework.data.domain.Pageable pageable);
+
     // Projections for analytics to avoid loading full entities
     interface CategorySpendProjection {
         String getCategory();
@@ -86,6 +109,14 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>,
         "and (:banks is null or t.bankName in :banks) group by coalesce(t.bankName,'UNKNOWN')")
     List<BankBreakdownProjection> bankBreakdownForMonth(@Param("user") User user, @Param("start") LocalDate start, @Param("end") LocalDate end, @Param("banks") List<String> banks);
 
-    @Query("select t from Transaction t where t.merchant is null or trim(t.merchant) = ''")
-    org.springframework.data.domain.Page<Transaction> findUnnormalized(org.springframework.data.domain.Pageable pageable);
+    interface UnnormalizedRow {
+        Long getId();
+        String getDescription();
+        Long getUserId();
+    }
+
+    /** Rows without a merchant after {@code afterId}, in id order (keyset paging for the merchant backfill). */
+    @Query("select t.id as id, t.description as description, t.user.id as userId from Transaction t " +
+           "where t.id > :afterId and (t.merchant is null or trim(t.merchant) = '') order by t.id")
+    List<UnnormalizedRow> findUnnormalizedAfter(@Param("afterId") long afterId, org.springframework.data.domain.Pageable pageable);
 }
@@ -3,11 +3,18 @@ package com.expensetracker.repository;
 import com.expensetracker.model.User;
 import com.expensetracker.model.UserNotificationPreference;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface UserNotificationPreferenceRepository extends JpaRepository<UserNotificationPreference, Long> {
     List<UserNotificationPreference> findByUser(User user);
     Optional<UserNotificationPreference> findByUserAndType(User user, String type);
+
+    /** Rows of (userId, type, emailEnabled) for a page of users; no entity or user hydration. */
+    @Query("select p.user.id, p.type, p.emailEnabled from UserNotificationPreference p where p.user.id in :userIds")
+    List<Object[]> findFlagsByUserIds(@Param("userIds") Collection<Long> userIds);
 }
@@ -5,7 +5,7 @@ import com.expensetracker.model.User;
 import com.expensetracker.repository.TransactionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.cache.annotation.Cacheable;
+import com.expensetracker.service.cache.UserDataVersionService;
 
 import java.time.LocalDate;
 import java.time.YearMonth;
@@ -19,6 +19,7 @@ import java.math.RoundingMode;
 public class AnalyticsService {
     @Autowired private TransactionRepository transactionRepository;
     @Autowired private com.expensetracker.security.AuthenticationFacade authenticationFacade;
+    @Autowired private UserDataVersionService dataVersions;
 
     public AnalyticsSummaryDto getSummary(String token, String startDate, String endDate) {
         // token retained for backward compatibility; preferred resolution via SecurityContext
@@ -48,8 +49,10 @@ public class AnalyticsService {
     return dto;
     }
 
-    @Cacheable(cacheNames = "analytics:summary", key = "#root.methodName + ':' + #token + ':' + #startDate + ':' + #endDate")
+    /** Same as {@link #getSummary} but served from the per-user, data-versioned analytics cache. */
     public AnalyticsSummaryDto cachedSummary(String token, String startDate, String endDate) {
-        return getSummary(token, startDate, endDate);
+        User user = authenticationFacade.currentUser();
+        return dataVersions.cached(UserDataVersionService.ANALYTICS_SUMMARY, user.getId(), startDate + ':' + endDate,
+                () -> getSummary(token, startDate, endDate));
     }
 }
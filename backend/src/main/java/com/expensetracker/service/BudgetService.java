@@ -7,6 +7,7 @@ import com.expensetracker.model.BudgetCategory;
 import com.expensetracker.model.User;
 import com.expensetracker.repository.BudgetCategoryRepository;
 import com.expensetracker.security.AuthenticationFacade;
+import com.expensetracker.service.cache.UserDataVersionService;
 import jakarta.validation.Valid;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,7 +24,8 @@ public class BudgetService {
 	private final BudgetCategoryRepository repo;
 	private final AuthenticationFacade auth;
     private final com.expensetracker.repository.TransactionRepository txnRepo;
-	public BudgetService(BudgetCategoryRepository repo, AuthenticationFacade auth, com.expensetracker.repository.TransactionRepository txnRepo){this.repo=repo;this.auth=auth; this.txnRepo = txnRepo;}
+	private final UserDataVersionService dataVersions;
+	public BudgetService(BudgetCategoryRepository repo, AuthenticationFacade auth, com.expensetracker.repository.TransactionRepository txnRepo, UserDataVersionService dataVersions){this.repo=repo;this.auth=auth; this.txnRepo = txnRepo; this.dataVersions = dataVersions;}
 
 	public List<BudgetCategoryDto> list(){
 		User u = auth.currentUser();
@@ -39,6 +41,7 @@ public class BudgetService {
 		bc.setIcon(dto.icon());
 		bc.setColor(dto.color());
 		bc.setUser(u);
+		dataVersions.bump(u.getId());
 		return toDto(repo.save(bc));
 	}
 
@@ -49,6 +52,7 @@ public class BudgetService {
 		bc.setMonthlyBudget(dto.monthlyBudget());
 		bc.setIcon(dto.icon());
 		bc.setColor(dto.color());
+		dataVersions.bump(u.getId());
 		return toDto(bc);
 	}
 
@@ -56,6 +60,7 @@ public class BudgetService {
 		User u = auth.currentUser();
 		BudgetCategory bc = repo.findByIdAndUser(id,u).orElseThrow();
 		repo.delete(bc);
+		dataVersions.bump(u.getId());
 	}
 
 	/** Patch only the monthly budget (quick edit). */
@@ -63,6 +68,7 @@ public class BudgetService {
 		User u = auth.currentUser();
 		BudgetCategory bc = repo.findByIdAndUser(id,u).orElseThrow();
 		bc.setMonthlyBudget(newLimit);
+		dataVersions.bump(u.getId());
 		return toDto(bc);
 	}
 
@@ -70,6 +76,10 @@ public class BudgetService {
 	public BudgetSummaryResponse summary(String monthStr){
 		java.time.YearMonth ym = (monthStr==null || monthStr.isBlank()) ? java.time.YearMonth.now() : java.time.YearMonth.parse(monthStr);
 		User u = auth.currentUser();
+		return dataVersions.cached(UserDataVersionService.BUDGETS_SUMMARY, u.getId(), ym.toString(), () -> computeSummary(u, ym));
+	}
+
+	private BudgetSummaryResponse computeSummary(User u, java.time.YearMonth ym){
 		java.time.LocalDate start = ym.atDay(1);
 		java.time.LocalDate end = ym.atEndOfMonth();
 
@@ -3,6 +3,7 @@ package com.expensetracker.service;
 import com.expensetracker.repository.TransactionRepository;
 import com.expensetracker.repository.UserRepository;
 import com.expensetracker.security.AuthenticationFacade;
+import com.expensetracker.service.cache.UserDataVersionService;
 import com.expensetracker.model.Transaction;
 import com.expensetracker.model.User;
 import com.expensetracker.dto.DashboardStatsDto;
@@ -20,10 +21,14 @@ import java.math.BigDecimal;
 public class DashboardService {
     private final TransactionRepository transactionRepository;
     private final AuthenticationFacade authenticationFacade;
+    private final io.micrometer.core.instrument.MeterRegistry meterRegistry;
+    private final UserDataVersionService dataVersions;
 
-    public DashboardService(TransactionRepository transactionRepository, UserRepository userRepository, AuthenticationFacade authenticationFacade) {
+    public DashboardService(TransactionRepository transactionRepository, UserRepository userRepository, AuthenticationFacade authenticationFacade, io.micrometer.core.instrument.MeterRegistry meterRegistry, UserDataVersionService dataVersions) {
         this.transactionRepository = transactionRepository;
         this.authenticationFacade = authenticationFacade;
+        this.meterRegistry = meterRegistry;
+        this.dataVersions = dataVersions;
     }
 
     // =====================================================================
@@ -31,6 +36,12 @@ public class DashboardService {
     // =====================================================================
     public DashboardStatsDto getSummary(String token, String startDateStr, String endDateStr, String banksCsv) {
         User user = authenticationFacade.currentUser();
+        String args = startDateStr + ":" + endDateStr + ":" + banksCsv + ":" + resolvePlanType(user);
+        return dataVersions.cached(UserDataVersionService.DASHBOARD_SUMMARY, user.getId(), args,
+                () -> meterRegistry.timer("app.dashboard.summary").record(() -> buildSummary(user, startDateStr, endDateStr, banksCsv)));
+    }
+
+    private DashboardStatsDto buildSummary(User user, String startDateStr, String endDateStr, String banksCsv) {
 
         java.time.LocalDate startDate = parseDate(startDateStr);
         java.time.LocalDate endDate   = parseDate(endDateStr);
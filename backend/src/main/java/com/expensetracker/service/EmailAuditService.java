@@ -16,5 +16,5 @@ public class EmailAuditService {
     public EmailAuditService(EmailAuditRepository repo){ this.repo = repo; }
     public EmailAudit save(EmailAudit a){ return repo.save(a); }
     public List<EmailAudit> recent(User u, Instant since){ return repo.findByUserAndSentAtAfter(u, since); }
-    public long recentCount(User u, String type, Instant since){ return repo.findByUserAndTypeAndSentAtAfter(u, type, since).size(); }
+    public long recentCount(User u, String type, Instant since){ return repo.countByUserAndTypeAndSentAtAfter(u, type, since); }
 }
@@ -2,31 +2,33 @@ package com.expensetracker.service;
 
 import com.expensetracker.model.SpendingAlert;
 import com.expensetracker.model.User;
-import com.expensetracker.model.UserNotificationPreference;
-import com.expensetracker.repository.UserNotificationPreferenceRepository;
+import com.expensetracker.service.email.EmailQueueService;
+import com.expensetracker.service.email.NotificationPreferenceSnapshot;
+import com.expensetracker.service.email.NotificationRateLimiter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
 
 @Service
 @Transactional
 public class EmailNotificationService {
-    private final UserNotificationPreferenceRepository prefRepo;
-    private final EmailService emailService;
+    private final NotificationPreferenceSnapshot preferences;
     private final EmailTemplateService templateService;
-    private final EmailAuditService auditService;
+    private final EmailQueueService emailQueue;
+    private final NotificationRateLimiter rateLimiter;
     @Value("${app.mail.rate.spending-alerts-per-hour:5}") private int spendingAlertsPerHour;
 
-    public EmailNotificationService(UserNotificationPreferenceRepository prefRepo,
-                                    EmailService emailService,
+    public EmailNotificationService(NotificationPreferenceSnapshot preferences,
                                     EmailTemplateService templateService,
-                                    EmailAuditService auditService) {
-        this.prefRepo = prefRepo; this.emailService = emailService; this.templateService = templateService; this.auditService = auditService;
+                                    EmailQueueService emailQueue,
+                                    NotificationRateLimiter rateLimiter) {
+        this.preferences = preferences; this.templateService = templateService; this.emailQueue = emailQueue; this.rateLimiter = rateLimiter;
     }
 
     @Value("${app.mail.low-balance.threshold:-200}") private BigDecimal defaultLowBalanceThreshold; // default negative threshold
@@ -36,33 +38,28 @@ public class EmailNotificationService {
         if(!isEnabled(user, "LOW_BALANCE")) return;
         BigDecimal threshold = userThreshold!=null? userThreshold: defaultLowBalanceThreshold;
         if(projectedNet.compareTo(threshold) >= 0) return; // not below threshold
-        long recent = auditService.recent(user, Instant.now().minus(java.time.Duration.ofHours(24))).stream().filter(a->"LOW_BALANCE".equals(a.getType())).count();
-        if(recent >= lowBalancePerDay) return;
+        if(!rateLimiter.tryAcquire(user.getId(), "LOW_BALANCE", lowBalancePerDay, Duration.ofHours(24))) return;
         String html = templateService.renderLowBalance(month.toString(), projectedNet.toPlainString(), threshold.toPlainString());
-    emailService.sendHtml(user.getEmail(), "Low balance warning: "+month, html, "LOW_BALANCE");
+        emailQueue.enqueueHtml(user, "LOW_BALANCE", "Low balance warning: "+month, html);
     }
 
     public void maybeSendSpendingAlert(SpendingAlert alert){
         User u = alert.getUser();
         if(!isEnabled(u, "SPENDING_ALERT")) return;
-        // Rate limit by audit count past hour
-        long countLastHour = auditService.recentCount(u, "SPENDING_ALERT", Instant.now().minus(1, ChronoUnit.HOURS));
-        if(countLastHour >= spendingAlertsPerHour) return;
-        String amount = alert.getAmount()!=null? alert.getAmount().toPlainString(): "";
-        String date = alert.getTxnDate()!=null? alert.getTxnDate().toString(): "";
-        String html = templateService.renderSpendingAlert(
-                alert.getTitle()!=null? alert.getTitle(): "Spending Alert",
-                alert.getDescription()!=null? alert.getDescription(): "",
-                alert.getCategory(),
-                alert.getMerchant(),
-                amount,
-                date,
-                alert.getSeverity()
-        );
-    emailService.sendHtml(u.getEmail(), alert.getTitle()!=null? alert.getTitle(): "Spending Alert", html, "SPENDING_ALERT");
+        // Rate limit at enqueue time; alerts queued within the digest window are sent as one email by the worker
+        if(!rateLimiter.tryAcquire(u.getId(), EmailQueueService.TYPE_SPENDING_ALERT, spendingAlertsPerHour, Duration.ofHours(1))) return;
+        Map<String,Object> fields = new HashMap<>();
+        fields.put("title", alert.getTitle()!=null? alert.getTitle(): "Spending Alert");
+        fields.put("description", alert.getDescription()!=null? alert.getDescription(): "");
+        fields.put("category", alert.getCategory());
+        fields.put("merchant", alert.getMerchant());
+        fields.put("amount", alert.getAmount()!=null? alert.getAmount().toPlainString(): "");
+        fields.put("date", alert.getTxnDate()!=null? alert.getTxnDate().toString(): "");
+        fields.put("severity", alert.getSeverity());
+        emailQueue.enqueueSpendingAlert(u, (String) fields.get("title"), fields);
     }
 
     private boolean isEnabled(User u, String type){
-        return prefRepo.findByUserAndType(u, type).map(UserNotificationPreference::isEmailEnabled).orElse(true);
+        return preferences.isEmailEnabled(u.getId(), type);
     }
 }
@@ -15,6 +15,8 @@ public interface EmailTemplateService {
     String renderGoalProgress(String goalName, int progressPercent);
 
     String renderSpendingAlert(String title, String description, String category, String merchant, String amount, String date, String severity);
+    /** One email for several alerts; each map carries the same keys as {@link #renderSpendingAlert}'s parameters. */
+    String renderSpendingAlertDigest(java.util.List<Map<String,Object>> alerts);
     String renderWelcome(String firstName);
     String renderGoalMilestone(String goalName, int milestonePercent, String currentAmount, String targetAmount);
     String renderGoalInactivity(String goalName, int days);
@@ -1,26 +1,29 @@
 package com.expensetracker.service;
 
 import com.expensetracker.dto.ForecastDto;
+import com.expensetracker.service.cache.CacheInvalidationBus;
+import com.expensetracker.service.cache.PerUserCache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Component;
 
-import java.time.Instant;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-
+/**
+ * Forecast results per (user, futureMonths), backed by the "forecast:byUser" cache from CacheConfig
+ * (expire-after-write TTL, bounded number of users).
+ */
 @Component
 public class ForecastCache {
-    private static class Entry { ForecastDto dto; Instant ts; Entry(ForecastDto d){this.dto=d; this.ts=Instant.now();} }
-    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
-    private static final long TTL_MS = 60_000; // 1 minute
+    public static final String CACHE_NAME = "forecast:byUser";
+    private static final int MAX_HORIZONS_PER_USER = 24;
 
-    private String key(Long userId, int futureMonths){ return userId+":"+futureMonths; }
+    private final PerUserCache<Integer, ForecastDto> cache;
+    private final CacheInvalidationBus bus;
 
-    public ForecastDto get(Long userId, int futureMonths){
-        Entry e = cache.get(key(userId,futureMonths));
-        if(e==null) return null;
-        if(Instant.now().toEpochMilli() - e.ts.toEpochMilli() > TTL_MS){ cache.remove(key(userId,futureMonths)); return null; }
-        return e.dto;
+    public ForecastCache(CacheManager cacheManager, CacheInvalidationBus bus) {
+        this.cache = new PerUserCache<>(cacheManager.getCache(CACHE_NAME), MAX_HORIZONS_PER_USER);
+        this.bus = bus;
     }
-    public void put(Long userId, int futureMonths, ForecastDto dto){ cache.put(key(userId,futureMonths), new Entry(dto)); }
-    public void invalidateUser(Long userId){ cache.keySet().removeIf(k -> k.startsWith(userId+":")); }
-}
\ No newline at end of file
+
+    public ForecastDto get(Long userId, int futureMonths){ return cache.get(userId, futureMonths); }
+    public void put(Long userId, int futureMonths, ForecastDto dto){ cache.put(userId, futureMonths, dto); }
+    public void invalidateUser(Long userId){ cache.invalidateUser(userId); bus.publish(CACHE_NAME, userId); }
+}
@@ -4,16 +4,23 @@ import com.expensetracker.model.Goal;
 import com.expensetracker.model.User;
 import com.expensetracker.repository.GoalRepository;
 import com.expensetracker.repository.UserRepository;
-import com.expensetracker.repository.UserNotificationPreferenceRepository;
-import com.expensetracker.model.UserNotificationPreference;
+import com.expensetracker.service.email.EmailQueueService;
+import com.expensetracker.service.email.NotificationPreferenceSnapshot;
+import com.expensetracker.service.email.NotificationRateLimiter;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -21,24 +28,34 @@ public class GoalNotificationService {
     private final GoalRepository goalRepository;
     private final UserRepository userRepository;
     private final EmailTemplateService templateService;
-    private final EmailService emailService;
-    private final EmailAuditService auditService;
-    private final UserNotificationPreferenceRepository prefRepo;
+    private final EmailQueueService emailQueue;
+    private final NotificationRateLimiter rateLimiter;
+    private final NotificationPreferenceSnapshot preferences;
     @Value("${app.mail.rate.goal-milestones-per-day:3}") private int milestonesPerDay;
     @Value("${app.mail.goal.inactivity-days:14}") private int inactivityDays;
+    @Value("${app.mail.goal.milestone-key-days:365}") private int milestoneKeyDays;
+    @Value("${app.mail.goal.job-page-size:500}") private int pageSize;
 
-    public GoalNotificationService(GoalRepository goalRepository, UserRepository userRepository, EmailTemplateService templateService, EmailService emailService, EmailAuditService auditService, UserNotificationPreferenceRepository prefRepo) {
-        this.goalRepository = goalRepository; this.userRepository = userRepository; this.templateService = templateService; this.emailService = emailService; this.auditService = auditService; this.prefRepo = prefRepo;
+    public GoalNotificationService(GoalRepository goalRepository, UserRepository userRepository, EmailTemplateService templateService, EmailQueueService emailQueue, NotificationRateLimiter rateLimiter, NotificationPreferenceSnapshot preferences) {
+        this.goalRepository = goalRepository; this.userRepository = userRepository; this.templateService = templateService; this.emailQueue = emailQueue; this.rateLimiter = rateLimiter; this.preferences = preferences;
     }
 
     @Scheduled(cron = "0 15 6 * * *") // daily 06:15
     public void dailyGoalChecks(){
-        userRepository.findAll().forEach(u -> { try { processUser(u); } catch(Exception ignored){} });
+        // Per page of users: one query for users, one for their preferences, one for their goals
+        Page<User> page = userRepository.findAll(PageRequest.of(0, pageSize, Sort.by("id")));
+        while(true){
+            List<Long> ids = page.getContent().stream().map(User::getId).toList();
+            preferences.preload(ids);
+            Map<Long, List<Goal>> goalsByUser = ids.isEmpty()? Map.of() : goalRepository.findByUserIds(ids).stream().collect(Collectors.groupingBy(g-> g.getUser().getId()));
+            page.getContent().forEach(u -> { try { processUser(u, goalsByUser.getOrDefault(u.getId(), List.of())); } catch(Exception ignored){} });
+            if(!page.hasNext()) break;
+            page = userRepository.findAll(page.nextPageable());
+        }
     }
 
-    private void processUser(User u){
+    private void processUser(User u, List<Goal> goals){
         if(!prefEnabled(u, "GOAL_MILESTONE") && !prefEnabled(u, "GOAL_NUDGE")) return;
-        List<Goal> goals = goalRepository.findByUser(u);
         goals.forEach(g-> maybeMilestone(u, g));
         goals.forEach(g-> maybeInactivity(u, g));
     }
@@ -56,14 +73,13 @@ public class GoalNotificationService {
             default -> -1;
         };
         if(milestoneBucket==-1) return;
-        // rate limit: ensure not more than milestonesPerDay for user today
-        long todayCount = auditService.recent(u, java.time.Instant.now().minus(java.time.Duration.ofHours(24))).stream().filter(a-> "GOAL_MILESTONE".equals(a.getType())).count();
-        if(todayCount >= milestonesPerDay) return;
-        // idempotency: include milestone in metadata signature (not implemented fully - would store hash in separate table). Basic suppression by checking recent emails containing goal title.
-        boolean alreadySent = auditService.recent(u, java.time.Instant.now().minus(java.time.Duration.ofDays(30))).stream().anyMatch(a-> "GOAL_MILESTONE".equals(a.getType()) && a.getSubject()!=null && a.getSubject().contains(g.getTitle()));
-        if(alreadySent) return;
+        // idempotency per (goal, milestone); checked before spending rate-limit budget, claimed after it
+        String key = "goal:"+g.getId()+":milestone:"+milestoneBucket;
+        if(rateLimiter.seen(key)) return;
+        if(!rateLimiter.tryAcquire(u.getId(), "GOAL_MILESTONE", milestonesPerDay, Duration.ofHours(24))) return;
+        if(!rateLimiter.claimOnce(key, u.getId(), Duration.ofDays(milestoneKeyDays))) return;
         String html = templateService.renderGoalMilestone(g.getTitle(), milestoneBucket, current.toPlainString(), g.getTargetAmount().toPlainString());
-    emailService.sendHtml(u.getEmail(), "Goal milestone: "+ g.getTitle() + " reached " + milestoneBucket + "%", html, "GOAL_MILESTONE");
+        emailQueue.enqueueHtml(u, "GOAL_MILESTONE", "Goal milestone: "+ g.getTitle() + " reached " + milestoneBucket + "%", html);
     }
 
     private void maybeInactivity(User u, Goal g){
@@ -72,13 +88,13 @@ public class GoalNotificationService {
         LocalDateTime last = g.getUpdatedAt()!=null? g.getUpdatedAt(): g.getCreatedAt();
         if(last==null) return;
         if(last.isAfter(LocalDateTime.now().minusDays(inactivityDays))) return;
-        boolean alreadyRecent = auditService.recent(u, java.time.Instant.now().minus(java.time.Duration.ofDays(inactivityDays))).stream().anyMatch(a-> "GOAL_NUDGE".equals(a.getType()) && a.getSubject()!=null && a.getSubject().contains(g.getTitle()));
-        if(alreadyRecent) return;
+        // at most one nudge per goal per inactivity period
+        if(!rateLimiter.claimOnce("goal:"+g.getId()+":nudge", u.getId(), Duration.ofDays(inactivityDays))) return;
         String html = templateService.renderGoalInactivity(g.getTitle(), inactivityDays);
-    emailService.sendHtml(u.getEmail(), "Goal inactivity: "+g.getTitle(), html, "GOAL_NUDGE");
+        emailQueue.enqueueHtml(u, "GOAL_NUDGE", "Goal inactivity: "+g.getTitle(), html);
     }
 
     private boolean prefEnabled(User u, String type){
-        return prefRepo.findByUserAndType(u, type).map(UserNotificationPreference::isEmailEnabled).orElse(true);
+        return preferences.isEmailEnabled(u.getId(), type);
     }
 }
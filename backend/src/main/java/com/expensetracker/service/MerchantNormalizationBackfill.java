@@ -0,0 +1,142 @@
+package com.expensetracker.service;
+
+import com.expensetracker.repository.TransactionRepository;
+import com.expensetracker.service.cache.UserDataVersionService;
+import com.expensetracker.util.MerchantNormalizer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fills transactions.merchant for rows saved without one (new uploads get it from the parser).
+ *
+ * Walks the table by id (keyset, so rows leaving the "no merchant" predicate never shift later pages and rows the
+ * normalizer cannot name are passed over instead of re-read), normalizes through the memoized normalizer and writes
+ * each chunk with one JDBC batch in its own transaction. Runs on a schedule until a full pass finds nothing, and on
+ * demand from the maintenance endpoint.
+ */
+@Component
+public class MerchantNormalizationBackfill {
+    private static final Logger log = LoggerFactory.getLogger(MerchantNormalizationBackfill.class);
+
+    private final TransactionRepository transactionRepository;
+    private final JdbcTemplate jdbc;
+    private final UserDataVersionService dataVersions;
+    private final TransactionTemplate tx;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Counter updatedCounter;
+    private final Counter unresolvedCounter;
+    private final Timer chunkTimer;
+    private volatile boolean done;
+    private volatile long resumeAfterId;
+
+    @Value("${app.merchants.backfill.enabled:true}")
+    private boolean enabled;
+    @Value("${app.merchants.backfill.chunk-size:1000}")
+    private int chunkSize;
+    @Value("${app.merchants.backfill.max-chunks-per-run:200}")
+    private int maxChunksPerRun;
+
+    public MerchantNormalizationBackfill(TransactionRepository transactionRepository,
+                                         JdbcTemplate jdbc,
+                                         UserDataVersionService dataVersions,
+                                         PlatformTransactionManager transactionManager,
+                                         MeterRegistry meterRegistry) {
+        this.transactionRepository = transactionRepository;
+        this.jdbc = jdbc;
+        this.dataVersions = dataVersions;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.updatedCounter = meterRegistry.counter("app.merchants.backfill.rows", "result", "updated");
+        this.unresolvedCounter = meterRegistry.counter("app.merchants.backfill.rows", "result", "unresolved");
+        this.chunkTimer = meterRegistry.timer("app.merchants.backfill.chunk");
+    }
+
+    @Scheduled(initialDelayString = "${app.merchants.backfill.initial-delay-ms:60000}",
+               fixedDelayString = "${app.merchants.backfill.delay-ms:600000}")
+    public void scheduled() {
+        if (!enabled || done) return;
+        try {
+            long startAfter = resumeAfterId;
+            Result r = run(startAfter, chunkSize, maxChunksPerRun);
+            if (r == null) return;
+            if (r.exhausted()) {
+                // Stop once a pass that started at the beginning reaches the end; otherwise wrap around once more
+                done = startAfter == 0;
+                resumeAfterId = 0;
+            } else {
+                resumeAfterId = r.lastId();
+            }
+        } catch (Exception ex) {
+            log.error("Merchant backfill failed: {}", ex.getMessage(), ex);
+        }
+    }
+
+    /** One pass from the start of the table, bounded by {@code maxChunks}; returns rows updated. */
+    public long normalize(int batchSize, int maxChunks) {
+        Result r = run(0L, Math.max(1, batchSize), Math.max(1, maxChunks));
+        return r == null ? 0 : r.updated();
+    }
+
+    /** Null if another pass is already running. */
+    Result run(long afterId, int batchSize, int maxChunks) {
+        if (!running.compareAndSet(false, true)) return null;
+        long started = System.nanoTime();
+        long scanned = 0, updated = 0;
+        boolean exhausted = false;
+        Set<Long> touchedUsers = new HashSet<>();
+        try {
+            for (int i = 0; i < maxChunks; i++) {
+                List<TransactionRepository.UnnormalizedRow> chunk = transactionRepository.findUnnormalizedAfter(afterId, PageRequest.of(0, batchSize));
+                if (chunk.isEmpty()) {
+                    exhausted = true;
+                    break;
+                }
+                afterId = chunk.get(chunk.size() - 1).getId();
+                scanned += chunk.size();
+                List<Object[]> rows = new ArrayList<>(chunk.size());
+                for (TransactionRepository.UnnormalizedRow row : chunk) {
+                    String merchant = MerchantNormalizer.normalizeCached(row.getDescription());
+                    if (merchant == null) continue;
+                    rows.add(new Object[]{merchant, row.getId()});
+                    touchedUsers.add(row.getUserId());
+                }
+                if (!rows.isEmpty()) {
+                    chunkTimer.record(() -> tx.executeWithoutResult(status -> jdbc.batchUpdate("UPDATE transactions SET merchant = ? WHERE id = ?", rows)));
+                }
+                updated += rows.size();
+                updatedCounter.increment(rows.size());
+                unresolvedCounter.increment(chunk.size() - rows.size());
+                if (chunk.size() < batchSize) {
+                    exhausted = true;
+                    break;
+                }
+            }
+            if (!touchedUsers.isEmpty()) tx.executeWithoutResult(status -> touchedUsers.forEach(dataVersions::bump));
+        } finally {
+            running.set(false);
+        }
+        if (scanned > 0) {
+            double seconds = Math.max(1e-3, (System.nanoTime() - started) / 1e9);
+            log.info("Merchant backfill scanned {} rows, updated {} ({} rows/s){}", scanned, updated, Math.round(scanned / seconds),
+                    exhausted ? " (reached end)" : "");
+        }
+        return new Result(updated, afterId, exhausted);
+    }
+
+    record Result(long updated, long lastId, boolean exhausted) {}
+}
@@ -5,6 +5,7 @@ import com.expensetracker.model.User;
 import com.expensetracker.model.UserNotificationPreference;
 import com.expensetracker.repository.UserNotificationPreferenceRepository;
 import com.expensetracker.security.AuthenticationFacade;
+import com.expensetracker.service.email.NotificationPreferenceSnapshot;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,9 +17,10 @@ import java.util.stream.Collectors;
 public class NotificationPreferenceService {
     private final UserNotificationPreferenceRepository repo;
     private final AuthenticationFacade auth;
+    private final NotificationPreferenceSnapshot snapshot;
 
-    public NotificationPreferenceService(UserNotificationPreferenceRepository repo, AuthenticationFacade auth) {
-        this.repo = repo; this.auth = auth;
+    public NotificationPreferenceService(UserNotificationPreferenceRepository repo, AuthenticationFacade auth, NotificationPreferenceSnapshot snapshot) {
+        this.repo = repo; this.auth = auth; this.snapshot = snapshot;
     }
 
     public List<NotificationPreferenceDto> list() {
@@ -32,7 +34,9 @@ public class NotificationPreferenceService {
             UserNotificationPreference p = new UserNotificationPreference();
             p.setUser(u); p.setType(type); return p; });
         pref.setEmailEnabled(emailEnabled);
-        return toDto(repo.save(pref));
+        UserNotificationPreference saved = repo.save(pref);
+        snapshot.invalidate(u.getId());
+        return toDto(saved);
     }
 
     private NotificationPreferenceDto toDto(UserNotificationPreference p){
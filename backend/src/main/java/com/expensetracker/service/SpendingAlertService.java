@@ -30,6 +30,8 @@ public class SpendingAlertService {
     private final TransactionRepository transactionRepository;
     private final UserRepository userRepository;
     private final EmailNotificationService emailNotificationService;
+    private final io.micrometer.core.instrument.MeterRegistry meterRegistry;
+    private final com.expensetracker.service.cache.UserDataVersionService dataVersions;
     private final com.fasterxml.jackson.databind.ObjectMapper objectMapper = new com.fasterxml.jackson.databind.ObjectMapper();
     // Rule registry (order matters if later rules depend on earlier context)
     private final java.util.List<com.expensetracker.service.alerts.SpendingAlertRule> rules = java.util.List.of(
@@ -47,7 +49,11 @@ public class SpendingAlertService {
                                 com.expensetracker.stream.SpendingAlertStreamPublisher sp,
                                 TransactionRepository tr,
                                 UserRepository ur,
-                                EmailNotificationService emailNotificationService){
+                                EmailNotificationService emailNotificationService,
+                                io.micrometer.core.instrument.MeterRegistry meterRegistry,
+                                com.expensetracker.service.cache.UserDataVersionService dataVersions){
+        this.meterRegistry = meterRegistry;
+        this.dataVersions = dataVersions;
         this.repo=r; this.auth=a; this.settingsRepo=sr; this.whitelistRepo=wr; this.mutedCategoryRepo=mcr; this.recommendationRepo=rr; this.auditRepo=ar; this.streamPublisher=sp; this.transactionRepository=tr; this.userRepository=ur; this.emailNotificationService = emailNotificationService;
     }
 
@@ -380,6 +386,8 @@ public class SpendingAlertService {
     });
     long generated = finalFiltered.size();
     long duration = System.currentTimeMillis() - start;
+    meterRegistry.timer("app.alerts.recompute").record(duration, java.util.concurrent.TimeUnit.MILLISECONDS);
+    meterRegistry.counter("app.alerts.generated").increment(generated);
     // persist generation stats
     try {
         settings.setLastGeneratedAt(java.time.LocalDateTime.now());
@@ -470,24 +478,4 @@ public class SpendingAlertService {
                 parsed
         );
     }
-
-    // Merchant normalization backfill (batch incremental)
-    @Transactional
-    public long normalizeMerchants(int batchSize, int maxBatches){
-        long updated=0; int batches=0;
-        org.springframework.data.domain.Pageable p = org.springframework.data.domain.PageRequest.of(0,batchSize);
-        var page = transactionRepository.findUnnormalized(p);
-        while(!page.isEmpty() && batches<maxBatches){
-            for(var t: page){
-                String derived = com.expensetracker.util.MerchantNormalizer.normalize(t.getMerchant()!=null? t.getMerchant(): t.getDescription());
-                if(derived!=null && (t.getMerchant()==null || !t.getMerchant().equals(derived))){ t.setMerchant(derived); updated++; }
-            }
-            transactionRepository.saveAll(page.getContent());
-            batches++;
-            if(!page.hasNext()) break;
-            p = page.nextPageable();
-            page = transactionRepository.findUnnormalized(p);
-        }
-        return updated;
-    }
 }
@@ -2,12 +2,15 @@ package com.expensetracker.service;
 
 import com.expensetracker.repository.RawStatementRepository;
 import com.expensetracker.repository.TransactionRepository;
-import com.expensetracker.service.statement.PdfPageCounter;
+import com.expensetracker.service.statement.PdfInspector;
 import com.expensetracker.service.statement.TempFileService;
+import com.expensetracker.service.statement.UploadDeduplicator;
 import com.expensetracker.service.statement.ExtractionRunner;
 import com.expensetracker.service.statement.RawStatementPersister;
 import com.expensetracker.service.statement.TransactionParser;
 import com.expensetracker.service.statement.BankCategoryUpserter;
+import com.expensetracker.service.statement.StatementStageMetrics;
+import com.expensetracker.service.cache.UserDataVersionService;
 import com.expensetracker.repository.UserRepository;
 import com.expensetracker.security.AuthenticationFacade;
 import com.expensetracker.service.usage.UsagePolicyFactory;
@@ -38,7 +41,7 @@ import org.springframework.transaction.support.TransactionSynchronizationManager
 public class StatementService {
     private final RawStatementRepository rawStatementRepository;
     private final TransactionRepository transactionRepository;
-    private final PdfPageCounter pdfPageCounter;
+    private final PdfInspector pdfInspector;
     private final TempFileService tempFileService;
     private final ExtractionRunner extractionRunner;
     private final RawStatementPersister rawStatementPersister;
@@ -48,6 +51,10 @@ public class StatementService {
     private final StatementJobRepository statementJobRepository;
     private final com.expensetracker.service.statement.AwsPipelineLauncher awsPipelineLauncher;
     private final com.expensetracker.storage.OciObjectStorageService ociStorageService;
+    private final StatementStageMetrics stageMetrics;
+    private final UserDataVersionService dataVersions;
+    private final TaxRuleService taxRuleService;
+    private final UploadDeduplicator uploadDeduplicator;
     @Value("${app.statements.async.enabled:false}")
     private boolean asyncEnabled;
     @Value("${extraction.mode:local_python}")
@@ -56,12 +63,12 @@ public class StatementService {
     private final UsagePolicyFactory usagePolicyFactory;
 
     @Autowired
-    public StatementService(RawStatementRepository rawStatementRepository, TransactionRepository transactionRepository, UserRepository userRepository, com.expensetracker.repository.BankRepository bankRepository, com.expensetracker.repository.CategoryRepository categoryRepository, AuthenticationFacade authenticationFacade, UsagePolicyFactory usagePolicyFactory, PdfPageCounter pdfPageCounter, TempFileService tempFileService, ExtractionRunner extractionRunner, RawStatementPersister rawStatementPersister, TransactionParser transactionParser, BankCategoryUpserter bankCategoryUpserter, com.expensetracker.service.statement.AsyncStatementProcessor asyncProcessor, StatementJobRepository statementJobRepository, com.expensetracker.service.statement.AwsPipelineLauncher awsPipelineLauncher, com.expensetracker.storage.OciObjectStorageService ociStorageService) {
+    public StatementService(RawStatementRepository rawStatementRepository, TransactionRepository transactionRepository, UserRepository userRepository, com.expensetracker.repository.BankRepository bankRepository, com.expensetracker.repository.CategoryRepository categoryRepository, AuthenticationFacade authenticationFacade, UsagePolicyFactory usagePolicyFactory, PdfInspector pdfInspector, TempFileService tempFileService, ExtractionRunner extractionRunner, RawStatementPersister rawStatementPersister, TransactionParser transactionParser, BankCategoryUpserter bankCategoryUpserter, com.expensetracker.service.statement.AsyncStatementProcessor asyncProcessor, StatementJobRepository statementJobRepository, com.expensetracker.service.statement.AwsPipelineLauncher awsPipelineLauncher, com.expensetracker.storage.OciObjectStorageService ociStorageService, StatementStageMetrics stageMetrics, UserDataVersionService dataVersions, TaxRuleService taxRuleService, UploadDeduplicator uploadDeduplicator) {
         this.rawStatementRepository = rawStatementRepository;
         this.transactionRepository = transactionRepository;
         this.authenticationFacade = authenticationFacade;
         this.usagePolicyFactory = usagePolicyFactory;
-        this.pdfPageCounter = pdfPageCounter;
+        this.pdfInspector = pdfInspector;
         this.tempFileService = tempFileService;
         this.extractionRunner = extractionRunner;
         this.rawStatementPersister = rawStatementPersister;
@@ -71,6 +78,10 @@ public class StatementService {
         this.statementJobRepository = statementJobRepository;
     this.awsPipelineLauncher = awsPipelineLauncher;
     this.ociStorageService = ociStorageService;
+    this.stageMetrics = stageMetrics;
+    this.dataVersions = dataVersions;
+    this.taxRuleService = taxRuleService;
+    this.uploadDeduplicator = uploadDeduplicator;
     }
 
     // Backwards compatible existing signature – delegates with no password
@@ -81,8 +92,18 @@ public class StatementService {
     // New method supporting optional password for password-protected PDFs
     @Transactional
     public StatementUploadResponseDto uploadStatement(MultipartFile file, String authHeader, String pdfPassword) {
+    File tempFile = null;
     try {
             User user = authenticationFacade.currentUser();
+            // Spilled (and hashed) once; every path below works from this file instead of re-reading the upload
+            TempFileService.Spilled spilled = tempFileService.spill(file);
+            tempFile = spilled.file();
+            if (!tempFile.exists() || tempFile.length() == 0) {
+                    throw new IllegalStateException(AppConstants.ERROR_PDF_SAVE);
+            }
+            // Same file again within the window (double click, retry after a timeout): answer with what it produced
+            StatementUploadResponseDto existing = uploadDeduplicator.claimOrExisting(user, spilled.sha256());
+            if (existing != null) return existing;
             UsagePolicy policy = usagePolicyFactory.forUser(user);
             int statementLimit = policy.unlimitedStatements() ? Integer.MAX_VALUE : policy.statementLimit();
             int pageLimit = policy.pagesPerStatement();
@@ -95,10 +116,13 @@ public class StatementService {
                 // User-facing limit breach -> BAD_REQUEST via GlobalExceptionHandler (IllegalArgumentException)
                 throw new IllegalArgumentException(AppConstants.ERROR_STATEMENT_LIMIT);
             }
-                int numPages = pdfPageCounter.countPages(file, pdfPassword);
-            if (pageLimit != Integer.MAX_VALUE && numPages > pageLimit) {
-                throw new IllegalArgumentException(String.format(AppConstants.ERROR_PAGE_LIMIT, numPages, pageLimit));
+            var pageSample = stageMetrics.start();
+            PdfInspector.Info pdf = pdfInspector.inspect(tempFile, spilled.sha256(), pdfPassword);
+            stageMetrics.stop(pageSample, "page_count", StatementStageMetrics.MODE_SYNC);
+            if (pageLimit != Integer.MAX_VALUE && pdf.pages() > pageLimit) {
+                throw new IllegalArgumentException(String.format(AppConstants.ERROR_PAGE_LIMIT, pdf.pages(), pageLimit));
             }
+            int numPages = pdf.pages();
             if ("aws_pipeline".equalsIgnoreCase(extractionMode)) {
                 // Create job with initial AWS pipeline progress snapshot
                 StatementJob job = new StatementJob();
@@ -112,7 +136,9 @@ public class StatementService {
                 job.setProcessedChunks(0);
                 job.setErrorCount(0);
                 job.setProgressPercent(0);
+                job.setContentSha256(spilled.sha256());
                 statementJobRepository.save(job);
+                uploadDeduplicator.attachJob(user, spilled.sha256(), job.getId());
                 try {
                     awsPipelineLauncher.launch(job, file);
                 } catch (IOException ioe) {
@@ -126,10 +152,13 @@ public class StatementService {
                 StatementJob job = new StatementJob();
                 job.setUser(user);
                 job.setOriginalFilename(file.getOriginalFilename());
+                job.setContentSha256(spilled.sha256());
                 statementJobRepository.save(job); // id assigned via @PrePersist
                 String jobId = job.getId();
-                // Persist upload to a stable temp file now; async thread cannot rely on original MultipartFile later
-                java.io.File persisted = tempFileService.saveTempPdf(file);
+                uploadDeduplicator.attachJob(user, spilled.sha256(), jobId);
+                // The temp file outlives the request (handed to the async thread, which deletes it)
+                java.io.File persisted = tempFile;
+                tempFile = null;
                 // Defer async start until after surrounding transaction commits so job row is visible
                 if (TransactionSynchronizationManager.isSynchronizationActive()) {
                     TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
@@ -143,11 +172,9 @@ public class StatementService {
                 }
                 return new StatementUploadResponseDto(true, "Statement accepted for async processing", jobId);
             }
-            File tempFile = tempFileService.saveTempPdf(file);
-            if (!tempFile.exists() || tempFile.length() == 0) {
-                    throw new IllegalStateException(AppConstants.ERROR_PDF_SAVE);
-            }
-            String output = extractionRunner.run(tempFile, pdfPassword);
+            var sample = stageMetrics.start();
+            String output = extractionRunner.run(tempFile, pdfPassword, pdf);
+            stageMetrics.stop(sample, "extraction", StatementStageMetrics.MODE_SYNC);
             if (output == null) {
                     throw new IllegalStateException(AppConstants.ERROR_EXTRACTION_FAILED);
             }
@@ -161,12 +188,25 @@ public class StatementService {
                     // Non-fatal: continue without stored original PDF
                 }
             }
-            RawStatement rawStatement = rawStatementPersister.persist(user, file.getOriginalFilename(), output, numPages, storageKey);
-            List<Transaction> transactions = transactionParser.parse(output, user, rawStatement.getBankName());
+            sample = stageMetrics.start();
+            RawStatement rawStatement = rawStatementPersister.persist(user, file.getOriginalFilename(), output, numPages, storageKey, spilled.sha256());
+            stageMetrics.stop(sample, "persist_raw", StatementStageMetrics.MODE_SYNC);
+            sample = stageMetrics.start();
+            List<Transaction> transactions = transactionParser.parse(output, user, rawStatement.getBankName(), rawStatement.getId());
+            stageMetrics.stop(sample, "parse", StatementStageMetrics.MODE_SYNC);
+            sample = stageMetrics.start();
             transactionRepository.saveAll(transactions);
+            stageMetrics.stop(sample, "save_transactions", StatementStageMetrics.MODE_SYNC);
+            sample = stageMetrics.start();
+            taxRuleService.classifyIngested(user, transactions);
+            stageMetrics.stop(sample, "classify_tax", StatementStageMetrics.MODE_SYNC);
+            sample = stageMetrics.start();
             bankCategoryUpserter.upsert(user, transactions);
-            tempFile.delete();
-            return new StatementUploadResponseDto(true, AppConstants.MSG_STATEMENT_SUCCESS);
+            stageMetrics.stop(sample, "upsert_bank_category", StatementStageMetrics.MODE_SYNC);
+            dataVersions.bump(user.getId());
+            StatementUploadResponseDto done = new StatementUploadResponseDto(true, AppConstants.MSG_STATEMENT_SUCCESS);
+            done.setRawStatementId(rawStatement.getId());
+            return done;
         } catch (IOException | InterruptedException e) {
             String msg = e.getMessage() != null ? e.getMessage().toLowerCase() : "";
             if (msg.contains("password")) {
@@ -182,51 +222,33 @@ public class StatementService {
                     throw new PdfPasswordRequiredException("PDF password required or incorrect");
             }
             throw new IllegalStateException(AppConstants.ERROR_PARSING_TRANSACTIONS, e);
+        } finally {
+            // Everything but the async hand-off is done with the file
+            if (tempFile != null) tempFile.delete();
         }
     }
 
     public List<RawStatementDto> getStatements(String authHeader) {
         User user = authenticationFacade.currentUser();
-        List<RawStatement> statements = rawStatementRepository.findAll();
-        List<RawStatementDto> dtos = new ArrayList<>();
-        for (RawStatement s : statements) {
-            if (s.getUser() == null || !s.getUser().getId().equals(user.getId())) continue;
-            String status = AppConstants.STATUS_COMPLETED;
-            String bankName = null;
-            Integer transactionCount = null;
-            List<String> parseWarnings = null;
-            try {
-                org.json.JSONArray arr = new org.json.JSONArray(s.getRawJson());
-                transactionCount = arr.length();
-                if (arr.length() > 0) {
-                    org.json.JSONObject first = arr.getJSONObject(0);
-                    bankName = first.optString("bankName", null);
-                }
-                parseWarnings = new ArrayList<>();
-                for (int i = 0; i < arr.length(); i++) {
-                    org.json.JSONObject obj = arr.getJSONObject(i);
-                    if (obj.has("warnings")) {
-                        org.json.JSONArray warns = obj.getJSONArray("warnings");
-                        for (int j = 0; j < warns.length(); j++) {
-                            parseWarnings.add(warns.getString(j));
-                        }
-                    }
-                }
-                if (parseWarnings.isEmpty()) parseWarnings = null;
-            } catch (Exception e) {
-                status = AppConstants.STATUS_FAILED;
-            }
-            dtos.add(new RawStatementDto(
-                s.getId(),
-                s.getFilename(),
-                s.getUploadDate(),
-                status,
-                bankName,
-                transactionCount,
-                parseWarnings
-            ));
+        return rawStatementRepository.findSummariesByUser(user).stream().map(this::toDto).toList();
+    }
+
+    /** One page of the user's statements, newest first; served from the metadata columns only. */
+    public org.springframework.data.domain.Page<RawStatementDto> getStatements(int page, int size) {
+        User user = authenticationFacade.currentUser();
+        return rawStatementRepository.pageSummariesByUser(user, org.springframework.data.domain.PageRequest.of(page, size)).map(this::toDto);
+    }
+
+    private RawStatementDto toDto(RawStatementRepository.StatementSummary s) {
+        List<String> parseWarnings = null;
+        if (s.getParseWarnings() != null) {
+            org.json.JSONArray arr = new org.json.JSONArray(s.getParseWarnings());
+            parseWarnings = new ArrayList<>(arr.length());
+            for (int i = 0; i < arr.length(); i++) parseWarnings.add(arr.getString(i));
         }
-        return dtos;
+        // Rows awaiting the metadata backfill are listed as completed, as before
+        String status = s.getParseStatus() != null ? s.getParseStatus() : AppConstants.STATUS_COMPLETED;
+        return new RawStatementDto(s.getId(), s.getFilename(), s.getUploadDate(), status, s.getBankName(), s.getTransactionCount(), parseWarnings);
     }
 
     /**
@@ -0,0 +1,75 @@
+package com.expensetracker.service;
+
+import com.expensetracker.model.TaxCategory;
+import com.expensetracker.repository.TaxCategoryRepository;
+import com.expensetracker.service.cache.CacheInvalidationBus;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tax category reference data as an immutable map (code -> entry, in id order), loaded at startup and swapped
+ * wholesale after a category change commits. Other nodes reload through the cache bus.
+ */
+@Component
+public class TaxCategoryCatalog {
+    public static final String CACHE_NAME = "tax:categories";
+
+    public record Entry(String code, String description, BigDecimal annualLimit) {}
+
+    private final TaxCategoryRepository repo;
+    private final CacheInvalidationBus bus;
+    private volatile Map<String, Entry> byCode;
+
+    public TaxCategoryCatalog(TaxCategoryRepository repo, CacheInvalidationBus bus) {
+        this.repo = repo;
+        this.bus = bus;
+        bus.register(CACHE_NAME, ignored -> reload());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        Map<String, Entry> loaded = new LinkedHashMap<>();
+        for (TaxCategory c : repo.findAll(Sort.by("id"))) {
+            loaded.putIfAbsent(c.getCode(), new Entry(c.getCode(), c.getDescription(), c.getAnnualLimit()));
+        }
+        byCode = java.util.Collections.unmodifiableMap(loaded);
+    }
+
+    public Collection<Entry> all() {
+        return snapshot().values();
+    }
+
+    public Entry get(String code) {
+        return code == null ? null : snapshot().get(code);
+    }
+
+    /** Reload here once the current transaction commits, and on the other nodes. */
+    public void changed() {
+        bus.publish(CACHE_NAME, null);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override public void afterCommit() { reload(); }
+            });
+        } else {
+            reload();
+        }
+    }
+
+    private Map<String, Entry> snapshot() {
+        Map<String, Entry> m = byCode;
+        if (m == null) {
+            reload();
+            m = byCode;
+        }
+        return m;
+    }
+}
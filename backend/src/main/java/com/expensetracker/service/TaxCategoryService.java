@@ -12,12 +12,13 @@ import java.util.stream.Collectors;
 @Transactional
 public class TaxCategoryService {
     private final TaxCategoryRepository repo;
-    public TaxCategoryService(TaxCategoryRepository repo){this.repo=repo;}
+    private final TaxCategoryCatalog catalog;
+    public TaxCategoryService(TaxCategoryRepository repo, TaxCategoryCatalog catalog){this.repo=repo; this.catalog=catalog;}
 
     public List<TaxCategoryDto> list(){ return repo.findAll().stream().map(this::toDto).collect(Collectors.toList()); }
-    public TaxCategoryDto create(TaxCategoryDto dto){ TaxCategory c = new TaxCategory(); c.setCode(dto.code()); c.setDescription(dto.description()); c.setAnnualLimit(dto.annualLimit()); return toDto(repo.save(c)); }
-    public TaxCategoryDto update(Long id, TaxCategoryDto dto){ TaxCategory c = repo.findById(id).orElseThrow(); c.setCode(dto.code()); c.setDescription(dto.description()); c.setAnnualLimit(dto.annualLimit()); return toDto(c); }
-    public void delete(Long id){ repo.deleteById(id); }
+    public TaxCategoryDto create(TaxCategoryDto dto){ TaxCategory c = new TaxCategory(); c.setCode(dto.code()); c.setDescription(dto.description()); c.setAnnualLimit(dto.annualLimit()); var saved = repo.save(c); catalog.changed(); return toDto(saved); }
+    public TaxCategoryDto update(Long id, TaxCategoryDto dto){ TaxCategory c = repo.findById(id).orElseThrow(); c.setCode(dto.code()); c.setDescription(dto.description()); c.setAnnualLimit(dto.annualLimit()); catalog.changed(); return toDto(c); }
+    public void delete(Long id){ repo.deleteById(id); catalog.changed(); }
 
     private TaxCategoryDto toDto(TaxCategory e){ return new TaxCategoryDto(e.getId(), e.getCode(), e.getDescription(), e.getAnnualLimit()); }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.expensetracker.service;
+
+import com.expensetracker.model.TaxDeductionRule;
+import com.expensetracker.service.cache.CacheInvalidationBus;
+import com.expensetracker.service.tax.CompiledRuleSet;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Active tax deduction rules (user + global) per user, backed by the "tax:rules" cache from CacheConfig.
+ * Entries are compiled ({@link CompiledRuleSet}) when loaded, so each rule version is compiled once per node.
+ */
+@Component
+public class TaxRuleCache {
+    public static final String CACHE_NAME = "tax:rules";
+
+    private final Cache cache;
+    private final CacheInvalidationBus bus;
+
+    public TaxRuleCache(CacheManager cacheManager, CacheInvalidationBus bus) {
+        this.bus = bus;
+        this.cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) throw new IllegalStateException("Cache " + CACHE_NAME + " is not registered");
+    }
+
+    public CompiledRuleSet activeRules(Long userId, Supplier<List<TaxDeductionRule>> loader) {
+        return cache.get(userId, () -> CompiledRuleSet.compile(loader.get()));
+    }
+
+    public void invalidateUser(Long userId) {
+        bus.evictUser(CACHE_NAME, userId);
+    }
+}
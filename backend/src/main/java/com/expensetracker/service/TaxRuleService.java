@@ -5,41 +5,49 @@ import com.expensetracker.dto.TaxRuleTestResultDto;
 import com.expensetracker.model.*;
 import com.expensetracker.repository.TaxDeductionRuleRepository;
 import com.expensetracker.repository.TaxTransactionRepository;
-import com.expensetracker.repository.TransactionRepository;
-import com.expensetracker.repository.TaxClassificationIgnoreRepository;
 import com.expensetracker.security.AuthenticationFacade;
+import com.expensetracker.service.tax.CompiledRuleSet;
+import com.expensetracker.service.tax.TaxAutoClassifier;
+import com.expensetracker.service.tax.TaxRuleEvaluator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class TaxRuleService {
+    private static final Logger log = LoggerFactory.getLogger(TaxRuleService.class);
     private final TaxDeductionRuleRepository ruleRepo;
     private final TaxTransactionRepository taxRepo;
-    private final TransactionRepository transactionRepo;
     private final AuthenticationFacade auth;
-    private final TaxClassificationIgnoreRepository ignoreRepo;
+    private final MeterRegistry meterRegistry;
+    private final TaxRuleCache ruleCache;
+    private final TaxAutoClassifier classifier;
+    private final TaxSummaryCache summaryCache;
+    private final TransactionTemplate newTx;
 
-    public TaxRuleService(TaxDeductionRuleRepository ruleRepo, TaxTransactionRepository taxRepo, TransactionRepository transactionRepo, TaxClassificationIgnoreRepository ignoreRepo, AuthenticationFacade auth){
-        this.ruleRepo = ruleRepo; this.taxRepo=taxRepo; this.transactionRepo=transactionRepo; this.ignoreRepo=ignoreRepo; this.auth=auth;
+    public TaxRuleService(TaxDeductionRuleRepository ruleRepo, TaxTransactionRepository taxRepo, AuthenticationFacade auth, MeterRegistry meterRegistry, TaxRuleCache ruleCache, TaxAutoClassifier classifier, TaxSummaryCache summaryCache, PlatformTransactionManager transactionManager){
+        this.ruleRepo = ruleRepo; this.taxRepo=taxRepo; this.auth=auth; this.meterRegistry=meterRegistry; this.ruleCache=ruleCache; this.classifier=classifier; this.summaryCache=summaryCache;
+        this.newTx = new TransactionTemplate(transactionManager);
+        this.newTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
     }
 
-    private static class CachedRules { List<TaxDeductionRule> rules; long loadedAt; }
-    private final java.util.concurrent.ConcurrentHashMap<Long, CachedRules> cache = new java.util.concurrent.ConcurrentHashMap<>();
-    private static final long CACHE_TTL_MS = 60_000; // 1 minute
-
-    private List<TaxDeductionRule> loadActive(User u){
-        long now = System.currentTimeMillis();
-        CachedRules c = cache.get(u.getId());
-        if(c!=null && (now - c.loadedAt) < CACHE_TTL_MS) return c.rules;
-        List<TaxDeductionRule> rules = ruleRepo.findActiveRules(u);
-        CachedRules n = new CachedRules(); n.rules = rules; n.loadedAt = now; cache.put(u.getId(), n); return rules;
+    private CompiledRuleSet loadActive(User u){
+        return ruleCache.activeRules(u.getId(), () -> ruleRepo.findActiveRules(u));
     }
 
     public List<TaxDeductionRuleDto> list(){
@@ -58,7 +66,7 @@ public class TaxRuleService {
         r.setAutoMarkDeductible(dto.autoMarkDeductible()!=null? dto.autoMarkDeductible():Boolean.TRUE);
         r.setActive(dto.active()!=null? dto.active():Boolean.TRUE);
     var saved = ruleRepo.save(r);
-    cache.remove(u.getId());
+    ruleCache.invalidateUser(u.getId());
     return toDto(saved);
     }
 
@@ -71,13 +79,13 @@ public class TaxRuleService {
         if(dto.priority()!=null) r.setPriority(dto.priority());
         if(dto.autoMarkDeductible()!=null) r.setAutoMarkDeductible(dto.autoMarkDeductible());
         if(dto.active()!=null) r.setActive(dto.active());
-    cache.remove(u.getId());
+    ruleCache.invalidateUser(u.getId());
     return toDto(r);
     }
 
     public void delete(Long id){
         var u = auth.currentUser();
-        ruleRepo.findById(id).filter(rr-> rr.getUser()!=null && rr.getUser().getId().equals(u.getId())).ifPresent(r->{ ruleRepo.delete(r); cache.remove(u.getId());});
+        ruleRepo.findById(id).filter(rr-> rr.getUser()!=null && rr.getUser().getId().equals(u.getId())).ifPresent(r->{ ruleRepo.delete(r); ruleCache.invalidateUser(u.getId());});
     }
 
     public TaxRuleTestResultDto test(String matchType,
@@ -90,61 +98,56 @@ public class TaxRuleService {
                                      Boolean autoMarkDeductible){
         try {
             TaxDeductionRule.MatchType mt = TaxDeductionRule.MatchType.valueOf(matchType);
-            boolean matches = evaluate(mt, matchValue, description, amount, category, merchant);
+            boolean matches = TaxRuleEvaluator.evaluate(mt, matchValue, description, amount, category, merchant);
             return new TaxRuleTestResultDto(matches, taxCategoryCode, autoMarkDeductible != null ? autoMarkDeductible : Boolean.TRUE, null);
         } catch (IllegalArgumentException ex){
             return new TaxRuleTestResultDto(false, taxCategoryCode, autoMarkDeductible != null ? autoMarkDeductible : Boolean.TRUE, "Invalid matchType: " + matchType);
         }
     }
 
-    private boolean evaluate(TaxDeductionRule.MatchType type, String value, String description, BigDecimal amount, String category, String merchant){
-        switch(type){
-            case CATEGORY: return category!=null && category.equalsIgnoreCase(value);
-            case MERCHANT: return merchant!=null && merchant.equalsIgnoreCase(value);
-            case DESCRIPTION_REGEX: return description!=null && Pattern.compile(value, Pattern.CASE_INSENSITIVE).matcher(description).find();
-            case AMOUNT_RANGE: {
-                if(amount==null) return false; String[] parts = value.split(":" );
-                BigDecimal min = parts.length>0 && !parts[0].isBlank()? new BigDecimal(parts[0]) : null;
-                BigDecimal max = parts.length>1 && !parts[1].isBlank()? new BigDecimal(parts[1]) : null;
-                BigDecimal abs = amount.abs();
-                return (min==null || abs.compareTo(min)>=0) && (max==null || abs.compareTo(max)<=0);
-            }
-            default: return false;
+    public int classifyRange(LocalDate start, LocalDate end) {
+        var u = auth.currentUser();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        int created = classifier.classifyRange(u, loadActive(u), start, end);
+        if (created > 0) summaryCache.invalidateUser(u.getId());
+        sample.stop(meterRegistry.timer("app.tax.classify", "scope", "range"));
+        meterRegistry.counter("app.tax.classified", "scope", "range").increment(created);
+        return created;
+    }
+
+    /**
+     * Ingest hook: suggests tax entries for transactions a statement upload just saved (no current-user lookup, so it
+     * also works from the async processor). Runs in its own transaction once the upload has committed, so a failed
+     * insert is logged without aborting or rolling back the upload; rows that never commit are never classified.
+     */
+    public void classifyIngested(User u, List<Transaction> saved) {
+        if (saved == null || saved.isEmpty()) return;
+        List<Transaction> batch = new ArrayList<>(saved);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override public void afterCommit() { classifyCommitted(u, batch); }
+            });
+        } else {
+            classifyCommitted(u, batch);
         }
     }
 
-    public int classifyRange(LocalDate start, LocalDate end) {
-        var u = auth.currentUser();
-        var rules = loadActive(u);
-        var txns = transactionRepo.findByUserAndDateRange(u, start, end);
-        int created=0;
-        for(Transaction t : txns){
-            if(t.getAmount()==null || t.getAmount().signum()>=0) continue; // only outflows
-            boolean already = taxRepo.existsByUserAndSourceTransactionId(u, t.getId());
-            if(already) continue;
-            if(ignoreRepo.existsByUserAndSourceTransaction(u, t)) continue; // user opted to ignore this source txn
-            TaxDeductionRule matched = null;
-            for(TaxDeductionRule r : rules){
-                if(evaluate(r.getMatchType(), r.getMatchValue(), t.getDescription(), t.getAmount(), t.getCategory(), t.getBankName())){ matched = r; break; }
-            }
-            if(matched!=null){
-                var tax = new TaxTransaction();
-                tax.setUser(u);
-                tax.setSourceTransaction(t);
-                tax.setRule(matched);
-                tax.setTaxYear(t.getDate()!=null? t.getDate().getYear(): start.getYear());
-                tax.setPaidDate(t.getDate());
-                tax.setAmount(t.getAmount().abs());
-                tax.setCategory(matched.getTaxCategoryCode());
-                tax.setNote(t.getDescription());
-                tax.setDeductible(matched.getAutoMarkDeductible());
-                tax.setHasReceipt(Boolean.FALSE);
-                tax.setClassificationStatus(matched.getAutoMarkDeductible()? "CONFIRMED": "SUGGESTED");
-                taxRepo.save(tax);
-                created++;
-            }
+    private void classifyCommitted(User u, List<Transaction> saved) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            // Evict inside the new transaction: its outbox row commits with the suggestions and the local eviction
+            // runs after that commit (registering on the finished upload transaction would never fire)
+            int created = newTx.execute(status -> {
+                int n = classifier.classifyNew(u, loadActive(u), saved);
+                if (n > 0) summaryCache.invalidateUser(u.getId());
+                return n;
+            });
+            meterRegistry.counter("app.tax.classified", "scope", "ingest").increment(created);
+        } catch (RuntimeException ex) {
+            log.warn("Tax classification on ingest failed for user {}: {}", u.getId(), ex.getMessage());
+        } finally {
+            sample.stop(meterRegistry.timer("app.tax.classify", "scope", "ingest"));
         }
-        return created;
     }
 
     private TaxDeductionRuleDto toDto(TaxDeductionRule r){
@@ -5,11 +5,9 @@ import com.expensetracker.dto.TaxCategoryUsageDto;
 import com.expensetracker.dto.TaxSummaryDto;
 import com.expensetracker.dto.TaxInsightDto;
 import com.expensetracker.model.TaxTransaction;
-import com.expensetracker.model.TaxCategory;
 import com.expensetracker.model.User;
 import com.expensetracker.repository.TaxTransactionRepository;
 import com.expensetracker.repository.TaxClassificationIgnoreRepository;
-import com.expensetracker.repository.TaxCategoryRepository;
 import com.expensetracker.security.AuthenticationFacade;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,11 +20,12 @@ import java.util.stream.Collectors;
 @Transactional
 public class TaxService {
     private final TaxTransactionRepository repo;
-    private final TaxCategoryRepository categoryRepo;
+    private final TaxCategoryCatalog categories;
+    private final TaxSummaryCache summaryCache;
     private final TaxClassificationIgnoreRepository ignoreRepo;
     private final AuthenticationFacade auth;
     private final com.expensetracker.storage.OciObjectStorageService ociStorage;
-    public TaxService(TaxTransactionRepository repo, TaxCategoryRepository categoryRepo, TaxClassificationIgnoreRepository ignoreRepo, AuthenticationFacade auth, com.expensetracker.storage.OciObjectStorageService ociStorage){this.repo=repo;this.categoryRepo=categoryRepo;this.ignoreRepo=ignoreRepo;this.auth=auth; this.ociStorage=ociStorage;}
+    public TaxService(TaxTransactionRepository repo, TaxCategoryCatalog categories, TaxSummaryCache summaryCache, TaxClassificationIgnoreRepository ignoreRepo, AuthenticationFacade auth, com.expensetracker.storage.OciObjectStorageService ociStorage){this.repo=repo;this.categories=categories;this.summaryCache=summaryCache;this.ignoreRepo=ignoreRepo;this.auth=auth; this.ociStorage=ociStorage;}
 
     public List<TaxTransactionDto> list(Integer year){
         User u = auth.currentUser();
@@ -45,7 +44,9 @@ public class TaxService {
         t.setNote(dto.note());
         t.setDeductible(dto.deductible()==null? Boolean.TRUE : dto.deductible());
         t.setHasReceipt(dto.hasReceipt()==null? Boolean.FALSE : dto.hasReceipt());
-    return toDto(repo.save(t));
+    var saved = repo.save(t);
+    summaryCache.invalidateUser(u.getId());
+    return toDto(saved);
     }
 
     public TaxTransactionDto update(Long id, TaxTransactionDto dto){
@@ -58,6 +59,7 @@ public class TaxService {
     t.setNote(dto.note());
     if(dto.deductible()!=null) t.setDeductible(dto.deductible());
     if(dto.hasReceipt()!=null) t.setHasReceipt(dto.hasReceipt());
+        summaryCache.invalidateUser(u.getId());
         return toDto(t);
     }
 
@@ -72,6 +74,7 @@ public class TaxService {
                 ignoreRepo.save(ign);
             }
             repo.delete(t);
+            summaryCache.invalidateUser(u.getId());
         });
     }
 
@@ -85,6 +88,7 @@ public class TaxService {
         User u = auth.currentUser();
         TaxTransaction t = repo.findById(id).filter(e->e.getUser().getId().equals(u.getId())).orElseThrow();
         t.setDeductible(t.getDeductible()==null || !t.getDeductible());
+        summaryCache.invalidateUser(u.getId());
         return toDto(t);
     }
 
@@ -92,6 +96,7 @@ public class TaxService {
         User u = auth.currentUser();
         TaxTransaction t = repo.findById(id).filter(e->e.getUser().getId().equals(u.getId())).orElseThrow();
         t.setHasReceipt(Boolean.TRUE);
+        summaryCache.invalidateUser(u.getId());
         return toDto(t);
     }
 
@@ -116,6 +121,7 @@ public class TaxService {
                 t.setReceiptKey(dest.toAbsolutePath().toString());
             }
             t.setHasReceipt(Boolean.TRUE);
+            summaryCache.invalidateUser(u.getId());
             return toDto(t);
         } catch(Exception ex){ throw new RuntimeException("Failed to store receipt", ex); }
     }
@@ -175,14 +181,16 @@ public class TaxService {
         return new TaxTransactionDto(e.getId(), e.getTaxYear(), e.getCategory(), e.getAmount(), e.getPaidDate(), e.getNote(), e.getDeductible(), e.getHasReceipt(), e.getClassificationStatus(), srcId, sDesc, sCat, sAmt, sBank);
     }
 
+    /** Served from {@link TaxSummaryCache}; insights reuse the same cached totals. */
     public TaxSummaryDto summary(Integer year){
         User u = auth.currentUser();
-        var total = repo.totalDeductible(u, year);
-        long missing = repo.countMissingReceipts(u, year);
-        var usage = buildCategoryUsage(u, year);
+        var totals = summaryCache.get(u.getId(), year, () -> aggregate(u, year));
+        var usage = categories.all().stream()
+                .map(c -> mapUsage(c, totals.byCategory().getOrDefault(c.code(), java.math.BigDecimal.ZERO)))
+                .toList();
         // Assume 30% bracket for now (could be dynamic later)
-        java.math.BigDecimal estimatedSavings = total.multiply(java.math.BigDecimal.valueOf(0.30));
-        return new TaxSummaryDto(year, total, estimatedSavings, (int)missing, usage);
+        java.math.BigDecimal estimatedSavings = totals.totalDeductible().multiply(java.math.BigDecimal.valueOf(0.30));
+        return new TaxSummaryDto(year, totals.totalDeductible(), estimatedSavings, (int) totals.missingReceipts(), usage);
     }
 
     public java.util.List<TaxInsightDto> insights(Integer year){
@@ -204,19 +212,24 @@ public class TaxService {
         return list;
     }
 
-    private java.util.List<TaxCategoryUsageDto> buildCategoryUsage(User u, Integer year){
-        var byCategory = repo.aggregateCategoryTotals(u, year).stream()
-                .collect(java.util.stream.Collectors.toMap(TaxTransactionRepository.CategoryTotal::getCategory, TaxTransactionRepository.CategoryTotal::getTotal));
-        var categories = categoryRepo.findAll();
-        return categories.stream().map(c -> mapUsage(c, byCategory.getOrDefault(c.getCode(), java.math.BigDecimal.ZERO))).collect(java.util.stream.Collectors.toList());
+    private TaxSummaryCache.Totals aggregate(User u, Integer year){
+        java.math.BigDecimal total = java.math.BigDecimal.ZERO;
+        long missing = 0;
+        java.util.Map<String, java.math.BigDecimal> byCategory = new java.util.HashMap<>();
+        for (var row : repo.aggregateSummary(u, year)) {
+            total = total.add(row.getTotal());
+            missing += row.getMissingReceipts() == null ? 0 : row.getMissingReceipts();
+            byCategory.put(row.getCategory(), row.getTotal());
+        }
+        return new TaxSummaryCache.Totals(total, missing, java.util.Collections.unmodifiableMap(byCategory));
     }
 
-    private TaxCategoryUsageDto mapUsage(TaxCategory c, java.math.BigDecimal used){
-        java.math.BigDecimal limit = c.getAnnualLimit();
+    private TaxCategoryUsageDto mapUsage(TaxCategoryCatalog.Entry c, java.math.BigDecimal used){
+        java.math.BigDecimal limit = c.annualLimit();
         java.math.BigDecimal remaining = (limit==null? java.math.BigDecimal.ZERO : limit.subtract(used.max(java.math.BigDecimal.ZERO)));
         double percent = (limit==null || limit.signum()==0)? 0d : used.multiply(java.math.BigDecimal.valueOf(100)).divide(limit, java.math.RoundingMode.HALF_UP).doubleValue();
         boolean overLimit = limit!=null && used.compareTo(limit)>0;
         boolean nearLimit = !overLimit && limit!=null && percent>=80.0;
-        return new TaxCategoryUsageDto(c.getCode(), c.getDescription(), limit, used, remaining, percent, overLimit, nearLimit);
+        return new TaxCategoryUsageDto(c.code(), c.description(), limit, used, remaining, percent, overLimit, nearLimit);
     }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package com.expensetracker.service;
+
+import com.expensetracker.service.cache.CacheInvalidationBus;
+import com.expensetracker.service.cache.PerUserCache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Aggregated deductible totals per (user, tax year), backed by the "tax:summary" cache from CacheConfig.
+ * Holds only the database part of the summary; category limits are applied from {@link TaxCategoryCatalog} on read,
+ * so category edits never leave stale summaries behind. Evicted on every tax transaction change of the user, once the
+ * change commits.
+ */
+@Component
+public class TaxSummaryCache {
+    public static final String CACHE_NAME = "tax:summary";
+    private static final int MAX_YEARS_PER_USER = 16;
+    private static final int ALL_YEARS = Integer.MIN_VALUE;
+
+    /** Deductible totals of one user and year (all years when the year is null). */
+    public record Totals(BigDecimal totalDeductible, long missingReceipts, Map<String, BigDecimal> byCategory) {}
+
+    private final PerUserCache<Integer, Totals> cache;
+    private final CacheInvalidationBus bus;
+
+    public TaxSummaryCache(CacheManager cacheManager, CacheInvalidationBus bus) {
+        this.cache = new PerUserCache<>(cacheManager.getCache(CACHE_NAME), MAX_YEARS_PER_USER);
+        this.bus = bus;
+    }
+
+    public Totals get(Long userId, Integer year, Supplier<Totals> loader) {
+        int key = year == null ? ALL_YEARS : year;
+        Totals t = cache.get(userId, key);
+        if (t == null) {
+            t = loader.get();
+            cache.put(userId, key, t);
+        }
+        return t;
+    }
+
+    /**
+     * Drop the user's totals on the other nodes and, once the current transaction commits, here; evicting before the
+     * commit would let a concurrent summary re-cache the old totals.
+     */
+    public void invalidateUser(Long userId){
+        bus.publish(CACHE_NAME, userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override public void afterCommit() { cache.invalidateUser(userId); }
+            });
+        } else {
+            cache.invalidateUser(userId);
+        }
+    }
+}
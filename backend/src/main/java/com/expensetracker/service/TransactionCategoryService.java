@@ -0,0 +1,55 @@
+package com.expensetracker.service;
+
+import com.expensetracker.dto.TransactionDto;
+import com.expensetracker.exception.ResourceNotFoundException;
+import com.expensetracker.model.Transaction;
+import com.expensetracker.model.User;
+import com.expensetracker.repository.TransactionRepository;
+import com.expensetracker.security.AuthenticationFacade;
+import com.expensetracker.service.cache.UserDataVersionService;
+import com.expensetracker.service.statement.BankCategoryUpserter;
+import com.expensetracker.service.statement.MerchantCategoryDictionary;
+import com.expensetracker.util.MerchantNormalizer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * User corrections of a transaction's category. Besides updating the row (and the per-user category counts), each
+ * correction is remembered for the merchant so future uploads and replays categorize it the same way.
+ */
+@Service
+public class TransactionCategoryService {
+    private final TransactionRepository transactionRepository;
+    private final BankCategoryUpserter counts;
+    private final MerchantCategoryDictionary dictionary;
+    private final AuthenticationFacade auth;
+    private final UserDataVersionService dataVersions;
+
+    public TransactionCategoryService(TransactionRepository transactionRepository, BankCategoryUpserter counts,
+                                      MerchantCategoryDictionary dictionary, AuthenticationFacade auth, UserDataVersionService dataVersions) {
+        this.transactionRepository = transactionRepository;
+        this.counts = counts;
+        this.dictionary = dictionary;
+        this.auth = auth;
+        this.dataVersions = dataVersions;
+    }
+
+    @Transactional
+    public TransactionDto correctCategory(Long transactionId, String category) {
+        if (category == null || category.isBlank()) throw new IllegalArgumentException("category is required");
+        String next = category.trim();
+        User user = auth.currentUser();
+        Transaction t = transactionRepository.findById(transactionId)
+                .filter(x -> x.getUser() != null && x.getUser().getId().equals(user.getId()))
+                .orElseThrow(() -> new ResourceNotFoundException("Transaction not found"));
+        String previous = t.getCategory();
+        if (!next.equals(previous)) {
+            t.setCategory(next);
+            counts.moveCategory(user, previous, next);
+            dataVersions.bump(user.getId());
+        }
+        String merchant = t.getMerchant() != null ? t.getMerchant() : MerchantNormalizer.normalizeCached(t.getDescription());
+        dictionary.recordCorrection(user.getId(), merchant, next);
+        return TransactionDto.fromEntity(t);
+    }
+}
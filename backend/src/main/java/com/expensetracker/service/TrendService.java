@@ -4,6 +4,7 @@ import com.expensetracker.dto.TrendPointDto;
 import com.expensetracker.dto.MonthlySpendingDtos;
 import com.expensetracker.repository.TransactionRepository;
 import com.expensetracker.security.AuthenticationFacade;
+import com.expensetracker.service.cache.UserDataVersionService;
 import com.expensetracker.model.User;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -20,11 +21,30 @@ import java.math.BigDecimal;
 public class TrendService {
     private final TransactionRepository txRepo;
     private final AuthenticationFacade auth;
-    public TrendService(TransactionRepository txRepo, AuthenticationFacade auth){this.txRepo=txRepo;this.auth=auth;}
+    private final UserDataVersionService dataVersions;
+    public TrendService(TransactionRepository txRepo, AuthenticationFacade auth, UserDataVersionService dataVersions){this.txRepo=txRepo;this.auth=auth;this.dataVersions=dataVersions;}
 
     public List<TrendPointDto> monthlyNet(int months){
-        if(months<=0) months = 6;
         User u = auth.currentUser();
+        return dataVersions.cached(UserDataVersionService.TRENDS_MONTHLY_NET, u.getId(), months + ":" + YearMonth.now(), () -> computeMonthlyNet(u, months));
+    }
+
+    // Advanced monthly spending series (outflow/inflow/category/bank + summary)
+    public MonthlySpendingDtos.MonthlySeriesResponse monthlySpendingSeries(YearMonth fromYm, YearMonth toYm, List<String> bankFilter, boolean includeBanks, boolean includePrevYear, int topCategories){
+        User u = auth.currentUser();
+        String args = fromYm + ":" + toYm + ":" + bankFilter + ":" + includeBanks + ":" + includePrevYear + ":" + topCategories + ":" + u.getCurrency();
+        return dataVersions.cached(UserDataVersionService.TRENDS_SERIES, u.getId(), args,
+                () -> computeMonthlySpendingSeries(u, fromYm, toYm, bankFilter, includeBanks, includePrevYear, topCategories));
+    }
+
+    public MonthlySpendingDtos.MonthBreakdownResponse monthBreakdown(YearMonth ym, List<String> bankFilter, boolean includeBanks){
+        User u = auth.currentUser();
+        String args = ym + ":" + bankFilter + ":" + includeBanks + ":" + u.getCurrency();
+        return dataVersions.cached(UserDataVersionService.TRENDS_BREAKDOWN, u.getId(), args, () -> computeMonthBreakdown(u, ym, bankFilter, includeBanks));
+    }
+
+    private List<TrendPointDto> computeMonthlyNet(User u, int months){
+        if(months<=0) months = 6;
         YearMonth now = YearMonth.now();
         YearMonth fromYm = now.minusMonths(months-1);
         LocalDate start = fromYm.atDay(1);
@@ -41,10 +61,8 @@ public class TrendService {
         return result;
     }
 
-    // Advanced monthly spending series (outflow/inflow/category/bank + summary)
-    public MonthlySpendingDtos.MonthlySeriesResponse monthlySpendingSeries(YearMonth fromYm, YearMonth toYm, List<String> bankFilter, boolean includeBanks, boolean includePrevYear, int topCategories){
+    private MonthlySpendingDtos.MonthlySeriesResponse computeMonthlySpendingSeries(User u, YearMonth fromYm, YearMonth toYm, List<String> bankFilter, boolean includeBanks, boolean includePrevYear, int topCategories){
         if(fromYm.isAfter(toYm)) throw new IllegalArgumentException("from after to");
-        User u = auth.currentUser();
         LocalDate start = fromYm.atDay(1);
         LocalDate end = toYm.atEndOfMonth();
         if(bankFilter != null && bankFilter.isEmpty()) bankFilter = null; // normalize empty -> null
@@ -116,11 +134,10 @@ public class TrendService {
                 new MonthlySpendingDtos.SummaryStat(highestMonth, highest!=null? highest: BigDecimal.ZERO),
                 new MonthlySpendingDtos.SummaryStat(lowestMonth, lowest!=null? lowest: BigDecimal.ZERO),
                 avg, momChangePct);
-        return new MonthlySpendingDtos.MonthlySeriesResponse(fromYm.toString(), toYm.toString(), summary, monthly, auth.currentUser().getCurrency());
+        return new MonthlySpendingDtos.MonthlySeriesResponse(fromYm.toString(), toYm.toString(), summary, monthly, u.getCurrency());
     }
 
-    public MonthlySpendingDtos.MonthBreakdownResponse monthBreakdown(YearMonth ym, List<String> bankFilter, boolean includeBanks){
-        User u = auth.currentUser();
+    private MonthlySpendingDtos.MonthBreakdownResponse computeMonthBreakdown(User u, YearMonth ym, List<String> bankFilter, boolean includeBanks){
         LocalDate start = ym.atDay(1); LocalDate end = ym.atEndOfMonth();
         if(bankFilter != null && bankFilter.isEmpty()) bankFilter = null;
         TransactionRepository.MonthlyFlowProjection flow = txRepo.aggregateMonthlyFlows(u,start,end, bankFilter).stream().findFirst().orElse(null);
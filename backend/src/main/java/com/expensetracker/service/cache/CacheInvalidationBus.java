@@ -0,0 +1,174 @@
+package com.expensetracker.service.cache;
+
+import com.expensetracker.config.DatabaseVendor;
+import com.expensetracker.model.OutboxEvent;
+import com.expensetracker.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts cache evictions to the other backend replicas through the outbox_events table.
+ *
+ * An invalidation is written as an outbox row (aggregate_type = CACHE_INVALIDATION, event_type = cache name,
+ * aggregate_id = user id or "*", payload = originating node id) with status SENT so the outbox dispatcher never
+ * delivers it externally. Every node polls for rows newer than its cursor and applies them locally; the local
+ * eviction on the publishing node happens immediately. Because the row is written in the caller's transaction,
+ * remote nodes only see invalidations for committed changes.
+ *
+ * Rows are numbered from cache_invalidation_seq and polled by that number, draining a backlog batch by batch. A number
+ * is taken at insert but becomes visible at commit, so numbers skipped over by the cursor (a writer still in its
+ * transaction, or one that rolled back) are re-checked on every poll until they show up or {@code gap-timeout-ms}
+ * passes.
+ *
+ * Per-user entries are evicted by key (caches keyed by user id); "*" clears the whole cache. Caches that are not
+ * keyed by user id (e.g. data versions) register their own handler.
+ */
+@Service
+public class CacheInvalidationBus {
+    public static final String AGGREGATE_TYPE = "CACHE_INVALIDATION";
+    private static final String ALL = "*";
+    private static final String SEQUENCE = "cache_invalidation_seq";
+    private static final int IN_CHUNK = 1000;
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private final OutboxEventRepository repository;
+    private final CacheManager cacheManager;
+    private final JdbcTemplate jdbc;
+    private final DatabaseVendor vendor;
+    private final Map<String, Consumer<Long>> handlers = new ConcurrentHashMap<>();
+    private final String nodeId = UUID.randomUUID().toString();
+    /** Skipped sequence numbers -> time (ms) after which they are given up on. Only touched by the poll thread. */
+    private final Map<Long, Long> gaps = new LinkedHashMap<>();
+    private long cursor = -1;
+
+    @Value("${app.cache.bus.enabled:false}")
+    private boolean enabled;
+    @Value("${app.cache.bus.batch-size:500}")
+    private int batchSize;
+    @Value("${app.cache.bus.gap-timeout-ms:300000}")
+    private long gapTimeoutMs;
+    @Value("${app.cache.bus.max-gaps:10000}")
+    private int maxGaps;
+
+    public CacheInvalidationBus(OutboxEventRepository repository, CacheManager cacheManager, JdbcTemplate jdbc, DatabaseVendor vendor) {
+        this.repository = repository;
+        this.cacheManager = cacheManager;
+        this.jdbc = jdbc;
+        this.vendor = vendor;
+    }
+
+    /** Handle invalidations of {@code cacheName} (user id, or null for "all") instead of the default key eviction. */
+    public void register(String cacheName, Consumer<Long> handler) {
+        handlers.put(cacheName, handler);
+    }
+
+    /** Evict the user's entry locally and broadcast the eviction to the other nodes. */
+    public void evictUser(String cacheName, Long userId) {
+        applyLocally(cacheName, userId);
+        publish(cacheName, userId);
+    }
+
+    /**
+     * Like {@link #evictUser}, for changes made in the current transaction: the local eviction waits for the commit, so
+     * a read between the eviction and the commit cannot re-cache the old value. Without a transaction it is immediate.
+     */
+    public void evictUserAfterCommit(String cacheName, Long userId) {
+        publish(cacheName, userId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            applyLocally(cacheName, userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                applyLocally(cacheName, userId);
+            }
+        });
+    }
+
+    /** Broadcast only; for callers that already updated their local state. */
+    public void publish(String cacheName, Long userId) {
+        if (!enabled) return;
+        OutboxEvent evt = new OutboxEvent();
+        evt.setAggregateType(AGGREGATE_TYPE);
+        evt.setAggregateId(userId == null ? ALL : userId.toString());
+        evt.setEventType(cacheName);
+        evt.setPayload(nodeId);
+        evt.setStatus(OutboxEvent.Status.SENT); // local broadcast only, never dispatched to external sinks
+        evt.setSeq(jdbc.queryForObject(vendor.nextValSql(SEQUENCE), Long.class));
+        repository.save(evt);
+    }
+
+    @Scheduled(fixedDelayString = "${app.cache.bus.poll-ms:1000}")
+    public void poll() {
+        if (!enabled) return;
+        try {
+            if (cursor < 0) {
+                // Caches start empty, so there is nothing older to catch up on
+                Long max = repository.maxSeq(AGGREGATE_TYPE);
+                cursor = max != null ? max : 0;
+                return;
+            }
+            long now = System.currentTimeMillis();
+            List<OutboxEvent> events;
+            do {
+                events = repository.findByAggregateTypeAfterSeq(AGGREGATE_TYPE, cursor, PageRequest.of(0, batchSize));
+                for (OutboxEvent evt : events) {
+                    for (long missing = cursor + 1; missing < evt.getSeq() && gaps.size() < maxGaps; missing++) {
+                        gaps.put(missing, now + gapTimeoutMs);
+                    }
+                    cursor = evt.getSeq();
+                    apply(evt);
+                }
+            } while (events.size() == batchSize);
+            if (!gaps.isEmpty()) recheckGaps(now);
+        } catch (Exception ex) {
+            log.warn("Cache invalidation poll failed: {}", ex.getMessage());
+        }
+    }
+
+    /** Applies late-committed rows behind the cursor and forgets numbers that never showed up in time. */
+    private void recheckGaps(long now) {
+        gaps.values().removeIf(deadline -> deadline < now);
+        List<Long> pending = new ArrayList<>(gaps.keySet());
+        for (int i = 0; i < pending.size(); i += IN_CHUNK) {
+            for (OutboxEvent evt : repository.findByAggregateTypeAndSeqIn(AGGREGATE_TYPE, pending.subList(i, Math.min(pending.size(), i + IN_CHUNK)))) {
+                if (gaps.remove(evt.getSeq()) != null) apply(evt);
+            }
+        }
+    }
+
+    private void apply(OutboxEvent evt) {
+        if (nodeId.equals(evt.getPayload())) return;
+        Long userId = ALL.equals(evt.getAggregateId()) ? null : Long.valueOf(evt.getAggregateId());
+        applyLocally(evt.getEventType(), userId);
+    }
+
+    private void applyLocally(String cacheName, Long userId) {
+        Consumer<Long> handler = handlers.get(cacheName);
+        if (handler != null) {
+            handler.accept(userId);
+            return;
+        }
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) return;
+        if (userId == null) cache.clear(); else cache.evict(userId);
+    }
+}
@@ -0,0 +1,45 @@
+package com.expensetracker.service.cache;
+
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Two-level cache: one managed (size-bounded, expiring) cache entry per user holding a small map of that
+ * user's values. Invalidating a user is a single O(1) eviction instead of a key scan, and memory stays
+ * bounded by the outer cache's maximum size times {@code maxEntriesPerUser}.
+ */
+public class PerUserCache<K, V> {
+
+    private final Cache users;
+    private final int maxEntriesPerUser;
+
+    public PerUserCache(Cache users, int maxEntriesPerUser) {
+        if (users == null) throw new IllegalStateException("Per-user cache is not registered in the CacheManager");
+        this.users = users;
+        this.maxEntriesPerUser = maxEntriesPerUser;
+    }
+
+    public V get(Long userId, K key) {
+        ConcurrentMap<K, V> entries = entries(userId, false);
+        return entries == null ? null : entries.get(key);
+    }
+
+    public void put(Long userId, K key, V value) {
+        if (value == null) return;
+        ConcurrentMap<K, V> entries = entries(userId, true);
+        if (entries.size() >= maxEntriesPerUser && !entries.containsKey(key)) entries.clear();
+        entries.put(key, value);
+    }
+
+    public void invalidateUser(Long userId) {
+        users.evict(userId);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ConcurrentMap<K, V> entries(Long userId, boolean create) {
+        if (!create) return users.get(userId, ConcurrentMap.class);
+        return users.get(userId, ConcurrentHashMap::new);
+    }
+}
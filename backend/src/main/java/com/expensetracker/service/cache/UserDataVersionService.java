@@ -0,0 +1,84 @@
+package com.expensetracker.service.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Per-user "data version" used as part of every analytics cache key (userId:version:args).
+ * Ingest / delete / re-categorization bump the user's version, which makes all of that user's cached
+ * analytics unreachable without touching other users' entries; stale entries simply age out of Caffeine.
+ *
+ * Versions are drawn from one monotonically increasing sequence, so a user whose version entry was evicted
+ * gets a value that has never been used in a key before (no risk of resurrecting stale entries).
+ */
+@Service
+public class UserDataVersionService {
+    public static final String ANALYTICS_SUMMARY = "analytics:summary";
+    public static final String DASHBOARD_SUMMARY = "dashboard:summary";
+    public static final String TRENDS_MONTHLY_NET = "trends:monthlyNet";
+    public static final String TRENDS_SERIES = "trends:series";
+    public static final String TRENDS_BREAKDOWN = "trends:breakdown";
+    public static final String BUDGETS_SUMMARY = "budgets:summary";
+    /** Bus channel for version bumps (not a Spring cache). */
+    public static final String VERSIONS = "user:dataVersion";
+
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis());
+    private final LoadingCache<Long, Long> versions = Caffeine.newBuilder()
+            .maximumSize(200_000)
+            .expireAfterAccess(Duration.ofHours(2))
+            .build(userId -> sequence.incrementAndGet());
+    private final CacheManager cacheManager;
+    private final CacheInvalidationBus bus;
+
+    public UserDataVersionService(CacheManager cacheManager, CacheInvalidationBus bus) {
+        this.cacheManager = cacheManager;
+        this.bus = bus;
+        bus.register(VERSIONS, userId -> {
+            if (userId == null) versions.invalidateAll(); else bumpLocal(userId);
+        });
+    }
+
+    public long current(Long userId) {
+        return versions.get(userId);
+    }
+
+    /**
+     * Mark all cached analytics of this user as stale. Inside a transaction the version is bumped again after
+     * commit, so a concurrent read that cached pre-commit data under the new version cannot outlive the commit.
+     */
+    public void bump(Long userId) {
+        if (userId == null) return;
+        bumpLocal(userId);
+        bus.publish(VERSIONS, userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override public void afterCommit() {
+                    bumpLocal(userId);
+                }
+            });
+        }
+    }
+
+    private void bumpLocal(Long userId) {
+        versions.put(userId, sequence.incrementAndGet());
+    }
+
+    /**
+     * Look up (or compute and store) a value in the named cache under a key scoped to the user's current data version.
+     */
+    public <T> T cached(String cacheName, Long userId, String args, Supplier<T> loader) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null || userId == null) return loader.get();
+        String key = userId + ":" + current(userId) + ":" + args;
+        return cache.get(key, loader::get);
+    }
+}
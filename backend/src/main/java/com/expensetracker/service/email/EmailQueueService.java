@@ -0,0 +1,80 @@
+package com.expensetracker.service.email;
+
+import com.expensetracker.model.EmailQueueItem;
+import com.expensetracker.model.User;
+import com.expensetracker.repository.EmailQueueRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Producer side of the email_queue. Enqueueing joins the caller's transaction, so an email is only sent if the
+ * change that triggered it commits, and the caller never waits on SMTP. {@link EmailQueueWorker} is woken after commit.
+ */
+@Service
+public class EmailQueueService {
+    public static final String TYPE_SPENDING_ALERT = "SPENDING_ALERT";
+
+    private final EmailQueueRepository repository;
+    private final EmailQueueWorker worker;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${app.mail.queue.digest-window-seconds:60}")
+    private long digestWindowSeconds;
+
+    public EmailQueueService(EmailQueueRepository repository, EmailQueueWorker worker) {
+        this.repository = repository;
+        this.worker = worker;
+    }
+
+    @Transactional
+    public EmailQueueItem enqueueHtml(User user, String type, String subject, String html) {
+        EmailQueueItem item = newItem(user, type, subject);
+        item.setHtml(html);
+        return save(item);
+    }
+
+    /**
+     * Spending alerts are held for the digest window; all of a user's alerts that are due together are sent as one email.
+     */
+    @Transactional
+    public EmailQueueItem enqueueSpendingAlert(User user, String subject, Map<String, Object> alert) {
+        EmailQueueItem item = newItem(user, TYPE_SPENDING_ALERT, subject);
+        try {
+            item.setPayload(objectMapper.writeValueAsString(alert));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Unserializable spending alert payload", e);
+        }
+        item.setNextAttemptAt(LocalDateTime.now().plusSeconds(digestWindowSeconds));
+        return save(item);
+    }
+
+    private EmailQueueItem newItem(User user, String type, String subject) {
+        EmailQueueItem item = new EmailQueueItem();
+        item.setUserId(user.getId());
+        item.setRecipient(user.getEmail());
+        item.setType(type);
+        item.setSubject(subject.length() > 500 ? subject.substring(0, 500) : subject);
+        return item;
+    }
+
+    private EmailQueueItem save(EmailQueueItem item) {
+        EmailQueueItem saved = repository.save(item);
+        if (item.getNextAttemptAt() == null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    worker.wakeUp();
+                }
+            });
+        }
+        return saved;
+    }
+}
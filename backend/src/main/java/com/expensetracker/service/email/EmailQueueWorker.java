@@ -0,0 +1,324 @@
+package com.expensetracker.service.email;
+
+import com.expensetracker.model.EmailAudit;
+import com.expensetracker.model.EmailQueueItem;
+import com.expensetracker.repository.EmailAuditRepository;
+import com.expensetracker.repository.EmailQueueRepository;
+import com.expensetracker.repository.UserRepository;
+import com.expensetracker.service.EmailTemplateService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Consumer side of the email_queue.
+ *
+ * Each worker claims a batch of due items (SKIP LOCKED, leased via next_attempt_at), merges a user's spending alerts
+ * into one digest (claiming the user's due alerts the batch did not reach, see {@link #completeDigests}), and hands the
+ * whole batch to {@link JavaMailSender#send(MimeMessage...)}, which opens a single SMTP
+ * connection for all messages. Per-message failures reported in {@link MailSendException#getFailedMessages()} are
+ * retried with exponential backoff; audit rows are written for every final outcome.
+ */
+@Component
+public class EmailQueueWorker {
+    private static final Logger log = LoggerFactory.getLogger(EmailQueueWorker.class);
+
+    private final EmailQueueRepository repository;
+    private final EmailAuditRepository auditRepository;
+    private final UserRepository userRepository;
+    private final JavaMailSender sender;
+    private final EmailTemplateService templateService;
+    private final TransactionTemplate tx;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService pool;
+    private final int workerCount;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean rerun = new AtomicBoolean();
+    private final String from;
+    private final Counter sentCounter;
+    private final Counter retryCounter;
+    private final Counter failedCounter;
+    private final Timer batchTimer;
+
+    @Value("${app.mail.queue.batch-size:50}")
+    private int batchSize;
+    @Value("${app.mail.queue.lease-seconds:120}")
+    private long leaseSeconds;
+    @Value("${app.mail.queue.max-attempts:6}")
+    private int maxAttempts;
+    @Value("${app.mail.queue.backoff-base-seconds:30}")
+    private long backoffBaseSeconds;
+    @Value("${app.mail.queue.retention-days:35}")
+    private int retentionDays;
+
+    public EmailQueueWorker(EmailQueueRepository repository,
+                            EmailAuditRepository auditRepository,
+                            UserRepository userRepository,
+                            JavaMailSender sender,
+                            EmailTemplateService templateService,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.mail.from.address}") String fromAddress,
+                            @Value("${app.mail.from.name}") String fromName,
+                            @Value("${app.mail.queue.workers:2}") int workerCount) {
+        this.repository = repository;
+        this.auditRepository = auditRepository;
+        this.userRepository = userRepository;
+        this.sender = sender;
+        this.templateService = templateService;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.from = String.format("%s <%s>", fromName, fromAddress);
+        this.workerCount = Math.max(1, workerCount);
+        AtomicInteger seq = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(this.workerCount + 1, r -> {
+            Thread t = new Thread(r, "email-queue-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.sentCounter = meterRegistry.counter("app.mail.queue.processed", "result", "sent");
+        this.retryCounter = meterRegistry.counter("app.mail.queue.processed", "result", "retry");
+        this.failedCounter = meterRegistry.counter("app.mail.queue.processed", "result", "failed");
+        this.batchTimer = meterRegistry.timer("app.mail.queue.batch");
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.queue.poll-ms:5000}")
+    public void poll() {
+        drain();
+    }
+
+    public void wakeUp() {
+        pool.execute(this::drain);
+    }
+
+    @Scheduled(cron = "${app.mail.queue.cleanup-cron:0 40 3 * * *}")
+    public void cleanup() {
+        Integer removed = tx.execute(status -> repository.deleteFinishedBefore(LocalDateTime.now().minusDays(retentionDays)));
+        if (removed != null && removed > 0) log.info("Email queue cleanup removed {} finished rows", removed);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /** Same hand-off as OutboxDispatcher: the request is recorded first and re-checked after the drainer steps down. */
+    private void drain() {
+        rerun.set(true);
+        while (rerun.get() && draining.compareAndSet(false, true)) {
+            try {
+                while (rerun.getAndSet(false)) {
+                    List<java.util.concurrent.Future<?>> running = new ArrayList<>();
+                    for (int i = 0; i < workerCount; i++) running.add(pool.submit(this::workLoop));
+                    for (var f : running) {
+                        try { f.get(); } catch (Exception ex) { log.error("Email queue worker failed: {}", ex.getMessage(), ex); }
+                    }
+                }
+            } finally {
+                draining.set(false);
+            }
+        }
+    }
+
+    private void workLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<EmailQueueItem> batch = claim();
+            if (batch.isEmpty()) return;
+            batchTimer.record(() -> send(batch));
+        }
+    }
+
+    List<EmailQueueItem> claim() {
+        return tx.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<EmailQueueItem> batch = completeDigests(repository.claimBatch(now, PageRequest.of(0, batchSize)), now);
+            batch.forEach(i -> i.setNextAttemptAt(now.plusSeconds(leaseSeconds)));
+            return batch;
+        });
+    }
+
+    /**
+     * Keeps a user's due alerts together: the recipient's alerts beyond the batch are claimed into it, and a recipient
+     * with alerts held by another worker is dropped from this batch. Dropped rows are not leased, so once the claims
+     * commit the next batch takes all of them as one digest.
+     */
+    List<EmailQueueItem> completeDigests(List<EmailQueueItem> batch, LocalDateTime now) {
+        Map<String, List<EmailQueueItem>> alerts = new LinkedHashMap<>();
+        for (EmailQueueItem item : batch) {
+            if (digestible(item)) alerts.computeIfAbsent(item.getRecipient(), k -> new ArrayList<>()).add(item);
+        }
+        if (alerts.isEmpty()) return batch;
+        List<EmailQueueItem> out = new ArrayList<>(batch);
+        alerts.forEach((recipient, items) -> {
+            List<Long> claimed = new ArrayList<>(items.stream().map(EmailQueueItem::getId).toList());
+            List<EmailQueueItem> rest = repository.claimDigestRest(recipient, EmailQueueService.TYPE_SPENDING_ALERT, now, claimed);
+            rest.forEach(i -> claimed.add(i.getId()));
+            if (repository.countDueDigestItems(recipient, EmailQueueService.TYPE_SPENDING_ALERT, now, claimed) > 0) {
+                out.removeAll(items);
+            } else {
+                out.addAll(rest);
+            }
+        });
+        return out;
+    }
+
+    void send(List<EmailQueueItem> batch) {
+        Map<MimeMessage, List<EmailQueueItem>> messages = new IdentityHashMap<>();
+        Map<EmailQueueItem, String> failures = new IdentityHashMap<>();
+        for (List<EmailQueueItem> group : group(batch)) {
+            try {
+                messages.put(build(group), group);
+            } catch (Exception ex) {
+                group.forEach(i -> failures.put(i, "build: " + ex.getMessage()));
+            }
+        }
+        if (!messages.isEmpty()) {
+            try {
+                sender.send(messages.keySet().toArray(new MimeMessage[0]));
+            } catch (MailSendException ex) {
+                Map<Object, Exception> failed = ex.getFailedMessages();
+                if (failed.isEmpty()) {
+                    messages.values().forEach(g -> g.forEach(i -> failures.put(i, ex.getMessage())));
+                } else {
+                    failed.forEach((msg, cause) -> {
+                        List<EmailQueueItem> group = messages.get(msg);
+                        if (group != null) group.forEach(i -> failures.put(i, cause.getMessage()));
+                    });
+                }
+            } catch (MailException ex) {
+                messages.values().forEach(g -> g.forEach(i -> failures.put(i, ex.getMessage())));
+            }
+        }
+        tx.executeWithoutResult(status -> complete(batch, failures));
+    }
+
+    /** Spending alerts for the same recipient become one group (digest); everything else is sent as-is. */
+    private List<List<EmailQueueItem>> group(List<EmailQueueItem> batch) {
+        Map<String, List<EmailQueueItem>> digests = new LinkedHashMap<>();
+        List<List<EmailQueueItem>> groups = new ArrayList<>();
+        for (EmailQueueItem item : batch) {
+            if (digestible(item)) {
+                digests.computeIfAbsent(item.getRecipient(), k -> {
+                    List<EmailQueueItem> g = new ArrayList<>();
+                    groups.add(g);
+                    return g;
+                }).add(item);
+            } else {
+                groups.add(List.of(item));
+            }
+        }
+        return groups;
+    }
+
+    private static boolean digestible(EmailQueueItem item) {
+        return EmailQueueService.TYPE_SPENDING_ALERT.equals(item.getType()) && item.getPayload() != null;
+    }
+
+    private MimeMessage build(List<EmailQueueItem> group) throws Exception {
+        EmailQueueItem first = group.get(0);
+        String subject = first.getSubject();
+        String html;
+        if (first.getPayload() == null) {
+            html = first.getHtml();
+        } else {
+            List<Map<String, Object>> alerts = new ArrayList<>(group.size());
+            for (EmailQueueItem i : group) alerts.add(objectMapper.readValue(i.getPayload(), new TypeReference<Map<String, Object>>() {}));
+            if (alerts.size() == 1) {
+                Map<String, Object> a = alerts.get(0);
+                html = templateService.renderSpendingAlert(str(a, "title"), str(a, "description"), str(a, "category"),
+                        str(a, "merchant"), str(a, "amount"), str(a, "date"), str(a, "severity"));
+            } else {
+                subject = alerts.size() + " new spending alerts";
+                html = templateService.renderSpendingAlertDigest(alerts);
+            }
+        }
+        MimeMessage mm = sender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mm, MimeMessageHelper.MULTIPART_MODE_MIXED_RELATED, StandardCharsets.UTF_8.name());
+        helper.setFrom(from);
+        helper.setTo(first.getRecipient());
+        helper.setSubject(subject);
+        helper.setText(html, true);
+        return mm;
+    }
+
+    private void complete(List<EmailQueueItem> batch, Map<EmailQueueItem, String> failures) {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailAudit> audits = new ArrayList<>(batch.size());
+        Map<Long, String> errors = new java.util.HashMap<>();
+        failures.forEach((item, error) -> errors.put(item.getId(), error));
+        for (EmailQueueItem managed : repository.findAllById(batch.stream().map(EmailQueueItem::getId).toList())) {
+            String error = errors.get(managed.getId());
+            managed.setAttemptCount(managed.getAttemptCount() + 1);
+            if (error == null) {
+                managed.setStatus(EmailQueueItem.Status.SENT);
+                managed.setSentAt(now);
+                managed.setNextAttemptAt(null);
+                managed.setLastError(null);
+                sentCounter.increment();
+                audits.add(audit(managed, "SENT", null));
+            } else if (managed.getAttemptCount() >= maxAttempts) {
+                managed.setStatus(EmailQueueItem.Status.FAILED);
+                managed.setLastError(truncate(error));
+                failedCounter.increment();
+                audits.add(audit(managed, "FAILED", error));
+                log.warn("Email {} to {} failed permanently: {}", managed.getId(), managed.getRecipient(), error);
+            } else {
+                long delay = backoffBaseSeconds * (1L << Math.min(managed.getAttemptCount() - 1, 10));
+                managed.setNextAttemptAt(now.plusSeconds(delay));
+                managed.setLastError(truncate(error));
+                retryCounter.increment();
+            }
+        }
+        auditRepository.saveAll(audits);
+    }
+
+    private EmailAudit audit(EmailQueueItem item, String status, String error) {
+        EmailAudit a = new EmailAudit();
+        a.setEmail(item.getRecipient());
+        a.setSubject(item.getSubject());
+        a.setType(item.getType());
+        a.setStatus(status);
+        a.setErrorMessage(error);
+        a.setCorrelationId(UUID.randomUUID().toString());
+        a.setMetadata("{\"queueId\":" + item.getId() + "}");
+        if (item.getUserId() != null) a.setUser(userRepository.getReferenceById(item.getUserId()));
+        return a;
+    }
+
+    private static String str(Map<String, Object> m, String key) {
+        Object v = m.get(key);
+        return v == null ? null : v.toString();
+    }
+
+    private static String truncate(String s) {
+        return s == null || s.length() <= 1000 ? s : s.substring(0, 1000);
+    }
+}
@@ -0,0 +1,108 @@
+package com.expensetracker.service.email;
+
+import com.expensetracker.email.EmailType;
+import com.expensetracker.repository.UserNotificationPreferenceRepository;
+import com.expensetracker.service.cache.CacheInvalidationBus;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Email opt-out flags per user, held as two 64-bit masks (types the user has a row for, and which of those are
+ * disabled). Missing rows mean "enabled", matching the previous per-call {@code findByUserAndType(..).orElse(true)}.
+ *
+ * Scheduled jobs call {@link #preload} once per page of users (one query for the whole page); single lookups
+ * load all of one user's rows in one query. Entries are evicted through the cache bus when a preference change commits.
+ */
+@Service
+public class NotificationPreferenceSnapshot {
+    public static final String CACHE_NAME = "notification:prefs";
+
+    private static final Map<String, Integer> TYPE_BITS = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT_BIT = new AtomicInteger();
+    static {
+        for (EmailType t : EmailType.values()) bit(t.name());
+    }
+
+    private final UserNotificationPreferenceRepository repository;
+    private final CacheInvalidationBus bus;
+    private final Cache<Long, Bits> snapshots = Caffeine.newBuilder()
+            .maximumSize(200_000)
+            .expireAfterWrite(Duration.ofMinutes(30))
+            .build();
+
+    public NotificationPreferenceSnapshot(UserNotificationPreferenceRepository repository, CacheInvalidationBus bus) {
+        this.repository = repository;
+        this.bus = bus;
+        bus.register(CACHE_NAME, userId -> {
+            if (userId == null) snapshots.invalidateAll(); else snapshots.invalidate(userId);
+        });
+    }
+
+    /** Load preferences of all given users with a single query, replacing any cached entries. */
+    public void preload(Collection<Long> userIds) {
+        if (userIds.isEmpty()) return;
+        Map<Long, Bits> loaded = new HashMap<>();
+        for (Long id : userIds) loaded.put(id, Bits.NONE);
+        for (Object[] row : repository.findFlagsByUserIds(userIds)) {
+            Long userId = (Long) row[0];
+            loaded.put(userId, loaded.get(userId).with((String) row[1], (Boolean) row[2]));
+        }
+        snapshots.putAll(loaded);
+    }
+
+    public boolean isEmailEnabled(Long userId, String type) {
+        if (userId == null) return true;
+        Bits bits = snapshots.get(userId, id -> {
+            Bits b = Bits.NONE;
+            for (Object[] row : repository.findFlagsByUserIds(List.of(id))) b = b.with((String) row[1], (Boolean) row[2]);
+            return b;
+        });
+        return bits.enabled(type);
+    }
+
+    /** Drop the user's snapshot here and on the other nodes once the current transaction (the preference change) commits. */
+    public void invalidate(Long userId) {
+        bus.evictUserAfterCommit(CACHE_NAME, userId);
+    }
+
+    private static int bit(String type) {
+        Integer b = TYPE_BITS.get(type);
+        if (b != null) return b;
+        synchronized (TYPE_BITS) {
+            return TYPE_BITS.computeIfAbsent(type, t -> NEXT_BIT.get() < 64 ? NEXT_BIT.getAndIncrement() : -1);
+        }
+    }
+
+    /** Immutable pair of masks; types beyond 64 distinct names fall back to an overflow list. */
+    record Bits(long known, long disabled, List<String> overflowDisabled) {
+        static final Bits NONE = new Bits(0L, 0L, List.of());
+
+        Bits with(String type, boolean emailEnabled) {
+            int b = bit(type);
+            if (b < 0) {
+                if (emailEnabled) return this;
+                List<String> o = new ArrayList<>(overflowDisabled);
+                o.add(type);
+                return new Bits(known, disabled, List.copyOf(o));
+            }
+            long mask = 1L << b;
+            return new Bits(known | mask, emailEnabled ? disabled & ~mask : disabled | mask, overflowDisabled);
+        }
+
+        boolean enabled(String type) {
+            int b = bit(type);
+            if (b < 0) return !overflowDisabled.contains(type);
+            return (disabled & (1L << b)) == 0;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.expensetracker.service.email;
+
+import com.expensetracker.config.DatabaseVendor;
+import com.expensetracker.repository.NotificationIdempotencyKeyRepository;
+import com.expensetracker.repository.NotificationRateCounterRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Rate limits and idempotency for notification emails without scanning email_audit.
+ *
+ * Limits use two adjacent fixed windows per (user, type): the estimate is {@code previous * (1 - elapsed/window) + current},
+ * i.e. the usual sliding-window-counter approximation, at the cost of one indexed row per window. Idempotency keys
+ * (e.g. {@code goal:42:milestone:50}) are rows with an expiry.
+ *
+ * Budget and keys are taken in the caller's transaction with one conditional upsert each (Postgres
+ * {@code INSERT ... ON CONFLICT DO UPDATE ... WHERE}, Oracle MERGE), so they are only spent if the email is enqueued
+ * in the same commit, and concurrent callers serialize on the counter or key row instead of racing a read.
+ *
+ * Caffeine fronts the reads that are immutable or monotonic: counts of already-closed windows and keys known to exist
+ * (the latter only filled after commit).
+ */
+@Service
+public class NotificationRateLimiter {
+    private static final Logger log = LoggerFactory.getLogger(NotificationRateLimiter.class);
+    static final String POSTGRES_COUNTER = "INSERT INTO notification_rate_counters (counter_key, user_id, type, window_start, hits, expires_at) " +
+            "VALUES (?, ?, ?, ?, 1, ?) ON CONFLICT (counter_key) DO UPDATE SET hits = notification_rate_counters.hits + 1 " +
+            "WHERE notification_rate_counters.hits < ?";
+    static final String ORACLE_COUNTER = "MERGE INTO notification_rate_counters t USING (SELECT ? AS counter_key, ? AS user_id, ? AS type, " +
+            "? AS window_start, ? AS expires_at, ? AS max_hits FROM dual) s ON (t.counter_key = s.counter_key) " +
+            "WHEN MATCHED THEN UPDATE SET t.hits = t.hits + 1 WHERE t.hits < s.max_hits " +
+            "WHEN NOT MATCHED THEN INSERT (counter_key, user_id, type, window_start, hits, expires_at) " +
+            "VALUES (s.counter_key, s.user_id, s.type, s.window_start, 1, s.expires_at)";
+    static final String POSTGRES_KEY = "INSERT INTO notification_idempotency_keys (idem_key, user_id, created_at, expires_at) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (idem_key) DO UPDATE SET user_id = EXCLUDED.user_id, created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at " +
+            "WHERE notification_idempotency_keys.expires_at <= ?";
+    static final String ORACLE_KEY = "MERGE INTO notification_idempotency_keys t USING (SELECT ? AS idem_key, ? AS user_id, ? AS created_at, " +
+            "? AS expires_at, ? AS now_ts FROM dual) s ON (t.idem_key = s.idem_key) " +
+            "WHEN MATCHED THEN UPDATE SET t.user_id = s.user_id, t.created_at = s.created_at, t.expires_at = s.expires_at WHERE t.expires_at <= s.now_ts " +
+            "WHEN NOT MATCHED THEN INSERT (idem_key, user_id, created_at, expires_at) VALUES (s.idem_key, s.user_id, s.created_at, s.expires_at)";
+
+    private final NotificationRateCounterRepository counters;
+    private final NotificationIdempotencyKeyRepository keys;
+    private final JdbcTemplate jdbc;
+    private final DatabaseVendor vendor;
+    private final TransactionTemplate newTx;
+    private final Cache<String, Integer> closedWindows = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(Duration.ofDays(2))
+            .build();
+    private final Cache<String, LocalDateTime> knownKeys = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(Duration.ofHours(6))
+            .build();
+
+    public NotificationRateLimiter(NotificationRateCounterRepository counters,
+                                   NotificationIdempotencyKeyRepository keys,
+                                   JdbcTemplate jdbc,
+                                   DatabaseVendor vendor,
+                                   PlatformTransactionManager transactionManager) {
+        this.counters = counters;
+        this.keys = keys;
+        this.jdbc = jdbc;
+        this.vendor = vendor;
+        this.newTx = new TransactionTemplate(transactionManager);
+        this.newTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /** Count one notification if the sliding estimate is still below {@code limit}; false means "rate limited". */
+    public boolean tryAcquire(Long userId, String type, int limit, Duration window) {
+        if (userId == null) return true;
+        if (limit <= 0) return false;
+        long windowSeconds = Math.max(1, window.getSeconds());
+        long nowEpoch = Instant.now().getEpochSecond();
+        long currentStart = nowEpoch - Math.floorMod(nowEpoch, windowSeconds);
+        long previousStart = currentStart - windowSeconds;
+
+        int previous = closedWindows.get(counterKey(userId, type, previousStart), k -> {
+            Integer hits = counters.hits(k);
+            return hits == null ? 0 : hits;
+        });
+        double weight = 1.0 - (double) (nowEpoch - currentStart) / windowSeconds;
+        int maxHits = maxCurrentHits(limit, previous, weight);
+        if (maxHits <= 0) return false;
+
+        Object[] args = {counterKey(userId, type, currentStart), userId, type,
+                Timestamp.valueOf(LocalDateTime.ofEpochSecond(currentStart, 0, ZoneOffset.UTC)),
+                // kept for one more window so it can serve as the "previous" window
+                Timestamp.valueOf(LocalDateTime.now().plusSeconds(2 * windowSeconds)), maxHits};
+        return upsert(vendor.isOracle() ? ORACLE_COUNTER : POSTGRES_COUNTER, args);
+    }
+
+    /** Hits the current window may hold after this one: the largest h with {@code previous * weight + (h - 1) < limit}. */
+    static int maxCurrentHits(int limit, int previous, double weight) {
+        return (int) Math.ceil(limit - previous * weight);
+    }
+
+    /** True if {@code key} was recorded and has not expired yet. */
+    public boolean seen(String key) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cached = knownKeys.getIfPresent(key);
+        if (cached != null && cached.isAfter(now)) return true;
+        LocalDateTime expires = keys.expiresAt(key);
+        if (expires != null && expires.isAfter(now)) {
+            knownKeys.put(key, expires);
+            return true;
+        }
+        return false;
+    }
+
+    /** Record {@code key} for {@code ttl}; false if another caller (or node) already holds an unexpired record. */
+    public boolean claimOnce(String key, Long userId, Duration ttl) {
+        if (seen(key)) return false;
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expires = now.plus(ttl);
+        boolean claimed = upsert(vendor.isOracle() ? ORACLE_KEY : POSTGRES_KEY,
+                new Object[]{key, userId, Timestamp.valueOf(now), Timestamp.valueOf(expires), Timestamp.valueOf(now)});
+        if (claimed) afterCommit(() -> knownKeys.put(key, expires));
+        return claimed;
+    }
+
+    @Scheduled(cron = "${app.mail.rate.cleanup-cron:0 20 4 * * *}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        Integer removed = newTx.execute(status -> counters.deleteExpired(now) + keys.deleteExpired(now));
+        if (removed != null && removed > 0) log.info("Notification rate limiter purged {} expired rows", removed);
+    }
+
+    /**
+     * One conditional upsert; true if it inserted or updated the row. Concurrent Oracle MERGEs inserting the same key
+     * race on the primary key (a statement-level error there, the transaction stays usable), so the loser re-runs once.
+     */
+    private boolean upsert(String sql, Object[] args) {
+        try {
+            return jdbc.update(sql, args) > 0;
+        } catch (DuplicateKeyException race) {
+            return jdbc.update(sql, args) > 0;
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static String counterKey(Long userId, String type, long windowStart) {
+        return userId + ":" + type + ":" + windowStart;
+    }
+}
@@ -4,13 +4,17 @@ import com.expensetracker.model.OutboxEvent;
 import com.expensetracker.repository.OutboxEventRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 public class DomainEventPublisher {
     private final OutboxEventRepository outboxEventRepository;
+    private final OutboxDispatcher dispatcher;
 
-    public DomainEventPublisher(OutboxEventRepository outboxEventRepository) {
+    public DomainEventPublisher(OutboxEventRepository outboxEventRepository, OutboxDispatcher dispatcher) {
         this.outboxEventRepository = outboxEventRepository;
+        this.dispatcher = dispatcher;
     }
 
     @Transactional
@@ -21,5 +25,14 @@ public class DomainEventPublisher {
         evt.setEventType(eventType);
         evt.setPayload(payloadJson);
         outboxEventRepository.save(evt);
+        // Row is only visible to dispatcher workers once the (possibly outer) transaction commits
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatcher.wakeUp();
+                }
+            });
+        }
     }
 }
@@ -0,0 +1,47 @@
+package com.expensetracker.service.events;
+
+import com.expensetracker.model.OutboxEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Local stand-in for a message queue: appends each event as one NDJSON line to a file.
+ * Useful for development and for piping events into a log shipper.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "file")
+public class FileOutboxSink implements OutboxSink {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Path path;
+
+    public FileOutboxSink(@Value("${app.outbox.file.path:outbox-events.ndjson}") String path) throws IOException {
+        this.path = Path.of(path);
+        if (this.path.getParent() != null) Files.createDirectories(this.path.getParent());
+    }
+
+    @Override
+    public void deliver(OutboxEvent evt) throws IOException {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("id", evt.getId());
+        line.put("aggregateType", evt.getAggregateType());
+        line.put("aggregateId", evt.getAggregateId());
+        line.put("eventType", evt.getEventType());
+        line.put("createdAt", String.valueOf(evt.getCreatedAt()));
+        line.put("payload", evt.getPayload());
+        byte[] bytes = (objectMapper.writeValueAsString(line) + "\n").getBytes(StandardCharsets.UTF_8);
+        synchronized (this) {
+            Files.write(path, bytes, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.expensetracker.service.events;
+
+import com.expensetracker.model.OutboxEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/** Default sink: only logs the event (previous dispatcher behaviour). */
+@Component
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "log", matchIfMissing = true)
+public class LoggingOutboxSink implements OutboxSink {
+    private static final Logger log = LoggerFactory.getLogger(LoggingOutboxSink.class);
+
+    @Override
+    public void deliver(OutboxEvent evt) {
+        log.info("Dispatching event {} type={} aggregateType={} aggregateId={}", evt.getId(), evt.getEventType(), evt.getAggregateType(), evt.getAggregateId());
+    }
+}
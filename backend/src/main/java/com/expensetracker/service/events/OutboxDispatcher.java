@@ -2,44 +2,228 @@ package com.expensetracker.service.events;
 
 import com.expensetracker.model.OutboxEvent;
 import com.expensetracker.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Delivers PENDING outbox events to the configured {@link OutboxSink}.
+ *
+ * Workers claim bounded batches with SELECT ... FOR UPDATE SKIP LOCKED in a short transaction and push the claimed
+ * rows' next_attempt_at forward (a lease), so other workers and replicas skip them while delivery happens outside
+ * any transaction. Results are written back in a second short transaction: delivered rows become SENT, failed rows
+ * are rescheduled with exponential backoff on attempt_count and marked FAILED after max-attempts.
+ *
+ * Runs on a fixed delay and is additionally woken by {@link DomainEventPublisher} after commit for near real-time delivery.
+ */
 @Component
 @EnableScheduling
 public class OutboxDispatcher {
     private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
     private final OutboxEventRepository repository;
+    private final OutboxSink sink;
+    private final TransactionTemplate tx;
+    private final ExecutorService workers;
+    private final ExecutorService wakeExecutor;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean rerun = new AtomicBoolean();
+    private final AtomicLong lagSeconds = new AtomicLong();
 
-    public OutboxDispatcher(OutboxEventRepository repository) {
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+    private final Timer deliveryTimer;
+
+    private final int workerCount;
+    @Value("${app.outbox.batch-size:100}")
+    private int batchSize;
+    @Value("${app.outbox.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+    @Value("${app.outbox.lease-seconds:60}")
+    private long leaseSeconds;
+    @Value("${app.outbox.max-attempts:10}")
+    private int maxAttempts;
+    @Value("${app.outbox.backoff.base-ms:2000}")
+    private long backoffBaseMs;
+    @Value("${app.outbox.backoff.max-ms:3600000}")
+    private long backoffMaxMs;
+
+    public OutboxDispatcher(OutboxEventRepository repository,
+                            OutboxSink sink,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.outbox.worker-count:4}") int workerCount) {
         this.repository = repository;
+        this.sink = sink;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.workerCount = Math.max(1, workerCount);
+        AtomicInteger seq = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(this.workerCount, r -> {
+            Thread t = new Thread(r, "outbox-worker-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.wakeExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "outbox-wake");
+            t.setDaemon(true);
+            return t;
+        });
+        this.sent = meterRegistry.counter("app.outbox.dispatched", "result", "sent");
+        this.retried = meterRegistry.counter("app.outbox.dispatched", "result", "retry");
+        this.failed = meterRegistry.counter("app.outbox.dispatched", "result", "failed");
+        this.deliveryTimer = meterRegistry.timer("app.outbox.delivery");
+        Gauge.builder("app.outbox.lag.seconds", lagSeconds, AtomicLong::get)
+                .description("Age of the oldest pending outbox event")
+                .register(meterRegistry);
     }
 
-    @Scheduled(fixedDelay = 5000)
-    @Transactional
+    @Scheduled(fixedDelayString = "${app.outbox.poll-ms:5000}")
     public void dispatch() {
-        List<OutboxEvent> batch = repository.findBatchForDispatch(LocalDateTime.now().minusSeconds(10));
+        updateLag();
+        drain();
+    }
+
+    /** Request an immediate drain (coalesced with any drain already in progress). */
+    public void wakeUp() {
+        wakeExecutor.execute(this::drain);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        wakeExecutor.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * The request is recorded before trying to become the drainer, and the drainer looks for requests again after
+     * stepping down, so a wake-up that lands while the previous drainer is finishing is never lost.
+     */
+    private void drain() {
+        rerun.set(true);
+        while (rerun.get() && draining.compareAndSet(false, true)) {
+            try {
+                while (rerun.getAndSet(false)) runWorkers();
+            } finally {
+                draining.set(false);
+            }
+        }
+    }
+
+    private void runWorkers() {
+        AtomicInteger budget = new AtomicInteger(maxBatchesPerRun);
+        List<Future<?>> running = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            running.add(workers.submit(() -> {
+                while (budget.getAndDecrement() > 0) {
+                    List<OutboxEvent> batch = claim();
+                    if (batch.isEmpty()) return;
+                    deliver(batch);
+                }
+            }));
+        }
+        for (Future<?> f : running) {
+            try {
+                f.get();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception ex) {
+                log.error("Outbox worker failed: {}", ex.getMessage(), ex);
+            }
+        }
+    }
+
+    private List<OutboxEvent> claim() {
+        return tx.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxEvent> batch = repository.claimBatch(now, PageRequest.of(0, batchSize));
+            LocalDateTime leaseUntil = now.plusSeconds(leaseSeconds);
+            for (OutboxEvent evt : batch) {
+                evt.setNextAttemptAt(leaseUntil); // flushed on commit; keeps other dispatchers off while we deliver
+            }
+            return batch;
+        });
+    }
+
+    private void deliver(List<OutboxEvent> batch) {
+        List<String> delivered = new ArrayList<>(batch.size());
+        List<OutboxEvent> failures = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
         for (OutboxEvent evt : batch) {
+            long start = System.nanoTime();
             try {
-                // TODO: send to external bus / webhook. For now just log.
-                log.info("Dispatching event {} type={} aggregateType={} aggregateId={}", evt.getId(), evt.getEventType(), evt.getAggregateType(), evt.getAggregateId());
-                evt.setStatus(OutboxEvent.Status.SENT);
-                evt.setLastAttemptAt(LocalDateTime.now());
+                sink.deliver(evt);
+                delivered.add(evt.getId());
             } catch (Exception ex) {
-                evt.setAttemptCount(evt.getAttemptCount() + 1);
-                evt.setLastAttemptAt(LocalDateTime.now());
-                if (evt.getAttemptCount() > 10) {
-                    evt.setStatus(OutboxEvent.Status.FAILED);
+                failures.add(evt);
+                errors.add(ex.getClass().getSimpleName() + ": " + ex.getMessage());
+            } finally {
+                deliveryTimer.record(Duration.ofNanos(System.nanoTime() - start));
+            }
+        }
+        tx.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            if (!delivered.isEmpty()) repository.markSent(delivered, now);
+            for (int i = 0; i < failures.size(); i++) {
+                OutboxEvent evt = failures.get(i);
+                int attempts = (evt.getAttemptCount() == null ? 0 : evt.getAttemptCount()) + 1;
+                boolean giveUp = attempts >= maxAttempts;
+                String error = truncate(errors.get(i));
+                repository.markAttemptFailed(evt.getId(), giveUp ? OutboxEvent.Status.FAILED : OutboxEvent.Status.PENDING,
+                        attempts, now, giveUp ? null : now.plus(backoff(attempts)), error);
+                if (giveUp) {
+                    failed.increment();
+                    log.error("Outbox event {} failed permanently after {} attempts: {}", evt.getId(), attempts, error);
+                } else {
+                    retried.increment();
+                    log.warn("Outbox event {} delivery failed (attempt {}): {}", evt.getId(), attempts, error);
                 }
-                log.error("Failed dispatching outbox event {}: {}", evt.getId(), ex.getMessage());
             }
+        });
+        sent.increment(delivered.size());
+    }
+
+    /** base * 2^(attempt-1), capped, with up to 20% jitter so retries from a burst don't re-align. */
+    Duration backoff(int attempt) {
+        long exp = backoffBaseMs * (1L << Math.min(attempt - 1, 20));
+        long capped = Math.min(exp, backoffMaxMs);
+        long jitter = (long) (capped * 0.2 * ThreadLocalRandom.current().nextDouble());
+        return Duration.ofMillis(capped + jitter);
+    }
+
+    private void updateLag() {
+        try {
+            LocalDateTime oldest = repository.oldestPendingCreatedAt();
+            lagSeconds.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).getSeconds()));
+        } catch (Exception ex) {
+            log.debug("Outbox lag query failed: {}", ex.getMessage());
         }
     }
+
+    private String truncate(String s) {
+        return s == null || s.length() <= 1000 ? s : s.substring(0, 1000);
+    }
 }
@@ -0,0 +1,245 @@
+package com.expensetracker.service.events;
+
+import com.expensetracker.config.JobLock;
+import com.expensetracker.model.OutboxEvent;
+import com.expensetracker.repository.OutboxEventRepository;
+import com.expensetracker.service.cache.CacheInvalidationBus;
+import com.expensetracker.storage.OciObjectStorageService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps outbox_events small so the dispatcher's status/next_attempt_at index stays shallow.
+ *
+ * SENT events older than {@code app.outbox.retention.sent-days} are moved out in chunks, each chunk in its own short
+ * transaction: into outbox_events_archive ({@code archive=table}), into a gzipped NDJSON object in OCI Object Storage
+ * or a local directory ({@code archive=file}), or simply deleted ({@code archive=none}). Cache invalidation broadcasts
+ * are only useful for a few poll cycles and are deleted without archiving. PENDING and FAILED rows are never touched.
+ *
+ * When outbox_events has been converted to a monthly range-partitioned table on PostgreSQL
+ * (see sql/outbox-events-partitioning-postgres.sql) and {@code partitioned=true}, the job also pre-creates upcoming
+ * partitions and drops expired ones once they hold no PENDING/FAILED rows, which is O(1) instead of row deletes.
+ *
+ * Every replica fires the cron; a {@link JobLock} lease lets one of them run it.
+ */
+@Component
+@ConditionalOnProperty(value = "app.outbox.retention.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRetentionJob {
+    private static final Logger log = LoggerFactory.getLogger(OutboxRetentionJob.class);
+    private static final Pattern PARTITION_NAME = Pattern.compile("outbox_events_p(\\d{4})(\\d{2})");
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final String LOCK_NAME = "outbox-retention";
+
+    private final OutboxEventRepository repository;
+    private final JdbcTemplate jdbc;
+    private final NamedParameterJdbcTemplate namedJdbc;
+    private final TransactionTemplate tx;
+    private final ObjectProvider<OciObjectStorageService> ociStorage;
+    private final JobLock jobLock;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Counter archived;
+    private final Counter purged;
+
+    @Value("${app.outbox.retention.sent-days:30}")
+    private int sentDays;
+    @Value("${app.outbox.retention.cache-invalidation-minutes:60}")
+    private int cacheInvalidationMinutes;
+    @Value("${app.outbox.retention.archive:table}")
+    private String archiveMode; // table | file | none
+    @Value("${app.outbox.retention.archive-dir:./data/outbox-archive}")
+    private String archiveDir;
+    @Value("${app.outbox.retention.chunk-size:1000}")
+    private int chunkSize;
+    @Value("${app.outbox.retention.max-chunks-per-run:200}")
+    private int maxChunksPerRun;
+    @Value("${app.outbox.retention.partitioned:false}")
+    private boolean partitioned;
+    @Value("${app.outbox.retention.partitions-ahead:2}")
+    private int partitionsAhead;
+    @Value("${app.outbox.retention.lock-minutes:50}")
+    private long lockMinutes;
+
+    public OutboxRetentionJob(OutboxEventRepository repository,
+                              JdbcTemplate jdbc,
+                              PlatformTransactionManager transactionManager,
+                              ObjectProvider<OciObjectStorageService> ociStorage,
+                              JobLock jobLock,
+                              MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.jdbc = jdbc;
+        this.namedJdbc = new NamedParameterJdbcTemplate(jdbc);
+        this.tx = new TransactionTemplate(transactionManager);
+        this.ociStorage = ociStorage;
+        this.jobLock = jobLock;
+        this.archived = meterRegistry.counter("app.outbox.retention.rows", "action", "archived");
+        this.purged = meterRegistry.counter("app.outbox.retention.rows", "action", "deleted");
+    }
+
+    @Scheduled(cron = "${app.outbox.retention.cron:0 15 * * * *}")
+    public void run() {
+        try {
+            jobLock.runExclusively(LOCK_NAME, Duration.ofMinutes(lockMinutes), () -> {
+                purgeCacheInvalidations();
+                archiveSent();
+                if (partitioned) maintainPartitions();
+            });
+        } catch (Exception ex) {
+            log.error("Outbox retention failed: {}", ex.getMessage(), ex);
+        }
+    }
+
+    private void purgeCacheInvalidations() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(cacheInvalidationMinutes);
+        int total = 0;
+        for (int i = 0; i < maxChunksPerRun; i++) {
+            List<String> ids = repository.findIdsByAggregateTypeBefore(CacheInvalidationBus.AGGREGATE_TYPE, cutoff, PageRequest.of(0, chunkSize));
+            if (ids.isEmpty()) break;
+            tx.executeWithoutResult(status -> repository.deleteAllByIdInBatch(ids));
+            total += ids.size();
+        }
+        purged.increment(total);
+        if (total > 0) log.info("Outbox retention: deleted {} cache invalidation rows", total);
+    }
+
+    private void archiveSent() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(sentDays);
+        int total = 0;
+        for (int i = 0; i < maxChunksPerRun; i++) {
+            List<String> ids = repository.findIdsForRetention(OutboxEvent.Status.SENT, cutoff, PageRequest.of(0, chunkSize));
+            if (ids.isEmpty()) break;
+            switch (archiveMode) {
+                case "table" -> tx.executeWithoutResult(status -> moveToArchiveTable(ids));
+                case "file" -> moveToFile(ids);
+                default -> tx.executeWithoutResult(status -> repository.deleteAllByIdInBatch(ids));
+            }
+            total += ids.size();
+        }
+        if ("none".equals(archiveMode)) purged.increment(total); else archived.increment(total);
+        if (total > 0) log.info("Outbox retention: moved {} SENT events older than {} days (archive={})", total, sentDays, archiveMode);
+    }
+
+    /** Rows already archived (a run that outlived its lease overlapping the next) are only deleted. */
+    private void moveToArchiveTable(List<String> ids) {
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", ids).addValue("now", Timestamp.valueOf(LocalDateTime.now()));
+        namedJdbc.update("INSERT INTO outbox_events_archive (id, aggregate_type, aggregate_id, event_type, payload, status, created_at, last_attempt_at, attempt_count, archived_at) " +
+                "SELECT id, aggregate_type, aggregate_id, event_type, payload, status, created_at, last_attempt_at, attempt_count, :now FROM outbox_events e " +
+                "WHERE id IN (:ids) AND NOT EXISTS (SELECT 1 FROM outbox_events_archive a WHERE a.id = e.id)", params);
+        namedJdbc.update("DELETE FROM outbox_events WHERE id IN (:ids)", params);
+    }
+
+    private void moveToFile(List<String> ids) {
+        List<OutboxEvent> events = repository.findAllById(ids);
+        if (events.isEmpty()) return;
+        byte[] gz;
+        try {
+            gz = toNdjsonGzip(events);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to serialize outbox archive chunk", e);
+        }
+        LocalDateTime first = events.stream().map(OutboxEvent::getCreatedAt).min(LocalDateTime::compareTo).orElse(LocalDateTime.now());
+        String key = "outbox-archive/" + first.format(DateTimeFormatter.ofPattern("yyyy/MM/dd")) + "/" + UUID.randomUUID() + ".ndjson.gz";
+        writeArchiveObject(key, gz);
+        // Only delete once the chunk is durably stored; a crash in between re-archives the chunk next run (ids are unique)
+        tx.executeWithoutResult(status -> repository.deleteAllByIdInBatch(ids));
+    }
+
+    private byte[] toNdjsonGzip(List<OutboxEvent> events) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            for (OutboxEvent evt : events) {
+                Map<String, Object> line = new LinkedHashMap<>();
+                line.put("id", evt.getId());
+                line.put("aggregateType", evt.getAggregateType());
+                line.put("aggregateId", evt.getAggregateId());
+                line.put("eventType", evt.getEventType());
+                line.put("status", String.valueOf(evt.getStatus()));
+                line.put("createdAt", String.valueOf(evt.getCreatedAt()));
+                line.put("lastAttemptAt", String.valueOf(evt.getLastAttemptAt()));
+                line.put("attemptCount", evt.getAttemptCount());
+                line.put("payload", evt.getPayload());
+                gzip.write((objectMapper.writeValueAsString(line) + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private void writeArchiveObject(String key, byte[] data) {
+        OciObjectStorageService oci = ociStorage.getIfAvailable();
+        if (oci != null && oci.isEnabled()) {
+            oci.putBytes(key, data, "application/gzip");
+            return;
+        }
+        try {
+            Path target = Path.of(archiveDir).resolve(key);
+            Files.createDirectories(target.getParent());
+            Files.write(target, data);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write outbox archive " + key, e);
+        }
+    }
+
+    /** PostgreSQL only: keep {@code partitionsAhead} future monthly partitions and drop fully expired ones. */
+    private void maintainPartitions() {
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        for (int i = 0; i <= partitionsAhead; i++) {
+            LocalDate from = month.plusMonths(i);
+            jdbc.execute("CREATE TABLE IF NOT EXISTS outbox_events_p" + from.format(PARTITION_SUFFIX) +
+                    " PARTITION OF outbox_events FOR VALUES FROM ('" + from + "') TO ('" + from.plusMonths(1) + "')");
+        }
+        LocalDate cutoff = LocalDate.now().minusDays(sentDays);
+        List<String> partitions = jdbc.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent " +
+                "WHERE p.relname = 'outbox_events'", String.class);
+        for (String name : partitions) {
+            Matcher m = PARTITION_NAME.matcher(name);
+            if (!m.matches()) continue;
+            LocalDate end = LocalDate.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)), 1).plusMonths(1);
+            if (!end.isBefore(cutoff)) continue;
+            Integer live = jdbc.queryForObject("SELECT COUNT(*) FROM " + name + " WHERE status <> 'SENT'", Integer.class);
+            if (live != null && live > 0) {
+                log.warn("Outbox retention: keeping partition {} ({} undelivered events)", name, live);
+                continue;
+            }
+            Integer remaining = jdbc.queryForObject("SELECT COUNT(*) FROM " + name, Integer.class);
+            if (remaining != null && remaining > 0 && !"none".equals(archiveMode)) {
+                // Archive pass did not finish this month yet (max-chunks-per-run); drop on a later run
+                continue;
+            }
+            jdbc.execute("ALTER TABLE outbox_events DETACH PARTITION " + name);
+            jdbc.execute("DROP TABLE " + name);
+            log.info("Outbox retention: dropped partition {}", name);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.expensetracker.service.events;
+
+import com.expensetracker.model.OutboxEvent;
+
+/**
+ * Delivery target for outbox events. Exactly one implementation is active, selected by app.outbox.sink.
+ * Implementations must be thread-safe (the dispatcher delivers from several workers) and should throw on
+ * failure so the event is retried with backoff.
+ */
+public interface OutboxSink {
+    void deliver(OutboxEvent event) throws Exception;
+}
@@ -0,0 +1,64 @@
+package com.expensetracker.service.events;
+
+import com.expensetracker.model.OutboxEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HexFormat;
+
+/**
+ * POSTs the event payload to a webhook. Event metadata travels in headers; when a secret is configured the
+ * body is signed with HMAC-SHA256 (X-Outbox-Signature). Any non-2xx response counts as a failed attempt.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "webhook")
+public class WebhookOutboxSink implements OutboxSink {
+
+    private final HttpClient client;
+    private final URI url;
+    private final Duration timeout;
+    private final String secret;
+
+    public WebhookOutboxSink(@Value("${app.outbox.webhook.url}") String url,
+                             @Value("${app.outbox.webhook.timeout-ms:5000}") long timeoutMs,
+                             @Value("${app.outbox.webhook.secret:}") String secret) {
+        this.url = URI.create(url);
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.secret = secret;
+        // One shared client: keeps connections alive across deliveries from all workers
+        this.client = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    @Override
+    public void deliver(OutboxEvent evt) throws Exception {
+        HttpRequest.Builder req = HttpRequest.newBuilder(url)
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .header("X-Event-Id", evt.getId())
+                .header("X-Event-Type", evt.getEventType())
+                .header("X-Aggregate-Type", evt.getAggregateType())
+                .header("X-Aggregate-Id", evt.getAggregateId())
+                .POST(HttpRequest.BodyPublishers.ofString(evt.getPayload(), StandardCharsets.UTF_8));
+        if (secret != null && !secret.isBlank()) req.header("X-Outbox-Signature", sign(evt.getPayload()));
+        HttpResponse<Void> res = client.send(req.build(), HttpResponse.BodyHandlers.discarding());
+        if (res.statusCode() / 100 != 2) {
+            throw new IOException("Webhook responded " + res.statusCode());
+        }
+    }
+
+    private String sign(String body) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal(body.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -1,17 +1,57 @@
 package com.expensetracker.service.impl;
 
 import com.expensetracker.service.EmailTemplateService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
+import org.unbescape.html.HtmlEscape;
 
+import java.time.Year;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class ThymeleafEmailTemplateService implements EmailTemplateService {
+    private static final Logger log = LoggerFactory.getLogger(ThymeleafEmailTemplateService.class);
+    // Placeholders rendered through the base fragment once, then replaced by the (escaped) per-email values
+    private static final String SUBJECT_MARK = "CTSSUBJECTMARK";
+    private static final String TAG_MARK = "CTSTAGMARK";
+    private static final String BODY_MARK = "CTSBODYMARK";
+
     private final TemplateEngine templateEngine;
+    private final Map<String, String[]> baseShells = new ConcurrentHashMap<>();
+
+    @Value("${app.mail.templates.fragment-cache.enabled:true}")
+    private boolean fragmentCache = true;
+
     public ThymeleafEmailTemplateService(TemplateEngine templateEngine){ this.templateEngine = templateEngine; }
+
+    /** Parse every email template (and its expressions) once at startup so the first real sends don't pay for it. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.nanoTime();
+        try {
+            renderVerification("Warm", "https://example.invalid/verify", 60);
+            renderPasswordReset("https://example.invalid/reset", 30);
+            renderGoalProgress("Warm", 10);
+            renderSpendingAlert("Warm", "", "General", "Merchant", "0", "2000-01-01", "LOW");
+            renderSpendingAlertDigest(List.of(Map.of("title", "Warm", "category", "General", "merchant", "", "amount", "0", "date", "2000-01-01")));
+            renderWelcome("Warm");
+            renderGoalMilestone("Warm", 25, "0", "0");
+            renderGoalInactivity("Warm", 14);
+            renderLowBalance("2000-01", "0", "0");
+            log.info("Email templates warmed up in {} ms", (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception ex) {
+            log.warn("Email template warm-up failed: {}", ex.getMessage());
+        }
+    }
     @Override
     public String render(String templateName, Map<String, Object> model) {
         Context ctx = new Context();
@@ -22,6 +62,7 @@ public class ThymeleafEmailTemplateService implements EmailTemplateService {
     @Override
     public String renderThemed(String templateName, String subject, String tag, Map<String, Object> model) {
         String body = render(templateName, model);
+        if(fragmentCache) return wrapCached(subject, tag, body);
         Map<String,Object> wrapper = new HashMap<>();
         wrapper.put("subject", subject);
         wrapper.put("body", body);
@@ -29,6 +70,31 @@ public class ThymeleafEmailTemplateService implements EmailTemplateService {
         return render("fragments/base", wrapper); // base html wrapper
     }
 
+    /**
+     * The base wrapper is static apart from subject, tag, body and the copyright year, so it is rendered once per
+     * (year, has-tag) with placeholders and afterwards assembled by string concatenation. Subject and tag are
+     * escaped exactly as th:text would; body is inserted unescaped as th:utext does.
+     */
+    private String wrapCached(String subject, String tag, String body) {
+        String[] shell = baseShells.computeIfAbsent(Year.now().getValue() + (tag != null ? ":tag" : ":plain"), k -> {
+            Map<String,Object> wrapper = new HashMap<>();
+            wrapper.put("subject", SUBJECT_MARK);
+            wrapper.put("body", BODY_MARK);
+            if(tag!=null) wrapper.put("tag", TAG_MARK);
+            return render("fragments/base", wrapper).split("(?=" + SUBJECT_MARK + ")|(?<=" + SUBJECT_MARK + ")|(?=" + TAG_MARK + ")|(?<=" + TAG_MARK + ")|(?=" + BODY_MARK + ")|(?<=" + BODY_MARK + ")");
+        });
+        StringBuilder sb = new StringBuilder(body.length() + 4096);
+        for(String part : shell){
+            switch (part) {
+                case SUBJECT_MARK -> sb.append(HtmlEscape.escapeHtml4Xml(subject == null ? "" : subject));
+                case TAG_MARK -> sb.append(HtmlEscape.escapeHtml4Xml(tag));
+                case BODY_MARK -> sb.append(body);
+                default -> sb.append(part);
+            }
+        }
+        return sb.toString();
+    }
+
     @Override
     public String renderVerification(String firstName, String verificationLink, int ttlMinutes) {
         Map<String,Object> vars = Map.of(
@@ -70,6 +136,13 @@ public class ThymeleafEmailTemplateService implements EmailTemplateService {
         return renderThemed("spending-alert", title, severity!=null? severity.toUpperCase(): "ALERT", vars);
     }
 
+    @Override
+    public String renderSpendingAlertDigest(java.util.List<Map<String,Object>> alerts) {
+        Map<String,Object> vars = new HashMap<>();
+        vars.put("alerts", alerts);
+        return renderThemed("spending-alert-digest", alerts.size()+" new spending alerts", "ALERTS", vars);
+    }
+
     @Override
     public String renderWelcome(String firstName) {
         Map<String,Object> vars = Map.of("firstName", firstName);
@@ -5,7 +5,8 @@ import com.expensetracker.model.User;
 import com.expensetracker.repository.StatementJobRepository;
 import com.expensetracker.repository.TransactionRepository;
 import com.expensetracker.repository.UserRepository;
-import org.springframework.cache.CacheManager;
+import com.expensetracker.service.TaxRuleService;
+import com.expensetracker.service.cache.UserDataVersionService;
 import org.slf4j.Logger; 
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Async;
@@ -18,7 +19,7 @@ import com.expensetracker.exception.ResourceNotFoundException;
 @EnableAsync
 public class AsyncStatementProcessor {
     private static final Logger log = LoggerFactory.getLogger(AsyncStatementProcessor.class);
-    private final PdfPageCounter pdfPageCounter;
+    private final PdfInspector pdfInspector;
     private final ExtractionRunner extractionRunner;
     private final RawStatementPersister rawStatementPersister;
     private final TransactionParser transactionParser;
@@ -26,9 +27,11 @@ public class AsyncStatementProcessor {
     private final TransactionRepository transactionRepository;
     private final UserRepository userRepository;
     private final StatementJobRepository statementJobRepository;
-    private final CacheManager cacheManager;
+    private final UserDataVersionService dataVersions;
+    private final StatementStageMetrics stageMetrics;
+    private final TaxRuleService taxRuleService;
 
-    public AsyncStatementProcessor(PdfPageCounter pdfPageCounter,
+    public AsyncStatementProcessor(PdfInspector pdfInspector,
                                    ExtractionRunner extractionRunner,
                                    RawStatementPersister rawStatementPersister,
                                    TransactionParser transactionParser,
@@ -36,8 +39,10 @@ public class AsyncStatementProcessor {
                                    TransactionRepository transactionRepository,
                                    UserRepository userRepository,
                                    StatementJobRepository statementJobRepository,
-                                   CacheManager cacheManager) {
-        this.pdfPageCounter = pdfPageCounter;
+                                   UserDataVersionService dataVersions,
+                                   StatementStageMetrics stageMetrics,
+                                   TaxRuleService taxRuleService) {
+        this.pdfInspector = pdfInspector;
         this.extractionRunner = extractionRunner;
         this.rawStatementPersister = rawStatementPersister;
         this.transactionParser = transactionParser;
@@ -45,7 +50,9 @@ public class AsyncStatementProcessor {
         this.transactionRepository = transactionRepository;
         this.userRepository = userRepository;
         this.statementJobRepository = statementJobRepository;
-        this.cacheManager = cacheManager;
+        this.dataVersions = dataVersions;
+        this.stageMetrics = stageMetrics;
+        this.taxRuleService = taxRuleService;
     }
 
     @Async
@@ -80,32 +87,49 @@ public class AsyncStatementProcessor {
             if (!file.exists()) {
                 throw new IllegalStateException("Temp file missing for async processing");
             }
-            int numPages = pdfPageCounter.countPages(file, pdfPassword);
+            var sample = stageMetrics.start();
+            // Usually a cache hit: the upload request inspected the same file
+            PdfInspector.Info pdf = pdfInspector.inspect(file, job.getContentSha256(), pdfPassword);
+            int numPages = pdf.pages();
+            stageMetrics.stop(sample, "page_count", StatementStageMetrics.MODE_ASYNC);
             job.setPageCount(numPages);
             job.setProgressPercent(10);
             statementJobRepository.save(job);
             // Reuse existing file (already persisted) instead of saving again
-            String output = extractionRunner.run(file, pdfPassword);
+            sample = stageMetrics.start();
+            String output = extractionRunner.run(file, pdfPassword, pdf);
+            stageMetrics.stop(sample, "extraction", StatementStageMetrics.MODE_ASYNC);
             if (output == null) {
                 throw new IllegalStateException("Extraction failed");
             }
             job.setProgressPercent(55); // after extraction
             statementJobRepository.save(job);
-            var rawStatement = rawStatementPersister.persist(user, originalFilename, output, numPages);
-            var transactions = transactionParser.parse(output, user, rawStatement.getBankName());
+            sample = stageMetrics.start();
+            var rawStatement = rawStatementPersister.persist(user, originalFilename, output, numPages, null, job.getContentSha256());
+            stageMetrics.stop(sample, "persist_raw", StatementStageMetrics.MODE_ASYNC);
+            sample = stageMetrics.start();
+            var transactions = transactionParser.parse(output, user, rawStatement.getBankName(), rawStatement.getId());
+            stageMetrics.stop(sample, "parse", StatementStageMetrics.MODE_ASYNC);
+            sample = stageMetrics.start();
             if (!transactions.isEmpty()) {
                 transactionRepository.saveAll(transactions);
             }
+            stageMetrics.stop(sample, "save_transactions", StatementStageMetrics.MODE_ASYNC);
+            sample = stageMetrics.start();
+            taxRuleService.classifyIngested(user, transactions);
+            stageMetrics.stop(sample, "classify_tax", StatementStageMetrics.MODE_ASYNC);
+            sample = stageMetrics.start();
             bankCategoryUpserter.upsert(user, transactions);
+            stageMetrics.stop(sample, "upsert_bank_category", StatementStageMetrics.MODE_ASYNC);
             file.delete();
+            job.setRawStatementId(rawStatement.getId());
             job.setProgressPercent(95); // before finalization
             job.setStatus(StatementJob.Status.COMPLETED);
             job.setFinishedAt(java.time.LocalDateTime.now());
             job.setProgressPercent(100);
             statementJobRepository.save(job);
-            // Invalidate analytics cache entries (simple broad eviction)
-            var cache = cacheManager.getCache("analytics:summary");
-            if (cache != null) { cache.clear(); }
+            // Only this user's analytics become stale
+            dataVersions.bump(userId);
         } catch (Exception ex) {
             job.setStatus(StatementJob.Status.FAILED);
             job.setErrorMessage(ex.getMessage());
@@ -1,62 +1,110 @@
 package com.expensetracker.service.statement;
 
-import com.expensetracker.model.Bank;
-import com.expensetracker.model.Category;
+import com.expensetracker.config.DatabaseVendor;
 import com.expensetracker.model.Transaction;
 import com.expensetracker.model.User;
-import com.expensetracker.repository.BankRepository;
-import com.expensetracker.repository.CategoryRepository;
 import com.expensetracker.util.AppConstants;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.TreeMap;
 
+/**
+ * Per-user bank and category transaction counts, maintained with one statement per table per upload.
+ *
+ * Names are matched case-insensitively (unique index on {@code (user_id, lower(name))}); the first spelling seen wins
+ * for new rows. Postgres uses a multi-row {@code INSERT ... ON CONFLICT DO UPDATE}, which is atomic against concurrent
+ * uploads. Oracle uses a single MERGE; two MERGEs inserting the same new name race on the unique index, so the loser
+ * re-runs once and then finds the row. Rows are sent in key order so concurrent uploads lock them in the same order.
+ */
 @Component
 public class BankCategoryUpserter {
-    private final BankRepository bankRepository;
-    private final CategoryRepository categoryRepository;
+    private final JdbcTemplate jdbc;
+    private final DatabaseVendor vendor;
 
-    public BankCategoryUpserter(BankRepository bankRepository, CategoryRepository categoryRepository) {
-        this.bankRepository = bankRepository;
-        this.categoryRepository = categoryRepository;
+    public BankCategoryUpserter(JdbcTemplate jdbc, DatabaseVendor vendor) {
+        this.jdbc = jdbc;
+        this.vendor = vendor;
     }
 
     public void upsert(User user, List<Transaction> transactions) {
-        Map<String, Long> bankCounts = new HashMap<>();
-        Map<String, Long> categoryCounts = new HashMap<>();
+        if (transactions.isEmpty()) return;
+        Map<String, Count> bankCounts = new TreeMap<>();
+        Map<String, Count> categoryCounts = new TreeMap<>();
         for (Transaction t : transactions) {
-            String bank = t.getBankName() != null ? t.getBankName().trim() : AppConstants.UNKNOWN;
-            String cat = t.getCategory() != null ? t.getCategory().trim() : AppConstants.UNKNOWN;
-            if (bank.isEmpty()) bank = AppConstants.UNKNOWN;
-            if (cat.isEmpty()) cat = AppConstants.UNKNOWN;
-            bankCounts.put(bank, bankCounts.getOrDefault(bank, 0L) + 1);
-            categoryCounts.put(cat, categoryCounts.getOrDefault(cat, 0L) + 1);
+            add(bankCounts, t.getBankName());
+            add(categoryCounts, t.getCategory());
+        }
+        apply("banks", user.getId(), bankCounts);
+        apply("categories", user.getId(), categoryCounts);
+    }
+
+    /** Moves one transaction's count from one category to another (never below zero; the target is created if missing). */
+    public void moveCategory(User user, String from, String to) {
+        if (from != null && !from.isBlank()) {
+            jdbc.update("UPDATE categories SET transaction_count = transaction_count - 1 " +
+                    "WHERE user_id = ? AND lower(name) = lower(?) AND transaction_count > 0", user.getId(), from.trim());
+        }
+        Map<String, Count> target = new TreeMap<>();
+        add(target, to);
+        apply("categories", user.getId(), target);
+    }
+
+    private static void add(Map<String, Count> counts, String name) {
+        String trimmed = name != null ? name.trim() : "";
+        if (trimmed.isEmpty()) trimmed = AppConstants.UNKNOWN;
+        String spelling = trimmed;
+        counts.computeIfAbsent(trimmed.toLowerCase(Locale.ROOT), k -> new Count(spelling)).n++;
+    }
+
+    private void apply(String table, Long userId, Map<String, Count> counts) {
+        if (counts.isEmpty()) return;
+        List<Object> args = new ArrayList<>(counts.size() * 3);
+        for (Count c : counts.values()) {
+            args.add(userId);
+            args.add(c.name);
+            args.add(c.n);
+        }
+        if (!vendor.isOracle()) {
+            jdbc.update(postgresSql(table, counts.size()), args.toArray());
+            return;
+        }
+        String sql = oracleSql(table, counts.size());
+        try {
+            jdbc.update(sql, args.toArray());
+        } catch (DuplicateKeyException race) {
+            jdbc.update(sql, args.toArray());
+        }
+    }
+
+    static String postgresSql(String table, int rows) {
+        StringBuilder sb = new StringBuilder("INSERT INTO ").append(table).append(" (user_id, name, transaction_count) VALUES ");
+        for (int i = 0; i < rows; i++) sb.append(i == 0 ? "" : ", ").append("(?, ?, ?)");
+        return sb.append(" ON CONFLICT (user_id, lower(name)) DO UPDATE SET transaction_count = ")
+                .append(table).append(".transaction_count + EXCLUDED.transaction_count").toString();
+    }
+
+    static String oracleSql(String table, int rows) {
+        StringBuilder sb = new StringBuilder("MERGE INTO ").append(table).append(" t USING (");
+        for (int i = 0; i < rows; i++) {
+            sb.append(i == 0 ? "" : " UNION ALL ").append("SELECT ? AS user_id, ? AS name, ? AS cnt FROM dual");
+        }
+        return sb.append(") s ON (t.user_id = s.user_id AND LOWER(t.name) = LOWER(s.name)) ")
+                .append("WHEN MATCHED THEN UPDATE SET t.transaction_count = t.transaction_count + s.cnt ")
+                .append("WHEN NOT MATCHED THEN INSERT (user_id, name, transaction_count) VALUES (s.user_id, s.name, s.cnt)").toString();
+    }
+
+    private static final class Count {
+        final String name;
+        long n;
+
+        Count(String name) {
+            this.name = name;
         }
-        bankCounts.forEach((name,count)-> {
-            Bank bank = bankRepository.findByUserAndNameIgnoreCase(user, name).orElse(null);
-            if (bank == null) {
-                bank = new Bank();
-                bank.setName(name);
-                bank.setUser(user);
-                bank.setTransactionCount(count);
-            } else {
-                bank.increment(count);
-            }
-            bankRepository.save(bank);
-        });
-        categoryCounts.forEach((name,count)-> {
-            Category cat = categoryRepository.findByUserAndNameIgnoreCase(user, name).orElse(null);
-            if (cat == null) {
-                cat = new Category();
-                cat.setName(name);
-                cat.setUser(user);
-                cat.setTransactionCount(count);
-            } else {
-                cat.increment(count);
-            }
-            categoryRepository.save(cat);
-        });
     }
 }
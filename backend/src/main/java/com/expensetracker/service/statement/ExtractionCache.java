@@ -0,0 +1,152 @@
+package com.expensetracker.service.statement;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.json.JSONArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Extraction output by PDF content (SHA-256), so byte-identical statements uploaded by different users (joint accounts,
+ * family members) or again after the dedupe window skip the Python/LLM extraction.
+ *
+ * Entries are gzip'd in the extraction_cache table, expire {@code ttl-days} after they were extracted and are evicted
+ * least-recently-hit first once the table holds more than {@code max-bytes}. Only non-empty outputs are stored, so a bad
+ * extraction is retried on the next upload. Callers look entries up only after {@link PdfInspector} has opened the file
+ * with the uploader's password.
+ *
+ * Lookups and stores run in their own short transaction: they are called from inside the upload transaction, and a
+ * failed cache statement (e.g. two uploads storing the same file) must not abort the upload on PostgreSQL.
+ */
+@Component
+public class ExtractionCache {
+    private static final Logger log = LoggerFactory.getLogger(ExtractionCache.class);
+    private static final int EVICT_BATCH = 500;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate newTx;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter stores;
+    private final Counter evictions;
+
+    @Value("${app.extraction.cache.enabled:true}")
+    private boolean enabled;
+    @Value("${app.extraction.cache.ttl-days:30}")
+    private int ttlDays;
+    @Value("${app.extraction.cache.max-bytes:268435456}")
+    private long maxBytes;
+    @Value("${app.extraction.cache.max-entry-bytes:4194304}")
+    private long maxEntryBytes;
+
+    public ExtractionCache(JdbcTemplate jdbc, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.jdbc = jdbc;
+        this.newTx = new TransactionTemplate(transactionManager);
+        this.newTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.hits = meterRegistry.counter("app.extraction.cache", "result", "hit");
+        this.misses = meterRegistry.counter("app.extraction.cache", "result", "miss");
+        this.stores = meterRegistry.counter("app.extraction.cache", "result", "store");
+        this.evictions = meterRegistry.counter("app.extraction.cache", "result", "evict");
+    }
+
+    /** Cached extraction JSON for the PDF, or null. Lookup failures count as misses. */
+    public String get(String sha256) {
+        if (!enabled || sha256 == null) return null;
+        try {
+            String json = newTx.execute(status -> {
+                Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(ttlDays));
+                List<byte[]> rows = jdbc.query("SELECT payload FROM extraction_cache WHERE sha256 = ? AND created_at >= ?",
+                        (rs, i) -> rs.getBytes(1), sha256, cutoff);
+                if (rows.isEmpty()) return null;
+                jdbc.update("UPDATE extraction_cache SET last_hit_at = ?, hit_count = hit_count + 1 WHERE sha256 = ?",
+                        Timestamp.valueOf(LocalDateTime.now()), sha256);
+                return RawStatementPayloadStore.gunzip(rows.get(0));
+            });
+            (json != null ? hits : misses).increment();
+            return json;
+        } catch (RuntimeException ex) {
+            log.warn("Extraction cache lookup failed for {}: {}", sha256, ex.getMessage());
+            misses.increment();
+            return null;
+        }
+    }
+
+    /** Remembers a successful extraction; never fails the upload. */
+    public void put(String sha256, String json) {
+        if (!enabled || sha256 == null || !cacheable(json)) return;
+        try {
+            byte[] gz = RawStatementPayloadStore.gzip(json);
+            if (gz.length > maxEntryBytes) return;
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            // Expired entries are replaced; an entry another upload just stored is kept
+            newTx.executeWithoutResult(status -> {
+                jdbc.update("DELETE FROM extraction_cache WHERE sha256 = ? AND created_at < ?", sha256,
+                        Timestamp.valueOf(LocalDateTime.now().minusDays(ttlDays)));
+                jdbc.update("INSERT INTO extraction_cache (sha256, payload, original_size, stored_size, created_at, last_hit_at, hit_count) VALUES (?, ?, ?, ?, ?, ?, 0)",
+                        sha256, gz, (long) json.getBytes(StandardCharsets.UTF_8).length, (long) gz.length, now, now);
+            });
+            stores.increment();
+        } catch (DuplicateKeyException ignored) {
+            // Concurrent extraction of the same file stored it first
+        } catch (RuntimeException ex) {
+            log.warn("Extraction cache store failed for {}: {}", sha256, ex.getMessage());
+        }
+    }
+
+    /** Only non-empty JSON arrays: empty or unparseable output is more likely a failed extraction than a real result. */
+    static boolean cacheable(String json) {
+        if (json == null || json.isBlank()) return false;
+        try {
+            return new JSONArray(json).length() > 0;
+        } catch (RuntimeException ex) {
+            return false;
+        }
+    }
+
+    /** Drops expired entries, then the least recently hit ones until the table is under its size cap. */
+    @Scheduled(initialDelayString = "${app.extraction.cache.cleanup-initial-delay-ms:300000}",
+               fixedDelayString = "${app.extraction.cache.cleanup-delay-ms:3600000}")
+    public void cleanup() {
+        if (!enabled) return;
+        try {
+            int expired = jdbc.update("DELETE FROM extraction_cache WHERE created_at < ?",
+                    Timestamp.valueOf(LocalDateTime.now().minusDays(ttlDays)));
+            Long total = jdbc.queryForObject("SELECT COALESCE(SUM(stored_size), 0) FROM extraction_cache", Long.class);
+            long excess = (total != null ? total : 0) - maxBytes;
+            List<Object[]> victims = new ArrayList<>();
+            if (excess > 0) {
+                long[] freed = {0};
+                jdbc.query("SELECT sha256, stored_size FROM extraction_cache ORDER BY last_hit_at",
+                        (RowCallbackHandler) rs -> {
+                            if (freed[0] >= excess) return;
+                            victims.add(new Object[]{rs.getString(1)});
+                            freed[0] += rs.getLong(2);
+                        });
+                for (int i = 0; i < victims.size(); i += EVICT_BATCH) {
+                    jdbc.batchUpdate("DELETE FROM extraction_cache WHERE sha256 = ?", victims.subList(i, Math.min(victims.size(), i + EVICT_BATCH)));
+                }
+            }
+            evictions.increment(expired + victims.size());
+            if (expired + victims.size() > 0) {
+                log.info("Extraction cache cleanup removed {} expired and {} least recently used entries", expired, victims.size());
+            }
+        } catch (RuntimeException ex) {
+            log.error("Extraction cache cleanup failed: {}", ex.getMessage(), ex);
+        }
+    }
+}
@@ -25,7 +25,44 @@ public class ExtractionRunner {
 
     @Value("${python.cmd:python}")
     private String pythonCmd;
+
+    @Value("${extraction.mode:local_python}")
+    private String extractionMode;
+
+    private final ExtractionCache extractionCache;
+    private final InlineStatementExtractor inlineExtractor;
+
+    public ExtractionRunner(ExtractionCache extractionCache, InlineStatementExtractor inlineExtractor) {
+        this.extractionCache = extractionCache;
+        this.inlineExtractor = inlineExtractor;
+    }
+
+    /**
+     * Extraction of an inspected upload: served from {@link ExtractionCache} when the same PDF was extracted before,
+     * otherwise run and remembered. In java_inline mode text-layer PDFs are tried in-process first; those results are
+     * cheap to redo and not cached.
+     */
+    public String run(File tempFile, String password, PdfInspector.Info pdf) throws IOException, InterruptedException {
+        String cached = extractionCache.get(pdf.sha256());
+        if (cached != null) return cached;
+        if ("java_inline".equalsIgnoreCase(extractionMode) && pdf.textLayer()) {
+            String inline = inlineExtractor.extract(tempFile, password, pdf);
+            if (inline != null) return inline;
+        }
+        String output = run(tempFile, password, pdf.textLayer());
+        if (output != null) extractionCache.put(pdf.sha256(), output);
+        return output;
+    }
+
     public String run(File tempFile, String password) throws IOException, InterruptedException {
+        return run(tempFile, password, (Boolean) null);
+    }
+
+    /**
+     * @param textLayer from {@link PdfInspector}: false sends every page straight to OCR without probing its text
+     *                  layer; true or null keep the per-page probe, with OCR for pages whose text comes back empty
+     */
+    public String run(File tempFile, String password, Boolean textLayer) throws IOException, InterruptedException {
         List<String> cmd = new ArrayList<>();
         cmd.add(pythonCmd);
         cmd.add(extractionScriptPath);
@@ -43,6 +80,9 @@ public class ExtractionRunner {
             }
         } catch (Exception ignored) {
         }
+        if (textLayer != null) {
+            pb.environment().put("PDF_TEXT_LAYER", textLayer ? "1" : "0");
+        }
         Process process = pb.start();
         StringBuilder output = new StringBuilder();
         try (Scanner scanner = new Scanner(process.getInputStream())) {
@@ -0,0 +1,360 @@
+package com.expensetracker.service.statement;
+
+import com.expensetracker.service.statement.StatementTemplate.Column;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process extraction ({@code extraction.mode=java_inline}) for text-layer statements of banks with a
+ * {@link StatementTemplate}: PDFBox text positions are grouped into lines, the header line fixes the column positions
+ * and each dated line becomes a transaction (undated description-only lines continue the previous narration).
+ *
+ * Returns the same JSON array shape as the Python extractor, or null when the file should go to Python instead: scanned
+ * PDFs, no matching template or header, nothing extracted, or running balances that do not add up (the columns were
+ * probably misread) or are too few to check. Runs on a small pool with a bounded queue and a timeout so large files cannot pile up in-process;
+ * a full queue or a timeout also means Python.
+ */
+@Component
+public class InlineStatementExtractor {
+    private static final Logger log = LoggerFactory.getLogger(InlineStatementExtractor.class);
+    private static final BigDecimal BALANCE_TOLERANCE = new BigDecimal("0.01");
+    private static final int MIN_BALANCE_CHECKS = 3;
+
+    private final ThreadPoolExecutor pool;
+    private final MeterRegistry meterRegistry;
+    private final Timer timer;
+
+    @Value("${app.extraction.inline.timeout-ms:30000}")
+    private long timeoutMs;
+    @Value("${app.extraction.inline.max-pages:200}")
+    private int maxPages;
+
+    public InlineStatementExtractor(MeterRegistry meterRegistry,
+                                    @Value("${app.extraction.inline.threads:2}") int threads,
+                                    @Value("${app.extraction.inline.queue:16}") int queue) {
+        this.meterRegistry = meterRegistry;
+        this.timer = meterRegistry.timer("app.extraction.inline.duration");
+        AtomicInteger seq = new AtomicInteger();
+        int n = Math.max(1, threads);
+        this.pool = new ThreadPoolExecutor(n, n, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Math.max(1, queue)), r -> {
+            Thread t = new Thread(r, "inline-extractor-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /** Extraction JSON, or null to fall back to the Python extractor. */
+    public String extract(File file, String password, PdfInspector.Info pdf) {
+        if (!pdf.textLayer()) return outcome("scanned", null);
+        if (pdf.pages() > maxPages) return outcome("too_large", null);
+        Future<String> task;
+        try {
+            task = pool.submit(() -> timer.recordCallable(() -> extract(file, password)));
+        } catch (RejectedExecutionException busy) {
+            return outcome("rejected", null);
+        }
+        try {
+            String json = task.get(timeoutMs, TimeUnit.MILLISECONDS);
+            return outcome(json != null ? "ok" : "unknown_layout", json);
+        } catch (TimeoutException ex) {
+            task.cancel(true);
+            return outcome("timeout", null);
+        } catch (InterruptedException ex) {
+            task.cancel(true);
+            Thread.currentThread().interrupt();
+            return outcome("failed", null);
+        } catch (ExecutionException ex) {
+            log.warn("Inline extraction failed for {}: {}", file.getName(), ex.getCause() != null ? ex.getCause().getMessage() : ex.getMessage());
+            return outcome("failed", null);
+        }
+    }
+
+    private String outcome(String result, String json) {
+        meterRegistry.counter("app.extraction.inline", "result", result).increment();
+        return json;
+    }
+
+    static String extract(File file, String password) throws IOException {
+        try (PDDocument doc = PDDocument.load(file, password != null ? password : "", MemoryUsageSetting.setupTempFileOnly())) {
+            LineCollector collector = new LineCollector();
+            collector.getText(doc);
+            JSONArray rows = extract(collector.lines);
+            return rows == null ? null : rows.toString();
+        }
+    }
+
+    /** Transactions from the positioned lines of a statement, or null if no template applies or the result is implausible. */
+    static JSONArray extract(List<Line> lines) {
+        StatementTemplate template = detect(lines);
+        if (template == null) return null;
+        List<Row> rows = new ArrayList<>();
+        Map<Column, float[]> columns = null;
+        Row current = null;
+        for (Line line : lines) {
+            Map<Column, float[]> header = header(line, template);
+            if (header != null) {
+                // Headers repeat on every page; a page may also shift the columns slightly
+                columns = header;
+                current = null;
+                continue;
+            }
+            if (columns == null) continue;
+            Map<Column, String> cells = cells(line, columns);
+            LocalDate date = template.parseDate(cells.get(Column.DATE));
+            if (date != null) {
+                current = row(date, cells, template.bankName());
+                if (current != null) rows.add(current);
+                continue;
+            }
+            boolean narrationOnly = cells.keySet().stream().allMatch(c -> c == Column.DESCRIPTION || c == Column.REFERENCE);
+            if (current != null && narrationOnly && cells.containsKey(Column.DESCRIPTION)) {
+                current.description = current.description + " " + cells.get(Column.DESCRIPTION);
+            } else {
+                current = null;
+            }
+        }
+        if (rows.isEmpty() || !balancesAddUp(rows)) return null;
+        JSONArray out = new JSONArray();
+        for (Row r : rows) {
+            JSONObject o = new JSONObject();
+            o.put("date", r.date.toString());
+            o.put("description", r.description);
+            o.put("amount", r.amount);
+            if (r.balance != null) o.put("balance", r.balance);
+            o.put("bankName", r.bank);
+            out.put(o);
+        }
+        return out;
+    }
+
+    /** Template whose marker appears before the first header (the statement's first page or so). */
+    static StatementTemplate detect(List<Line> lines) {
+        StringBuilder text = new StringBuilder();
+        for (Line line : lines) {
+            text.append(line.text().toUpperCase(Locale.ROOT)).append('\n');
+            for (StatementTemplate t : StatementTemplate.ALL) {
+                if (header(line, t) == null) continue;
+                boolean marked = t.markers().stream().anyMatch(m -> text.indexOf(m.toUpperCase(Locale.ROOT)) >= 0);
+                if (marked) return t;
+            }
+        }
+        return null;
+    }
+
+    /** Column x-ranges if the line is this template's header line. */
+    static Map<Column, float[]> header(Line line, StatementTemplate template) {
+        List<Label> labels = new ArrayList<>();
+        template.headers().forEach((column, alternatives) -> alternatives.forEach(a -> labels.add(new Label(column, a.split("\\s+")))));
+        labels.sort(Comparator.comparingInt((Label l) -> -l.tokens.length));
+        boolean[] used = new boolean[line.words().size()];
+        Map<Column, float[]> spans = new EnumMap<>(Column.class);
+        for (Label label : labels) {
+            if (spans.containsKey(label.column)) continue;
+            int at = find(line.words(), used, label.tokens);
+            if (at < 0) continue;
+            for (int i = 0; i < label.tokens.length; i++) used[at + i] = true;
+            spans.put(label.column, new float[]{line.words().get(at).x0(), line.words().get(at + label.tokens.length - 1).x1()});
+        }
+        boolean amounts = (spans.containsKey(Column.DEBIT) && spans.containsKey(Column.CREDIT)) || spans.containsKey(Column.AMOUNT);
+        return spans.containsKey(Column.DATE) && spans.containsKey(Column.DESCRIPTION) && spans.containsKey(Column.BALANCE) && amounts
+                ? spans : null;
+    }
+
+    private static int find(List<Word> words, boolean[] used, String[] tokens) {
+        outer:
+        for (int i = 0; i + tokens.length <= words.size(); i++) {
+            for (int j = 0; j < tokens.length; j++) {
+                if (used[i + j] || !words.get(i + j).text().equalsIgnoreCase(tokens[j])) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /** Words of the line grouped by nearest header column (distance 0 when under the header). */
+    static Map<Column, String> cells(Line line, Map<Column, float[]> columns) {
+        Map<Column, StringBuilder> cells = new EnumMap<>(Column.class);
+        for (Word w : line.words()) {
+            float center = (w.x0() + w.x1()) / 2;
+            Column best = null;
+            float bestDistance = Float.MAX_VALUE;
+            for (Map.Entry<Column, float[]> e : columns.entrySet()) {
+                float[] span = e.getValue();
+                float d = center < span[0] ? span[0] - center : center > span[1] ? center - span[1] : 0;
+                if (d < bestDistance) {
+                    bestDistance = d;
+                    best = e.getKey();
+                }
+            }
+            StringBuilder sb = cells.computeIfAbsent(best, c -> new StringBuilder());
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(w.text());
+        }
+        Map<Column, String> out = new EnumMap<>(Column.class);
+        cells.forEach((c, sb) -> out.put(c, sb.toString()));
+        return out;
+    }
+
+    private static Row row(LocalDate date, Map<Column, String> cells, String bank) {
+        BigDecimal amount;
+        if (cells.containsKey(Column.DEBIT) || cells.containsKey(Column.CREDIT)) {
+            BigDecimal debit = number(cells.get(Column.DEBIT));
+            BigDecimal credit = number(cells.get(Column.CREDIT));
+            if (debit == null && credit == null) return null;
+            amount = (credit != null ? credit.abs() : BigDecimal.ZERO).subtract(debit != null ? debit.abs() : BigDecimal.ZERO);
+        } else {
+            String raw = cells.get(Column.AMOUNT);
+            amount = number(raw);
+            if (amount == null) return null;
+            String type = (cells.getOrDefault(Column.TYPE, "") + " " + raw).toUpperCase(Locale.ROOT);
+            if (type.contains("DR")) amount = amount.abs().negate();
+        }
+        String description = cells.getOrDefault(Column.DESCRIPTION, "").trim();
+        if (description.isEmpty()) description = cells.getOrDefault(Column.REFERENCE, "").trim();
+        return new Row(date, description, amount, number(cells.get(Column.BALANCE)), bank);
+    }
+
+    /** Amount cell as a number: currency marks and thousands separators dropped; "Dr" suffix or parentheses negative. */
+    static BigDecimal number(String cell) {
+        if (cell == null) return null;
+        String s = cell.toUpperCase(Locale.ROOT).replace("INR", "").replace("₹", "").replace(",", "").replace(" ", "");
+        boolean negative = false;
+        if (s.endsWith("DR") || s.endsWith("(DR)")) {
+            negative = true;
+            s = s.replace("(DR)", "").replace("DR", "");
+        } else if (s.endsWith("CR") || s.endsWith("(CR)")) {
+            s = s.replace("(CR)", "").replace("CR", "");
+        }
+        if (s.startsWith("(") && s.endsWith(")")) {
+            negative = true;
+            s = s.substring(1, s.length() - 1);
+        }
+        if (!s.matches("[-+]?\\d+(\\.\\d+)?")) return null;
+        BigDecimal n = new BigDecimal(s);
+        return negative ? n.negate() : n;
+    }
+
+    /**
+     * Running balances must follow from the amounts for every pair of consecutive rows that has both balances (checked
+     * in both orders, as some banks list newest first). Fewer than {@code MIN_BALANCE_CHECKS} such pairs, including
+     * statements without a balance column, leave the columns unverified and fail.
+     */
+    static boolean balancesAddUp(List<Row> rows) {
+        int checked = 0, forward = 0, backward = 0;
+        for (int i = 1; i < rows.size(); i++) {
+            BigDecimal prev = rows.get(i - 1).balance, cur = rows.get(i).balance;
+            if (prev == null || cur == null) continue;
+            checked++;
+            if (prev.add(rows.get(i).amount).subtract(cur).abs().compareTo(BALANCE_TOLERANCE) > 0) forward++;
+            if (cur.add(rows.get(i - 1).amount).subtract(prev).abs().compareTo(BALANCE_TOLERANCE) > 0) backward++;
+        }
+        return checked >= MIN_BALANCE_CHECKS && (forward == 0 || backward == 0);
+    }
+
+    record Word(String text, float x0, float x1) {}
+
+    record Line(List<Word> words) {
+        String text() {
+            StringBuilder sb = new StringBuilder();
+            for (Word w : words) sb.append(sb.length() > 0 ? " " : "").append(w.text());
+            return sb.toString();
+        }
+    }
+
+    private record Label(Column column, String[] tokens) {}
+
+    static final class Row {
+        final LocalDate date;
+        String description;
+        final BigDecimal amount;
+        final BigDecimal balance;
+        final String bank;
+
+        Row(LocalDate date, String description, BigDecimal amount, BigDecimal balance, String bank) {
+            this.date = date;
+            this.description = description;
+            this.amount = amount;
+            this.balance = balance;
+            this.bank = bank;
+        }
+    }
+
+    /** Lines of positioned words, split on whitespace in the text and on the stripper's word gaps. */
+    private static final class LineCollector extends PDFTextStripper {
+        final List<Line> lines = new ArrayList<>();
+        private List<Word> current = new ArrayList<>();
+
+        LineCollector() throws IOException {
+            setSortByPosition(true);
+        }
+
+        @Override
+        protected void writeString(String text, List<TextPosition> positions) {
+            StringBuilder word = new StringBuilder();
+            float x0 = 0, x1 = 0;
+            for (TextPosition p : positions) {
+                String u = p.getUnicode();
+                if (u == null || u.isBlank()) {
+                    if (word.length() > 0) current.add(new Word(word.toString(), x0, x1));
+                    word.setLength(0);
+                    continue;
+                }
+                if (word.length() == 0) x0 = p.getXDirAdj();
+                word.append(u);
+                x1 = p.getXDirAdj() + p.getWidthDirAdj();
+            }
+            if (word.length() > 0) current.add(new Word(word.toString(), x0, x1));
+        }
+
+        @Override
+        protected void writeLineSeparator() {
+            flush();
+        }
+
+        @Override
+        protected void endPage(PDPage page) {
+            flush();
+        }
+
+        private void flush() {
+            if (!current.isEmpty()) lines.add(new Line(current));
+            current = new ArrayList<>();
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.expensetracker.service.statement;
+
+import com.expensetracker.config.DatabaseVendor;
+import com.expensetracker.config.JobLock;
+import com.expensetracker.service.cache.CacheInvalidationBus;
+import com.expensetracker.util.AppConstants;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Normalized merchant -> category mappings used by {@link TransactionParser} ahead of the extractor's category.
+ *
+ * Mappings are per user (a user's own corrections, or what their categorized history consistently says) or global
+ * (merchants that enough users independently put in the same category). Global mappings are one immutable map swapped
+ * after each learning run; a user's mappings are loaded with one query on first use and cached. Lookups try the whole
+ * merchant key, then drop trailing words ("amazon mktp in" falls back to "amazon"); at each length the user's mapping
+ * wins over the global one.
+ *
+ * Corrections are single upserts (Postgres {@code ON CONFLICT DO UPDATE}, Oracle MERGE re-run once when two MERGEs
+ * race on the unique index), so they never fail inside the caller's transaction. Learning runs on one replica at a
+ * time under a {@link JobLock}.
+ */
+@Component
+public class MerchantCategoryDictionary {
+    private static final Logger log = LoggerFactory.getLogger(MerchantCategoryDictionary.class);
+    public static final String CACHE_NAME = "merchant:categories";
+    static final String SOURCE_CORRECTION = "CORRECTION";
+    static final String SOURCE_LEARNED = "LEARNED";
+    static final int MAX_KEY_LENGTH = 128;
+    private static final int MIN_KEY_LENGTH = 3;
+    private static final String LOCK_NAME = "merchant-category-learn";
+    static final String POSTGRES_CORRECTION = "INSERT INTO merchant_category_map (user_id, merchant_key, category, source, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?) ON CONFLICT (user_id, merchant_key) WHERE user_id IS NOT NULL " +
+            "DO UPDATE SET category = EXCLUDED.category, source = EXCLUDED.source, updated_at = EXCLUDED.updated_at";
+    static final String ORACLE_CORRECTION = "MERGE INTO merchant_category_map t USING " +
+            "(SELECT ? AS user_id, ? AS merchant_key, ? AS category, ? AS source, ? AS updated_at FROM dual) s " +
+            "ON (t.user_id = s.user_id AND t.merchant_key = s.merchant_key) " +
+            "WHEN MATCHED THEN UPDATE SET t.category = s.category, t.source = s.source, t.updated_at = s.updated_at " +
+            "WHEN NOT MATCHED THEN INSERT (user_id, merchant_key, category, source, updated_at) " +
+            "VALUES (s.user_id, s.merchant_key, s.category, s.source, s.updated_at)";
+
+    private final JdbcTemplate jdbc;
+    private final CacheInvalidationBus bus;
+    private final TransactionTemplate tx;
+    private final DatabaseVendor vendor;
+    private final JobLock jobLock;
+    private final Cache<Long, Map<String, String>> users = Caffeine.newBuilder()
+            .maximumSize(20_000)
+            .expireAfterAccess(Duration.ofHours(6))
+            .build();
+    private volatile Map<String, String> global;
+
+    @Value("${app.categories.learn.enabled:true}")
+    private boolean learnEnabled;
+    @Value("${app.categories.learn.min-count:3}")
+    private int minCount;
+    @Value("${app.categories.learn.min-share:0.8}")
+    private double minShare;
+    @Value("${app.categories.learn.global-min-users:3}")
+    private int globalMinUsers;
+    @Value("${app.categories.learn.lock-minutes:60}")
+    private long lockMinutes = 60;
+
+    public MerchantCategoryDictionary(JdbcTemplate jdbc, CacheInvalidationBus bus, PlatformTransactionManager transactionManager,
+                                      MeterRegistry meterRegistry, DatabaseVendor vendor, JobLock jobLock) {
+        this.jdbc = jdbc;
+        this.bus = bus;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.vendor = vendor;
+        this.jobLock = jobLock;
+        meterRegistry.gauge("app.categories.dictionary.global.size", this, d -> d.global == null ? 0 : d.global.size());
+        bus.register(CACHE_NAME, userId -> {
+            if (userId != null) {
+                users.invalidate(userId);
+                return;
+            }
+            users.invalidateAll();
+            reloadGlobal();
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reloadGlobal() {
+        Map<String, String> loaded = new HashMap<>();
+        jdbc.query("SELECT merchant_key, category FROM merchant_category_map WHERE user_id IS NULL",
+                (RowCallbackHandler) rs -> loaded.put(rs.getString(1), rs.getString(2)));
+        global = Collections.unmodifiableMap(loaded);
+    }
+
+    /** Snapshot of the user's and the global mappings for one parse run (null user id = global only). */
+    public Lookup forUser(Long userId) {
+        Map<String, String> g = global;
+        if (g == null) {
+            reloadGlobal();
+            g = global;
+        }
+        Map<String, String> own = userId == null ? Map.of() : users.get(userId, id -> {
+            Map<String, String> m = new HashMap<>();
+            jdbc.query("SELECT merchant_key, category FROM merchant_category_map WHERE user_id = ?",
+                    (RowCallbackHandler) rs -> m.put(rs.getString(1), rs.getString(2)), id);
+            return Collections.unmodifiableMap(m);
+        });
+        return new Lookup(own, g);
+    }
+
+    /** Remember the user's choice for the merchant; takes precedence over learned mappings from now on. */
+    public void recordCorrection(Long userId, String merchant, String category) {
+        String key = key(merchant);
+        if (userId == null || key == null || category == null || category.isBlank()) return;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Object[] args = {userId, key, category, SOURCE_CORRECTION, now};
+        if (!vendor.isOracle()) {
+            jdbc.update(POSTGRES_CORRECTION, args);
+        } else {
+            try {
+                jdbc.update(ORACLE_CORRECTION, args);
+            } catch (DuplicateKeyException race) {
+                jdbc.update(ORACLE_CORRECTION, args);
+            }
+        }
+        bus.evictUserAfterCommit(CACHE_NAME, userId);
+    }
+
+    /**
+     * Rebuilds the LEARNED mappings from categorized transactions: per user, a merchant whose rows agree on one
+     * category (at least {@code min-count} rows and {@code min-share} of them); globally, a merchant for which at least
+     * {@code global-min-users} users learned the same category with the same share. Corrections are never replaced.
+     * Every replica fires the cron; the {@link JobLock} lease lets one of them run it.
+     */
+    @Scheduled(cron = "${app.categories.learn.cron:0 30 3 * * *}")
+    public void learn() {
+        if (!learnEnabled) return;
+        jobLock.runExclusively(LOCK_NAME, Duration.ofMinutes(lockMinutes), this::learnNow);
+    }
+
+    void learnNow() {
+        long started = System.nanoTime();
+        try {
+            Set<String> corrected = new HashSet<>();
+            jdbc.query("SELECT user_id, merchant_key FROM merchant_category_map WHERE source = ? AND user_id IS NOT NULL",
+                    (RowCallbackHandler) rs -> corrected.add(rs.getLong(1) + ":" + rs.getString(2)), SOURCE_CORRECTION);
+            List<Object[]> learned = new ArrayList<>();
+            Map<String, Map<String, Long>> globalVotes = new HashMap<>();
+            // Streamed in user order so only one user's merchants are held at a time
+            Map<String, Map<String, Long>> current = new HashMap<>();
+            long[] currentUser = {Long.MIN_VALUE};
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            Runnable flush = () -> {
+                current.forEach((key, counts) -> {
+                    String category = dominant(counts, minCount, minShare);
+                    if (category == null) return;
+                    globalVotes.computeIfAbsent(key, k -> new HashMap<>()).merge(category, 1L, Long::sum);
+                    if (!corrected.contains(currentUser[0] + ":" + key)) {
+                        learned.add(new Object[]{currentUser[0], key, category, SOURCE_LEARNED, now});
+                    }
+                });
+                current.clear();
+            };
+            jdbc.query("SELECT user_id, merchant, category, COUNT(*) FROM transactions " +
+                            "WHERE merchant IS NOT NULL AND category IS NOT NULL AND category <> ? " +
+                            "GROUP BY user_id, merchant, category ORDER BY user_id",
+                    (RowCallbackHandler) rs -> {
+                        long userId = rs.getLong(1);
+                        if (userId != currentUser[0]) {
+                            flush.run();
+                            currentUser[0] = userId;
+                        }
+                        String key = key(rs.getString(2));
+                        if (key != null) current.computeIfAbsent(key, k -> new HashMap<>()).merge(rs.getString(3), rs.getLong(4), Long::sum);
+                    }, AppConstants.UNKNOWN);
+            flush.run();
+            List<Object[]> globals = new ArrayList<>();
+            globalVotes.forEach((key, votes) -> {
+                String category = dominant(votes, globalMinUsers, minShare);
+                if (category != null) globals.add(new Object[]{key, category, SOURCE_LEARNED, now});
+            });
+            tx.executeWithoutResult(status -> {
+                jdbc.update("DELETE FROM merchant_category_map WHERE source = ?", SOURCE_LEARNED);
+                jdbc.batchUpdate("INSERT INTO merchant_category_map (user_id, merchant_key, category, source, updated_at) VALUES (?, ?, ?, ?, ?)", learned);
+                jdbc.batchUpdate("INSERT INTO merchant_category_map (user_id, merchant_key, category, source, updated_at) VALUES (NULL, ?, ?, ?, ?)", globals);
+                bus.publish(CACHE_NAME, null);
+            });
+            users.invalidateAll();
+            reloadGlobal();
+            log.info("Merchant category dictionary learned {} user and {} global mappings in {} ms", learned.size(), globals.size(),
+                    (System.nanoTime() - started) / 1_000_000);
+        } catch (Exception ex) {
+            log.error("Merchant category learning failed: {}", ex.getMessage(), ex);
+        }
+    }
+
+    /** Category with at least {@code min} votes and {@code share} of all votes, or null. */
+    static String dominant(Map<String, Long> votes, long min, double share) {
+        String best = null;
+        long bestCount = 0, total = 0;
+        for (Map.Entry<String, Long> e : votes.entrySet()) {
+            total += e.getValue();
+            if (e.getValue() > bestCount || (e.getValue() == bestCount && best != null && e.getKey().compareTo(best) < 0)) {
+                best = e.getKey();
+                bestCount = e.getValue();
+            }
+        }
+        return best != null && bestCount >= min && bestCount >= share * total ? best : null;
+    }
+
+    /** Dictionary key of a (normalized) merchant name: lower case, single spaces, bounded length; null if too short. */
+    static String key(String merchant) {
+        if (merchant == null) return null;
+        String k = merchant.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+        if (k.length() > MAX_KEY_LENGTH) k = k.substring(0, MAX_KEY_LENGTH).trim();
+        return k.length() < MIN_KEY_LENGTH ? null : k;
+    }
+
+    /** Immutable view used for one parse run. */
+    public static final class Lookup {
+        public static final Lookup EMPTY = new Lookup(Map.of(), Map.of());
+        private final Map<String, String> user;
+        private final Map<String, String> global;
+
+        Lookup(Map<String, String> user, Map<String, String> global) {
+            this.user = user;
+            this.global = global;
+        }
+
+        /** Category for the merchant (longest matching word prefix, user before global), or null. */
+        public String category(String merchant) {
+            String k = key(merchant);
+            if (k == null || (user.isEmpty() && global.isEmpty())) return null;
+            while (k.length() >= MIN_KEY_LENGTH) {
+                String c = user.get(k);
+                if (c == null) c = global.get(k);
+                if (c != null) return c;
+                int cut = k.lastIndexOf(' ');
+                if (cut < 0) break;
+                k = k.substring(0, cut);
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.expensetracker.service.statement;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.encryption.InvalidPasswordException;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Page count, encryption and text layer of an uploaded PDF, cached by the file's SHA-256.
+ *
+ * One streaming pass hashes the file and notes whether font resources appear anywhere (text cannot be drawn without
+ * one, so a PDF without fonts is a scan). Page count and encryption come from the trailer and the page tree root,
+ * read through the classic xref table. Files this cannot answer for (xref streams, fonts hidden in object streams) and
+ * all encrypted files (the password still has to be checked) are opened with PDFBox, backed by a temp file rather than
+ * the whole file in memory. Results for encrypted files are only reused with the same password.
+ */
+@Component
+public class PdfInspector {
+    private static final int TAIL_BYTES = 1024;
+    private static final int OBJECT_BYTES = 4096;
+    private static final int MAX_XREF_SECTIONS = 32;
+    private static final int MAX_FONT_PROBE_PAGES = 5;
+    private static final Pattern ROOT = Pattern.compile("/Root\\s+(\\d+)\\s+\\d+\\s+R");
+    private static final Pattern PREV = Pattern.compile("/Prev\\s+(\\d+)");
+    private static final Pattern PAGES = Pattern.compile("/Pages\\s+(\\d+)\\s+\\d+\\s+R");
+    private static final Pattern COUNT = Pattern.compile("/Count\\s+(\\d+)");
+    private static final byte[] FONT = "/Font".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] OBJSTM = "/ObjStm".getBytes(StandardCharsets.US_ASCII);
+
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, Info> cache;
+
+    public PdfInspector(MeterRegistry meterRegistry, @Value("${app.pdf.inspect.cache-size:10000}") long cacheSize) {
+        this.meterRegistry = meterRegistry;
+        this.cache = Caffeine.newBuilder().maximumSize(cacheSize).expireAfterAccess(Duration.ofHours(24)).build();
+    }
+
+    /** What an upload needs to know before extraction; {@code sha256} is the hex digest of the file. */
+    public record Info(String sha256, int pages, boolean encrypted, boolean textLayer) {}
+
+    public Info inspect(File file, String password) throws IOException {
+        return inspect(file, null, password);
+    }
+
+    /** @param sha256 digest already computed while spilling the upload (checked against the cache before reading), or null */
+    public Info inspect(File file, String sha256, String password) throws IOException {
+        Info hit = sha256 != null ? cached(sha256, password) : null;
+        if (hit != null) return hit;
+        Scan scan = scan(file);
+        if (sha256 == null && (hit = cached(scan.sha256, password)) != null) return hit;
+        Info info;
+        Trailer trailer = null;
+        try {
+            trailer = readTrailer(file);
+        } catch (IOException | RuntimeException ignored) {
+            // Damaged or unusual structure: PDFBox's lenient parser decides
+        }
+        boolean fontsKnown = scan.sawFont || !scan.sawObjStm;
+        if (trailer != null && trailer.pages >= 0 && !trailer.encrypted && fontsKnown) {
+            info = new Info(scan.sha256, trailer.pages, false, scan.sawFont);
+            count("light");
+        } else {
+            info = full(file, password, scan);
+            count("full");
+        }
+        cache.put(info.encrypted() ? passwordKey(info.sha256(), password) : info.sha256(), info);
+        return info;
+    }
+
+    private Info cached(String sha256, String password) {
+        Info hit = cache.getIfPresent(sha256);
+        if (hit == null && password != null && !password.isEmpty()) hit = cache.getIfPresent(passwordKey(sha256, password));
+        if (hit != null) count("cache");
+        return hit;
+    }
+
+    private Info full(File file, String password, Scan scan) throws IOException {
+        try (PDDocument doc = PDDocument.load(file, password != null ? password : "", MemoryUsageSetting.setupTempFileOnly())) {
+            boolean text = scan.sawFont;
+            if (!text && scan.sawObjStm) {
+                int probed = 0;
+                for (PDPage page : doc.getPages()) {
+                    if (hasFonts(page.getResources(), 0)) {
+                        text = true;
+                        break;
+                    }
+                    if (++probed >= MAX_FONT_PROBE_PAGES) break;
+                }
+            }
+            return new Info(scan.sha256, doc.getNumberOfPages(), doc.isEncrypted(), text);
+        } catch (InvalidPasswordException e) {
+            throw new IOException("PDF password required or incorrect", e);
+        }
+    }
+
+    private static boolean hasFonts(PDResources resources, int depth) throws IOException {
+        if (resources == null) return false;
+        if (resources.getFontNames().iterator().hasNext()) return true;
+        if (depth > 2) return false;
+        for (COSName name : resources.getXObjectNames()) {
+            PDXObject x = resources.getXObject(name);
+            if (x instanceof PDFormXObject form && hasFonts(form.getResources(), depth + 1)) return true;
+        }
+        return false;
+    }
+
+    private void count(String path) {
+        meterRegistry.counter("app.pdf.inspect", "path", path).increment();
+    }
+
+    private static String passwordKey(String sha256, String password) {
+        return sha256 + ":" + sha256(password != null ? password : "");
+    }
+
+    /** Hashes the file and looks for font resources and object streams in one read. */
+    static Scan scan(File file) throws IOException {
+        MessageDigest digest = sha256Digest();
+        TokenMatcher font = new TokenMatcher(FONT);
+        TokenMatcher objStm = new TokenMatcher(OBJSTM);
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), 65536)) {
+            byte[] buf = new byte[65536];
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                digest.update(buf, 0, n);
+                for (int i = 0; i < n; i++) {
+                    font.accept(buf[i]);
+                    objStm.accept(buf[i]);
+                }
+            }
+        }
+        return new Scan(HexFormat.of().formatHex(digest.digest()), font.found, objStm.found);
+    }
+
+    /**
+     * Page count and encryption from the newest trailer of a classic xref table (following /Prev for objects from
+     * earlier revisions); null when the file uses xref streams or the page tree root is not reachable that way.
+     */
+    static Trailer readTrailer(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            long length = raf.length();
+            String tail = read(raf, Math.max(0, length - TAIL_BYTES), TAIL_BYTES);
+            int at = tail.lastIndexOf("startxref");
+            if (at < 0) return null;
+            long xref = Long.parseLong(tail.substring(at + 9).trim().split("\\s+")[0]);
+            Map<Integer, Long> offsets = new HashMap<>();
+            Set<Long> seen = new HashSet<>();
+            Integer root = null;
+            boolean encrypted = false, newest = true;
+            while (xref > 0 && seen.add(xref) && seen.size() <= MAX_XREF_SECTIONS) {
+                Section section = readSection(raf, xref);
+                if (section == null) return null;
+                section.offsets.forEach(offsets::putIfAbsent);
+                if (newest) {
+                    Matcher m = ROOT.matcher(section.trailer);
+                    if (m.find()) root = Integer.parseInt(m.group(1));
+                    encrypted = section.trailer.contains("/Encrypt");
+                    newest = false;
+                }
+                Matcher prev = PREV.matcher(section.trailer);
+                xref = prev.find() ? Long.parseLong(prev.group(1)) : 0;
+            }
+            if (root == null) return null;
+            String catalog = readObject(raf, offsets, root);
+            Matcher pagesRef = catalog == null ? null : PAGES.matcher(catalog);
+            if (pagesRef == null || !pagesRef.find()) return null;
+            String pages = readObject(raf, offsets, Integer.parseInt(pagesRef.group(1)));
+            Matcher count = pages == null ? null : COUNT.matcher(pages);
+            return new Trailer(count != null && count.find() ? Integer.parseInt(count.group(1)) : -1, encrypted);
+        }
+    }
+
+    /** One xref table plus its trailer dictionary, or null if {@code offset} is not a classic xref table. */
+    private static Section readSection(RandomAccessFile raf, long offset) throws IOException {
+        raf.seek(offset);
+        // Not closed: it would close the file, which the caller still reads from
+        BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(raf.getChannel()), StandardCharsets.ISO_8859_1));
+        String line = in.readLine();
+        if (line == null || !line.trim().equals("xref")) return null;
+        Map<Integer, Long> offsets = new HashMap<>();
+        while ((line = in.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty()) continue;
+            if (line.startsWith("trailer")) break;
+            String[] head = line.split("\\s+");
+            if (head.length != 2) return null;
+            int first = Integer.parseInt(head[0]);
+            int entries = Integer.parseInt(head[1]);
+            for (int i = 0; i < entries; i++) {
+                String entry = in.readLine();
+                if (entry == null) return null;
+                String[] parts = entry.trim().split("\\s+");
+                if (parts.length == 3 && parts[2].equals("n")) offsets.put(first + i, Long.parseLong(parts[0]));
+            }
+        }
+        if (line == null) return null;
+        StringBuilder trailer = new StringBuilder(line);
+        while (!trailer.toString().contains("startxref") && (line = in.readLine()) != null) trailer.append('\n').append(line);
+        return new Section(offsets, trailer.toString());
+    }
+
+    /** Text of an uncompressed indirect object's dictionary, or null if it is not where the xref table says. */
+    private static String readObject(RandomAccessFile raf, Map<Integer, Long> offsets, int number) throws IOException {
+        Long offset = offsets.get(number);
+        if (offset == null) return null;
+        String text = read(raf, offset, OBJECT_BYTES);
+        if (!text.matches("(?s)\\s*" + number + "\\s+\\d+\\s+obj\\b.*")) return null;
+        int end = text.indexOf("endobj");
+        int stream = text.indexOf("stream");
+        if (stream >= 0 && (end < 0 || stream < end)) end = stream;
+        return end < 0 ? null : text.substring(0, end);
+    }
+
+    private static String read(RandomAccessFile raf, long offset, int max) throws IOException {
+        byte[] buf = new byte[(int) Math.min(max, raf.length() - offset)];
+        raf.seek(offset);
+        raf.readFully(buf);
+        return new String(buf, StandardCharsets.ISO_8859_1);
+    }
+
+    private static MessageDigest sha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String sha256(String s) {
+        return HexFormat.of().formatHex(sha256Digest().digest(s.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    record Scan(String sha256, boolean sawFont, boolean sawObjStm) {}
+
+    record Trailer(int pages, boolean encrypted) {}
+
+    private record Section(Map<Integer, Long> offsets, String trailer) {}
+
+    /** Streaming match of a token that starts with its only '/' (so a mismatch can only restart at '/'). */
+    private static final class TokenMatcher {
+        private final byte[] token;
+        private int matched;
+        boolean found;
+
+        TokenMatcher(byte[] token) {
+            this.token = token;
+        }
+
+        void accept(byte b) {
+            if (found) return;
+            if (b == token[matched]) {
+                if (++matched == token.length) found = true;
+            } else {
+                matched = b == token[0] ? 1 : 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.expensetracker.service.statement;
+
+import com.expensetracker.model.RawStatement;
+import com.expensetracker.repository.RawStatementRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Fills the listing metadata columns of raw_statements rows persisted before they existed, in small chunks
+ * (each chunk loads raw_json once, in its own transaction). Stops polling once nothing is left.
+ */
+@Component
+@ConditionalOnProperty(value = "app.statements.metadata-backfill.enabled", havingValue = "true", matchIfMissing = true)
+public class RawStatementMetadataBackfill {
+    private static final Logger log = LoggerFactory.getLogger(RawStatementMetadataBackfill.class);
+
+    private final RawStatementRepository repository;
+    private final RawStatementPayloadStore payloadStore;
+    private final TransactionTemplate tx;
+    private volatile boolean done;
+
+    @Value("${app.statements.metadata-backfill.chunk-size:50}")
+    private int chunkSize;
+    @Value("${app.statements.metadata-backfill.max-chunks-per-run:100}")
+    private int maxChunksPerRun;
+
+    public RawStatementMetadataBackfill(RawStatementRepository repository, RawStatementPayloadStore payloadStore, PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.payloadStore = payloadStore;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(initialDelayString = "${app.statements.metadata-backfill.initial-delay-ms:30000}",
+               fixedDelayString = "${app.statements.metadata-backfill.delay-ms:300000}")
+    public void run() {
+        if (done) return;
+        int total = 0;
+        try {
+            for (int i = 0; i < maxChunksPerRun; i++) {
+                List<Long> ids = repository.findIdsMissingMetadata(PageRequest.of(0, chunkSize));
+                if (ids.isEmpty()) {
+                    done = true;
+                    break;
+                }
+                tx.executeWithoutResult(status -> {
+                    for (RawStatement rs : repository.findAllById(ids)) RawStatementPersister.applyMetadata(rs, payloadStore.read(rs));
+                });
+                total += ids.size();
+            }
+        } catch (Exception ex) {
+            log.error("Raw statement metadata backfill failed: {}", ex.getMessage(), ex);
+        }
+        if (total > 0) log.info("Raw statement metadata backfill updated {} rows{}", total, done ? " (complete)" : "");
+    }
+}
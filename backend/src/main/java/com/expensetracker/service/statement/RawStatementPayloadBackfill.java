@@ -0,0 +1,74 @@
+package com.expensetracker.service.statement;
+
+import com.expensetracker.model.RawStatement;
+import com.expensetracker.repository.RawStatementRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Moves payloads of existing raw_statements rows out of raw_json into the configured {@link RawStatementPayloadStore},
+ * a chunk per transaction, and clears raw_json. Re-running a chunk is harmless (same side-table row / object key).
+ * On PostgreSQL the freed TOAST space is returned by (auto)vacuum; run VACUUM FULL raw_statements once afterwards
+ * to shrink the table file itself.
+ */
+@Component
+@ConditionalOnProperty(value = "app.statements.payload.backfill.enabled", havingValue = "true", matchIfMissing = true)
+public class RawStatementPayloadBackfill {
+    private static final Logger log = LoggerFactory.getLogger(RawStatementPayloadBackfill.class);
+
+    private final RawStatementRepository repository;
+    private final RawStatementPayloadStore payloadStore;
+    private final TransactionTemplate tx;
+    private volatile boolean done;
+
+    @Value("${app.statements.payload.backfill.chunk-size:20}")
+    private int chunkSize;
+    @Value("${app.statements.payload.backfill.max-chunks-per-run:250}")
+    private int maxChunksPerRun;
+
+    public RawStatementPayloadBackfill(RawStatementRepository repository, RawStatementPayloadStore payloadStore, PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.payloadStore = payloadStore;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    /** Scan again on the next run, e.g. after an upload had to keep its payload inline. */
+    public void rearm() {
+        done = false;
+    }
+
+    @Scheduled(initialDelayString = "${app.statements.payload.backfill.initial-delay-ms:60000}",
+               fixedDelayString = "${app.statements.payload.backfill.delay-ms:600000}")
+    public void run() {
+        if (done || !payloadStore.offloads()) return;
+        int total = 0;
+        try {
+            for (int i = 0; i < maxChunksPerRun; i++) {
+                List<Long> ids = repository.findIdsWithInlinePayload(PageRequest.of(0, chunkSize));
+                if (ids.isEmpty()) {
+                    done = true;
+                    break;
+                }
+                tx.executeWithoutResult(status -> {
+                    for (RawStatement rs : repository.findAllById(ids)) {
+                        rs.setPayloadRef(payloadStore.write(rs, rs.getRawJson()));
+                        rs.setRawJson(null);
+                    }
+                });
+                total += ids.size();
+            }
+        } catch (Exception ex) {
+            log.error("Raw statement payload backfill failed: {}", ex.getMessage(), ex);
+        }
+        if (total > 0) log.info("Raw statement payload backfill offloaded {} rows{}", total, done ? " (complete)" : "");
+    }
+}
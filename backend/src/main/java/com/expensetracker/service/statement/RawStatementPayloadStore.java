@@ -0,0 +1,117 @@
+package com.expensetracker.service.statement;
+
+import com.expensetracker.model.RawStatement;
+import com.expensetracker.storage.OciObjectStorageService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Storage tier for raw extraction payloads (the JSON formerly kept inline in raw_statements.raw_json).
+ *
+ * Payloads are gzip-compressed and written, per {@code app.statements.payload.store}, to the raw_statement_payloads
+ * side table ({@code table}, default), to OCI Object Storage or a local directory when OCI is disabled
+ * ({@code object}), or left inline ({@code inline}). raw_statements.payload_ref records where a payload lives; a null
+ * ref means the payload is still in raw_json. Side-table bytes are only read through {@link #read}, never with the entity.
+ */
+@Component
+public class RawStatementPayloadStore {
+    public static final String REF_TABLE = "db:gzip";
+    private static final String OCI_PREFIX = "oci:";
+    private static final String FILE_PREFIX = "file:";
+
+    private final JdbcTemplate jdbc;
+    private final ObjectProvider<OciObjectStorageService> ociStorage;
+
+    @Value("${app.statements.payload.store:table}")
+    private String mode = "table"; // inline | table | object
+    @Value("${app.statements.payload.dir:./data/statement-payloads}")
+    private String dir = "./data/statement-payloads";
+
+    public RawStatementPayloadStore(JdbcTemplate jdbc, ObjectProvider<OciObjectStorageService> ociStorage) {
+        this.jdbc = jdbc;
+        this.ociStorage = ociStorage;
+    }
+
+    public boolean offloads() {
+        return !"inline".equals(mode);
+    }
+
+    /** Stores the payload of a persisted statement; returns the payload_ref to record, or null when kept inline. */
+    public String write(RawStatement statement, String json) {
+        if (!offloads() || json == null) return null;
+        byte[] gz = gzip(json);
+        if ("object".equals(mode)) {
+            Long userId = statement.getUser() != null ? statement.getUser().getId() : null;
+            String key = "statement-payloads/" + userId + "/" + statement.getId() + ".json.gz";
+            OciObjectStorageService oci = ociStorage.getIfAvailable();
+            if (oci != null && oci.isEnabled()) return OCI_PREFIX + oci.putBytes(key, gz, "application/gzip");
+            try {
+                Path target = Path.of(dir).resolve(key);
+                Files.createDirectories(target.getParent());
+                Files.write(target, gz);
+                return FILE_PREFIX + target.toAbsolutePath();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write statement payload " + key, e);
+            }
+        }
+        jdbc.update("DELETE FROM raw_statement_payloads WHERE statement_id = ?", statement.getId());
+        jdbc.update("INSERT INTO raw_statement_payloads (statement_id, encoding, payload, original_size, stored_size, created_at) VALUES (?, ?, ?, ?, ?, ?)",
+                statement.getId(), "gzip", gz, (long) json.getBytes(StandardCharsets.UTF_8).length, (long) gz.length, Timestamp.valueOf(LocalDateTime.now()));
+        return REF_TABLE;
+    }
+
+    /** The statement's raw JSON wherever it is stored (null if missing). */
+    public String read(RawStatement statement) {
+        String ref = statement.getPayloadRef();
+        if (ref == null) return statement.getRawJson();
+        if (REF_TABLE.equals(ref)) {
+            List<byte[]> rows = jdbc.query("SELECT payload FROM raw_statement_payloads WHERE statement_id = ?",
+                    (rs, i) -> rs.getBytes(1), statement.getId());
+            return rows.isEmpty() ? null : gunzip(rows.get(0));
+        }
+        try {
+            if (ref.startsWith(OCI_PREFIX)) {
+                OciObjectStorageService oci = ociStorage.getIfAvailable();
+                if (oci == null || !oci.isEnabled()) throw new IllegalStateException("Statement payload is in OCI but OCI storage is disabled");
+                return gunzip(oci.getBytes(ref.substring(OCI_PREFIX.length())));
+            }
+            if (ref.startsWith(FILE_PREFIX)) return gunzip(Files.readAllBytes(Path.of(ref.substring(FILE_PREFIX.length()))));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read statement payload " + ref, e);
+        }
+        throw new IllegalStateException("Unknown statement payload ref: " + ref);
+    }
+
+    static byte[] gzip(String json) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(64, json.length() / 6));
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static String gunzip(byte[] gz) {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gz))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -3,18 +3,38 @@ package com.expensetracker.service.statement;
 import com.expensetracker.model.RawStatement;
 import com.expensetracker.model.User;
 import com.expensetracker.repository.RawStatementRepository;
+import com.expensetracker.util.AppConstants;
 import org.json.JSONArray;
 import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 
 @Component
 public class RawStatementPersister {
+    private static final Logger log = LoggerFactory.getLogger(RawStatementPersister.class);
+    static final int MAX_STORED_WARNINGS = 200;
+
     private final RawStatementRepository rawStatementRepository;
+    private final RawStatementPayloadStore payloadStore;
+    private final ObjectProvider<RawStatementPayloadBackfill> payloadBackfill;
+    private final TransactionTemplate newTx;
 
-    public RawStatementPersister(RawStatementRepository rawStatementRepository) {
+    public RawStatementPersister(RawStatementRepository rawStatementRepository, RawStatementPayloadStore payloadStore,
+                                 ObjectProvider<RawStatementPayloadBackfill> payloadBackfill, PlatformTransactionManager transactionManager) {
         this.rawStatementRepository = rawStatementRepository;
+        this.payloadStore = payloadStore;
+        this.payloadBackfill = payloadBackfill;
+        this.newTx = new TransactionTemplate(transactionManager);
+        this.newTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
     }
 
     public RawStatement persist(User user, String filename, String rawJson, int pageCount) {
@@ -22,6 +42,15 @@ public class RawStatementPersister {
     }
 
     public RawStatement persist(User user, String filename, String rawJson, int pageCount, String storageKey) {
+        return persist(user, filename, rawJson, pageCount, storageKey, null);
+    }
+
+    /**
+     * Saves the statement with its payload inline; in offload mode the payload is moved to the {@link RawStatementPayloadStore}
+     * once the caller's transaction commits, in a transaction of its own, so a failed store write can neither abort nor
+     * roll back the upload (the row then keeps its inline payload for the backfill).
+     */
+    public RawStatement persist(User user, String filename, String rawJson, int pageCount, String storageKey, String contentSha256) {
         RawStatement rawStatement = new RawStatement();
         rawStatement.setUploadDate(LocalDateTime.now());
         rawStatement.setFilename(filename);
@@ -29,6 +58,35 @@ public class RawStatementPersister {
         rawStatement.setUser(user);
         rawStatement.setPageCount(pageCount);
         if(storageKey!=null) rawStatement.setStorageKey(storageKey);
+        rawStatement.setContentSha256(contentSha256);
+        applyMetadata(rawStatement, rawJson);
+        RawStatement saved = rawStatementRepository.save(rawStatement);
+        if (!payloadStore.offloads() || rawJson == null) return saved;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override public void afterCommit() { offload(saved, rawJson); }
+            });
+        } else {
+            offload(saved, rawJson);
+        }
+        return saved;
+    }
+
+    void offload(RawStatement saved, String rawJson) {
+        try {
+            newTx.executeWithoutResult(status -> rawStatementRepository.markOffloaded(saved.getId(), payloadStore.write(saved, rawJson)));
+        } catch (RuntimeException ex) {
+            // Never lose the extraction output: keep it inline, the payload backfill retries offloading later
+            log.warn("Offloading raw statement {} payload failed, keeping it inline: {}", saved.getId(), ex.getMessage());
+            payloadBackfill.ifAvailable(RawStatementPayloadBackfill::rearm);
+        }
+    }
+
+    /**
+     * Derives the listing metadata (bank, transaction count, warnings, parse status) from the extraction output once,
+     * so statement history never has to parse raw_json again. Also used by the backfill of older rows.
+     */
+    public static void applyMetadata(RawStatement rawStatement, String rawJson) {
         String bankName = null;
         try {
             JSONArray arr = new JSONArray(rawJson);
@@ -36,8 +94,26 @@ public class RawStatementPersister {
                 JSONObject first = arr.getJSONObject(0);
                 bankName = first.optString("bankName", null);
             }
-        } catch (Exception ignored) {}
+            JSONArray warnings = new JSONArray();
+            int warningCount = 0;
+            for (int i = 0; i < arr.length(); i++) {
+                JSONArray warns = arr.getJSONObject(i).optJSONArray("warnings");
+                if (warns == null) continue;
+                for (int j = 0; j < warns.length(); j++) {
+                    warningCount++;
+                    if (warnings.length() < MAX_STORED_WARNINGS) warnings.put(warns.getString(j));
+                }
+            }
+            rawStatement.setParseStatus(AppConstants.STATUS_COMPLETED);
+            rawStatement.setTransactionCount(arr.length());
+            rawStatement.setWarningCount(warningCount);
+            rawStatement.setParseWarnings(warningCount > 0 ? warnings.toString() : null);
+        } catch (Exception e) {
+            rawStatement.setParseStatus(AppConstants.STATUS_FAILED);
+            rawStatement.setTransactionCount(null);
+            rawStatement.setWarningCount(null);
+            rawStatement.setParseWarnings(null);
+        }
         rawStatement.setBankName(bankName);
-        return rawStatementRepository.save(rawStatement);
     }
 }
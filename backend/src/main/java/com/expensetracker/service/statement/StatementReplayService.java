@@ -0,0 +1,458 @@
+package com.expensetracker.service.statement;
+
+import com.expensetracker.exception.ResourceNotFoundException;
+import com.expensetracker.model.RawStatement;
+import com.expensetracker.model.StatementJob;
+import com.expensetracker.model.Transaction;
+import com.expensetracker.model.User;
+import com.expensetracker.repository.RawStatementRepository;
+import com.expensetracker.repository.StatementJobRepository;
+import com.expensetracker.repository.TransactionRepository;
+import com.expensetracker.repository.UserRepository;
+import com.expensetracker.security.AuthenticationFacade;
+import com.expensetracker.service.TaxRuleService;
+import com.expensetracker.service.cache.UserDataVersionService;
+import com.expensetracker.util.AppConstants;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Re-derives transactions from stored extraction output (raw statement payloads) after parser or mapping fixes,
+ * without re-uploading or re-running extraction.
+ *
+ * Each statement is replayed in its own transaction: its payload is parsed again and the result is reconciled with the
+ * rows linked to the statement by txn_hash (update changed rows, insert missing ones, delete rows the parser no longer
+ * emits). Rows saved before statements were linked are adopted on first replay by matching date/amount/description.
+ * A user's statements are replayed one after another; users run in parallel on a bounded pool. Progress and the
+ * resulting counts (or the diff, for a dry run, which writes nothing) are recorded on a {@link StatementJob}.
+ */
+@Service
+public class StatementReplayService {
+    private static final Logger log = LoggerFactory.getLogger(StatementReplayService.class);
+    static final int MAX_DIFF_SAMPLES = 50;
+    private static final String ROW_SELECT = "SELECT id, txn_hash, tx_date, description, merchant, amount, balance, category, bank_name FROM transactions ";
+    private static final String UPDATE_SQL = "UPDATE transactions SET tx_date = ?, description = ?, merchant = ?, amount = ?, balance = ?, " +
+            "category = ?, bank_name = ?, txn_hash = ?, raw_statement_id = ? WHERE id = ?";
+
+    private final RawStatementRepository rawStatementRepository;
+    private final StatementJobRepository jobRepository;
+    private final TransactionRepository transactionRepository;
+    private final UserRepository userRepository;
+    private final RawStatementPayloadStore payloadStore;
+    private final TransactionParser transactionParser;
+    private final BankCategoryUpserter bankCategoryUpserter;
+    private final TaxRuleService taxRuleService;
+    private final UserDataVersionService dataVersions;
+    private final AuthenticationFacade authenticationFacade;
+    private final JdbcTemplate jdbc;
+    private final NamedParameterJdbcTemplate namedJdbc;
+    private final TransactionTemplate tx;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService pool;
+    private final Set<Long> runningUsers = ConcurrentHashMap.newKeySet();
+
+    @Value("${app.statements.replay.delete-missing:true}")
+    private boolean deleteMissing;
+    @Value("${app.statements.replay.overwrite-categories:false}")
+    private boolean overwriteCategories;
+
+    public StatementReplayService(RawStatementRepository rawStatementRepository,
+                                  StatementJobRepository jobRepository,
+                                  TransactionRepository transactionRepository,
+                                  UserRepository userRepository,
+                                  RawStatementPayloadStore payloadStore,
+                                  TransactionParser transactionParser,
+                                  BankCategoryUpserter bankCategoryUpserter,
+                                  TaxRuleService taxRuleService,
+                                  UserDataVersionService dataVersions,
+                                  AuthenticationFacade authenticationFacade,
+                                  JdbcTemplate jdbc,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.statements.replay.parallelism:4}") int parallelism) {
+        this.rawStatementRepository = rawStatementRepository;
+        this.jobRepository = jobRepository;
+        this.transactionRepository = transactionRepository;
+        this.userRepository = userRepository;
+        this.payloadStore = payloadStore;
+        this.transactionParser = transactionParser;
+        this.bankCategoryUpserter = bankCategoryUpserter;
+        this.taxRuleService = taxRuleService;
+        this.dataVersions = dataVersions;
+        this.authenticationFacade = authenticationFacade;
+        this.jdbc = jdbc;
+        this.namedJdbc = new NamedParameterJdbcTemplate(jdbc);
+        this.tx = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        AtomicInteger seq = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(Math.max(1, parallelism), r -> {
+            Thread t = new Thread(r, "statement-replay-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /** Replay one of the current user's statements. */
+    public StatementJob replayStatement(Long statementId, boolean dryRun) {
+        User user = authenticationFacade.currentUser();
+        RawStatement rs = rawStatementRepository.findById(statementId).orElse(null);
+        if (rs == null || rs.getUser() == null || !rs.getUser().getId().equals(user.getId())) {
+            throw new ResourceNotFoundException("Statement not found");
+        }
+        return start(user.getId(), List.of(statementId), "statement " + rs.getFilename(), dryRun);
+    }
+
+    /** Replay all statements of the current user. */
+    public StatementJob replayCurrentUser(boolean dryRun) {
+        User user = authenticationFacade.currentUser();
+        return start(user.getId(), rawStatementRepository.findIdsByUser(user), "all statements", dryRun);
+    }
+
+    /** Replay every user's statements (internal); users with a replay already running are skipped. */
+    public List<String> replayAllUsers(boolean dryRun) {
+        List<String> jobIds = new ArrayList<>();
+        for (Long userId : rawStatementRepository.findUserIdsWithStatements()) {
+            if (runningUsers.contains(userId)) continue;
+            List<Long> ids = rawStatementRepository.findIdsByUser(userRepository.getReferenceById(userId));
+            try {
+                jobIds.add(start(userId, ids, "all statements", dryRun).getId());
+            } catch (IllegalArgumentException alreadyRunning) {
+                // started concurrently by the user themselves
+            }
+        }
+        log.info("Statement replay queued for {} users (dryRun={})", jobIds.size(), dryRun);
+        return jobIds;
+    }
+
+    private StatementJob start(Long userId, List<Long> statementIds, String label, boolean dryRun) {
+        if (!runningUsers.add(userId)) throw new IllegalArgumentException("A statement replay is already running for this user");
+        StatementJob job = new StatementJob();
+        try {
+            job.setUser(userRepository.getReferenceById(userId));
+            job.setOriginalFilename((dryRun ? "Replay (dry run): " : "Replay: ") + label);
+            job.setTotalChunks(statementIds.size());
+            job.setProcessedChunks(0);
+            job.setErrorCount(0);
+            job = jobRepository.save(job);
+            String jobId = job.getId();
+            pool.execute(() -> run(jobId, userId, statementIds, dryRun));
+            return job;
+        } catch (RuntimeException ex) {
+            runningUsers.remove(userId);
+            throw ex;
+        }
+    }
+
+    private void run(String jobId, Long userId, List<Long> statementIds, boolean dryRun) {
+        try {
+            StatementJob job = jobRepository.findById(jobId).orElseThrow();
+            job.setStatus(StatementJob.Status.RUNNING);
+            job.setStartedAt(LocalDateTime.now());
+            job = jobRepository.save(job);
+            Summary summary = new Summary(dryRun);
+            for (Long statementId : statementIds) {
+                Timer.Sample sample = Timer.start(meterRegistry);
+                try {
+                    Plan plan = tx.execute(status -> replay(userId, statementId, dryRun));
+                    summary.add(statementId, plan);
+                } catch (RuntimeException ex) {
+                    summary.failed++;
+                    job.setErrorCount(summary.failed);
+                    log.warn("Replay of statement {} (user {}) failed: {}", statementId, userId, ex.getMessage());
+                } finally {
+                    sample.stop(meterRegistry.timer("app.statements.replay", "mode", dryRun ? "dry_run" : "apply"));
+                }
+                job.setProcessedChunks(job.getProcessedChunks() + 1);
+                job.setProgressPercent(Math.min(99, job.getProcessedChunks() * 100 / Math.max(1, statementIds.size())));
+                job = jobRepository.save(job);
+            }
+            if (!dryRun && summary.changed() > 0) {
+                dataVersions.bump(userId);
+                meterRegistry.counter("app.statements.replay.rows", "action", "updated").increment(summary.updated + summary.adopted);
+                meterRegistry.counter("app.statements.replay.rows", "action", "inserted").increment(summary.inserted);
+                meterRegistry.counter("app.statements.replay.rows", "action", "deleted").increment(summary.deleted);
+            }
+            boolean allFailed = summary.failed > 0 && summary.failed == statementIds.size();
+            job.setStatus(allFailed ? StatementJob.Status.FAILED : StatementJob.Status.COMPLETED);
+            if (allFailed) job.setErrorMessage("Replay failed for every statement");
+            job.setProgressPercent(100);
+            job.setFinishedAt(LocalDateTime.now());
+            job.setResultSummary(summary.toJson().toString());
+            jobRepository.save(job);
+            log.info("Statement replay job {} user {}: {}", jobId, userId, summary.counts());
+        } catch (RuntimeException ex) {
+            log.error("Statement replay job {} user {} failed: {}", jobId, userId, ex.getMessage(), ex);
+            jobRepository.findById(jobId).ifPresent(j -> {
+                j.setStatus(StatementJob.Status.FAILED);
+                j.setErrorMessage(ex.getMessage());
+                j.setFinishedAt(LocalDateTime.now());
+                jobRepository.save(j);
+            });
+        } finally {
+            runningUsers.remove(userId);
+        }
+    }
+
+    private Plan replay(Long userId, Long statementId, boolean dryRun) {
+        RawStatement rs = rawStatementRepository.findById(statementId).orElseThrow(() -> new IllegalStateException("statement gone"));
+        if (rs.getUser() == null || !rs.getUser().getId().equals(userId)) throw new IllegalStateException("statement owner changed");
+        String json = payloadStore.read(rs);
+        if (json == null) throw new IllegalStateException("no stored extraction payload");
+        User user = rs.getUser();
+        List<Transaction> parsed = transactionParser.parse(json, user, rs.getBankName(), statementId);
+        List<Row> linked = jdbc.query(ROW_SELECT + "WHERE user_id = ? AND raw_statement_id = ?", ROW_MAPPER, userId, statementId);
+        List<Row> legacy = List.of();
+        String bank = rs.getBankName();
+        if (!parsed.isEmpty()) {
+            LocalDate from = parsed.stream().map(Transaction::getDate).min(LocalDate::compareTo).orElseThrow();
+            LocalDate to = parsed.stream().map(Transaction::getDate).max(LocalDate::compareTo).orElseThrow();
+            String where = "WHERE user_id = ? AND raw_statement_id IS NULL AND txn_hash IS NULL AND tx_date BETWEEN ? AND ? ";
+            legacy = bank != null
+                    ? jdbc.query(ROW_SELECT + where + "AND bank_name = ?", ROW_MAPPER, userId, Date.valueOf(from), Date.valueOf(to), bank)
+                    : jdbc.query(ROW_SELECT + where + "AND bank_name IS NULL", ROW_MAPPER, userId, Date.valueOf(from), Date.valueOf(to));
+        }
+        // Without a bank, legacy rows cannot be told apart from manual entries: adopt exact matches only
+        Plan plan = plan(parsed, linked, legacy, deleteMissing, overwriteCategories, bank == null);
+        if (dryRun) return plan;
+
+        if (!plan.updates.isEmpty()) {
+            jdbc.batchUpdate(UPDATE_SQL, plan.updates, 500, (ps, u) -> {
+                Transaction t = u.after();
+                ps.setDate(1, t.getDate() != null ? Date.valueOf(t.getDate()) : null);
+                ps.setString(2, t.getDescription());
+                ps.setString(3, t.getMerchant());
+                ps.setBigDecimal(4, t.getAmount());
+                ps.setBigDecimal(5, t.getBalance());
+                ps.setString(6, t.getCategory());
+                ps.setString(7, t.getBankName());
+                ps.setString(8, t.getTxnHash());
+                ps.setLong(9, statementId);
+                ps.setLong(10, u.before().id());
+            });
+        }
+        if (!plan.deletes.isEmpty()) {
+            MapSqlParameterSource ids = new MapSqlParameterSource("ids", plan.deletes.stream().map(Row::id).toList());
+            namedJdbc.update("DELETE FROM tax_classification_ignores WHERE source_transaction_id IN (:ids)", ids);
+            namedJdbc.update("UPDATE tax_transactions SET source_transaction_id = NULL WHERE source_transaction_id IN (:ids)", ids);
+            namedJdbc.update("DELETE FROM transactions WHERE id IN (:ids)", ids);
+        }
+        if (!plan.inserts.isEmpty()) {
+            transactionRepository.saveAll(plan.inserts);
+            taxRuleService.classifyIngested(user, plan.inserts);
+            bankCategoryUpserter.upsert(user, plan.inserts);
+        }
+        RawStatementPersister.applyMetadata(rs, json);
+        rawStatementRepository.save(rs);
+        return plan;
+    }
+
+    static Plan plan(List<Transaction> parsed, List<Row> linked, List<Row> legacy, boolean deleteMissing, boolean overwriteCategories) {
+        return plan(parsed, linked, legacy, deleteMissing, overwriteCategories, false);
+    }
+
+    /**
+     * Reconciles freshly parsed transactions with the rows currently stored for the statement. Linked rows match by
+     * txn_hash; unlinked legacy rows (of the statement's bank) are adopted by (date, amount, description), then
+     * (date, amount), then (date, description), each legacy row at most once, so earlier parser fixes to one field
+     * still match. With {@code exactLegacyOnly} only the first tier is tried.
+     */
+    static Plan plan(List<Transaction> parsed, List<Row> linked, List<Row> legacy, boolean deleteMissing, boolean overwriteCategories,
+                     boolean exactLegacyOnly) {
+        Plan plan = new Plan();
+        Map<String, Row> byHash = new HashMap<>();
+        for (Row r : linked) byHash.put(r.txnHash(), r);
+        List<Transaction> pending = new ArrayList<>();
+        for (Transaction t : parsed) {
+            Row r = byHash.remove(t.getTxnHash());
+            if (r == null) pending.add(t); else plan.match(r, t, false, overwriteCategories);
+        }
+        if (!legacy.isEmpty()) {
+            Set<Long> claimed = new HashSet<>();
+            List<Function<Object[], String>> tiers = List.of(
+                    k -> k[0] + "|" + k[1] + "|" + k[2],
+                    k -> k[0] + "|" + k[1],
+                    k -> k[0] + "|" + k[2]);
+            if (exactLegacyOnly) tiers = tiers.subList(0, 1);
+            for (Function<Object[], String> tier : tiers) {
+                if (pending.isEmpty()) break;
+                Map<String, ArrayDeque<Row>> candidates = new HashMap<>();
+                for (Row r : legacy) {
+                    if (!claimed.contains(r.id())) candidates.computeIfAbsent(tier.apply(legacyKey(r.date(), r.amount(), r.description())), k -> new ArrayDeque<>()).add(r);
+                }
+                List<Transaction> still = new ArrayList<>();
+                for (Transaction t : pending) {
+                    ArrayDeque<Row> q = candidates.get(tier.apply(legacyKey(t.getDate(), t.getAmount(), t.getDescription())));
+                    Row r = q != null ? q.poll() : null;
+                    if (r == null) {
+                        still.add(t);
+                    } else {
+                        claimed.add(r.id());
+                        plan.match(r, t, true, overwriteCategories);
+                    }
+                }
+                pending = still;
+            }
+        }
+        plan.inserts.addAll(pending);
+        if (deleteMissing) plan.deletes.addAll(byHash.values());
+        return plan;
+    }
+
+    private static Object[] legacyKey(LocalDate date, BigDecimal amount, String description) {
+        String a = amount != null ? amount.stripTrailingZeros().toPlainString() : null;
+        String d = description != null ? description.trim().toLowerCase() : null;
+        return new Object[]{date, a, d};
+    }
+
+    private static boolean userCategory(String category) {
+        return category != null && !category.isBlank() && !AppConstants.UNKNOWN.equalsIgnoreCase(category);
+    }
+
+    private static boolean same(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    private static final RowMapper<Row> ROW_MAPPER = (r, i) -> new Row(
+            r.getLong("id"), r.getString("txn_hash"),
+            r.getDate("tx_date") != null ? r.getDate("tx_date").toLocalDate() : null,
+            r.getString("description"), r.getString("merchant"),
+            r.getBigDecimal("amount"), r.getBigDecimal("balance"),
+            r.getString("category"), r.getString("bank_name"));
+
+    /** Stored transaction columns the replay may rewrite. */
+    record Row(long id, String txnHash, LocalDate date, String description, String merchant,
+               BigDecimal amount, BigDecimal balance, String category, String bankName) {
+        JSONObject toJson() {
+            JSONObject o = new JSONObject();
+            o.put("date", String.valueOf(date));
+            o.put("description", description);
+            o.put("merchant", merchant);
+            o.put("amount", amount != null ? amount.toPlainString() : JSONObject.NULL);
+            o.put("balance", balance != null ? balance.toPlainString() : JSONObject.NULL);
+            o.put("category", category);
+            o.put("bankName", bankName);
+            return o;
+        }
+    }
+
+    /** An existing row and the values it should have after the replay. */
+    record Update(Row before, Transaction after, boolean adopted) {}
+
+    static final class Plan {
+        final List<Update> updates = new ArrayList<>();
+        final List<Transaction> inserts = new ArrayList<>();
+        final List<Row> deletes = new ArrayList<>();
+        int unchanged;
+
+        private void match(Row r, Transaction t, boolean adopted, boolean overwriteCategories) {
+            // User-assigned categories and merchants survive the replay unless the parser now provides a value
+            if (!overwriteCategories && userCategory(r.category())) t.setCategory(r.category());
+            if (t.getMerchant() == null) t.setMerchant(r.merchant());
+            t.setId(r.id());
+            boolean changed = adopted || !Objects.equals(r.date(), t.getDate()) || !Objects.equals(r.description(), t.getDescription())
+                    || !Objects.equals(r.merchant(), t.getMerchant()) || !same(r.amount(), t.getAmount()) || !same(r.balance(), t.getBalance())
+                    || !Objects.equals(r.category(), t.getCategory()) || !Objects.equals(r.bankName(), t.getBankName());
+            if (changed) updates.add(new Update(r, t, adopted)); else unchanged++;
+        }
+    }
+
+    /** Counts over all replayed statements plus the first {@link #MAX_DIFF_SAMPLES} changes as a diff. */
+    static final class Summary {
+        final boolean dryRun;
+        int statements, failed, unchanged, updated, adopted, inserted, deleted;
+        final JSONArray samples = new JSONArray();
+
+        Summary(boolean dryRun) {
+            this.dryRun = dryRun;
+        }
+
+        void add(Long statementId, Plan plan) {
+            statements++;
+            unchanged += plan.unchanged;
+            for (Update u : plan.updates) {
+                if (u.adopted()) adopted++; else updated++;
+                sample(statementId, u.adopted() ? "adopt" : "update", u.before().id(), u.before().toJson(), afterJson(u.after()));
+            }
+            inserted += plan.inserts.size();
+            for (Transaction t : plan.inserts) sample(statementId, "insert", null, null, afterJson(t));
+            deleted += plan.deletes.size();
+            for (Row r : plan.deletes) sample(statementId, "delete", r.id(), r.toJson(), null);
+        }
+
+        int changed() {
+            return updated + adopted + inserted + deleted;
+        }
+
+        Map<String, Integer> counts() {
+            Map<String, Integer> m = new LinkedHashMap<>();
+            m.put("statements", statements);
+            m.put("failed", failed);
+            m.put("unchanged", unchanged);
+            m.put("updated", updated);
+            m.put("adopted", adopted);
+            m.put("inserted", inserted);
+            m.put("deleted", deleted);
+            return m;
+        }
+
+        JSONObject toJson() {
+            JSONObject o = new JSONObject(counts());
+            o.put("dryRun", dryRun);
+            o.put("changes", samples);
+            return o;
+        }
+
+        private void sample(Long statementId, String action, Long transactionId, JSONObject before, JSONObject after) {
+            if (samples.length() >= MAX_DIFF_SAMPLES) return;
+            JSONObject s = new JSONObject();
+            s.put("statementId", statementId);
+            s.put("action", action);
+            if (transactionId != null) s.put("transactionId", transactionId);
+            if (before != null) s.put("before", before);
+            if (after != null) s.put("after", after);
+            samples.put(s);
+        }
+
+        private static JSONObject afterJson(Transaction t) {
+            return new Row(0L, t.getTxnHash(), t.getDate(), t.getDescription(), t.getMerchant(), t.getAmount(), t.getBalance(),
+                    t.getCategory(), t.getBankName()).toJson();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.expensetracker.service.statement;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Timers for the individual statement ingestion stages (app.statement.stage{stage,mode}),
+ * shared by the synchronous upload path and {@link AsyncStatementProcessor}.
+ */
+@Component
+public class StatementStageMetrics {
+    public static final String MODE_SYNC = "sync";
+    public static final String MODE_ASYNC = "async";
+
+    private final MeterRegistry registry;
+
+    public StatementStageMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    public void stop(Timer.Sample sample, String stage, String mode) {
+        sample.stop(Timer.builder("app.statement.stage")
+                .description("Statement ingestion stage duration")
+                .tags("stage", stage, "mode", mode)
+                .register(registry));
+    }
+}
@@ -0,0 +1,93 @@
+package com.expensetracker.service.statement;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Column layout of one bank's text-layer statements, used by {@link InlineStatementExtractor}.
+ *
+ * A template applies when one of its markers appears above a line carrying its date, description and
+ * balance headers plus either debit and credit or a single amount column. Header labels are matched as runs of words,
+ * longest first across all columns, so "Value Date" is claimed before a bare "Date" could take its second word.
+ */
+public record StatementTemplate(String bankName, List<String> markers, Map<Column, List<String>> headers,
+                                List<DateTimeFormatter> dateFormats) {
+
+    public enum Column { DATE, DESCRIPTION, REFERENCE, VALUE_DATE, DEBIT, CREDIT, AMOUNT, TYPE, BALANCE }
+
+    public static final List<StatementTemplate> ALL = List.of(
+            template("HDFC", List.of("HDFC BANK"), dates("dd/MM/yy", "dd/MM/yyyy"),
+                    Column.DATE, List.of("Date"),
+                    Column.DESCRIPTION, List.of("Narration"),
+                    Column.REFERENCE, List.of("Chq./Ref.No.", "Chq./Ref. No."),
+                    Column.VALUE_DATE, List.of("Value Dt"),
+                    Column.DEBIT, List.of("Withdrawal Amt.", "Withdrawal"),
+                    Column.CREDIT, List.of("Deposit Amt.", "Deposit"),
+                    Column.BALANCE, List.of("Closing Balance")),
+            template("ICICI", List.of("ICICI BANK"), dates("dd-MM-yyyy", "dd/MM/yyyy", "dd-MMM-yyyy"),
+                    Column.DATE, List.of("Transaction Date", "Txn Date", "Date"),
+                    Column.VALUE_DATE, List.of("Value Date"),
+                    Column.DESCRIPTION, List.of("Transaction Remarks", "Particulars"),
+                    Column.REFERENCE, List.of("Cheque Number", "Chq.No."),
+                    Column.DEBIT, List.of("Withdrawal Amount", "Withdrawals"),
+                    Column.CREDIT, List.of("Deposit Amount", "Deposits"),
+                    Column.BALANCE, List.of("Balance")),
+            template("SBI", List.of("STATE BANK OF INDIA"), dates("d MMM yyyy", "dd MMM yyyy", "dd-MM-yyyy", "dd/MM/yyyy"),
+                    Column.DATE, List.of("Txn Date"),
+                    Column.VALUE_DATE, List.of("Value Date"),
+                    Column.DESCRIPTION, List.of("Description"),
+                    Column.REFERENCE, List.of("Ref No./Cheque No.", "Ref No./Cheque"),
+                    Column.DEBIT, List.of("Debit"),
+                    Column.CREDIT, List.of("Credit"),
+                    Column.BALANCE, List.of("Balance")),
+            template("AXIS", List.of("AXIS BANK"), dates("dd-MM-yyyy", "dd/MM/yyyy"),
+                    Column.DATE, List.of("Tran Date", "Txn Date"),
+                    Column.REFERENCE, List.of("Chq No", "CHQNO"),
+                    Column.DESCRIPTION, List.of("Particulars"),
+                    Column.DEBIT, List.of("Debit", "DR"),
+                    Column.CREDIT, List.of("Credit", "CR"),
+                    Column.BALANCE, List.of("Balance", "BAL")),
+            template("KOTAK", List.of("KOTAK MAHINDRA BANK"), dates("dd-MM-yyyy", "dd/MM/yyyy", "dd MMM yyyy"),
+                    Column.DATE, List.of("Date"),
+                    Column.DESCRIPTION, List.of("Narration", "Description"),
+                    Column.REFERENCE, List.of("Chq/Ref No", "Chq/Ref No."),
+                    Column.DEBIT, List.of("Withdrawal (Dr)", "Withdrawal"),
+                    Column.CREDIT, List.of("Deposit (Cr)", "Deposit"),
+                    Column.BALANCE, List.of("Balance")));
+
+    /** Parsed date of a cell in one of the template's formats, or null. */
+    public LocalDate parseDate(String text) {
+        if (text == null || text.isBlank()) return null;
+        String t = text.trim();
+        for (DateTimeFormatter f : dateFormats) {
+            try {
+                return LocalDate.parse(t, f);
+            } catch (DateTimeParseException ignored) {
+                // next format
+            }
+        }
+        return null;
+    }
+
+    private static List<DateTimeFormatter> dates(String... patterns) {
+        return java.util.Arrays.stream(patterns)
+                .map(p -> new DateTimeFormatterBuilder().parseCaseInsensitive().appendPattern(p).toFormatter(Locale.ENGLISH))
+                .toList();
+    }
+
+    private static StatementTemplate template(String bank, List<String> markers, List<DateTimeFormatter> dates, Object... columns) {
+        Map<Column, List<String>> headers = new EnumMap<>(Column.class);
+        for (int i = 0; i < columns.length; i += 2) {
+            @SuppressWarnings("unchecked")
+            List<String> labels = (List<String>) columns[i + 1];
+            headers.put((Column) columns[i], labels);
+        }
+        return new StatementTemplate(bank, markers, headers, dates);
+    }
+}
@@ -7,14 +7,37 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 
 @Component
 public class TempFileService {
     public File saveTempPdf(MultipartFile file) throws IOException {
+        return spill(file).file();
+    }
+
+    /** Copies the upload to a temp file, hashing it (SHA-256, hex) on the way. */
+    public Spilled spill(MultipartFile file) throws IOException {
         File tempFile = File.createTempFile(AppConstants.TEMP_FILE_PREFIX, AppConstants.TEMP_FILE_SUFFIX);
-        try (FileOutputStream fos = new FileOutputStream(tempFile)) {
-            fos.write(file.getBytes());
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
-        return tempFile;
+        try (InputStream in = file.getInputStream();
+             OutputStream out = new DigestOutputStream(new FileOutputStream(tempFile), digest)) {
+            in.transferTo(out);
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+        return new Spilled(tempFile, HexFormat.of().formatHex(digest.digest()));
     }
+
+    public record Spilled(File file, String sha256) {}
 }
@@ -3,6 +3,7 @@ package com.expensetracker.service.statement;
 import com.expensetracker.model.Transaction;
 import com.expensetracker.model.User;
 import com.expensetracker.util.AppConstants;
+import com.expensetracker.util.MerchantNormalizer;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.springframework.stereotype.Component;
@@ -15,17 +16,42 @@ import java.nio.charset.StandardCharsets;
 
 @Component
 public class TransactionParser {
+    private final MerchantCategoryDictionary categoryDictionary;
+
+    public TransactionParser(MerchantCategoryDictionary categoryDictionary) {
+        this.categoryDictionary = categoryDictionary;
+    }
+
     public List<Transaction> parse(String rawJson, User user, String fallbackBankName) {
+        return parse(rawJson, user, fallbackBankName, null);
+    }
+
+    /**
+     * Same as {@link #parse(String, User, String)}; when the raw statement id is known each transaction also gets its
+     * replay key ({@link #hash}) and statement link so {@link StatementReplayService} can re-derive it later.
+     */
+    public List<Transaction> parse(String rawJson, User user, String fallbackBankName, Long rawStatementId) {
         List<Transaction> transactions = new ArrayList<>();
         JSONArray arr = new JSONArray(rawJson);
+        Map<String, Integer> occurrences = rawStatementId != null ? new HashMap<>() : null;
+        MerchantCategoryDictionary.Lookup dictionary = categoryDictionary.forUser(user != null ? user.getId() : null);
         for (int i = 0; i < arr.length(); i++) {
             JSONObject obj = arr.getJSONObject(i);
             Transaction txn = new Transaction();
+            if (rawStatementId != null) {
+                String key = rawKey(obj);
+                int n = occurrences.merge(key, 1, Integer::sum) - 1;
+                txn.setRawStatementId(rawStatementId);
+                txn.setTxnHash(hash(rawStatementId, key, n));
+            }
             txn.setDate(LocalDate.parse(obj.getString("date")));
             txn.setDescription(obj.getString("description"));
+            txn.setMerchant(MerchantNormalizer.normalizeCached(txn.getDescription()));
             txn.setAmount(asBigDecimal(obj, "amount"));
             txn.setBalance(asBigDecimal(obj, "balance"));
-            txn.setCategory(obj.optString("category", AppConstants.UNKNOWN));
+            // Learned/corrected mapping first, the extractor's guess otherwise
+            String known = dictionary.category(txn.getMerchant());
+            txn.setCategory(known != null ? known : obj.optString("category", AppConstants.UNKNOWN));
             txn.setUser(user);
             txn.setBankName(obj.optString("bankName", fallbackBankName != null ? fallbackBankName : AppConstants.UNKNOWN));
           
@@ -34,6 +60,25 @@ public class TransactionParser {
         return transactions;
     }
 
+    /**
+     * Identity of an extraction row: the raw (unparsed) date, amount, balance and description values, so fixes to how
+     * those values are interpreted keep the key stable. Identical rows of one statement are told apart by occurrence.
+     */
+    static String rawKey(JSONObject obj) {
+        return obj.opt("date") + "\u001f" + obj.opt("amount") + "\u001f" + obj.opt("balance") + "\u001f" + obj.opt("description");
+    }
+
+    /** Hex sha256 of statement id, raw row key and occurrence; scoped per statement so overlapping uploads never collide. */
+    static String hash(long rawStatementId, String rawKey, int occurrence) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] d = md.digest((rawStatementId + "\u001f" + rawKey + "\u001f" + occurrence).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(d);
+        } catch (java.security.NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
         private BigDecimal asBigDecimal(JSONObject obj, String field) {
             if (!obj.has(field) || obj.isNull(field)) return BigDecimal.ZERO;
             Object v = obj.get(field);
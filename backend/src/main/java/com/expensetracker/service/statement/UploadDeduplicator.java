@@ -0,0 +1,111 @@
+package com.expensetracker.service.statement;
+
+import com.expensetracker.dto.StatementUploadResponseDto;
+import com.expensetracker.model.StatementJob;
+import com.expensetracker.model.User;
+import com.expensetracker.repository.RawStatementRepository;
+import com.expensetracker.repository.StatementJobRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Upload idempotency by PDF content: a user uploading a file identical (SHA-256) to one uploaded within the window gets
+ * the existing statement or job back instead of a second extraction, a second count against the statement limit and
+ * duplicate transactions. Failed jobs do not count, so a retry after a failure processes the file again; neither do
+ * pending or running jobs that have not started or progressed for {@code stale-minutes} (e.g. lost with a restarted
+ * instance), so a stuck job cannot block its file for the whole window.
+ *
+ * Identical uploads racing each other are collapsed through an in-flight claim held until the claiming upload's
+ * transaction completes (by then its statement/job row is visible to the database check). Claims are per instance;
+ * across instances the database check still catches everything but the narrowest race.
+ */
+@Component
+public class UploadDeduplicator {
+    static final String MSG_DUPLICATE = "Statement already uploaded";
+    static final String MSG_IN_FLIGHT = "Identical statement is already being processed";
+
+    private final RawStatementRepository rawStatementRepository;
+    private final StatementJobRepository statementJobRepository;
+    private final MeterRegistry meterRegistry;
+    /** userId:sha256 -> job id of the claiming upload ("" for the synchronous path, which has no job). */
+    private final ConcurrentHashMap<String, String> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${app.statements.dedupe.enabled:true}")
+    private boolean enabled;
+    @Value("${app.statements.dedupe.window-hours:24}")
+    private long windowHours;
+    @Value("${app.statements.dedupe.stale-minutes:30}")
+    private long staleMinutes;
+
+    public UploadDeduplicator(RawStatementRepository rawStatementRepository, StatementJobRepository statementJobRepository,
+                              MeterRegistry meterRegistry) {
+        this.rawStatementRepository = rawStatementRepository;
+        this.statementJobRepository = statementJobRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Response for a repeat of an earlier or still running upload, or null when this upload should go ahead. Inside a
+     * transaction the content is then claimed until that transaction completes; outside one only the database check runs.
+     */
+    public StatementUploadResponseDto claimOrExisting(User user, String sha256) {
+        if (!enabled || sha256 == null) return null;
+        StatementUploadResponseDto existing = existing(user, sha256);
+        if (existing != null) {
+            meterRegistry.counter("app.statements.upload.duplicates", "source", "stored").increment();
+            return existing;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return null;
+        String key = user.getId() + ":" + sha256;
+        String running = inFlight.putIfAbsent(key, "");
+        if (running != null) {
+            meterRegistry.counter("app.statements.upload.duplicates", "source", "in_flight").increment();
+            return duplicate(MSG_IN_FLIGHT, running.isEmpty() ? null : running, null);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override public void afterCompletion(int status) {
+                inFlight.remove(key);
+            }
+        });
+        return null;
+    }
+
+    /** Lets concurrent repeats of a claimed upload answer with its job id. */
+    public void attachJob(User user, String sha256, String jobId) {
+        if (sha256 != null) inFlight.computeIfPresent(user.getId() + ":" + sha256, (k, v) -> jobId);
+    }
+
+    private StatementUploadResponseDto existing(User user, String sha256) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime since = now.minusHours(windowHours);
+        LocalDateTime activeSince = now.minusMinutes(staleMinutes);
+        List<StatementJob> jobs = statementJobRepository.findByUserAndContentSha256AndCreatedAtAfterOrderByCreatedAtDesc(user, sha256, since);
+        for (StatementJob job : jobs) {
+            if (counts(job, activeSince)) return duplicate(MSG_DUPLICATE, job.getId(), job.getRawStatementId());
+        }
+        List<Long> statements = rawStatementRepository.findIdsByContent(user, sha256, since);
+        return statements.isEmpty() ? null : duplicate(MSG_DUPLICATE, null, statements.get(0));
+    }
+
+    /** Completed jobs always count; pending/running ones only while they started or were created recently. */
+    static boolean counts(StatementJob job, LocalDateTime activeSince) {
+        if (job.getStatus() == StatementJob.Status.COMPLETED) return true;
+        if (job.getStatus() == StatementJob.Status.FAILED) return false;
+        LocalDateTime lastActivity = job.getStartedAt() != null ? job.getStartedAt() : job.getCreatedAt();
+        return lastActivity != null && lastActivity.isAfter(activeSince);
+    }
+
+    private static StatementUploadResponseDto duplicate(String message, String jobId, Long rawStatementId) {
+        StatementUploadResponseDto dto = new StatementUploadResponseDto(true, message, jobId);
+        dto.setRawStatementId(rawStatementId);
+        dto.setDuplicate(true);
+        return dto;
+    }
+}
@@ -0,0 +1,220 @@
+package com.expensetracker.service.tax;
+
+import com.expensetracker.model.TaxDeductionRule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A user's active rules compiled once for repeated matching; same results as evaluating each rule with
+ * {@link TaxRuleEvaluator#evaluate} in priority order and taking the first hit.
+ *
+ * CATEGORY and MERCHANT rules become hash lookups, DESCRIPTION_REGEX rules that are plain keywords or alternations of
+ * keywords ({@code lic|insurance}) go into one Aho-Corasick automaton, and the remaining regexes and AMOUNT_RANGE
+ * bounds are compiled/parsed up front. Matching costs one pass over the description plus the non-literal rules that
+ * rank above the best hit so far. Rules with an invalid regex or range never match instead of failing the whole run.
+ */
+public final class CompiledRuleSet {
+    private static final Logger log = LoggerFactory.getLogger(CompiledRuleSet.class);
+    private static final String REGEX_META = "\\.[]{}()*+?^$|";
+    public static final CompiledRuleSet EMPTY = compile(List.of());
+
+    private final List<TaxDeductionRule> rules;
+    private final Map<String, Integer> byCategory = new HashMap<>();
+    private final Map<String, Integer> byMerchant = new HashMap<>();
+    private final KeywordAutomaton keywords;
+    /** Non-literal regex and amount range rules in priority order. */
+    private final List<Check> ordered = new ArrayList<>();
+
+    private CompiledRuleSet(List<TaxDeductionRule> rules) {
+        this.rules = List.copyOf(rules);
+        KeywordAutomaton.Builder kw = new KeywordAutomaton.Builder();
+        for (int i = 0; i < this.rules.size(); i++) {
+            TaxDeductionRule r = this.rules.get(i);
+            String value = r.getMatchValue();
+            if (r.getMatchType() == null || value == null) continue;
+            switch (r.getMatchType()) {
+                case CATEGORY -> byCategory.putIfAbsent(fold(value), i);
+                case MERCHANT -> byMerchant.putIfAbsent(fold(value), i);
+                case DESCRIPTION_REGEX -> {
+                    List<String> literals = literalAlternatives(value);
+                    if (literals != null) {
+                        for (String l : literals) kw.add(l, i);
+                    } else {
+                        try {
+                            Pattern p = Pattern.compile(value, Pattern.CASE_INSENSITIVE);
+                            ordered.add(new Check(i, p, null, null));
+                        } catch (PatternSyntaxException ex) {
+                            log.warn("Tax rule {} has an invalid regex and is skipped: {}", r.getId(), ex.getDescription());
+                        }
+                    }
+                }
+                case AMOUNT_RANGE -> {
+                    try {
+                        String[] parts = value.split(":");
+                        BigDecimal min = parts.length > 0 && !parts[0].isBlank() ? new BigDecimal(parts[0].trim()) : null;
+                        BigDecimal max = parts.length > 1 && !parts[1].isBlank() ? new BigDecimal(parts[1].trim()) : null;
+                        ordered.add(new Check(i, null, min, max));
+                    } catch (NumberFormatException ex) {
+                        log.warn("Tax rule {} has an invalid amount range '{}' and is skipped", r.getId(), value);
+                    }
+                }
+            }
+        }
+        this.keywords = kw.build();
+    }
+
+    /** Rules must already be in priority order (as returned by findActiveRules). */
+    public static CompiledRuleSet compile(List<TaxDeductionRule> rules) {
+        return new CompiledRuleSet(rules);
+    }
+
+    public List<TaxDeductionRule> rules() {
+        return rules;
+    }
+
+    public boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    /** First rule (in priority order) matching the transaction, or null. */
+    public TaxDeductionRule firstMatch(String description, BigDecimal amount, String category, String merchant) {
+        int best = Integer.MAX_VALUE;
+        if (category != null && !byCategory.isEmpty()) best = Math.min(best, byCategory.getOrDefault(fold(category), Integer.MAX_VALUE));
+        if (merchant != null && !byMerchant.isEmpty()) best = Math.min(best, byMerchant.getOrDefault(fold(merchant), Integer.MAX_VALUE));
+        if (description != null && keywords != null) best = Math.min(best, keywords.firstMatch(description));
+        for (Check c : ordered) {
+            if (c.index >= best) break;
+            if (c.matches(description, amount)) {
+                best = c.index;
+                break;
+            }
+        }
+        return best == Integer.MAX_VALUE ? null : rules.get(best);
+    }
+
+    /** Per-character case fold with the same semantics as {@link String#equalsIgnoreCase}. */
+    static String fold(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) sb.append(Character.toLowerCase(Character.toUpperCase(s.charAt(i))));
+        return sb.toString();
+    }
+
+    /** The alternatives of {@code a|b|c} when every one is a non-empty literal, else null. */
+    static List<String> literalAlternatives(String regex) {
+        List<String> out = new ArrayList<>();
+        int from = 0;
+        for (int i = 0; i <= regex.length(); i++) {
+            if (i == regex.length() || regex.charAt(i) == '|') {
+                if (i == from) return null;
+                out.add(regex.substring(from, i));
+                from = i + 1;
+            } else if (REGEX_META.indexOf(regex.charAt(i)) >= 0) {
+                return null;
+            }
+        }
+        return out;
+    }
+
+    private record Check(int index, Pattern pattern, BigDecimal min, BigDecimal max) {
+        boolean matches(String description, BigDecimal amount) {
+            if (pattern != null) return description != null && pattern.matcher(description).find();
+            if (amount == null) return false;
+            BigDecimal abs = amount.abs();
+            return (min == null || abs.compareTo(min) >= 0) && (max == null || abs.compareTo(max) <= 0);
+        }
+    }
+
+    /**
+     * Aho-Corasick over literal keywords. Matching is ASCII case-insensitive like {@link Pattern#CASE_INSENSITIVE};
+     * each state carries the lowest rule index of any keyword ending there (including via failure links).
+     */
+    static final class KeywordAutomaton {
+        private final List<Map<Character, Integer>> next;
+        private final int[] fail;
+        private final int[] best;
+
+        private KeywordAutomaton(List<Map<Character, Integer>> next, int[] fail, int[] best) {
+            this.next = next;
+            this.fail = fail;
+            this.best = best;
+        }
+
+        /** Lowest rule index with a keyword occurring in {@code text}, or MAX_VALUE. */
+        int firstMatch(String text) {
+            int state = 0;
+            int found = Integer.MAX_VALUE;
+            for (int i = 0; i < text.length(); i++) {
+                char c = asciiLower(text.charAt(i));
+                Integer to;
+                while ((to = next.get(state).get(c)) == null && state != 0) state = fail[state];
+                state = to == null ? 0 : to;
+                if (best[state] < found) {
+                    found = best[state];
+                    if (found == 0) return 0;
+                }
+            }
+            return found;
+        }
+
+        private static char asciiLower(char c) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+        }
+
+        static final class Builder {
+            private final List<Map<Character, Integer>> next = new ArrayList<>();
+            private final List<Integer> own = new ArrayList<>();
+
+            Builder() {
+                next.add(new HashMap<>());
+                own.add(Integer.MAX_VALUE);
+            }
+
+            void add(String keyword, int ruleIndex) {
+                int state = 0;
+                for (int i = 0; i < keyword.length(); i++) {
+                    char c = asciiLower(keyword.charAt(i));
+                    Integer to = next.get(state).get(c);
+                    if (to == null) {
+                        to = next.size();
+                        next.get(state).put(c, to);
+                        next.add(new HashMap<>());
+                        own.add(Integer.MAX_VALUE);
+                    }
+                    state = to;
+                }
+                own.set(state, Math.min(own.get(state), ruleIndex));
+            }
+
+            KeywordAutomaton build() {
+                if (next.size() == 1) return null;
+                int n = next.size();
+                int[] fail = new int[n];
+                int[] best = new int[n];
+                for (int i = 0; i < n; i++) best[i] = own.get(i);
+                ArrayDeque<Integer> queue = new ArrayDeque<>(next.get(0).values());
+                while (!queue.isEmpty()) {
+                    int s = queue.poll();
+                    for (Map.Entry<Character, Integer> e : next.get(s).entrySet()) {
+                        int t = e.getValue();
+                        int f = fail[s];
+                        Integer to;
+                        while ((to = next.get(f).get(e.getKey())) == null && f != 0) f = fail[f];
+                        fail[t] = to == null || to == t ? 0 : to;
+                        best[t] = Math.min(best[t], best[fail[t]]);
+                        queue.add(t);
+                    }
+                }
+                return new KeywordAutomaton(List.copyOf(next), fail, best);
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.expensetracker.service.tax;
+
+import com.expensetracker.model.TaxDeductionRule;
+import com.expensetracker.model.Transaction;
+import com.expensetracker.model.User;
+import com.expensetracker.repository.TransactionRepository;
+import com.expensetracker.repository.TransactionRepository.TaxCandidate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Set-based rule classification of outflows into tax_transactions.
+ *
+ * Candidates are streamed in keyset chunks by id with the already-classified and ignored transactions removed by
+ * anti-joins in the same query, matched in memory, and written with one JDBC batch insert per chunk
+ * (IDENTITY ids prevent Hibernate from batching inserts). Runs inside the caller's transaction.
+ */
+@Component
+public class TaxAutoClassifier {
+    static final String INSERT_SQL = "INSERT INTO tax_transactions (user_id, tax_year, amount, paid_date, category, note, deductible, has_receipt, source_transaction_id, rule_id, classification_status) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final TransactionRepository transactionRepo;
+    private final JdbcTemplate jdbc;
+
+    @Value("${app.tax.classify.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    public TaxAutoClassifier(TransactionRepository transactionRepo, JdbcTemplate jdbc) {
+        this.transactionRepo = transactionRepo;
+        this.jdbc = jdbc;
+    }
+
+    /** Classifies every unclassified, non-ignored outflow of the user in [start, end]; returns rows created. */
+    public int classifyRange(User user, CompiledRuleSet rules, LocalDate start, LocalDate end) {
+        if (rules.isEmpty()) return 0;
+        int fallbackYear = start != null ? start.getYear() : LocalDate.now().getYear();
+        long afterId = 0L;
+        int created = 0;
+        while (true) {
+            List<TaxCandidate> chunk = transactionRepo.findTaxCandidates(user, start, end, afterId, PageRequest.of(0, chunkSize));
+            if (chunk.isEmpty()) break;
+            List<Suggestion> matched = new ArrayList<>();
+            for (TaxCandidate c : chunk) {
+                TaxDeductionRule rule = rules.firstMatch(c.getDescription(), c.getAmount(), c.getCategory(), c.getBankName());
+                if (rule != null) matched.add(new Suggestion(c.getId(), c.getDate(), c.getAmount(), c.getDescription(), rule));
+            }
+            created += insert(user.getId(), matched, fallbackYear);
+            afterId = chunk.get(chunk.size() - 1).getId();
+            if (chunk.size() < chunkSize) break;
+        }
+        return created;
+    }
+
+    /**
+     * Classifies transactions that were just inserted by statement ingestion. They cannot be classified or ignored yet,
+     * so no candidate query is needed; suggestions go out in the caller's transaction.
+     */
+    public int classifyNew(User user, CompiledRuleSet rules, List<Transaction> saved) {
+        if (rules.isEmpty() || saved.isEmpty()) return 0;
+        List<Suggestion> matched = new ArrayList<>();
+        for (Transaction t : saved) {
+            if (t.getId() == null || t.getAmount() == null || t.getAmount().signum() >= 0) continue;
+            TaxDeductionRule rule = rules.firstMatch(t.getDescription(), t.getAmount(), t.getCategory(), t.getBankName());
+            if (rule != null) matched.add(new Suggestion(t.getId(), t.getDate(), t.getAmount(), t.getDescription(), rule));
+        }
+        int created = 0;
+        int fallbackYear = LocalDate.now().getYear();
+        for (int i = 0; i < matched.size(); i += chunkSize) {
+            created += insert(user.getId(), matched.subList(i, Math.min(i + chunkSize, matched.size())), fallbackYear);
+        }
+        return created;
+    }
+
+    int insert(Long userId, List<Suggestion> rows, int fallbackYear) {
+        if (rows.isEmpty()) return 0;
+        jdbc.batchUpdate(INSERT_SQL, rows, rows.size(), (ps, s) -> {
+            boolean auto = Boolean.TRUE.equals(s.rule().getAutoMarkDeductible());
+            ps.setLong(1, userId);
+            ps.setInt(2, s.date() != null ? s.date().getYear() : fallbackYear);
+            ps.setBigDecimal(3, s.amount().abs());
+            if (s.date() != null) ps.setDate(4, Date.valueOf(s.date())); else ps.setNull(4, Types.DATE);
+            ps.setString(5, s.rule().getTaxCategoryCode());
+            ps.setString(6, truncate(s.description(), 1000));
+            ps.setBoolean(7, auto);
+            ps.setBoolean(8, false);
+            ps.setLong(9, s.transactionId());
+            ps.setLong(10, s.rule().getId());
+            ps.setString(11, auto ? "CONFIRMED" : "SUGGESTED");
+        });
+        return rows.size();
+    }
+
+    private static String truncate(String s, int max) {
+        return s == null || s.length() <= max ? s : s.substring(0, max);
+    }
+
+    record Suggestion(long transactionId, LocalDate date, BigDecimal amount, String description, TaxDeductionRule rule) {}
+}
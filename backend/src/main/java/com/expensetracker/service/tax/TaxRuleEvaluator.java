@@ -0,0 +1,27 @@
+package com.expensetracker.service.tax;
+
+import com.expensetracker.model.TaxDeductionRule;
+
+import java.math.BigDecimal;
+import java.util.regex.Pattern;
+
+/** Matching semantics of a single {@link TaxDeductionRule} against transaction fields. */
+public final class TaxRuleEvaluator {
+    private TaxRuleEvaluator() {}
+
+    public static boolean evaluate(TaxDeductionRule.MatchType type, String value, String description, BigDecimal amount, String category, String merchant){
+        switch(type){
+            case CATEGORY: return category!=null && category.equalsIgnoreCase(value);
+            case MERCHANT: return merchant!=null && merchant.equalsIgnoreCase(value);
+            case DESCRIPTION_REGEX: return description!=null && Pattern.compile(value, Pattern.CASE_INSENSITIVE).matcher(description).find();
+            case AMOUNT_RANGE: {
+                if(amount==null) return false; String[] parts = value.split(":" );
+                BigDecimal min = parts.length>0 && !parts[0].isBlank()? new BigDecimal(parts[0]) : null;
+                BigDecimal max = parts.length>1 && !parts[1].isBlank()? new BigDecimal(parts[1]) : null;
+                BigDecimal abs = amount.abs();
+                return (min==null || abs.compareTo(min)>=0) && (max==null || abs.compareTo(max)<=0);
+            }
+            default: return false;
+        }
+    }
+}
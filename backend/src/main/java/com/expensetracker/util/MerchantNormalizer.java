@@ -1,5 +1,8 @@
 package com.expensetracker.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
 import java.util.regex.Pattern;
 
 public class MerchantNormalizer {
@@ -8,6 +11,16 @@ public class MerchantNormalizer {
     private static final Pattern COMMON_SUFFIX = Pattern.compile("(?i)\\b(inc|llc|ltd|co|corp|company|store|shop)\\b");
     private static final Pattern CARD_SUFFIX = Pattern.compile("(?i)(visa|mastercard|amex|debit|credit)");
     private static final Pattern SPECIALS = Pattern.compile("[^A-Za-z0-9&'+ ]");
+    private static final Pattern LEADING_MARKER = Pattern.compile("(?i)^(pos|atm|online|web|purchase|debit|credit)[: -]+");
+    // Raw description -> merchant ("" = no merchant). Bank descriptions repeat heavily across rows and users.
+    private static final Cache<String, String> MEMO = Caffeine.newBuilder().maximumSize(50_000).build();
+
+    /** {@link #normalize} memoized on the raw text (bounded); used at ingest and by the backfill. */
+    public static String normalizeCached(String raw){
+        if(raw==null) return null;
+        String s = MEMO.get(raw, r -> { String n = normalize(r); return n==null? "" : n; });
+        return s.isEmpty()? null : s;
+    }
 
     public static String normalize(String raw){
         if(raw==null) return null;
@@ -22,7 +35,7 @@ public class MerchantNormalizer {
             if(g1.length()>3) s = g1;
         }
         // remove leading POS / ATM / ONLINE markers
-        s = s.replaceFirst("(?i)^(pos|atm|online|web|purchase|debit|credit)[: -]+"," ");
+        s = LEADING_MARKER.matcher(s).replaceFirst(" ");
         // remove common card words at end
         s = CARD_SUFFIX.matcher(s).replaceAll("");
         // remove punctuation except allowed
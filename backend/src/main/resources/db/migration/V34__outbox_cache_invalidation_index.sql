@@ -0,0 +1,3 @@
+-- Cross-node cache invalidations are written to outbox_events (aggregate_type = 'CACHE_INVALIDATION')
+-- and polled by every replica by created_at.
+CREATE INDEX IF NOT EXISTS idx_outbox_type_created ON outbox_events(aggregate_type, created_at);
@@ -0,0 +1,4 @@
+-- Outbox dispatcher: retry/lease scheduling and last delivery error.
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS next_attempt_at TIMESTAMP NULL;
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS last_error VARCHAR(1000) NULL;
+CREATE INDEX IF NOT EXISTS idx_outbox_status_next_attempt ON outbox_events(status, next_attempt_at);
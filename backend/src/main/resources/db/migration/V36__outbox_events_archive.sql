@@ -0,0 +1,14 @@
+-- Cold storage for delivered outbox events moved out of outbox_events by OutboxRetentionJob.
+CREATE TABLE IF NOT EXISTS outbox_events_archive (
+    id VARCHAR(36) PRIMARY KEY,
+    aggregate_type VARCHAR(64) NOT NULL,
+    aggregate_id VARCHAR(64) NOT NULL,
+    event_type VARCHAR(96) NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    last_attempt_at TIMESTAMP NULL,
+    attempt_count INT NULL,
+    archived_at TIMESTAMP NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_outbox_archive_created ON outbox_events_archive(created_at);
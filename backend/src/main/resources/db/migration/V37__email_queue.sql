@@ -0,0 +1,18 @@
+-- Durable outgoing email queue drained by EmailQueueWorker (SMTP happens outside request/recompute transactions).
+CREATE TABLE IF NOT EXISTS email_queue (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NULL REFERENCES users(id) ON DELETE CASCADE,
+    recipient VARCHAR(320) NOT NULL,
+    type VARCHAR(32) NOT NULL,
+    subject VARCHAR(500) NOT NULL,
+    html TEXT NULL,
+    payload TEXT NULL,
+    status VARCHAR(16) NOT NULL,
+    attempt_count INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NULL,
+    last_error VARCHAR(1000) NULL,
+    created_at TIMESTAMP NOT NULL,
+    sent_at TIMESTAMP NULL
+);
+CREATE INDEX IF NOT EXISTS idx_email_queue_status_next ON email_queue(status, next_attempt_at);
+CREATE INDEX IF NOT EXISTS idx_email_queue_user_type_created ON email_queue(user_id, type, created_at);
@@ -0,0 +1,18 @@
+-- Fixed-window counters (two adjacent windows give a sliding estimate) and idempotency keys for notification emails.
+CREATE TABLE IF NOT EXISTS notification_rate_counters (
+    counter_key VARCHAR(160) PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    type VARCHAR(32) NOT NULL,
+    window_start TIMESTAMP NOT NULL,
+    hits INT NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_notif_counters_expires ON notification_rate_counters(expires_at);
+
+CREATE TABLE IF NOT EXISTS notification_idempotency_keys (
+    idem_key VARCHAR(200) PRIMARY KEY,
+    user_id BIGINT NULL,
+    created_at TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_notif_idem_expires ON notification_idempotency_keys(expires_at);
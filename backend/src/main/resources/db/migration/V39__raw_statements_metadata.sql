@@ -0,0 +1,6 @@
+-- Statement listing metadata computed at persist time so the history endpoint never reads raw_json.
+ALTER TABLE raw_statements ADD COLUMN IF NOT EXISTS parse_status VARCHAR(16) NULL;
+ALTER TABLE raw_statements ADD COLUMN IF NOT EXISTS transaction_count INT NULL;
+ALTER TABLE raw_statements ADD COLUMN IF NOT EXISTS warning_count INT NULL;
+ALTER TABLE raw_statements ADD COLUMN IF NOT EXISTS parse_warnings TEXT NULL;
+CREATE INDEX IF NOT EXISTS idx_raw_statements_user_upload ON raw_statements(user_id, upload_date);
@@ -0,0 +1,13 @@
+-- Compressed raw extraction payloads moved out of raw_statements.raw_json.
+-- payload_ref: NULL = still inline in raw_json, 'db:gzip' = raw_statement_payloads row, 'oci:<key>' / 'file:<path>' = object storage.
+ALTER TABLE raw_statements ADD COLUMN IF NOT EXISTS payload_ref VARCHAR(600) NULL;
+
+CREATE TABLE IF NOT EXISTS raw_statement_payloads (
+    statement_id BIGINT PRIMARY KEY,
+    encoding VARCHAR(16) NOT NULL,
+    payload BYTEA NOT NULL,
+    original_size BIGINT NOT NULL,
+    stored_size BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    CONSTRAINT fk_raw_statement_payloads_stmt FOREIGN KEY (statement_id) REFERENCES raw_statements(id) ON DELETE CASCADE
+);
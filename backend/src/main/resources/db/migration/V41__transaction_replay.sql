@@ -0,0 +1,6 @@
+-- Statement replay: transactions remember the raw statement they were derived from; txn_hash (V5) becomes the
+-- per-statement replacement key. statement_jobs.result_summary holds replay counts / dry-run diffs (JSON).
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS raw_statement_id BIGINT NULL;
+CREATE INDEX IF NOT EXISTS idx_transactions_raw_statement ON transactions(raw_statement_id);
+
+ALTER TABLE statement_jobs ADD COLUMN IF NOT EXISTS result_summary TEXT NULL;
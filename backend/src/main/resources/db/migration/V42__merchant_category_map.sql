@@ -0,0 +1,14 @@
+-- Merchant -> category dictionary applied at parse time. user_id NULL = global mapping.
+-- source: CORRECTION (user changed a transaction's category) or LEARNED (nightly aggregate of categorized transactions).
+CREATE TABLE IF NOT EXISTS merchant_category_map (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NULL,
+    merchant_key VARCHAR(128) NOT NULL,
+    category VARCHAR(255) NOT NULL,
+    source VARCHAR(16) NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    CONSTRAINT fk_merchant_category_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+CREATE UNIQUE INDEX IF NOT EXISTS uq_merchant_category_user ON merchant_category_map(user_id, merchant_key) WHERE user_id IS NOT NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS uq_merchant_category_global ON merchant_category_map(merchant_key) WHERE user_id IS NULL;
+CREATE INDEX IF NOT EXISTS idx_merchant_category_source ON merchant_category_map(source);
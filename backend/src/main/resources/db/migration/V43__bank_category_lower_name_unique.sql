@@ -0,0 +1,16 @@
+-- Case-insensitive uniqueness for banks/categories so uploads can upsert counts with ON CONFLICT (user_id, lower(name)).
+-- Case variants created by earlier racing uploads are folded into the lowest id first. The new index subsumes the
+-- exact-name constraints from the baseline, so those are dropped (one less index to maintain per insert).
+UPDATE banks b SET transaction_count = d.total
+FROM (SELECT MIN(id) AS keep_id, SUM(transaction_count) AS total FROM banks GROUP BY user_id, lower(name) HAVING COUNT(*) > 1) d
+WHERE b.id = d.keep_id;
+DELETE FROM banks b USING banks k WHERE b.user_id = k.user_id AND lower(b.name) = lower(k.name) AND b.id > k.id;
+CREATE UNIQUE INDEX IF NOT EXISTS uq_banks_user_lower_name ON banks(user_id, lower(name));
+ALTER TABLE banks DROP CONSTRAINT IF EXISTS uq_banks_user_name;
+
+UPDATE categories c SET transaction_count = d.total
+FROM (SELECT MIN(id) AS keep_id, SUM(transaction_count) AS total FROM categories GROUP BY user_id, lower(name) HAVING COUNT(*) > 1) d
+WHERE c.id = d.keep_id;
+DELETE FROM categories c USING categories k WHERE c.user_id = k.user_id AND lower(c.name) = lower(k.name) AND c.id > k.id;
+CREATE UNIQUE INDEX IF NOT EXISTS uq_categories_user_lower_name ON categories(user_id, lower(name));
+ALTER TABLE categories DROP CONSTRAINT IF EXISTS uq_categories_user_name;
@@ -0,0 +1,9 @@
+-- Upload idempotency: SHA-256 of the uploaded PDF on the statement and on its job, so a repeated upload of the same
+-- file within the dedupe window returns the existing statement/job. statement_jobs.raw_statement_id links an async job
+-- to the statement it produced.
+ALTER TABLE raw_statements ADD COLUMN IF NOT EXISTS content_sha256 VARCHAR(64) NULL;
+CREATE INDEX IF NOT EXISTS idx_raw_statements_user_content ON raw_statements(user_id, content_sha256);
+
+ALTER TABLE statement_jobs ADD COLUMN IF NOT EXISTS content_sha256 VARCHAR(64) NULL;
+ALTER TABLE statement_jobs ADD COLUMN IF NOT EXISTS raw_statement_id BIGINT NULL;
+CREATE INDEX IF NOT EXISTS idx_statement_jobs_user_content ON statement_jobs(user_id, content_sha256);
@@ -0,0 +1,13 @@
+-- Content-addressed extraction cache: SHA-256 of the uploaded PDF -> gzip'd extraction JSON. Identical uploads (joint
+-- accounts, family members) skip the Python/LLM extraction. Entries expire by created_at; last_hit_at drives eviction
+-- when the table exceeds its size cap.
+CREATE TABLE IF NOT EXISTS extraction_cache (
+    sha256 VARCHAR(64) PRIMARY KEY,
+    payload BYTEA NOT NULL,
+    original_size BIGINT NOT NULL,
+    stored_size BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    last_hit_at TIMESTAMP NOT NULL,
+    hit_count BIGINT NOT NULL DEFAULT 0
+);
+CREATE INDEX IF NOT EXISTS idx_extraction_cache_last_hit ON extraction_cache(last_hit_at);
@@ -0,0 +1,5 @@
+-- Cache invalidations are polled by a strictly increasing sequence number instead of created_at, so a burst larger
+-- than one poll batch or a slow-committing writer cannot be skipped. Only CACHE_INVALIDATION rows carry a seq.
+CREATE SEQUENCE IF NOT EXISTS cache_invalidation_seq;
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS seq BIGINT;
+CREATE INDEX IF NOT EXISTS idx_outbox_type_seq ON outbox_events(aggregate_type, seq);
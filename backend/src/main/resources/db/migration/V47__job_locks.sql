@@ -0,0 +1,6 @@
+-- Lease per scheduled job so cron jobs that must not overlap (outbox retention, category learning) run on one replica.
+CREATE TABLE IF NOT EXISTS job_locks (
+    name VARCHAR(64) PRIMARY KEY,
+    locked_until TIMESTAMP NOT NULL,
+    locked_by VARCHAR(64) NOT NULL
+);
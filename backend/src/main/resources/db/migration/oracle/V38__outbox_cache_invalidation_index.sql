@@ -0,0 +1,9 @@
+-- Cross-node cache invalidations are written to outbox_events (aggregate_type = 'CACHE_INVALIDATION')
+-- and polled by every replica by created_at.
+DECLARE
+	v_exists NUMBER;
+BEGIN
+	SELECT COUNT(*) INTO v_exists FROM user_indexes WHERE index_name = 'IDX_OUTBOX_TYPE_CREATED';
+	IF v_exists = 0 THEN EXECUTE IMMEDIATE 'CREATE INDEX IDX_OUTBOX_TYPE_CREATED ON outbox_events(aggregate_type, created_at)'; END IF;
+END;
+/
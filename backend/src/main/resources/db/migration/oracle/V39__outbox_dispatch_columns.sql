@@ -0,0 +1,12 @@
+-- Outbox dispatcher: retry/lease scheduling and last delivery error.
+DECLARE
+	v_exists NUMBER;
+BEGIN
+	SELECT COUNT(*) INTO v_exists FROM user_tab_cols WHERE table_name = 'OUTBOX_EVENTS' AND column_name = 'NEXT_ATTEMPT_AT';
+	IF v_exists = 0 THEN EXECUTE IMMEDIATE 'ALTER TABLE outbox_events ADD (next_attempt_at TIMESTAMP NULL)'; END IF;
+	SELECT COUNT(*) INTO v_exists FROM user_tab_cols WHERE table_name = 'OUTBOX_EVENTS' AND column_name = 'LAST_ERROR';
+	IF v_exists = 0 THEN EXECUTE IMMEDIATE 'ALTER TABLE outbox_events ADD (last_error VARCHAR2(1000) NULL)'; END IF;
+	SELECT COUNT(*) INTO v_exists FROM user_indexes WHERE index_name = 'IDX_OUTBOX_STATUS_NEXT_ATTEMPT';
+	IF v_exists = 0 THEN EXECUTE IMMEDIATE 'CREATE INDEX IDX_OUTBOX_STATUS_NEXT_ATTEMPT ON outbox_events(status, next_attempt_at)'; END IF;
+END;
+/
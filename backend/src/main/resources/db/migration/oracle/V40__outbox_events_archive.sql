@@ -0,0 +1,21 @@
+-- Cold storage for delivered outbox events moved out of outbox_events by OutboxRetentionJob.
+DECLARE
+	v_exists NUMBER;
+BEGIN
+	SELECT COUNT(*) INTO v_exists FROM user_tables WHERE table_name = 'OUTBOX_EVENTS_ARCHIVE';
+	IF v_exists = 0 THEN EXECUTE IMMEDIATE 'CREATE TABLE outbox_events_archive (
+		id VARCHAR2(36) PRIMARY KEY,
+		aggregate_type VARCHAR2(64) NOT NULL,
+		aggregate_id VARCHAR2(64) NOT NULL,
+		event_type VARCHAR2(96) NOT NULL,
+		payload CLOB NOT NULL,
+		status VARCHAR2(16) NOT NULL,
+		created_at TIMESTAMP NOT NULL,
+		last_attempt_at TIMESTAMP NULL,
+		attempt_count NUMBER NULL,
+		archived_at TIMESTAMP NOT NULL
+	)'; END IF;
+	SELECT COUNT(*) INTO v_exists FROM user_indexes WHERE index_name = 'IDX_OUTBOX_ARCHIVE_CREATED';
+	IF v_exists = 0 THEN EXECUTE IMMEDIATE 'CREATE INDEX IDX_OUTBOX_ARCHIVE_CREATED ON outbox_events_archive(created_at)'; END IF;
+END;
+/
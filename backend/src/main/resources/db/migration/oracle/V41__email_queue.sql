@@ -0,0 +1,29 @@
+-- Durable outgoing email queue drained by EmailQueueWorker (SMTP happens outside request/recompute transactions).
+DECLARE
+	v_exists NUMBER;
+BEGIN
+	SELECT COUNT(*) INTO v_exists FROM user_tables WHERE table_name = 'EMAIL_QUEUE';
+	IF v_exists = 0 THEN
+		EXECUTE IMMEDIATE q'[CREATE TABLE email_queue (
+			id NUMBER GENERATED BY DEFAULT ON NULL AS IDENTITY PRIMARY KEY,
+			user_id NUMBER NULL,
+			recipient VARCHAR2(320) NOT NULL,
+			type VARCHAR2(32) NOT NULL,
+			subject VARCHAR2(500) NOT NULL,
+			html CLOB NULL,
+			payload CLOB NULL,
+			status VARCHAR2(16) NOT NULL,
+			attempt_count NUMBER DEFAULT 0 NOT NULL,
+			next_attempt_at TIMESTAMP NULL,
+			last_error VARCHAR2(1000) NULL,
+			created_at TIMESTAMP NOT NULL,
+			sent_at TIMESTAMP NULL,
+			CONSTRAINT fk_email_queue_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+		)]';
+	END IF;
+	SELECT COUNT(*) INTO v_exists FROM user_indexes WHERE index_name = 'IDX_EMAIL_QUEUE_STATUS_NEXT';
+	IF v_exists = 0 THEN EXECUTE IMMEDIATE 'CREATE INDEX IDX_EMAIL_QUEUE_STATUS_NEXT ON email_queue(status, next_attempt_at)'; END IF;
+	SELECT COUNT(*) INTO v_exists FROM user_indexes WHERE index_name = 'IDX_EMAIL_QUEUE_USER_TYPE';
+	IF v_exists = 0 THEN EXECUTE IMMEDIATE 'CREATE INDEX IDX_EMAIL_QUEUE_USER_TYPE ON email_queue(user_id, type, created_at)'; END IF;
+END;
+/
@@ -0,0 +1,28 @@
+-- Fixed-window counters (two adjacent windows give a sliding estimate) and idempotency keys for notification emails.
+DECLARE
+	v_exists NUMBER;
+BEGIN
+	SELECT COUNT(*) INTO v_exists FROM user_tables WHERE table_name = 'NOTIFICATION_RATE_COUNTERS';
+	IF v_exists = 0 THEN
+		EXECUTE IMMEDIATE q'[CREATE TABLE notification_rate_counters (
+			counter_key VARCHAR2(160) PRIMARY KEY,
+			user_id NUMBER NOT NULL,
+			type VARCHAR2(32) NOT NULL,
+			window_start TIMESTAMP NOT NULL,
+			hits NUMBER NOT NULL,
+			expires_at TIMESTAMP NOT NULL
+		)]';
+		EXECUTE IMMEDIATE 'CREATE INDEX IDX_NOTIF_COUNTERS_EXPIRES ON notification_rate_counters(expires_at)';
+	END IF;
+	SELECT COUNT(*) INTO v_exists FROM user_tables WHERE table_name = 'NOTIFICATION_IDEMPOTENCY_KEYS';
+	IF v_exists = 0 THEN
+		EXECUTE IMMEDIATE q'[CREATE TABLE notification_idempotency_keys (
+			idem_key VARCHAR2(200) PRIMARY KEY,
+			user_id NUMBER NULL,
+			created_at TIMESTAMP NOT NULL,
+			expires_at TIMESTAMP NOT NULL
+		)]';
+		EXECUTE IMMEDIATE 'CREATE INDEX IDX_NOTIF_IDEM_EXPIRES ON notification_idempotency_keys(expires_at)';
+	END IF;
+END;
+/
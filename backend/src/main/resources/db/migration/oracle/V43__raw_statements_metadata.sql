@@ -0,0 +1,16 @@
+-- Statement listing metadata computed at persist time so the history endpoint never reads raw_json.
+DECLARE
+	v_exists NUMBER;
+BEGIN
+	SELECT COUNT(*) INTO v_exists FROM user_tab_cols WHERE table_name = 'RAW_STATEMENTS' AND column_name = 'PARSE_STATUS';
+	IF v_exists = 0 THEN EXECUTE IMMEDIATE 'ALTER TABLE raw_statements ADD (parse_status VARCHAR2(16) NULL)'; END IF;
+	SELECT COUNT(*) INTO v_exists FROM user_tab_cols WHERE table_name = 'RAW_STATEMENTS' AND column_name = 'TRANSACTION_COUNT';
+	IF v_exists = 0 THEN EXECUTE IMMEDIATE 'ALTER TABLE raw_statements ADD (transaction_count NUMBER NULL)'; END IF;
+	SELECT COUNT(*) INTO v_exists FROM user_tab_cols WHERE table_name = 'RAW_STATEMENTS' AND column_name = 'WARNING_COUNT';
+	IF v_exists = 0 THEN EXECUTE IMMEDIATE 'ALTER TABLE raw_statements ADD (warning_count NUMBER NULL)'; END IF;
+	SELECT COUNT(*) INTO v_exists FROM user_tab_cols WHERE table_name = 'RAW_STATEMENTS' AND column_name = 'PARSE_WARNINGS';
+	IF v_exists = 0 THEN EXECUTE IMMEDIATE 'ALTER TABLE raw_statements ADD (parse_warnings CLOB NULL)'; END IF;
+	SELECT COUNT(*) INTO v_exists FROM user_indexes WHERE index_name = 'IDX_RAW_STATEMENTS_USER_UPLOAD';
+	IF v_exists = 0 THEN EXECUTE IMMEDIATE 'CREATE INDEX IDX_RAW_STATEMENTS_USER_UPLOAD ON raw_statements(user_id, upload_date)'; END IF;
+END;
+/
@@ -0,0 +1,21 @@
+-- Compressed raw extraction payloads moved out of raw_statements.raw_json.
+-- payload_ref: NULL = still inline in raw_json, 'db:gzip' = raw_statement_payloads row, 'oci:<key>' / 'file:<path>' = object storage.
+DECLARE
+	v_exists NUMBER;
+BEGIN
+	SELECT COUNT(*) INTO v_exists FROM user_tab_cols WHERE table_name = 'RAW_STATEMENTS' AND column_name = 'PAYLOAD_REF';
+	IF v_exists = 0 THEN EXECUTE IMMEDIATE 'ALTER TABLE raw_statements ADD (payload_ref VARCHAR2(600) NULL)'; END IF;
+	SELECT COUNT(*) INTO v_exists FROM user_tables WHERE table_name = 'RAW_STATEMENT_PAYLOADS';
+	IF v_exists = 0 THEN
+		EXECUTE IMMEDIATE q'[CREATE TABLE raw_statement_payloads (
+			statement_id NUMBER PRIMARY KEY,
+			encoding VARCHAR2(16) NOT NULL,
+			payload BLOB NOT NULL,
+			original_size NUMBER NOT NULL,
+			stored_size NUMBER NOT NULL,
+			created_at TIMESTAMP NOT NULL,
+			CONSTRAINT fk_raw_statement_payloads_stmt FOREIGN KEY (statement_id) REFERENCES raw_statements(id) ON DELETE CASCADE
+		)]';
+	END IF;
+END;
+/
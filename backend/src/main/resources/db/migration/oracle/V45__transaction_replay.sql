@@ -0,0 +1,20 @@
+-- Statement replay: transactions remember the raw statement they were derived from and carry txn_hash as the
+-- per-statement replacement key (unique per user when set). statement_jobs.result_summary holds replay counts / dry-run diffs (JSON).
+DECLARE
+	v_exists NUMBER;
+BEGIN
+	SELECT COUNT(*) INTO v_exists FROM user_tab_cols WHERE table_name = 'TRANSACTIONS' AND column_name = 'TXN_HASH';
+	IF v_exists = 0 THEN EXECUTE IMMEDIATE 'ALTER TABLE transactions ADD (txn_hash VARCHAR2(64) NULL)'; END IF;
+	SELECT COUNT(*) INTO v_exists FROM user_tab_cols WHERE table_name = 'TRANSACTIONS' AND column_name = 'RAW_STATEMENT_ID';
+	IF v_exists = 0 THEN EXECUTE IMMEDIATE 'ALTER TABLE transactions ADD (raw_statement_id NUMBER NULL)'; END IF;
+	SELECT COUNT(*) INTO v_exists FROM user_tab_cols WHERE table_name = 'STATEMENT_JOBS' AND column_name = 'RESULT_SUMMARY';
+	IF v_exists = 0 THEN EXECUTE IMMEDIATE 'ALTER TABLE statement_jobs ADD (result_summary CLOB NULL)'; END IF;
+	-- Rows without a hash are left out of the index (all key columns NULL), like the PostgreSQL partial index
+	SELECT COUNT(*) INTO v_exists FROM user_indexes WHERE index_name = 'UQ_TRANSACTIONS_USER_TXNHASH';
+	IF v_exists = 0 THEN
+		EXECUTE IMMEDIATE 'CREATE UNIQUE INDEX uq_transactions_user_txnhash ON transactions(CASE WHEN txn_hash IS NOT NULL THEN user_id END, txn_hash)';
+	END IF;
+	SELECT COUNT(*) INTO v_exists FROM user_indexes WHERE index_name = 'IDX_TRANSACTIONS_RAW_STATEMENT';
+	IF v_exists = 0 THEN EXECUTE IMMEDIATE 'CREATE INDEX idx_transactions_raw_statement ON transactions(raw_statement_id)'; END IF;
+END;
+/
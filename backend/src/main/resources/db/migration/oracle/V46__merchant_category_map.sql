@@ -0,0 +1,24 @@
+-- Merchant -> category dictionary applied at parse time. user_id NULL = global mapping.
+-- source: CORRECTION (user changed a transaction's category) or LEARNED (nightly aggregate of categorized transactions).
+DECLARE
+	v_exists NUMBER;
+BEGIN
+	SELECT COUNT(*) INTO v_exists FROM user_tables WHERE table_name = 'MERCHANT_CATEGORY_MAP';
+	IF v_exists = 0 THEN
+		EXECUTE IMMEDIATE q'[CREATE TABLE merchant_category_map (
+			id NUMBER GENERATED BY DEFAULT ON NULL AS IDENTITY PRIMARY KEY,
+			user_id NUMBER NULL,
+			merchant_key VARCHAR2(128) NOT NULL,
+			category VARCHAR2(255) NOT NULL,
+			source VARCHAR2(16) NOT NULL,
+			updated_at TIMESTAMP NOT NULL,
+			CONSTRAINT fk_merchant_category_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+		)]';
+	END IF;
+	-- One mapping per (user, merchant) and one global mapping per merchant (NVL folds the global rows into user 0)
+	SELECT COUNT(*) INTO v_exists FROM user_indexes WHERE index_name = 'UQ_MERCHANT_CATEGORY_KEY';
+	IF v_exists = 0 THEN EXECUTE IMMEDIATE 'CREATE UNIQUE INDEX uq_merchant_category_key ON merchant_category_map(NVL(user_id, 0), merchant_key)'; END IF;
+	SELECT COUNT(*) INTO v_exists FROM user_indexes WHERE index_name = 'IDX_MERCHANT_CATEGORY_SOURCE';
+	IF v_exists = 0 THEN EXECUTE IMMEDIATE 'CREATE INDEX idx_merchant_category_source ON merchant_category_map(source)'; END IF;
+END;
+/
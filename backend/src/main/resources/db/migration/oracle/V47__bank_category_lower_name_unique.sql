@@ -0,0 +1,32 @@
+-- Case-insensitive uniqueness for banks/categories so uploads can upsert counts with one MERGE per table.
+-- Case variants created by earlier racing uploads are folded into the lowest id first. The new index subsumes the
+-- exact-name constraints from the baseline, so those are dropped (one less index to maintain per insert).
+DECLARE
+	v_exists NUMBER;
+BEGIN
+	SELECT COUNT(*) INTO v_exists FROM user_indexes WHERE index_name = 'UQ_BANKS_USER_LOWER_NAME';
+	IF v_exists = 0 THEN
+		EXECUTE IMMEDIATE q'[MERGE INTO banks b USING (
+			SELECT MIN(id) AS keep_id, SUM(transaction_count) AS total FROM banks GROUP BY user_id, LOWER(name) HAVING COUNT(*) > 1
+		) d ON (b.id = d.keep_id) WHEN MATCHED THEN UPDATE SET b.transaction_count = d.total]';
+		EXECUTE IMMEDIATE q'[DELETE FROM banks b WHERE EXISTS (
+			SELECT 1 FROM banks k WHERE k.user_id = b.user_id AND LOWER(k.name) = LOWER(b.name) AND k.id < b.id
+		)]';
+		EXECUTE IMMEDIATE 'CREATE UNIQUE INDEX uq_banks_user_lower_name ON banks(user_id, LOWER(name))';
+	END IF;
+	SELECT COUNT(*) INTO v_exists FROM user_indexes WHERE index_name = 'UQ_CATEGORIES_USER_LOWER_NAME';
+	IF v_exists = 0 THEN
+		EXECUTE IMMEDIATE q'[MERGE INTO categories c USING (
+			SELECT MIN(id) AS keep_id, SUM(transaction_count) AS total FROM categories GROUP BY user_id, LOWER(name) HAVING COUNT(*) > 1
+		) d ON (c.id = d.keep_id) WHEN MATCHED THEN UPDATE SET c.transaction_count = d.total]';
+		EXECUTE IMMEDIATE q'[DELETE FROM categories c WHERE EXISTS (
+			SELECT 1 FROM categories k WHERE k.user_id = c.user_id AND LOWER(k.name) = LOWER(c.name) AND k.id < c.id
+		)]';
+		EXECUTE IMMEDIATE 'CREATE UNIQUE INDEX uq_categories_user_lower_name ON categories(user_id, LOWER(name))';
+	END IF;
+	SELECT COUNT(*) INTO v_exists FROM user_constraints WHERE table_name = 'BANKS' AND constraint_name = 'UQ_BANKS_USER_NAME';
+	IF v_exists > 0 THEN EXECUTE IMMEDIATE 'ALTER TABLE banks DROP CONSTRAINT uq_banks_user_name DROP INDEX'; END IF;
+	SELECT COUNT(*) INTO v_exists FROM user_constraints WHERE table_name = 'CATEGORIES' AND constraint_name = 'UQ_CATEGORIES_USER_NAME';
+	IF v_exists > 0 THEN EXECUTE IMMEDIATE 'ALTER TABLE categories DROP CONSTRAINT uq_categories_user_name DROP INDEX'; END IF;
+END;
+/
@@ -0,0 +1,18 @@
+-- Upload idempotency: SHA-256 of the uploaded PDF on the statement and on its job, so a repeated upload of the same
+-- file within the dedupe window returns the existing statement/job. statement_jobs.raw_statement_id links an async job
+-- to the statement it produced.
+DECLARE
+	v_exists NUMBER;
+BEGIN
+	SELECT COUNT(*) INTO v_exists FROM user_tab_cols WHERE table_name = 'RAW_STATEMENTS' AND column_name = 'CONTENT_SHA256';
+	IF v_exists = 0 THEN EXECUTE IMMEDIATE 'ALTER TABLE raw_statements ADD (content_sha256 VARCHAR2(64) NULL)'; END IF;
+	SELECT COUNT(*) INTO v_exists FROM user_tab_cols WHERE table_name = 'STATEMENT_JOBS' AND column_name = 'CONTENT_SHA256';
+	IF v_exists = 0 THEN EXECUTE IMMEDIATE 'ALTER TABLE statement_jobs ADD (content_sha256 VARCHAR2(64) NULL)'; END IF;
+	SELECT COUNT(*) INTO v_exists FROM user_tab_cols WHERE table_name = 'STATEMENT_JOBS' AND column_name = 'RAW_STATEMENT_ID';
+	IF v_exists = 0 THEN EXECUTE IMMEDIATE 'ALTER TABLE statement_jobs ADD (raw_statement_id NUMBER NULL)'; END IF;
+	SELECT COUNT(*) INTO v_exists FROM user_indexes WHERE index_name = 'IDX_RAW_STATEMENTS_USER_CONTENT';
+	IF v_exists = 0 THEN EXECUTE IMMEDIATE 'CREATE INDEX idx_raw_statements_user_content ON raw_statements(user_id, content_sha256)'; END IF;
+	SELECT COUNT(*) INTO v_exists FROM user_indexes WHERE index_name = 'IDX_STATEMENT_JOBS_USER_CONTENT';
+	IF v_exists = 0 THEN EXECUTE IMMEDIATE 'CREATE INDEX idx_statement_jobs_user_content ON statement_jobs(user_id, content_sha256)'; END IF;
+END;
+/
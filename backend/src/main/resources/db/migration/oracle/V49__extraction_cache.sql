@@ -0,0 +1,22 @@
+-- Content-addressed extraction cache: SHA-256 of the uploaded PDF -> gzip'd extraction JSON. Identical uploads (joint
+-- accounts, family members) skip the Python/LLM extraction. Entries expire by created_at; last_hit_at drives eviction
+-- when the table exceeds its size cap.
+DECLARE
+	v_exists NUMBER;
+BEGIN
+	SELECT COUNT(*) INTO v_exists FROM user_tables WHERE table_name = 'EXTRACTION_CACHE';
+	IF v_exists = 0 THEN
+		EXECUTE IMMEDIATE q'[CREATE TABLE extraction_cache (
+			sha256 VARCHAR2(64) PRIMARY KEY,
+			payload BLOB NOT NULL,
+			original_size NUMBER NOT NULL,
+			stored_size NUMBER NOT NULL,
+			created_at TIMESTAMP NOT NULL,
+			last_hit_at TIMESTAMP NOT NULL,
+			hit_count NUMBER DEFAULT 0 NOT NULL
+		)]';
+	END IF;
+	SELECT COUNT(*) INTO v_exists FROM user_indexes WHERE index_name = 'IDX_EXTRACTION_CACHE_LAST_HIT';
+	IF v_exists = 0 THEN EXECUTE IMMEDIATE 'CREATE INDEX idx_extraction_cache_last_hit ON extraction_cache(last_hit_at)'; END IF;
+END;
+/
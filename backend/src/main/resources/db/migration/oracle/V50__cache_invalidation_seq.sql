@@ -0,0 +1,13 @@
+-- Cache invalidations are polled by a strictly increasing sequence number instead of created_at, so a burst larger
+-- than one poll batch or a slow-committing writer cannot be skipped. Only CACHE_INVALIDATION rows carry a seq.
+DECLARE
+	v_exists NUMBER;
+BEGIN
+	SELECT COUNT(*) INTO v_exists FROM user_sequences WHERE sequence_name = 'CACHE_INVALIDATION_SEQ';
+	IF v_exists = 0 THEN EXECUTE IMMEDIATE 'CREATE SEQUENCE cache_invalidation_seq ORDER'; END IF;
+	SELECT COUNT(*) INTO v_exists FROM user_tab_cols WHERE table_name = 'OUTBOX_EVENTS' AND column_name = 'SEQ';
+	IF v_exists = 0 THEN EXECUTE IMMEDIATE 'ALTER TABLE outbox_events ADD (seq NUMBER(19))'; END IF;
+	SELECT COUNT(*) INTO v_exists FROM user_indexes WHERE index_name = 'IDX_OUTBOX_TYPE_SEQ';
+	IF v_exists = 0 THEN EXECUTE IMMEDIATE 'CREATE INDEX idx_outbox_type_seq ON outbox_events(aggregate_type, seq)'; END IF;
+END;
+/
@@ -0,0 +1,14 @@
+-- Lease per scheduled job so cron jobs that must not overlap (outbox retention, category learning) run on one replica.
+DECLARE
+	v_exists NUMBER;
+BEGIN
+	SELECT COUNT(*) INTO v_exists FROM user_tables WHERE table_name = 'JOB_LOCKS';
+	IF v_exists = 0 THEN
+		EXECUTE IMMEDIATE q'[CREATE TABLE job_locks (
+			name VARCHAR2(64) PRIMARY KEY,
+			locked_until TIMESTAMP NOT NULL,
+			locked_by VARCHAR2(64) NOT NULL
+		)]';
+	END IF;
+END;
+/
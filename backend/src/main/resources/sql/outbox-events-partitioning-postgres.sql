@@ -0,0 +1,58 @@
+-- Optional (PostgreSQL only): convert outbox_events into a table range-partitioned by month on created_at,
+-- so OutboxRetentionJob can drop expired months instead of deleting rows.
+-- Run manually during a quiet window, then set app.outbox.retention.partitioned=true.
+-- The job keeps app.outbox.retention.partitions-ahead future partitions created; the DEFAULT partition catches
+-- anything outside them.
+BEGIN;
+
+ALTER TABLE outbox_events RENAME TO outbox_events_legacy;
+ALTER INDEX IF EXISTS idx_outbox_status_created RENAME TO idx_outbox_legacy_status_created;
+ALTER INDEX IF EXISTS idx_outbox_type_created RENAME TO idx_outbox_legacy_type_created;
+ALTER INDEX IF EXISTS idx_outbox_status_next_attempt RENAME TO idx_outbox_legacy_status_next_attempt;
+ALTER INDEX IF EXISTS idx_outbox_type_seq RENAME TO idx_outbox_legacy_type_seq;
+
+-- The partition key must be part of the primary key
+CREATE TABLE outbox_events (
+    id VARCHAR(36) NOT NULL,
+    aggregate_type VARCHAR(64) NOT NULL,
+    aggregate_id VARCHAR(64) NOT NULL,
+    event_type VARCHAR(96) NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    last_attempt_at TIMESTAMP NULL,
+    attempt_count INT NULL,
+    next_attempt_at TIMESTAMP NULL,
+    last_error VARCHAR(1000) NULL,
+    seq BIGINT NULL,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX idx_outbox_status_created ON outbox_events(status, created_at);
+CREATE INDEX idx_outbox_type_created ON outbox_events(aggregate_type, created_at);
+CREATE INDEX idx_outbox_status_next_attempt ON outbox_events(status, next_attempt_at);
+-- Cache invalidation poll cursor (V46)
+CREATE INDEX idx_outbox_type_seq ON outbox_events(aggregate_type, seq);
+
+CREATE TABLE outbox_events_default PARTITION OF outbox_events DEFAULT;
+
+DO $$
+DECLARE
+    m DATE := date_trunc('month', COALESCE((SELECT MIN(created_at) FROM outbox_events_legacy), now()))::date;
+BEGIN
+    WHILE m <= date_trunc('month', now())::date + INTERVAL '2 months' LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS outbox_events_p%s PARTITION OF outbox_events FOR VALUES FROM (%L) TO (%L)',
+                       to_char(m, 'YYYYMM'), m, (m + INTERVAL '1 month')::date);
+        m := (m + INTERVAL '1 month')::date;
+    END LOOP;
+END $$;
+
+INSERT INTO outbox_events (id, aggregate_type, aggregate_id, event_type, payload, status, created_at,
+                           last_attempt_at, attempt_count, next_attempt_at, last_error, seq)
+SELECT id, aggregate_type, aggregate_id, event_type, payload, status, created_at,
+       last_attempt_at, attempt_count, next_attempt_at, last_error, seq
+FROM outbox_events_legacy;
+
+DROP TABLE outbox_events_legacy;
+
+COMMIT;
@@ -0,0 +1,81 @@
+package com.expensetracker.config;
+
+import ch.qos.logback.classic.Level;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Rough per-request overhead of the logging aspect: legacy "full" capture vs sampled async access mode.
+ * Run with: mvn test -Dtest=RequestResponseLoggingAspectBenchmarkTest -Dbench=true
+ */
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+class RequestResponseLoggingAspectBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestResponseLoggingAspectBenchmarkTest.class);
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 200_000;
+
+    @Test
+    void compareFullVsAccessMode() throws Throwable {
+        // Measure the aspect itself, not the console appender
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("HTTP")).setLevel(Level.OFF);
+
+        RequestResponseLoggingAspect full = aspect("full", 1.0, false);
+        RequestResponseLoggingAspect access = aspect("access", 0.1, true);
+        ProceedingJoinPoint pjp = joinPoint();
+
+        double fullNs = measure(full, pjp);
+        double accessNs = measure(access, pjp);
+        log.info("logging aspect overhead: full={} ns/op, access(sampled 10%, async)={} ns/op", Math.round(fullNs), Math.round(accessNs));
+    }
+
+    private double measure(RequestResponseLoggingAspect aspect, ProceedingJoinPoint pjp) throws Throwable {
+        for (int i = 0; i < WARMUP; i++) aspect.logAround(pjp);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) aspect.logAround(pjp);
+        return (System.nanoTime() - start) / (double) ITERATIONS;
+    }
+
+    private RequestResponseLoggingAspect aspect(String mode, double sampleRate, boolean async) {
+        AsyncAccessLogWriter writer = new AsyncAccessLogWriter();
+        ReflectionTestUtils.setField(writer, "asyncEnabled", async);
+        ReflectionTestUtils.setField(writer, "queueCapacity", 8192);
+        writer.start();
+        RequestResponseLoggingAspect aspect = new RequestResponseLoggingAspect(writer);
+        ReflectionTestUtils.setField(aspect, "httpLogging", true);
+        ReflectionTestUtils.setField(aspect, "mode", mode);
+        ReflectionTestUtils.setField(aspect, "sampleRate", sampleRate);
+        ReflectionTestUtils.setField(aspect, "slowThresholdMs", 1000L);
+        ReflectionTestUtils.setField(aspect, "bodyPaths", new String[0]);
+        return aspect;
+    }
+
+    private ProceedingJoinPoint joinPoint() throws Throwable {
+        List<Map<String, Object>> body = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            body.add(Map.of("id", i, "description", "UPI/PAYMENT/MERCHANT " + i, "amount", -125.50 * i, "category", "Shopping"));
+        }
+        MethodSignature signature = mock(MethodSignature.class);
+        when(signature.getDeclaringType()).thenReturn(RequestResponseLoggingAspectBenchmarkTest.class);
+        when(signature.getMethod()).thenReturn(RequestResponseLoggingAspectBenchmarkTest.class.getDeclaredMethod("compareFullVsAccessMode"));
+        when(signature.getParameterNames()).thenReturn(new String[]{"page", "size", "token"});
+        ProceedingJoinPoint pjp = mock(ProceedingJoinPoint.class);
+        when(pjp.getSignature()).thenReturn(signature);
+        when(pjp.getArgs()).thenReturn(new Object[]{0, 25, "Bearer abc.def.ghi"});
+        when(pjp.proceed()).thenReturn(ResponseEntity.ok(body));
+        return pjp;
+    }
+}
@@ -6,8 +6,10 @@ import com.expensetracker.model.UpcomingTransaction;
 import com.expensetracker.repository.TransactionRepository;
 import com.expensetracker.repository.UpcomingTransactionRepository;
 import com.expensetracker.security.AuthenticationFacade;
+import com.expensetracker.service.cache.CacheInvalidationBus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import java.math.BigDecimal;
 import java.time.YearMonth;
 import java.util.List;
@@ -19,7 +21,7 @@ class ForecastServiceTest {
     TransactionRepository txRepo = mock(TransactionRepository.class);
     UpcomingTransactionRepository upcomingRepo = mock(UpcomingTransactionRepository.class);
     AuthenticationFacade auth = mock(AuthenticationFacade.class);
-    ForecastCache cache = new ForecastCache();
+    ForecastCache cache = new ForecastCache(new CaffeineCacheManager(ForecastCache.CACHE_NAME), mock(CacheInvalidationBus.class));
     ForecastService service;
     EmailNotificationService emailNotificationService = mock(EmailNotificationService.class);
     User user;
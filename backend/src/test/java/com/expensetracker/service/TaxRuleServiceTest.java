@@ -0,0 +1,73 @@
+package com.expensetracker.service;
+
+import com.expensetracker.model.Transaction;
+import com.expensetracker.model.User;
+import com.expensetracker.repository.TaxDeductionRuleRepository;
+import com.expensetracker.repository.TaxTransactionRepository;
+import com.expensetracker.security.AuthenticationFacade;
+import com.expensetracker.service.cache.CacheInvalidationBus;
+import com.expensetracker.service.tax.TaxAutoClassifier;
+import com.expensetracker.support.RecordingTransactionManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TaxRuleServiceTest {
+    CacheInvalidationBus bus = mock(CacheInvalidationBus.class);
+    TaxAutoClassifier classifier = mock(TaxAutoClassifier.class);
+    RecordingTransactionManager transactionManager = new RecordingTransactionManager();
+    TaxSummaryCache summaryCache = new TaxSummaryCache(new CaffeineCacheManager(TaxSummaryCache.CACHE_NAME), bus);
+    TaxRuleService service = new TaxRuleService(mock(TaxDeductionRuleRepository.class), mock(TaxTransactionRepository.class),
+            mock(AuthenticationFacade.class), new SimpleMeterRegistry(), mock(TaxRuleCache.class), classifier, summaryCache, transactionManager);
+
+    @Test
+    void ingestClassificationEvictsTheSummaryWhenItsOwnTransactionCommits(){
+        User user = new User(); user.setId(3L);
+        Transaction saved = new Transaction(); saved.setId(21L); saved.setAmount(new BigDecimal("-500"));
+        TaxSummaryCache.Totals stale = new TaxSummaryCache.Totals(BigDecimal.ZERO, 0, Map.of());
+        summaryCache.get(3L, 2024, () -> stale);
+        List<String> classifiedIn = new ArrayList<>();
+        List<String> publishedIn = new ArrayList<>();
+        when(classifier.classifyNew(eq(user), any(), any())).thenAnswer(inv -> {
+            classifiedIn.add(RecordingTransactionManager.current());
+            return 1;
+        });
+        doAnswer(inv -> publishedIn.add(RecordingTransactionManager.current())).when(bus).publish(TaxSummaryCache.CACHE_NAME, 3L);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            service.classifyIngested(user, List.of(saved));
+            assertTrue(classifiedIn.isEmpty(), "classification waits for the upload to commit");
+        });
+
+        assertEquals(List.of("tx2"), classifiedIn);
+        assertEquals(List.of("tx2"), publishedIn, "the outbox row is written in the classification transaction");
+        assertEquals(List.of("begin tx1", "commit tx1", "begin tx2", "commit tx2"), transactionManager.events);
+        assertNotSame(stale, summaryCache.get(3L, 2024, () -> new TaxSummaryCache.Totals(BigDecimal.ONE, 0, Map.of())));
+    }
+
+    @Test
+    void failedClassificationLeavesTheSummaryCached(){
+        User user = new User(); user.setId(3L);
+        Transaction saved = new Transaction(); saved.setId(21L); saved.setAmount(new BigDecimal("-500"));
+        TaxSummaryCache.Totals cached = new TaxSummaryCache.Totals(BigDecimal.ZERO, 0, Map.of());
+        summaryCache.get(3L, 2024, () -> cached);
+        when(classifier.classifyNew(eq(user), any(), any())).thenThrow(new IllegalStateException("insert failed"));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> service.classifyIngested(user, List.of(saved)));
+
+        assertEquals(List.of("begin tx1", "commit tx1", "begin tx2", "rollback tx2"), transactionManager.events);
+        assertSame(cached, summaryCache.get(3L, 2024, () -> null));
+        verify(bus, never()).publish(any(), any());
+    }
+}
@@ -0,0 +1,93 @@
+package com.expensetracker.service;
+
+import com.expensetracker.model.TaxCategory;
+import com.expensetracker.model.TaxTransaction;
+import com.expensetracker.model.User;
+import com.expensetracker.repository.TaxCategoryRepository;
+import com.expensetracker.repository.TaxClassificationIgnoreRepository;
+import com.expensetracker.repository.TaxTransactionRepository;
+import com.expensetracker.security.AuthenticationFacade;
+import com.expensetracker.service.cache.CacheInvalidationBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TaxServiceTest {
+    TaxTransactionRepository repo = mock(TaxTransactionRepository.class);
+    TaxCategoryRepository categoryRepo = mock(TaxCategoryRepository.class);
+    AuthenticationFacade auth = mock(AuthenticationFacade.class);
+    CacheInvalidationBus bus = mock(CacheInvalidationBus.class);
+    TaxService service;
+    User user;
+
+    private TaxTransactionRepository.CategorySummary row(String category, String total, long missing){
+        return new TaxTransactionRepository.CategorySummary(){
+            public String getCategory(){return category;} public BigDecimal getTotal(){return new BigDecimal(total);} public Long getMissingReceipts(){return missing;}
+        };
+    }
+
+    @BeforeEach void setup(){
+        TaxCategory c80 = new TaxCategory(); c80.setId(1L); c80.setCode("80C"); c80.setAnnualLimit(new BigDecimal("150000"));
+        TaxCategory c80d = new TaxCategory(); c80d.setId(2L); c80d.setCode("80D"); c80d.setAnnualLimit(new BigDecimal("25000"));
+        when(categoryRepo.findAll(any(Sort.class))).thenReturn(List.of(c80, c80d));
+        TaxCategoryCatalog catalog = new TaxCategoryCatalog(categoryRepo, bus);
+        TaxSummaryCache cache = new TaxSummaryCache(new CaffeineCacheManager(TaxSummaryCache.CACHE_NAME), bus);
+        service = new TaxService(repo, catalog, cache, mock(TaxClassificationIgnoreRepository.class), auth, null);
+        user = new User(); user.setId(3L); when(auth.currentUser()).thenReturn(user);
+        when(repo.aggregateSummary(user, 2024)).thenReturn(List.of(row("80C", "140000", 2), row("80D", "5000", 1)));
+    }
+
+    @Test
+    void summaryAndInsightsShareOneAggregation(){
+        var summary = service.summary(2024);
+        var insights = service.insights(2024);
+
+        assertEquals(new BigDecimal("145000"), summary.totalDeductible());
+        assertEquals(3, summary.missingReceipts());
+        assertEquals(List.of("80C", "80D"), summary.categories().stream().map(c -> c.code()).toList());
+        assertTrue(summary.categories().get(0).nearLimit());
+        assertTrue(insights.stream().anyMatch(i -> i.id().equals("NEAR-80C")));
+        verify(repo, times(1)).aggregateSummary(user, 2024);
+        verify(categoryRepo, times(1)).findAll(any(Sort.class));
+    }
+
+    @Test
+    void mutationEvictsCachedSummary(){
+        service.summary(2024);
+        TaxTransaction t = new TaxTransaction(); t.setId(9L); t.setUser(user); t.setDeductible(true);
+        when(repo.findById(9L)).thenReturn(Optional.of(t));
+        service.toggleDeductible(9L);
+        service.summary(2024);
+        verify(repo, times(2)).aggregateSummary(user, 2024);
+    }
+
+    @Test
+    void evictionWaitsForCommit(){
+        service.summary(2024);
+        TaxTransaction t = new TaxTransaction(); t.setId(9L); t.setUser(user); t.setDeductible(true);
+        when(repo.findById(9L)).thenReturn(Optional.of(t));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.toggleDeductible(9L);
+            service.summary(2024);
+            verify(repo, times(1)).aggregateSummary(user, 2024);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        service.summary(2024);
+        verify(repo, times(2)).aggregateSummary(user, 2024);
+        verify(bus, times(1)).publish(TaxSummaryCache.CACHE_NAME, 3L);
+    }
+}
@@ -0,0 +1,112 @@
+package com.expensetracker.service.email;
+
+import com.expensetracker.model.EmailQueueItem;
+import com.expensetracker.repository.EmailAuditRepository;
+import com.expensetracker.repository.EmailQueueRepository;
+import com.expensetracker.repository.UserRepository;
+import com.expensetracker.service.EmailTemplateService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EmailQueueWorkerTest {
+    EmailQueueRepository repo = mock(EmailQueueRepository.class);
+    JavaMailSender sender = mock(JavaMailSender.class);
+    EmailTemplateService templates = mock(EmailTemplateService.class);
+    EmailQueueWorker worker;
+
+    @BeforeEach void setup(){
+        worker = new EmailQueueWorker(repo, mock(EmailAuditRepository.class), mock(UserRepository.class), sender, templates,
+                mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), "alerts@example.com", "Alerts", 1);
+        ReflectionTestUtils.setField(worker, "batchSize", 2);
+        ReflectionTestUtils.setField(worker, "leaseSeconds", 120L);
+        ReflectionTestUtils.setField(worker, "maxAttempts", 3);
+        ReflectionTestUtils.setField(worker, "backoffBaseSeconds", 30L);
+        when(sender.createMimeMessage()).thenAnswer(inv -> new MimeMessage((Session) null));
+        when(templates.renderSpendingAlert(any(), any(), any(), any(), any(), any(), any())).thenReturn("<p>alert</p>");
+        when(templates.renderSpendingAlertDigest(anyList())).thenReturn("<p>digest</p>");
+    }
+
+    private static EmailQueueItem item(long id, String recipient, boolean alert){
+        EmailQueueItem i = new EmailQueueItem();
+        i.setId(id); i.setRecipient(recipient); i.setSubject("s" + id); i.setStatus(EmailQueueItem.Status.PENDING);
+        if (alert) { i.setType(EmailQueueService.TYPE_SPENDING_ALERT); i.setPayload("{\"title\":\"t" + id + "\"}"); }
+        else { i.setType("WELCOME"); i.setHtml("<p>hi</p>"); }
+        return i;
+    }
+
+    @Test
+    void claimTakesTheRestOfAUsersAlertsAndLeasesThem(){
+        EmailQueueItem a1 = item(1, "a@x", true), w = item(2, "b@x", false), a2 = item(3, "a@x", true);
+        when(repo.claimBatch(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(a1, w));
+        when(repo.claimDigestRest(eq("a@x"), eq(EmailQueueService.TYPE_SPENDING_ALERT), any(LocalDateTime.class), anyCollection())).thenReturn(List.of(a2));
+
+        List<EmailQueueItem> batch = worker.claim();
+
+        assertEquals(List.of(a1, w, a2), batch);
+        batch.forEach(i -> assertTrue(i.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(100))));
+        ArgumentCaptor<java.util.Collection> claimed = ArgumentCaptor.forClass(java.util.Collection.class);
+        verify(repo).countDueDigestItems(eq("a@x"), eq(EmailQueueService.TYPE_SPENDING_ALERT), any(LocalDateTime.class), claimed.capture());
+        assertEquals(List.of(1L, 3L), List.copyOf(claimed.getValue()));
+    }
+
+    @Test
+    void recipientWithAlertsHeldByAnotherWorkerIsLeftForOneLaterDigest(){
+        EmailQueueItem a1 = item(1, "a@x", true), w = item(2, "b@x", false);
+        when(repo.claimBatch(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(a1, w));
+        when(repo.countDueDigestItems(eq("a@x"), anyString(), any(LocalDateTime.class), anyCollection())).thenReturn(1L);
+
+        assertEquals(List.of(w), worker.claim());
+        assertNull(a1.getNextAttemptAt(), "not leased, so it is due again once this claim commits");
+    }
+
+    @Test
+    void alertsForOneRecipientGoOutAsOneDigest(){
+        EmailQueueItem a1 = item(1, "a@x", true), a2 = item(2, "a@x", true), b = item(3, "b@x", true), w = item(4, "a@x", false);
+        List<EmailQueueItem> batch = List.of(a1, b, a2, w);
+        when(repo.findAllById(anyList())).thenReturn(batch);
+
+        worker.send(batch);
+
+        ArgumentCaptor<List> digest = ArgumentCaptor.forClass(List.class);
+        verify(templates).renderSpendingAlertDigest(digest.capture());
+        assertEquals(List.of(Map.of("title", "t1"), Map.of("title", "t2")), digest.getValue());
+        verify(templates, times(1)).renderSpendingAlert(eq("t3"), any(), any(), any(), any(), any(), any());
+        verify(sender).send(any(MimeMessage[].class));
+        batch.forEach(i -> assertEquals(EmailQueueItem.Status.SENT, i.getStatus()));
+    }
+
+    @Test
+    void failedSendBacksOffAndGivesUpAfterMaxAttempts(){
+        EmailQueueItem first = item(1, "a@x", false), last = item(2, "b@x", false);
+        last.setAttemptCount(2);
+        List<EmailQueueItem> batch = List.of(first, last);
+        when(repo.findAllById(anyList())).thenReturn(batch);
+        doThrow(new MailSendException("smtp down")).when(sender).send(any(MimeMessage[].class));
+
+        worker.send(batch);
+
+        assertEquals(EmailQueueItem.Status.PENDING, first.getStatus());
+        assertEquals(1, first.getAttemptCount());
+        assertEquals("smtp down", first.getLastError());
+        assertTrue(first.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(25)));
+        assertEquals(EmailQueueItem.Status.FAILED, last.getStatus());
+        assertEquals(3, last.getAttemptCount());
+    }
+}
@@ -0,0 +1,80 @@
+package com.expensetracker.service.email;
+
+import com.expensetracker.config.DatabaseVendor;
+import com.expensetracker.repository.NotificationIdempotencyKeyRepository;
+import com.expensetracker.repository.NotificationRateCounterRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class NotificationRateLimiterTest {
+    NotificationRateCounterRepository counters = mock(NotificationRateCounterRepository.class);
+    NotificationIdempotencyKeyRepository keys = mock(NotificationIdempotencyKeyRepository.class);
+    JdbcTemplate jdbc = mock(JdbcTemplate.class);
+
+    private NotificationRateLimiter limiter(boolean oracle){
+        return new NotificationRateLimiter(counters, keys, jdbc, new DatabaseVendor(oracle), mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void previousWindowShrinksTheCurrentBudget(){
+        assertEquals(5, NotificationRateLimiter.maxCurrentHits(5, 0, 0.5));
+        assertEquals(3, NotificationRateLimiter.maxCurrentHits(5, 4, 0.5));
+        assertEquals(0, NotificationRateLimiter.maxCurrentHits(5, 10, 0.5));
+        assertEquals(1, NotificationRateLimiter.maxCurrentHits(5, 9, 0.5), "4.5 of 5 used: one more fits");
+    }
+
+    @Test
+    void budgetIsOneConditionalUpsertInTheCallersTransaction(){
+        when(jdbc.update(eq(NotificationRateLimiter.POSTGRES_COUNTER), any(Object[].class))).thenReturn(1, 0);
+        NotificationRateLimiter limiter = limiter(false);
+
+        assertTrue(limiter.tryAcquire(7L, "LOW_BALANCE", 2, Duration.ofHours(24)));
+        assertFalse(limiter.tryAcquire(7L, "LOW_BALANCE", 2, Duration.ofHours(24)), "the WHERE hits < max clause matched nothing");
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbc, times(2)).update(eq(NotificationRateLimiter.POSTGRES_COUNTER), args.capture());
+        assertEquals(2, args.getValue()[5]);
+        assertFalse(limiter.tryAcquire(7L, "LOW_BALANCE", 0, Duration.ofHours(24)));
+        verify(jdbc, times(2)).update(anyString(), any(Object[].class));
+    }
+
+    @Test
+    void oracleMergeRaceIsRetriedOnce(){
+        when(jdbc.update(eq(NotificationRateLimiter.ORACLE_COUNTER), any(Object[].class)))
+                .thenThrow(new DuplicateKeyException("ORA-00001")).thenReturn(1);
+        assertTrue(limiter(true).tryAcquire(7L, "SPENDING_ALERT", 5, Duration.ofHours(1)));
+        verify(jdbc, times(2)).update(eq(NotificationRateLimiter.ORACLE_COUNTER), any(Object[].class));
+    }
+
+    @Test
+    void claimedKeyIsOnlyCachedAfterCommit(){
+        when(jdbc.update(eq(NotificationRateLimiter.POSTGRES_KEY), any(Object[].class))).thenReturn(1);
+        NotificationRateLimiter limiter = limiter(false);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertTrue(limiter.claimOnce("goal:1:milestone:50", 7L, Duration.ofDays(1)));
+            assertFalse(limiter.seen("goal:1:milestone:50"), "a rollback would leave no row behind");
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertTrue(limiter.seen("goal:1:milestone:50"));
+        assertFalse(limiter.claimOnce("goal:1:milestone:50", 7L, Duration.ofDays(1)));
+    }
+
+    @Test
+    void unexpiredKeyHeldElsewhereIsNotClaimed(){
+        when(jdbc.update(eq(NotificationRateLimiter.POSTGRES_KEY), any(Object[].class))).thenReturn(0);
+        assertFalse(limiter(false).claimOnce("goal:1:nudge", 7L, Duration.ofDays(14)));
+    }
+}
@@ -0,0 +1,68 @@
+package com.expensetracker.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Render throughput of the hottest email templates, with and without the cached base wrapper.
+ * Run with: mvn test -Dtest=ThymeleafEmailTemplateServiceBenchmarkTest -Dbench=true
+ */
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+class ThymeleafEmailTemplateServiceBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ThymeleafEmailTemplateServiceBenchmarkTest.class);
+
+    private static final int WARMUP = 5_000;
+    private static final int ITERATIONS = 50_000;
+
+    @Test
+    void renderThroughput() {
+        ThymeleafEmailTemplateService plain = service(false);
+        ThymeleafEmailTemplateService cached = service(true);
+        assertEquals(alert(plain).get(), alert(cached).get());
+
+        log.info("renderSpendingAlert: full={} ops/s, fragment-cache={} ops/s",
+                Math.round(measure(alert(plain))), Math.round(measure(alert(cached))));
+        log.info("renderGoalMilestone: full={} ops/s, fragment-cache={} ops/s",
+                Math.round(measure(milestone(plain))), Math.round(measure(milestone(cached))));
+    }
+
+    private Supplier<String> alert(ThymeleafEmailTemplateService svc) {
+        return () -> svc.renderSpendingAlert("Large transaction", "Spent more than usual", "Shopping", "AMAZON <IN>", "12,499.00", "2024-05-02", "high");
+    }
+
+    private Supplier<String> milestone(ThymeleafEmailTemplateService svc) {
+        return () -> svc.renderGoalMilestone("Emergency fund", 50, "50000", "100000");
+    }
+
+    private double measure(Supplier<String> render) {
+        for (int i = 0; i < WARMUP; i++) render.get();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) render.get();
+        return ITERATIONS / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private ThymeleafEmailTemplateService service(boolean fragmentCache) {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        resolver.setCacheable(true);
+        SpringTemplateEngine engine = new SpringTemplateEngine();
+        engine.setTemplateResolver(resolver);
+        ThymeleafEmailTemplateService svc = new ThymeleafEmailTemplateService(engine);
+        ReflectionTestUtils.setField(svc, "fragmentCache", fragmentCache);
+        return svc;
+    }
+}
@@ -0,0 +1,92 @@
+package com.expensetracker.service.statement;
+
+import com.expensetracker.config.DatabaseVendor;
+import com.expensetracker.model.Transaction;
+import com.expensetracker.model.User;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+class BankCategoryUpserterTest {
+    JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    User user = user();
+
+    private static User user(){
+        User u = new User(); u.setId(7L);
+        return u;
+    }
+
+    private static Transaction tx(String bank, String category){
+        Transaction t = new Transaction(); t.setBankName(bank); t.setCategory(category);
+        return t;
+    }
+
+    @Test
+    void postgresStatementIsOneMultiRowUpsertOnTheLowerNameIndex(){
+        assertEquals("INSERT INTO banks (user_id, name, transaction_count) VALUES (?, ?, ?), (?, ?, ?) " +
+                        "ON CONFLICT (user_id, lower(name)) DO UPDATE SET transaction_count = banks.transaction_count + EXCLUDED.transaction_count",
+                BankCategoryUpserter.postgresSql("banks", 2));
+    }
+
+    @Test
+    void oracleStatementIsOneMergeOverAUnionOfRows(){
+        assertEquals("MERGE INTO categories t USING (SELECT ? AS user_id, ? AS name, ? AS cnt FROM dual " +
+                        "UNION ALL SELECT ? AS user_id, ? AS name, ? AS cnt FROM dual) s " +
+                        "ON (t.user_id = s.user_id AND LOWER(t.name) = LOWER(s.name)) " +
+                        "WHEN MATCHED THEN UPDATE SET t.transaction_count = t.transaction_count + s.cnt " +
+                        "WHEN NOT MATCHED THEN INSERT (user_id, name, transaction_count) VALUES (s.user_id, s.name, s.cnt)",
+                BankCategoryUpserter.oracleSql("categories", 2));
+    }
+
+    @Test
+    void caseVariantsAreFoldedAndBoundInKeyOrder(){
+        new BankCategoryUpserter(jdbc, new DatabaseVendor(false)).upsert(user, List.of(
+                tx("SBI", "Food"), tx("HDFC ", "food"), tx("hdfc", " "), tx(" Hdfc", null)));
+
+        ArgumentCaptor<Object[]> banks = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbc).update(eq(BankCategoryUpserter.postgresSql("banks", 2)), banks.capture());
+        assertEquals(Arrays.asList(7L, "HDFC", 3L, 7L, "SBI", 1L), Arrays.asList(banks.getValue()), "first spelling wins, trimmed");
+        ArgumentCaptor<Object[]> categories = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbc).update(eq(BankCategoryUpserter.postgresSql("categories", 2)), categories.capture());
+        assertEquals(Arrays.asList(7L, "Food", 2L, 7L, "Unknown", 2L), Arrays.asList(categories.getValue()), "blank and null count as Unknown");
+    }
+
+    @Test
+    void oracleMergeRaceIsRetriedOnce(){
+        String sql = BankCategoryUpserter.oracleSql("banks", 1);
+        when(jdbc.update(eq(sql), any(Object[].class))).thenThrow(new DuplicateKeyException("uq_banks_user_lower_name")).thenReturn(1);
+
+        new BankCategoryUpserter(jdbc, new DatabaseVendor(true)).upsert(user, List.of(tx("HDFC", "Food")));
+
+        verify(jdbc, times(2)).update(eq(sql), any(Object[].class));
+        verify(jdbc, times(1)).update(eq(BankCategoryUpserter.oracleSql("categories", 1)), any(Object[].class));
+    }
+
+    @Test
+    void moveCategoryDecrementsTheSourceAndUpsertsTheTarget(){
+        BankCategoryUpserter upserter = new BankCategoryUpserter(jdbc, new DatabaseVendor(false));
+
+        upserter.moveCategory(user, " Food ", "Dining");
+
+        ArgumentCaptor<Object[]> decrement = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbc).update(startsWith("UPDATE categories SET transaction_count = transaction_count - 1"), decrement.capture());
+        assertEquals(Arrays.asList(7L, "Food"), Arrays.asList(decrement.getValue()));
+        ArgumentCaptor<Object[]> target = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbc).update(eq(BankCategoryUpserter.postgresSql("categories", 1)), target.capture());
+        assertEquals(Arrays.asList(7L, "Dining", 1L), Arrays.asList(target.getValue()));
+
+        upserter.moveCategory(user, null, "Dining");
+        verify(jdbc, times(3)).update(anyString(), any(Object[].class));
+    }
+}
@@ -0,0 +1,123 @@
+package com.expensetracker.service.statement;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ExtractionCacheTest {
+    static final String JSON = "[{\"date\":\"2024-03-01\",\"amount\":\"-120.00\"}]";
+
+    JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    ExtractionCache cache;
+
+    @BeforeEach void setup(){
+        cache = new ExtractionCache(jdbc, transactionManager, meters);
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "ttlDays", 30);
+        ReflectionTestUtils.setField(cache, "maxBytes", 600L);
+        ReflectionTestUtils.setField(cache, "maxEntryBytes", 4096L);
+    }
+
+    private double count(String result){
+        return meters.counter("app.extraction.cache", "result", result).count();
+    }
+
+    @Test
+    void onlyNonEmptyExtractionsAreCached(){
+        assertTrue(ExtractionCache.cacheable("[{\"date\":\"2024-03-01\",\"amount\":\"-120.00\"}]"));
+        assertFalse(ExtractionCache.cacheable("[]"));
+        assertFalse(ExtractionCache.cacheable("  "));
+        assertFalse(ExtractionCache.cacheable(null));
+        assertFalse(ExtractionCache.cacheable("Traceback (most recent call last):"));
+    }
+
+    @Test
+    void hitReturnsPayloadAndRecordsItInItsOwnTransaction(){
+        when(jdbc.query(startsWith("SELECT payload"), any(RowMapper.class), any(Object[].class)))
+                .thenReturn(List.of(RawStatementPayloadStore.gzip(JSON)));
+
+        assertEquals(JSON, cache.get("ab12"));
+
+        verify(jdbc).update(startsWith("UPDATE extraction_cache SET last_hit_at"), any(Object[].class));
+        verify(transactionManager).commit(any());
+        assertEquals(1, count("hit"));
+    }
+
+    @Test
+    void lookupOnlyConsidersEntriesYoungerThanTheTtl(){
+        when(jdbc.query(startsWith("SELECT payload"), any(RowMapper.class), any(Object[].class))).thenReturn(List.of());
+
+        assertNull(cache.get("ab12"));
+
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbc).query(startsWith("SELECT payload"), any(RowMapper.class), args.capture());
+        LocalDateTime cutoff = ((Timestamp) args.getValue()[1]).toLocalDateTime();
+        assertTrue(Math.abs(Duration.between(LocalDateTime.now().minusDays(30), cutoff).toMinutes()) < 1);
+        verify(jdbc, never()).update(anyString(), any(Object[].class));
+        assertEquals(1, count("miss"));
+    }
+
+    @Test
+    void storeReplacesAnExpiredEntryAndToleratesAConcurrentStore(){
+        cache.put("ab12", JSON);
+        verify(jdbc).update(startsWith("DELETE FROM extraction_cache WHERE sha256"), any(Object[].class));
+        verify(jdbc).update(startsWith("INSERT INTO extraction_cache"), any(Object[].class));
+        assertEquals(1, count("store"));
+
+        when(jdbc.update(startsWith("INSERT INTO extraction_cache"), any(Object[].class))).thenThrow(new DuplicateKeyException("extraction_cache_pkey"));
+        cache.put("ab12", JSON);
+        assertEquals(1, count("store"));
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void emptyAndOversizedOutputsAreNotStored(){
+        cache.put("ab12", "[]");
+        ReflectionTestUtils.setField(cache, "maxEntryBytes", 8L);
+        cache.put("ab12", JSON);
+
+        verifyNoInteractions(jdbc);
+    }
+
+    @Test
+    void cleanupEvictsLeastRecentlyHitEntriesUntilUnderTheCap() throws Exception {
+        when(jdbc.update(eq("DELETE FROM extraction_cache WHERE created_at < ?"), any(Object[].class))).thenReturn(2);
+        when(jdbc.queryForObject(startsWith("SELECT COALESCE(SUM(stored_size)"), eq(Long.class))).thenReturn(1000L);
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            for (String sha : List.of("old", "older", "recent")) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getString(1)).thenReturn(sha);
+                when(rs.getLong(2)).thenReturn(300L);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbc).query(startsWith("SELECT sha256, stored_size"), any(RowCallbackHandler.class));
+
+        cache.cleanup();
+
+        ArgumentCaptor<List> victims = ArgumentCaptor.forClass(List.class);
+        verify(jdbc).batchUpdate(eq("DELETE FROM extraction_cache WHERE sha256 = ?"), victims.capture());
+        assertEquals(2, victims.getValue().size(), "400 bytes over the cap: two 300 byte entries go");
+        assertEquals(4, count("evict"));
+    }
+}
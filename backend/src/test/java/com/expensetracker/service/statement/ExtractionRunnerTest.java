@@ -0,0 +1,28 @@
+package com.expensetracker.service.statement;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ExtractionRunnerTest {
+    ExtractionCache cache = mock(ExtractionCache.class);
+    InlineStatementExtractor inline = mock(InlineStatementExtractor.class);
+
+    @Test
+    void cacheHitSkipsInlineAndPythonExtraction() throws Exception {
+        PdfInspector.Info pdf = new PdfInspector.Info("ab12", 3, false, true);
+        when(cache.get("ab12")).thenReturn("[{\"amount\":\"-1\"}]");
+
+        // No script path or python command is configured: reaching the subprocess would fail
+        String output = new ExtractionRunner(cache, inline).run(new File("missing.pdf"), null, pdf);
+
+        assertEquals("[{\"amount\":\"-1\"}]", output);
+        verifyNoInteractions(inline);
+        verify(cache, never()).put(anyString(), any());
+    }
+}
@@ -0,0 +1,113 @@
+package com.expensetracker.service.statement;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InlineStatementExtractorTest {
+    @TempDir
+    Path dir;
+
+    private static final float[] X = {40, 100, 300, 380, 460, 530};
+    private static final String[] HEADER = {"Date", "Narration", "Withdrawal Amt.", "Deposit Amt.", "Closing Balance"};
+
+    @Test
+    void hdfcRowsAreReadByHeaderColumns() throws IOException {
+        File pdf = write("hdfc.pdf", "HDFC BANK LTD", new String[][]{
+                {"01/03/24", "UPI-SWIGGY-ORDER", "250.00", "", "9,750.00"},
+                {"", "REF 1234", "", "", ""},
+                {"02/03/24", "NEFT SALARY ACME", "", "50,000.00", "59,750.00"},
+                {"03/03/24", "ATM WDL", "1,000.00", "", "58,750.00"},
+                {"04/03/24", "POS AMAZON", "749.50", "", "58,000.50"}});
+
+        JSONArray rows = new JSONArray(InlineStatementExtractor.extract(pdf, null));
+        assertEquals(4, rows.length());
+        JSONObject first = rows.getJSONObject(0);
+        assertEquals("2024-03-01", first.getString("date"));
+        assertEquals("UPI-SWIGGY-ORDER REF 1234", first.getString("description"));
+        assertEquals(0, new BigDecimal("-250.00").compareTo(first.getBigDecimal("amount")));
+        assertEquals("HDFC", first.getString("bankName"));
+        assertEquals(0, new BigDecimal("50000.00").compareTo(rows.getJSONObject(1).getBigDecimal("amount")));
+    }
+
+    @Test
+    void unknownBankOrInconsistentBalancesFallBack() throws IOException {
+        String[][] rows = {
+                {"01/03/24", "A", "250.00", "", "9,750.00"},
+                {"02/03/24", "B", "100.00", "", "1.00"},
+                {"03/03/24", "C", "100.00", "", "2.00"},
+                {"04/03/24", "D", "100.00", "", "3.00"}};
+        assertNull(InlineStatementExtractor.extract(write("other.pdf", "SOME OTHER BANK", rows), null));
+        assertNull(InlineStatementExtractor.extract(write("bad.pdf", "HDFC BANK LTD", rows), null));
+    }
+
+    @Test
+    void balancesMustAllAddUpOverEnoughRows() {
+        List<InlineStatementExtractor.Row> newestFirst = List.of(
+                row("-100", "900"), row("-50", "1000"), row("1000", "1050"), row("-20", "50"));
+        assertTrue(InlineStatementExtractor.balancesAddUp(newestFirst));
+
+        List<InlineStatementExtractor.Row> oneOff = List.of(
+                row("-100", "900"), row("-50", "850"), row("-10", "840"), row("-10", "831"));
+        assertFalse(InlineStatementExtractor.balancesAddUp(oneOff), "a single misread balance means Python");
+
+        assertFalse(InlineStatementExtractor.balancesAddUp(List.of(row("-100", "900"), row("-50", "850"), row("-10", "840"))),
+                "two checks are not enough to trust the columns");
+        assertFalse(InlineStatementExtractor.balancesAddUp(List.of(row("-100", null), row("-50", null), row("-10", null), row("-5", null))));
+    }
+
+    private static InlineStatementExtractor.Row row(String amount, String balance) {
+        return new InlineStatementExtractor.Row(LocalDate.of(2024, 3, 1), "X", new BigDecimal(amount),
+                balance != null ? new BigDecimal(balance) : null, "HDFC");
+    }
+
+    @Test
+    void amountCells() {
+        assertEquals(0, new BigDecimal("-1234.50").compareTo(InlineStatementExtractor.number("1,234.50 Dr")));
+        assertEquals(0, new BigDecimal("99").compareTo(InlineStatementExtractor.number("₹99 Cr")));
+        assertEquals(0, new BigDecimal("-5.00").compareTo(InlineStatementExtractor.number("(5.00)")));
+        assertNull(InlineStatementExtractor.number("UPI/123"));
+    }
+
+    private File write(String name, String bank, String[][] rows) throws IOException {
+        File file = dir.resolve(name).toFile();
+        try (PDDocument doc = new PDDocument()) {
+            PDPage page = new PDPage();
+            doc.addPage(page);
+            try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                float y = 740;
+                text(cs, 40, y, bank);
+                y -= 30;
+                for (int i = 0; i < HEADER.length; i++) text(cs, X[i], y, HEADER[i]);
+                for (String[] row : rows) {
+                    y -= 16;
+                    for (int i = 0; i < row.length; i++) if (!row[i].isEmpty()) text(cs, X[i], y, row[i]);
+                }
+            }
+            doc.save(file);
+        }
+        return file;
+    }
+
+    private static void text(PDPageContentStream cs, float x, float y, String s) throws IOException {
+        cs.beginText();
+        cs.setFont(PDType1Font.HELVETICA, 8);
+        cs.newLineAtOffset(x, y);
+        cs.showText(s);
+        cs.endText();
+    }
+}
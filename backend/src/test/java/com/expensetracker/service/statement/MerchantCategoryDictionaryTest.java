@@ -0,0 +1,98 @@
+package com.expensetracker.service.statement;
+
+import com.expensetracker.config.DatabaseVendor;
+import com.expensetracker.config.JobLock;
+import com.expensetracker.model.Transaction;
+import com.expensetracker.model.User;
+import com.expensetracker.service.cache.CacheInvalidationBus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class MerchantCategoryDictionaryTest {
+    JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    CacheInvalidationBus bus = mock(CacheInvalidationBus.class);
+    JobLock jobLock = mock(JobLock.class);
+
+    private MerchantCategoryDictionary dictionary(boolean oracle) {
+        return new MerchantCategoryDictionary(jdbc, bus, mock(PlatformTransactionManager.class), new SimpleMeterRegistry(),
+                new DatabaseVendor(oracle), jobLock);
+    }
+
+    @Test
+    void correctionIsOneUpsertAndEvictsAfterCommit(){
+        dictionary(false).recordCorrection(5L, "  UPI  Coffee ", "Dining");
+
+        verify(jdbc).update(eq(MerchantCategoryDictionary.POSTGRES_CORRECTION), any(Object[].class));
+        verify(jdbc, times(1)).update(anyString(), any(Object[].class));
+        verify(bus).evictUserAfterCommit(MerchantCategoryDictionary.CACHE_NAME, 5L);
+    }
+
+    @Test
+    void oracleCorrectionRerunsOnceWhenAConcurrentMergeInserted(){
+        when(jdbc.update(eq(MerchantCategoryDictionary.ORACLE_CORRECTION), any(Object[].class)))
+                .thenThrow(new DuplicateKeyException("uq_merchant_category_key")).thenReturn(1);
+
+        dictionary(true).recordCorrection(5L, "UPI COFFEE", "Dining");
+
+        verify(jdbc, times(2)).update(eq(MerchantCategoryDictionary.ORACLE_CORRECTION), any(Object[].class));
+    }
+
+    @Test
+    void learningRunsOnlyUnderTheJobLock(){
+        MerchantCategoryDictionary dictionary = dictionary(false);
+        ReflectionTestUtils.setField(dictionary, "learnEnabled", true);
+        when(jobLock.runExclusively(eq("merchant-category-learn"), any(Duration.class), any(Runnable.class))).thenReturn(false);
+
+        dictionary.learn();
+
+        verify(jobLock).runExclusively(eq("merchant-category-learn"), any(Duration.class), any(Runnable.class));
+        verifyNoInteractions(jdbc);
+    }
+
+    @Test
+    void lookupPrefersLongestWordPrefixThenUserOverGlobal(){
+        MerchantCategoryDictionary.Lookup lookup = new MerchantCategoryDictionary.Lookup(
+                Map.of("amazon", "Shopping"),
+                Map.of("amazon prime video", "Subscriptions", "amazon", "Online", "uber", "Transport"));
+        assertEquals("Subscriptions", lookup.category("Amazon Prime Video"));
+        assertEquals("Shopping", lookup.category("Amazon  Mktp In"));
+        assertEquals("Transport", lookup.category("UBER"));
+        assertNull(lookup.category("Ub"));
+        assertNull(lookup.category("Swiggy"));
+        assertNull(lookup.category(null));
+    }
+
+    @Test
+    void dominantCategoryNeedsCountAndShare(){
+        assertEquals("Food", MerchantCategoryDictionary.dominant(Map.of("Food", 8L, "Travel", 2L), 3, 0.8));
+        assertNull(MerchantCategoryDictionary.dominant(Map.of("Food", 7L, "Travel", 3L), 3, 0.8));
+        assertNull(MerchantCategoryDictionary.dominant(Map.of("Food", 2L), 3, 0.8));
+    }
+
+    @Test
+    void parserAppliesDictionaryBeforeExtractorCategory(){
+        MerchantCategoryDictionary dictionary = mock(MerchantCategoryDictionary.class);
+        when(dictionary.forUser(any())).thenReturn(new MerchantCategoryDictionary.Lookup(Map.of("upi coffee", "Dining"), Map.of()));
+        String raw = "[{\"date\":\"2024-03-01\",\"description\":\"UPI COFFEE 123456\",\"amount\":\"-120\",\"category\":\"Food\"}," +
+                "{\"date\":\"2024-03-02\",\"description\":\"RENT\",\"amount\":\"-900\",\"category\":\"Housing\"}]";
+
+        List<Transaction> parsed = new TransactionParser(dictionary).parse(raw, new User(), "HDFC");
+
+        assertEquals("Dining", parsed.get(0).getCategory());
+        assertEquals("Housing", parsed.get(1).getCategory());
+    }
+}
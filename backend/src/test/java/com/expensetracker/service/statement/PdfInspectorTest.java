@@ -0,0 +1,86 @@
+package com.expensetracker.service.statement;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.encryption.AccessPermission;
+import org.apache.pdfbox.pdmodel.encryption.StandardProtectionPolicy;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PdfInspectorTest {
+    @TempDir
+    Path dir;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final PdfInspector inspector = new PdfInspector(registry, 100);
+
+    @Test
+    void textPdfIsInspectedFromTrailerAndCachedByHash() throws IOException {
+        File pdf = write("text.pdf", 3, true, null);
+
+        PdfInspector.Info info = inspector.inspect(pdf, null);
+        assertEquals(3, info.pages());
+        assertFalse(info.encrypted());
+        assertTrue(info.textLayer());
+        assertEquals(64, info.sha256().length());
+        assertEquals(1.0, registry.counter("app.pdf.inspect", "path", "light").count());
+
+        assertEquals(info, inspector.inspect(pdf, null));
+        assertEquals(1.0, registry.counter("app.pdf.inspect", "path", "cache").count());
+    }
+
+    @Test
+    void pdfWithoutFontsIsScanned() throws IOException {
+        PdfInspector.Info info = inspector.inspect(write("scan.pdf", 2, false, null), null);
+        assertEquals(2, info.pages());
+        assertFalse(info.textLayer());
+    }
+
+    @Test
+    void encryptedPdfNeedsTheRightPassword() throws IOException {
+        File pdf = write("locked.pdf", 2, true, "secret");
+
+        assertThrows(IOException.class, () -> inspector.inspect(pdf, "wrong"));
+        PdfInspector.Info info = inspector.inspect(pdf, "secret");
+        assertTrue(info.encrypted());
+        assertEquals(2, info.pages());
+        assertEquals(1.0, registry.counter("app.pdf.inspect", "path", "full").count());
+        assertThrows(IOException.class, () -> inspector.inspect(pdf, "wrong"), "cached result is keyed by password");
+    }
+
+    private File write(String name, int pages, boolean text, String password) throws IOException {
+        File file = dir.resolve(name).toFile();
+        try (PDDocument doc = new PDDocument()) {
+            for (int i = 0; i < pages; i++) {
+                PDPage page = new PDPage();
+                doc.addPage(page);
+                try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                    if (text) {
+                        cs.beginText();
+                        cs.setFont(PDType1Font.HELVETICA, 12);
+                        cs.newLineAtOffset(50, 700);
+                        cs.showText("01/03/2024 UPI COFFEE -120.00");
+                        cs.endText();
+                    } else {
+                        cs.addRect(50, 50, 100, 100);
+                        cs.fill();
+                    }
+                }
+            }
+            if (password != null) {
+                doc.protect(new StandardProtectionPolicy(password, password, new AccessPermission()));
+            }
+            doc.save(file);
+        }
+        return file;
+    }
+}
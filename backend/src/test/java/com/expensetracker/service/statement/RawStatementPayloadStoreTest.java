@@ -0,0 +1,22 @@
+package com.expensetracker.service.statement;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RawStatementPayloadStoreTest {
+
+    @Test
+    void gzipRoundTripShrinksTypicalPayload(){
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 500; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"date\":\"2024-04-").append(10 + i % 20).append("\",\"description\":\"UPI/PAYTM/₹ merchant ").append(i % 37)
+                .append("\",\"amount\":-").append(100 + i).append(",\"bankName\":\"HDFC\"}");
+        }
+        String payload = json.append(']').toString();
+        byte[] gz = RawStatementPayloadStore.gzip(payload);
+        assertEquals(payload, RawStatementPayloadStore.gunzip(gz));
+        assertTrue(gz.length * 5 < payload.length(), "expected at least 5x compression, got " + payload.length() + " -> " + gz.length);
+    }
+}
@@ -0,0 +1,91 @@
+package com.expensetracker.service.statement;
+
+import com.expensetracker.model.RawStatement;
+import com.expensetracker.model.User;
+import com.expensetracker.repository.RawStatementRepository;
+import com.expensetracker.support.RecordingTransactionManager;
+import com.expensetracker.util.AppConstants;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RawStatementPersisterTest {
+    static final String JSON = "[{\"bankName\":\"HDFC\"}]";
+
+    RawStatementRepository repository = mock(RawStatementRepository.class);
+    RawStatementPayloadStore payloadStore = mock(RawStatementPayloadStore.class);
+    @SuppressWarnings("unchecked")
+    ObjectProvider<RawStatementPayloadBackfill> backfill = mock(ObjectProvider.class);
+    RecordingTransactionManager transactionManager = new RecordingTransactionManager();
+    RawStatementPersister persister = new RawStatementPersister(repository, payloadStore, backfill, transactionManager);
+    List<String> writes = new ArrayList<>();
+
+    private RawStatement persistInUpload() {
+        when(payloadStore.offloads()).thenReturn(true);
+        when(repository.save(any(RawStatement.class))).thenAnswer(inv -> {
+            RawStatement rs = inv.getArgument(0);
+            rs.setId(11L);
+            return rs;
+        });
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            RawStatement saved = persister.persist(new User(), "s.pdf", JSON, 2, null, "ab12");
+            assertTrue(writes.isEmpty(), "nothing is offloaded before the upload commits");
+            return saved;
+        });
+    }
+
+    @Test
+    void payloadIsOffloadedInItsOwnTransactionAfterTheUploadCommits(){
+        when(payloadStore.write(any(RawStatement.class), eq(JSON))).thenAnswer(inv -> {
+            writes.add(RecordingTransactionManager.current());
+            return RawStatementPayloadStore.REF_TABLE;
+        });
+
+        RawStatement saved = persistInUpload();
+
+        assertEquals(JSON, saved.getRawJson(), "the upload commits the payload inline");
+        assertEquals(List.of("tx2"), writes);
+        verify(repository).markOffloaded(11L, RawStatementPayloadStore.REF_TABLE);
+        assertEquals(List.of("begin tx1", "commit tx1", "begin tx2", "commit tx2"), transactionManager.events);
+        verify(backfill, never()).ifAvailable(any());
+    }
+
+    @Test
+    void failedOffloadKeepsTheCommittedUploadAndRearmsTheBackfill(){
+        when(payloadStore.write(any(RawStatement.class), eq(JSON))).thenThrow(new IllegalStateException("payload table unavailable"));
+
+        persistInUpload();
+
+        assertEquals(List.of("begin tx1", "commit tx1", "begin tx2", "rollback tx2"), transactionManager.events);
+        verify(repository, never()).markOffloaded(any(), any());
+        verify(backfill).ifAvailable(any());
+    }
+
+    @Test
+    void metadataIsDerivedOnce(){
+        RawStatement rs = new RawStatement();
+        RawStatementPersister.applyMetadata(rs, "[{\"bankName\":\"HDFC\",\"warnings\":[\"w1\"]},{\"warnings\":[\"w2\",\"w3\"]},{}]");
+        assertEquals(AppConstants.STATUS_COMPLETED, rs.getParseStatus());
+        assertEquals("HDFC", rs.getBankName());
+        assertEquals(3, rs.getTransactionCount());
+        assertEquals(3, rs.getWarningCount());
+        assertEquals("[\"w1\",\"w2\",\"w3\"]", rs.getParseWarnings());
+    }
+
+    @Test
+    void unparseableOutputIsMarkedFailed(){
+        RawStatement rs = new RawStatement();
+        RawStatementPersister.applyMetadata(rs, "not json");
+        assertEquals(AppConstants.STATUS_FAILED, rs.getParseStatus());
+        assertNull(rs.getTransactionCount());
+        assertNull(rs.getParseWarnings());
+    }
+}
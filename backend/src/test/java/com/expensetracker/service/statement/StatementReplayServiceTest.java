@@ -0,0 +1,99 @@
+package com.expensetracker.service.statement;
+
+import com.expensetracker.model.Transaction;
+import com.expensetracker.model.User;
+import com.expensetracker.util.MerchantNormalizer;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StatementReplayServiceTest {
+    private static final String RAW = "[{\"date\":\"2024-03-01\",\"description\":\"UPI COFFEE\",\"amount\":\"-120.00\",\"balance\":\"880\",\"category\":\"Food\"}," +
+            "{\"date\":\"2024-03-01\",\"description\":\"UPI COFFEE\",\"amount\":\"-120.00\",\"balance\":\"880\",\"category\":\"Food\"}," +
+            "{\"date\":\"2024-03-02\",\"description\":\"SALARY\",\"amount\":\"1,000.00\",\"balance\":\"1880\"}]";
+
+    private final TransactionParser parser = new TransactionParser(noDictionary());
+
+    @Test
+    void hashesAreStableAndDistinctPerOccurrenceAndStatement(){
+        List<Transaction> a = parser.parse(RAW, new User(), "HDFC", 7L);
+        List<Transaction> again = parser.parse(RAW, new User(), "HDFC", 7L);
+        List<Transaction> other = parser.parse(RAW, new User(), "HDFC", 8L);
+        assertEquals(64, a.get(0).getTxnHash().length());
+        assertNotEquals(a.get(0).getTxnHash(), a.get(1).getTxnHash());
+        assertEquals(a.get(2).getTxnHash(), again.get(2).getTxnHash());
+        assertNotEquals(a.get(2).getTxnHash(), other.get(2).getTxnHash());
+        assertEquals(7L, a.get(0).getRawStatementId());
+        assertNull(parser.parse(RAW, new User(), "HDFC").get(0).getTxnHash());
+    }
+
+    @Test
+    void linkedRowsAreUpdatedOnlyWhenDerivedValuesChanged(){
+        List<Transaction> parsed = parser.parse(RAW, new User(), "HDFC", 7L);
+        List<StatementReplayService.Row> linked = List.of(
+                row(1, parsed.get(0).getTxnHash(), "2024-03-01", "UPI COFFEE", "-120", "Food"),
+                row(2, parsed.get(1).getTxnHash(), "2024-03-01", "UPI COFFEE", "-120", "Food"),
+                row(3, parsed.get(2).getTxnHash(), "2024-03-02", "SALARY", "0", "Income"),
+                row(4, "gone", "2024-03-03", "DUPLICATE", "-5", "Unknown"));
+
+        StatementReplayService.Plan plan = StatementReplayService.plan(parsed, linked, List.of(), true, false);
+
+        assertEquals(2, plan.unchanged);
+        assertEquals(1, plan.updates.size());
+        StatementReplayService.Update u = plan.updates.get(0);
+        assertEquals(3L, u.before().id());
+        assertEquals(0, new BigDecimal("1000").compareTo(u.after().getAmount()));
+        assertEquals("Income", u.after().getCategory(), "user-assigned category survives the replay");
+        assertTrue(plan.inserts.isEmpty());
+        assertEquals(List.of(4L), plan.deletes.stream().map(StatementReplayService.Row::id).toList());
+        assertTrue(StatementReplayService.plan(parsed, linked, List.of(), false, false).deletes.isEmpty());
+    }
+
+    @Test
+    void legacyRowsAreAdoptedOnceAndTheRestInserted(){
+        List<Transaction> parsed = parser.parse(RAW, new User(), "HDFC", 7L);
+        List<StatementReplayService.Row> legacy = List.of(
+                row(10, null, "2024-03-01", "upi coffee ", "-120.0", "Food"),
+                row(11, null, "2024-03-02", "SALARY", "0", "Unknown"));
+
+        StatementReplayService.Plan plan = StatementReplayService.plan(parsed, List.of(), legacy, true, false);
+
+        assertEquals(2, plan.updates.size());
+        assertTrue(plan.updates.stream().allMatch(StatementReplayService.Update::adopted));
+        assertEquals(List.of(10L, 11L), plan.updates.stream().map(u -> u.before().id()).sorted().toList());
+        assertEquals(1, plan.inserts.size(), "second identical coffee row has no legacy row left");
+        assertNull(plan.inserts.get(0).getId());
+        assertTrue(plan.deletes.isEmpty());
+    }
+
+    @Test
+    void withoutBankOnlyExactLegacyMatchesAreAdopted(){
+        List<Transaction> parsed = parser.parse(RAW, new User(), "HDFC", 7L);
+        List<StatementReplayService.Row> legacy = List.of(
+                row(10, null, "2024-03-01", "upi coffee ", "-120.0", "Food"),
+                row(11, null, "2024-03-02", "SALARY", "0", "Unknown"));
+
+        StatementReplayService.Plan plan = StatementReplayService.plan(parsed, List.of(), legacy, true, false, true);
+
+        assertEquals(List.of(10L), plan.updates.stream().map(u -> u.before().id()).toList());
+        assertEquals(2, plan.inserts.size());
+    }
+
+    static MerchantCategoryDictionary noDictionary() {
+        MerchantCategoryDictionary dictionary = mock(MerchantCategoryDictionary.class);
+        when(dictionary.forUser(any())).thenReturn(MerchantCategoryDictionary.Lookup.EMPTY);
+        return dictionary;
+    }
+
+    private static StatementReplayService.Row row(long id, String hash, String date, String description, String amount, String category) {
+        return new StatementReplayService.Row(id, hash, LocalDate.parse(date), description, MerchantNormalizer.normalize(description), new BigDecimal(amount),
+                new BigDecimal(description.startsWith("SALARY") ? "1880" : "880"), category, "HDFC");
+    }
+}
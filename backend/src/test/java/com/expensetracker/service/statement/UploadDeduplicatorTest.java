@@ -0,0 +1,104 @@
+package com.expensetracker.service.statement;
+
+import com.expensetracker.dto.StatementUploadResponseDto;
+import com.expensetracker.model.StatementJob;
+import com.expensetracker.model.User;
+import com.expensetracker.repository.RawStatementRepository;
+import com.expensetracker.repository.StatementJobRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class UploadDeduplicatorTest {
+    static final String SHA = "ab12";
+
+    RawStatementRepository rawStatements = mock(RawStatementRepository.class);
+    StatementJobRepository jobs = mock(StatementJobRepository.class);
+    UploadDeduplicator deduplicator;
+    User user;
+
+    @BeforeEach void setup(){
+        deduplicator = new UploadDeduplicator(rawStatements, jobs, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(deduplicator, "enabled", true);
+        ReflectionTestUtils.setField(deduplicator, "windowHours", 24L);
+        ReflectionTestUtils.setField(deduplicator, "staleMinutes", 30L);
+        user = new User(); user.setId(3L);
+        when(rawStatements.findIdsByContent(eq(user), eq(SHA), any(LocalDateTime.class))).thenReturn(List.of());
+    }
+
+    private void storedJobs(StatementJob... stored){
+        when(jobs.findByUserAndContentSha256AndCreatedAtAfterOrderByCreatedAtDesc(eq(user), eq(SHA), any(LocalDateTime.class))).thenReturn(List.of(stored));
+    }
+
+    private static StatementJob job(String id, StatementJob.Status status, LocalDateTime createdAt, LocalDateTime startedAt){
+        StatementJob j = new StatementJob(); j.setId(id); j.setStatus(status); j.setCreatedAt(createdAt); j.setStartedAt(startedAt);
+        return j;
+    }
+
+    @Test
+    void completedJobIsReturnedAsDuplicate(){
+        StatementJob done = job("j1", StatementJob.Status.COMPLETED, LocalDateTime.now().minusHours(3), LocalDateTime.now().minusHours(3));
+        done.setRawStatementId(42L);
+        storedJobs(done);
+
+        StatementUploadResponseDto dup = deduplicator.claimOrExisting(user, SHA);
+
+        assertTrue(dup.isDuplicate());
+        assertEquals("j1", dup.getJobId());
+        assertEquals(42L, dup.getRawStatementId());
+    }
+
+    @Test
+    void failedAndStaleJobsDoNotBlockTheFile(){
+        LocalDateTime now = LocalDateTime.now();
+        storedJobs(job("failed", StatementJob.Status.FAILED, now.minusMinutes(5), now.minusMinutes(5)),
+                job("stuck", StatementJob.Status.RUNNING, now.minusHours(2), now.minusHours(2)),
+                job("lost", StatementJob.Status.PENDING, now.minusHours(1), null));
+
+        assertNull(deduplicator.claimOrExisting(user, SHA));
+
+        storedJobs(job("live", StatementJob.Status.RUNNING, now.minusHours(2), now.minusMinutes(5)));
+        assertEquals("live", deduplicator.claimOrExisting(user, SHA).getJobId());
+    }
+
+    @Test
+    void concurrentRepeatSeesTheClaimAndItsJobUntilRollbackReleasesIt(){
+        storedJobs();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertNull(deduplicator.claimOrExisting(user, SHA));
+
+            StatementUploadResponseDto inFlight = deduplicator.claimOrExisting(user, SHA);
+            assertEquals(UploadDeduplicator.MSG_IN_FLIGHT, inFlight.getMessage());
+            assertNull(inFlight.getJobId());
+
+            deduplicator.attachJob(user, SHA, "j9");
+            assertEquals("j9", deduplicator.claimOrExisting(user, SHA).getJobId());
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertNull(deduplicator.claimOrExisting(user, SHA));
+    }
+
+    @Test
+    void attachJobWithoutClaimIsIgnored(){
+        storedJobs();
+        deduplicator.attachJob(user, SHA, "j9");
+
+        assertNull(deduplicator.claimOrExisting(user, SHA));
+    }
+}
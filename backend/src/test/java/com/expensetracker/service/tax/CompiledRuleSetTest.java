@@ -0,0 +1,80 @@
+package com.expensetracker.service.tax;
+
+import com.expensetracker.model.TaxDeductionRule;
+import com.expensetracker.model.TaxDeductionRule.MatchType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.expensetracker.service.tax.TaxAutoClassifierTest.rule;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledRuleSetTest {
+
+    @Test
+    void firstRuleInPriorityOrderWinsAcrossMatchTypes(){
+        List<TaxDeductionRule> rules = List.of(
+                rule(1, MatchType.AMOUNT_RANGE, "10000:", "BIG"),
+                rule(2, MatchType.DESCRIPTION_REGEX, "premium|LIC", "80C"),
+                rule(3, MatchType.CATEGORY, "Insurance", "80D"),
+                rule(4, MatchType.DESCRIPTION_REGEX, "pol(icy|\\d+)", "POL"),
+                rule(5, MatchType.MERCHANT, "hdfc", "BANK"));
+        CompiledRuleSet set = CompiledRuleSet.compile(rules);
+
+        assertEquals("BIG", set.firstMatch("LIC premium", new BigDecimal("-25000"), "Insurance", "HDFC").getTaxCategoryCode());
+        assertEquals("80C", set.firstMatch("Paid lic PREMIUM", new BigDecimal("-2500"), "Insurance", "HDFC").getTaxCategoryCode());
+        assertEquals("80D", set.firstMatch("Health cover", new BigDecimal("-2500"), "insurance", "HDFC").getTaxCategoryCode());
+        assertEquals("POL", set.firstMatch("POL42 renewal", new BigDecimal("-2500"), null, "HDFC").getTaxCategoryCode());
+        assertEquals("BANK", set.firstMatch("fee", new BigDecimal("-25"), null, "Hdfc").getTaxCategoryCode());
+        assertNull(set.firstMatch("coffee", new BigDecimal("-4"), "Food", "ICICI"));
+    }
+
+    @Test
+    void invalidRulesAreSkipped(){
+        CompiledRuleSet set = CompiledRuleSet.compile(List.of(
+                rule(1, MatchType.DESCRIPTION_REGEX, "(unclosed", "BAD"),
+                rule(2, MatchType.AMOUNT_RANGE, "abc:def", "BAD"),
+                rule(3, MatchType.DESCRIPTION_REGEX, "unclosed", "OK")));
+        assertEquals("OK", set.firstMatch("(unclosed", BigDecimal.ONE, null, null).getTaxCategoryCode());
+    }
+
+    @Test
+    void literalDetection(){
+        assertEquals(List.of("lic", "life insurance"), CompiledRuleSet.literalAlternatives("lic|life insurance"));
+        assertNull(CompiledRuleSet.literalAlternatives("lic|"));
+        assertNull(CompiledRuleSet.literalAlternatives("^lic"));
+        assertNull(CompiledRuleSet.literalAlternatives("a.b"));
+    }
+
+    @Test
+    void agreesWithSequentialEvaluation(){
+        String[] words = {"rent", "lic", "nps", "donation", "tuition", "medical", "she", "he", "hers", "his"};
+        Random rnd = new Random(42);
+        List<TaxDeductionRule> rules = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            MatchType type = MatchType.values()[rnd.nextInt(MatchType.values().length)];
+            String value = switch (type) {
+                case CATEGORY, MERCHANT -> words[rnd.nextInt(words.length)].toUpperCase();
+                case DESCRIPTION_REGEX -> rnd.nextBoolean() ? words[rnd.nextInt(words.length)] + "|" + words[rnd.nextInt(words.length)]
+                        : words[rnd.nextInt(words.length)] + "\\s*\\d+";
+                case AMOUNT_RANGE -> rnd.nextInt(500) + ":" + (500 + rnd.nextInt(5000));
+            };
+            rules.add(rule(i, type, value, "C" + i));
+        }
+        CompiledRuleSet set = CompiledRuleSet.compile(rules);
+        for (int n = 0; n < 5_000; n++) {
+            String description = words[rnd.nextInt(words.length)].toUpperCase() + " " + words[rnd.nextInt(words.length)] + " " + rnd.nextInt(100);
+            BigDecimal amount = BigDecimal.valueOf(-rnd.nextInt(8000));
+            String category = words[rnd.nextInt(words.length)];
+            String merchant = rnd.nextBoolean() ? null : words[rnd.nextInt(words.length)];
+            TaxDeductionRule expected = null;
+            for (TaxDeductionRule r : rules) {
+                if (TaxRuleEvaluator.evaluate(r.getMatchType(), r.getMatchValue(), description, amount, category, merchant)) { expected = r; break; }
+            }
+            assertSame(expected, set.firstMatch(description, amount, category, merchant), description);
+        }
+    }
+}
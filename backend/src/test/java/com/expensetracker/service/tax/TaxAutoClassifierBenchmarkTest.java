@@ -0,0 +1,86 @@
+package com.expensetracker.service.tax;
+
+import com.expensetracker.model.TaxDeductionRule;
+import com.expensetracker.model.User;
+import com.expensetracker.repository.TransactionRepository;
+import com.expensetracker.repository.TransactionRepository.TaxCandidate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Database round trips for classifying one tax year (~100 outflows a day) with the keyset/batch pipeline,
+ * compared with the previous per-row path (range query, two existence checks per outflow, one save per match).
+ * Each round trip is charged a fixed simulated latency. Run with:
+ * mvn test -Dtest=TaxAutoClassifierBenchmarkTest -Dbench=true
+ */
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+class TaxAutoClassifierBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(TaxAutoClassifierBenchmarkTest.class);
+
+    private static final int TRANSACTIONS = 36_500;
+    private static final long ROUND_TRIP_MICROS = 300;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void fullYear() {
+        String[] descriptions = {"LIC premium", "Grocery store", "Fuel", "Donation to trust", "Restaurant", "Electricity bill"};
+        String[] categories = {"Insurance", "Groceries", "Transport", "Charity", "Food", "Utilities"};
+        List<TaxCandidate> year = new ArrayList<>(TRANSACTIONS);
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            int k = i % descriptions.length;
+            year.add(TaxAutoClassifierTest.candidate(i + 1, descriptions[k] + " #" + i, "-" + (100 + i % 5000), categories[k]));
+        }
+        CompiledRuleSet rules = CompiledRuleSet.compile(List.of(
+                TaxAutoClassifierTest.rule(1, TaxDeductionRule.MatchType.DESCRIPTION_REGEX, "lic|insurance", "80C"),
+                TaxAutoClassifierTest.rule(2, TaxDeductionRule.MatchType.CATEGORY, "Charity", "80G"),
+                TaxAutoClassifierTest.rule(3, TaxDeductionRule.MatchType.AMOUNT_RANGE, "4900:5000", "OTHER")));
+
+        AtomicInteger roundTrips = new AtomicInteger();
+        TransactionRepository txRepo = mock(TransactionRepository.class);
+        when(txRepo.findTaxCandidates(any(), any(), any(), anyLong(), any(Pageable.class))).thenAnswer(inv -> {
+            roundTrip(roundTrips);
+            long afterId = inv.getArgument(3);
+            int size = inv.<Pageable>getArgument(4).getPageSize();
+            int from = (int) Math.min(afterId, TRANSACTIONS);
+            return year.subList(from, Math.min(from + size, TRANSACTIONS));
+        });
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        when(jdbc.batchUpdate(anyString(), anyCollection(), anyInt(), any())).thenAnswer(inv -> {
+            roundTrip(roundTrips);
+            return new int[0][];
+        });
+        TaxAutoClassifier classifier = new TaxAutoClassifier(txRepo, jdbc);
+        User user = new User();
+        user.setId(1L);
+
+        long start = System.nanoTime();
+        int created = classifier.classifyRange(user, rules, LocalDate.of(2024, 4, 1), LocalDate.of(2025, 3, 31));
+        double batchMs = (System.nanoTime() - start) / 1e6;
+
+        int perRowTrips = 1 + 2 * TRANSACTIONS + created;
+        double perRowMs = perRowTrips * ROUND_TRIP_MICROS / 1000.0;
+        log.info("classify {} outflows, {} matches: per-row={} round trips (~{} ms), batched={} round trips ({} ms)",
+                TRANSACTIONS, created, perRowTrips, Math.round(perRowMs), roundTrips.get(), Math.round(batchMs));
+        assertTrue(roundTrips.get() < perRowTrips / 100);
+    }
+
+    private static void roundTrip(AtomicInteger counter) {
+        counter.incrementAndGet();
+        long until = System.nanoTime() + ROUND_TRIP_MICROS * 1000;
+        while (System.nanoTime() < until) Thread.onSpinWait();
+    }
+}
@@ -0,0 +1,106 @@
+package com.expensetracker.service.tax;
+
+import com.expensetracker.model.TaxDeductionRule;
+import com.expensetracker.model.Transaction;
+import com.expensetracker.model.User;
+import com.expensetracker.repository.TransactionRepository;
+import com.expensetracker.repository.TransactionRepository.TaxCandidate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TaxAutoClassifierTest {
+    TransactionRepository txRepo = mock(TransactionRepository.class);
+    JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    TaxAutoClassifier classifier;
+    User user;
+
+    static TaxCandidate candidate(long id, String description, String amount, String category){
+        return new TaxCandidate(){
+            public Long getId(){return id;} public LocalDate getDate(){return LocalDate.of(2024, 4, 1);}
+            public String getDescription(){return description;} public BigDecimal getAmount(){return new BigDecimal(amount);}
+            public String getCategory(){return category;} public String getBankName(){return "HDFC";}
+        };
+    }
+
+    static TaxDeductionRule rule(long id, TaxDeductionRule.MatchType type, String value, String code){
+        TaxDeductionRule r = new TaxDeductionRule();
+        r.setId(id); r.setMatchType(type); r.setMatchValue(value); r.setTaxCategoryCode(code);
+        return r;
+    }
+
+    @BeforeEach void setup(){
+        classifier = new TaxAutoClassifier(txRepo, jdbc);
+        ReflectionTestUtils.setField(classifier, "chunkSize", 2);
+        user = new User(); user.setId(7L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void walksKeysetChunksAndBatchInsertsMatches(){
+        LocalDate start = LocalDate.of(2024, 4, 1), end = LocalDate.of(2025, 3, 31);
+        when(txRepo.findTaxCandidates(eq(user), eq(start), eq(end), eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(candidate(3, "LIC premium", "-1200", "Insurance"), candidate(5, "Coffee", "-4", "Food")));
+        when(txRepo.findTaxCandidates(eq(user), eq(start), eq(end), eq(5L), any(Pageable.class)))
+                .thenReturn(List.of(candidate(9, "Donation to PM CARES", "-500", "Charity")));
+        CompiledRuleSet rules = CompiledRuleSet.compile(List.of(
+                rule(1, TaxDeductionRule.MatchType.DESCRIPTION_REGEX, "lic|insurance", "80C"),
+                rule(2, TaxDeductionRule.MatchType.CATEGORY, "charity", "80G")));
+
+        int created = classifier.classifyRange(user, rules, start, end);
+
+        assertEquals(2, created);
+        // the short second chunk ends the scan without a third query
+        verify(txRepo, times(2)).findTaxCandidates(any(), any(), any(), anyLong(), any(Pageable.class));
+        verify(jdbc, times(2)).batchUpdate(eq(TaxAutoClassifier.INSERT_SQL), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    void noRulesMeansNoQueries(){
+        assertEquals(0, classifier.classifyRange(user, CompiledRuleSet.EMPTY, null, null));
+        verifyNoInteractions(txRepo, jdbc);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void chunkWithoutMatchesSkipsInsert(){
+        when(txRepo.findTaxCandidates(eq(user), isNull(), isNull(), eq(0L), any(Pageable.class)))
+                .thenReturn(new ArrayList<>(List.of(candidate(1, "Coffee", "-4", "Food"))));
+        int created = classifier.classifyRange(user, CompiledRuleSet.compile(List.of(rule(1, TaxDeductionRule.MatchType.CATEGORY, "Charity", "80G"))), null, null);
+        assertEquals(0, created);
+        verify(jdbc, never()).batchUpdate(anyString(), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void classifiesOnlyNewOutflowsWithoutQueries(){
+        CompiledRuleSet rules = CompiledRuleSet.compile(List.of(rule(1, TaxDeductionRule.MatchType.DESCRIPTION_REGEX, "premium", "80C")));
+        List<Transaction> saved = List.of(
+                tx(11L, "LIC premium", "-1200"),
+                tx(12L, "Premium refund", "300"),
+                tx(null, "premium (unsaved)", "-50"));
+
+        assertEquals(1, classifier.classifyNew(user, rules, saved));
+        verifyNoInteractions(txRepo);
+        verify(jdbc).batchUpdate(eq(TaxAutoClassifier.INSERT_SQL), anyCollection(), eq(1), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    private static Transaction tx(Long id, String description, String amount){
+        Transaction t = new Transaction();
+        t.setId(id); t.setDescription(description); t.setAmount(new BigDecimal(amount)); t.setDate(LocalDate.of(2024, 6, 1));
+        return t;
+    }
+}
@@ -0,0 +1,82 @@
+package com.expensetracker.support;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resource-less {@link AbstractPlatformTransactionManager} for unit tests: runs Spring's real propagation and
+ * synchronization logic (REQUIRES_NEW suspension, afterCommit callbacks, rollback on exceptions) without a database,
+ * and records which transactions were begun, committed and rolled back. Nested transactions are rejected, as with
+ * Boot's JpaTransactionManager.
+ */
+public class RecordingTransactionManager extends AbstractPlatformTransactionManager {
+    private static final Object KEY = new Object();
+
+    public final List<String> events = new ArrayList<>();
+    private int next;
+
+    private static final class Tx {
+        String name;
+    }
+
+    public RecordingTransactionManager() {
+        setNestedTransactionAllowed(false);
+    }
+
+    /** Name of the transaction bound to the current thread ("tx1", "tx2", ...), or null. */
+    public static String current() {
+        Object name = TransactionSynchronizationManager.getResource(KEY);
+        return name != null ? (String) name : null;
+    }
+
+    @Override
+    protected Object doGetTransaction() {
+        Tx tx = new Tx();
+        tx.name = current();
+        return tx;
+    }
+
+    @Override
+    protected boolean isExistingTransaction(Object transaction) {
+        return ((Tx) transaction).name != null;
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        Tx tx = (Tx) transaction;
+        tx.name = "tx" + (++next);
+        TransactionSynchronizationManager.bindResource(KEY, tx.name);
+        events.add("begin " + tx.name);
+    }
+
+    @Override
+    protected Object doSuspend(Object transaction) {
+        ((Tx) transaction).name = null;
+        return TransactionSynchronizationManager.unbindResource(KEY);
+    }
+
+    @Override
+    protected void doResume(Object transaction, Object suspendedResources) {
+        TransactionSynchronizationManager.bindResource(KEY, suspendedResources);
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+        events.add("commit " + ((Tx) status.getTransaction()).name);
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+        events.add("rollback " + ((Tx) status.getTransaction()).name);
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        TransactionSynchronizationManager.unbindResourceIfPossible(KEY);
+    }
+}
@@ -0,0 +1,23 @@
+package com.expensetracker.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MerchantNormalizerTest {
+
+    @Test
+    void cachedMatchesUncachedIncludingMisses(){
+        List<String> raw = List.of("POS: STARBUCKS STORE #12345", "online-AMAZON MKTP 998877", "UPI/SWIGGY/ref 4455",
+                "  debit   card  ", "1234567", "Netflix.com VISA");
+        for (String r : raw) {
+            assertEquals(MerchantNormalizer.normalize(r), MerchantNormalizer.normalizeCached(r), r);
+            assertEquals(MerchantNormalizer.normalize(r), MerchantNormalizer.normalizeCached(r), r + " (memoized)");
+        }
+        assertEquals("Starbucks", MerchantNormalizer.normalizeCached("POS: STARBUCKS STORE #12345"));
+        assertNull(MerchantNormalizer.normalizeCached(null));
+        assertNull(MerchantNormalizer.normalizeCached("   "));
+    }
+}
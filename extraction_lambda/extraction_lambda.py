@@ -299,11 +299,14 @@ def extract_transactions_from_pdf(pdf_path: str, password: Optional[str] = None)
     all_text = ""
     header_row = None
     first_pages_text = ""
+    # Set by the backend's PDF inspector: "0" = no fonts at all (scanned), so skip the text probe and OCR every page.
+    # "1" only means some page has fonts; pages whose text layer comes back empty are still OCR'd.
+    text_layer = os.environ.get("PDF_TEXT_LAYER")
 
     try:
         with pdfplumber.open(pdf_path, password=password) as pdf:
             for idx, page in enumerate(pdf.pages):
-                text = page.extract_text()
+                text = page.extract_text() if text_layer != "0" else None
                 if not text or not text.strip():
                     image = convert_from_path(pdf_path, first_page=page.page_number, last_page=page.page_number)[0]
                     processed_image = preprocess_image(image)